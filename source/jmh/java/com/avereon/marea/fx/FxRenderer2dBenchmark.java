@@ -0,0 +1,184 @@
+package com.avereon.marea.fx;
+
+import com.avereon.marea.Pen;
+import com.avereon.marea.Shape2d;
+import com.avereon.marea.geom.Ellipse;
+import com.avereon.marea.geom.Line;
+import com.avereon.marea.geom.Marker;
+import com.avereon.marea.geom.Path;
+import javafx.scene.paint.Color;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the FxRenderer2d draw methods. The canvas records the draw
+ * commands until the next pulse, so each invocation clears the canvas, which
+ * drops the recorded commands, and then draws a batch of shapes. The time is
+ * reported per shape, or per path for the path benchmarks.
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( value = 1, jvmArgsAppend = { "-Djava.awt.headless=true" } )
+public class FxRenderer2dBenchmark {
+
+	private static final int BATCH = 1000;
+
+	private FxRenderer2d renderer;
+
+	private Pen pen;
+
+	private List<Shape2d> lines;
+
+	private Path arcPath;
+
+	private Marker marker;
+
+	private double[] markerPositions;
+
+	private double[] markerRotations;
+
+	@Setup
+	public void setup() {
+		renderer = new FxRenderer2d( 1000, 1000 );
+		pen = new Pen( Color.BLACK, 0.01 );
+		renderer.setDrawPen( pen );
+		renderer.setFillPen( Color.BLACK );
+
+		lines = new ArrayList<>( BATCH );
+		for( int index = 0; index < BATCH; index++ ) {
+			lines.add( new Line( index * 0.01, 0, index * 0.01, 10 ) );
+		}
+
+		arcPath = new Path( 0, 0 );
+		for( int index = 0; index < BATCH; index++ ) {
+			arcPath.arc( index * 0.02 + 0.02, 0, 0.01, 0.01, 30, 0, index % 2 );
+		}
+
+		marker = new Marker( new Ellipse( 0, 0, 0.005, 0.005 ) );
+		markerPositions = new double[ 2 * BATCH ];
+		markerRotations = new double[ BATCH ];
+		for( int index = 0; index < BATCH; index++ ) {
+			markerPositions[ 2 * index ] = index * 0.01;
+			markerPositions[ 2 * index + 1 ] = index % 10;
+			markerRotations[ index ] = index % 360;
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation( BATCH )
+	public void drawLine() {
+		renderer.clear();
+		for( int index = 0; index < BATCH; index++ ) {
+			renderer.drawLine( index * 0.01, 0, index * 0.01, 10 );
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation( BATCH )
+	public void drawEllipseRotated() {
+		renderer.clear();
+		for( int index = 0; index < BATCH; index++ ) {
+			renderer.drawEllipse( index * 0.01, 0, 2, 1, 30 );
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation( BATCH )
+	public void drawArcRotated() {
+		renderer.clear();
+		for( int index = 0; index < BATCH; index++ ) {
+			renderer.drawArc( index * 0.01, 0, 2, 1, 30, 45, 270 );
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation( BATCH )
+	public void fillText() {
+		renderer.clear();
+		for( int index = 0; index < BATCH; index++ ) {
+			renderer.fillText( index * 0.01, 0, 0.5, 0, "PT-101", null );
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation( BATCH )
+	public void drawCollection() {
+		renderer.clear();
+		renderer.draw( lines, pen );
+	}
+
+	@Benchmark
+	@OperationsPerInvocation( BATCH )
+	public void fillEllipseMarkers() {
+		renderer.clear();
+		for( int index = 0; index < BATCH; index++ ) {
+			renderer.fillEllipse( markerPositions[ 2 * index ], markerPositions[ 2 * index + 1 ], 0.005, 0.005, 0 );
+		}
+	}
+
+	/**
+	 * Fill markers that are the same at every position, which copies a stamp.
+	 */
+	@Benchmark
+	@OperationsPerInvocation( BATCH )
+	public void fillMarkersStamped() {
+		renderer.clear();
+		renderer.fillMarkers( marker, markerPositions, null, null, BATCH, pen );
+	}
+
+	/**
+	 * Fill markers with a rotation for each position, which is one path.
+	 */
+	@Benchmark
+	@OperationsPerInvocation( BATCH )
+	public void fillMarkersRotated() {
+		renderer.clear();
+		renderer.fillMarkers( marker, markerPositions, markerRotations, null, BATCH, pen );
+	}
+
+	/**
+	 * Draw a path of arcs, which converts each arc from the endpoint form to the
+	 * center form.
+	 */
+	@Benchmark
+	@OperationsPerInvocation( BATCH )
+	public void runPathArc() {
+		renderer.clear();
+		renderer.draw( arcPath, pen );
+	}
+
+	/**
+	 * Draw paths with a number of line steps.
+	 */
+	@State( Scope.Thread )
+	public static class PathState {
+
+		@Param( { "1000", "10000", "100000", "1000000" } )
+		public int steps;
+
+		public List<Path.Step> path;
+
+		@Setup
+		public void setup() {
+			Path path = new Path( 0, 0 );
+			for( int index = 1; index < steps; index++ ) {
+				path.line( index * 1e-3, index % 2 );
+			}
+			this.path = path.getSteps();
+		}
+
+	}
+
+	@Benchmark
+	public void drawPath( PathState state ) {
+		renderer.clear();
+		renderer.drawPath( state.path );
+	}
+
+}
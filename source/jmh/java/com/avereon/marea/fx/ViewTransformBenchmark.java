@@ -0,0 +1,58 @@
+package com.avereon.marea.fx;
+
+import com.avereon.marea.ViewState;
+import javafx.geometry.Point2D;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the FxRenderer2d view transforms. Changing the view state
+ * updates the world transforms, so alternating between two view states
+ * measures the transform update.
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( value = 1, jvmArgsAppend = { "-Djava.awt.headless=true" } )
+public class ViewTransformBenchmark {
+
+	private FxRenderer2d renderer;
+
+	private ViewState viewA;
+
+	private ViewState viewB;
+
+	private boolean toggle;
+
+	private double x;
+
+	@Setup
+	public void setup() {
+		renderer = new FxRenderer2d( 1000, 1000 );
+		viewA = renderer.getViewState().withView( 1, 2, 30, 2, 2 );
+		viewB = viewA.withViewpoint( 2, 1 );
+		renderer.setViewState( viewA );
+	}
+
+	@Benchmark
+	public void updateWorldTransforms() {
+		toggle = !toggle;
+		renderer.setViewState( toggle ? viewA : viewB );
+	}
+
+	@Benchmark
+	public Point2D localToParent() {
+		x += 1e-3;
+		return renderer.localToParent( x, 2 );
+	}
+
+	@Benchmark
+	public Point2D parentToLocal() {
+		x += 1e-3;
+		return renderer.parentToLocal( x, 200 );
+	}
+
+}
@@ -0,0 +1,399 @@
+package com.avereon.marea;
+
+import javafx.beans.property.DoubleProperty;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.property.SimpleDoubleProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.geometry.Point2D;
+import javafx.geometry.Point3D;
+import javafx.scene.transform.Affine;
+import javafx.scene.transform.NonInvertibleTransformException;
+import javafx.scene.transform.Transform;
+
+/**
+ * A base class for 2D renderers that are not backed by a JavaFX node. This
+ * class maintains the view properties and the world transforms in the same
+ * way as the FX renderer so that renderers that do not have a canvas, like
+ * display lists and software renderers, behave the same way.
+ */
+public abstract class AbstractRenderer2d implements Renderer {
+
+	public static final RenderUnit DEFAULT_LENGTH_UNIT = ViewState.DEFAULT_LENGTH_UNIT;
+
+	public static final double DEFAULT_DPI = ViewState.DEFAULT_DPI;
+
+	public static final double DEFAULT_ZOOM = ViewState.DEFAULT_ZOOM;
+
+	public static final double DEFAULT_ZOOM_STEP_FACTOR = 0.1;
+
+	// Transforms ---------------------------------------------------------------
+
+	private Affine worldToScreenTransform = new Affine( Transform.scale( 1, -1 ) );
+
+	private Affine screenToWorldTransform = new Affine( Transform.scale( 1, -1 ) );
+
+	// Properties ---------------------------------------------------------------
+
+	private ViewState viewState;
+
+	private ReadOnlyObjectWrapper<ViewState> viewStateProperty;
+
+	private final DoubleProperty width;
+
+	private final DoubleProperty height;
+
+	private ObjectProperty<RenderUnit> lengthUnit;
+
+	private DoubleProperty dpiX;
+
+	private DoubleProperty dpiY;
+
+	private DoubleProperty zoomX;
+
+	private DoubleProperty zoomY;
+
+	private DoubleProperty zoomStep;
+
+	private DoubleProperty viewpointX;
+
+	private DoubleProperty viewpointY;
+
+	private DoubleProperty viewRotate;
+
+	protected AbstractRenderer2d() {
+		this( 0, 0 );
+	}
+
+	protected AbstractRenderer2d( double width, double height ) {
+		this.viewState = new ViewState( width, height );
+		this.width = new SimpleDoubleProperty( width );
+		this.height = new SimpleDoubleProperty( height );
+		this.width.addListener( ( p, o, n ) -> setViewState( viewState.withSize( n.doubleValue(), viewState.height() ) ) );
+		this.height.addListener( ( p, o, n ) -> setViewState( viewState.withSize( viewState.width(), n.doubleValue() ) ) );
+		updateWorldTransforms( viewState );
+	}
+
+	@Override
+	public double getWidth() {
+		return viewState.width();
+	}
+
+	@Override
+	public void setWidth( double width ) {
+		setViewState( viewState.withSize( width, viewState.height() ) );
+	}
+
+	@Override
+	public DoubleProperty widthProperty() {
+		return width;
+	}
+
+	@Override
+	public double getHeight() {
+		return viewState.height();
+	}
+
+	@Override
+	public void setHeight( double height ) {
+		setViewState( viewState.withSize( viewState.width(), height ) );
+	}
+
+	@Override
+	public DoubleProperty heightProperty() {
+		return height;
+	}
+
+	public void setSize( double width, double height ) {
+		setViewState( viewState.withSize( width, height ) );
+	}
+
+	@Override
+	public RenderUnit getLengthUnit() {
+		return viewState.lengthUnit();
+	}
+
+	@Override
+	public void setLengthUnit( RenderUnit unit ) {
+		setViewState( viewState.withLengthUnit( unit ) );
+	}
+
+	@Override
+	public ObjectProperty<RenderUnit> lengthUnitProperty() {
+		if( lengthUnit == null ) {
+			lengthUnit = new SimpleObjectProperty<>( viewState.lengthUnit() );
+			lengthUnit.addListener( ( p, o, n ) -> setViewState( viewState.withLengthUnit( n ) ) );
+		}
+		return lengthUnit;
+	}
+
+	@Override
+	public double getDpiX() {
+		return viewState.dpiX();
+	}
+
+	@Override
+	public void setDpiX( double dpiX ) {
+		setViewState( viewState.withDpi( dpiX, viewState.dpiY() ) );
+	}
+
+	@Override
+	public DoubleProperty dpiXProperty() {
+		if( dpiX == null ) {
+			dpiX = new SimpleDoubleProperty( viewState.dpiX() );
+			dpiX.addListener( ( p, o, n ) -> setViewState( viewState.withDpi( n.doubleValue(), viewState.dpiY() ) ) );
+		}
+		return dpiX;
+	}
+
+	@Override
+	public double getDpiY() {
+		return viewState.dpiY();
+	}
+
+	@Override
+	public void setDpiY( double dpiY ) {
+		setViewState( viewState.withDpi( viewState.dpiX(), dpiY ) );
+	}
+
+	@Override
+	public DoubleProperty dpiYProperty() {
+		if( dpiY == null ) {
+			dpiY = new SimpleDoubleProperty( viewState.dpiY() );
+			dpiY.addListener( ( p, o, n ) -> setViewState( viewState.withDpi( viewState.dpiX(), n.doubleValue() ) ) );
+		}
+		return dpiY;
+	}
+
+	@Override
+	public void setDpi( double dpiX, double dpiY ) {
+		setViewState( viewState.withDpi( dpiX, dpiY ) );
+	}
+
+	@Override
+	public double getZoomX() {
+		return viewState.zoomX();
+	}
+
+	@Override
+	public void setZoomX( double zoomX ) {
+		setViewState( viewState.withZoom( zoomX, viewState.zoomY() ) );
+	}
+
+	@Override
+	public DoubleProperty zoomXProperty() {
+		if( zoomX == null ) {
+			zoomX = new SimpleDoubleProperty( viewState.zoomX() );
+			zoomX.addListener( ( p, o, n ) -> setViewState( viewState.withZoom( n.doubleValue(), viewState.zoomY() ) ) );
+		}
+		return zoomX;
+	}
+
+	@Override
+	public double getZoomY() {
+		return viewState.zoomY();
+	}
+
+	@Override
+	public void setZoomY( double zoomY ) {
+		setViewState( viewState.withZoom( viewState.zoomX(), zoomY ) );
+	}
+
+	@Override
+	public DoubleProperty zoomYProperty() {
+		if( zoomY == null ) {
+			zoomY = new SimpleDoubleProperty( viewState.zoomY() );
+			zoomY.addListener( ( p, o, n ) -> setViewState( viewState.withZoom( viewState.zoomX(), n.doubleValue() ) ) );
+		}
+		return zoomY;
+	}
+
+	@Override
+	public void setZoom( double zoomX, double zoomY ) {
+		setViewState( viewState.withZoom( zoomX, zoomY ) );
+	}
+
+	@Override
+	public double getZoomStep() {
+		return zoomStep == null ? DEFAULT_ZOOM_STEP_FACTOR : zoomStep.get();
+	}
+
+	@Override
+	public void setZoomStep( double zoomStep ) {
+		zoomStepProperty().set( zoomStep );
+	}
+
+	@Override
+	public DoubleProperty zoomStepProperty() {
+		if( zoomStep == null ) zoomStep = new SimpleDoubleProperty( DEFAULT_ZOOM_STEP_FACTOR );
+		return zoomStep;
+	}
+
+	@Override
+	public double getViewpointX() {
+		return viewState.viewpointX();
+	}
+
+	@Override
+	public void setViewpointX( double viewpointX ) {
+		setViewState( viewState.withViewpoint( viewpointX, viewState.viewpointY() ) );
+	}
+
+	@Override
+	public DoubleProperty viewpointXProperty() {
+		if( viewpointX == null ) {
+			viewpointX = new SimpleDoubleProperty( viewState.viewpointX() );
+			viewpointX.addListener( ( p, o, n ) -> setViewState( viewState.withViewpoint( n.doubleValue(), viewState.viewpointY() ) ) );
+		}
+		return viewpointX;
+	}
+
+	@Override
+	public double getViewpointY() {
+		return viewState.viewpointY();
+	}
+
+	@Override
+	public void setViewpointY( double viewpointY ) {
+		setViewState( viewState.withViewpoint( viewState.viewpointX(), viewpointY ) );
+	}
+
+	@Override
+	public DoubleProperty viewpointYProperty() {
+		if( viewpointY == null ) {
+			viewpointY = new SimpleDoubleProperty( viewState.viewpointY() );
+			viewpointY.addListener( ( p, o, n ) -> setViewState( viewState.withViewpoint( viewState.viewpointX(), n.doubleValue() ) ) );
+		}
+		return viewpointY;
+	}
+
+	@Override
+	public void setViewpoint( double viewpointX, double viewpointY ) {
+		setViewState( viewState.withViewpoint( viewpointX, viewpointY ) );
+	}
+
+	@Override
+	public double getViewRotate() {
+		return viewState.viewRotate();
+	}
+
+	@Override
+	public void setViewRotate( double viewRotate ) {
+		setViewState( viewState.withViewRotate( viewRotate ) );
+	}
+
+	@Override
+	public DoubleProperty viewRotateProperty() {
+		if( viewRotate == null ) {
+			viewRotate = new SimpleDoubleProperty( viewState.viewRotate() );
+			viewRotate.addListener( ( p, o, n ) -> setViewState( viewState.withViewRotate( n.doubleValue() ) ) );
+		}
+		return viewRotate;
+	}
+
+	@Override
+	public void setZoomAt( double viewpointX, double viewpointY, double zoomX, double zoomY ) {
+		setViewState( viewState.withZoomAt( viewpointX, viewpointY, zoomX, zoomY ) );
+	}
+
+	public void setView( double viewpointX, double viewpointY, double rotate, double zoomX, double zoomY ) {
+		setViewState( viewState.withView( viewpointX, viewpointY, rotate, zoomX, zoomY ) );
+	}
+
+	@Override
+	public ViewState getViewState() {
+		return viewState;
+	}
+
+	@Override
+	public void setViewState( ViewState state ) {
+		ViewState prior = viewState;
+		if( state.equals( prior ) ) return;
+
+		updateWorldTransforms( state );
+		viewState = state;
+
+		// The individual properties see the complete new view
+		width.set( state.width() );
+		height.set( state.height() );
+		if( lengthUnit != null ) lengthUnit.set( state.lengthUnit() );
+		if( dpiX != null ) dpiX.set( state.dpiX() );
+		if( dpiY != null ) dpiY.set( state.dpiY() );
+		if( zoomX != null ) zoomX.set( state.zoomX() );
+		if( zoomY != null ) zoomY.set( state.zoomY() );
+		if( viewpointX != null ) viewpointX.set( state.viewpointX() );
+		if( viewpointY != null ) viewpointY.set( state.viewpointY() );
+		if( viewRotate != null ) viewRotate.set( state.viewRotate() );
+
+		if( viewStateProperty != null ) viewStateProperty.set( viewState );
+	}
+
+	@Override
+	public ReadOnlyObjectProperty<ViewState> viewStateProperty() {
+		if( viewStateProperty == null ) viewStateProperty = new ReadOnlyObjectWrapper<>( viewState );
+		return viewStateProperty.getReadOnlyProperty();
+	}
+
+	/**
+	 * Get a copy of the world to screen transform.
+	 *
+	 * @return A copy of the world to screen transform
+	 */
+	@Override
+	public Transform getWorldToScreenTransform() {
+		return worldToScreenTransform.clone();
+	}
+
+	/**
+	 * Get the world to screen transform without copying it. The transform is
+	 * replaced, not modified, when the view changes. The returned transform
+	 * must not be modified.
+	 *
+	 * @return The world to screen transform
+	 */
+	protected Affine getWorldToScreen() {
+		return worldToScreenTransform;
+	}
+
+	@Override
+	public Point2D localToParent( double x, double y ) {
+		return worldToScreenTransform.transform( x, y );
+	}
+
+	@Override
+	public Point3D localToParent( double x, double y, double z ) {
+		return worldToScreenTransform.transform( x, y, z );
+	}
+
+	/**
+	 * Get a copy of the screen to world transform.
+	 *
+	 * @return A copy of the screen to world transform, or null if the view
+	 * transform cannot be inverted
+	 */
+	@Override
+	public Transform getScreenToWorldTransform() {
+		return screenToWorldTransform == null ? null : screenToWorldTransform.clone();
+	}
+
+	@Override
+	public Point2D parentToLocal( double x, double y ) {
+		return screenToWorldTransform.transform( x, y );
+	}
+
+	@Override
+	public Point3D parentToLocal( double x, double y, double z ) {
+		return screenToWorldTransform.transform( x, y, z );
+	}
+
+	private void updateWorldTransforms( ViewState state ) {
+		worldToScreenTransform = state.createWorldToScreenTransform();
+		try {
+			screenToWorldTransform = worldToScreenTransform.createInverse();
+		} catch( NonInvertibleTransformException exception ) {
+			screenToWorldTransform = null;
+		}
+	}
+
+}
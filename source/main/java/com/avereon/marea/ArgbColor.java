@@ -0,0 +1,99 @@
+package com.avereon.marea;
+
+/**
+ * An immutable color stored as one packed ARGB value, with eight bits for each
+ * of the alpha, red, green and blue components. Packed colors are cheap to
+ * store, compare and hash, so they are a good key for caches and interned
+ * {@link Pen pens}. The colors are converted to FX colors with
+ * {@link #toFxColor()}, which should be done once, for example when a pen is
+ * {@link Pen#intern() interned}, and not for each draw.
+ *
+ * @param argb The packed ARGB value
+ */
+public record ArgbColor(int argb) {
+
+	public static final ArgbColor TRANSPARENT = new ArgbColor( 0x00000000 );
+
+	public static final ArgbColor BLACK = new ArgbColor( 0xff000000 );
+
+	public static final ArgbColor WHITE = new ArgbColor( 0xffffffff );
+
+	/**
+	 * Create an opaque color from the red, green and blue components.
+	 *
+	 * @param red The red component, from 0 to 255
+	 * @param green The green component, from 0 to 255
+	 * @param blue The blue component, from 0 to 255
+	 * @return The color
+	 */
+	public static ArgbColor of( int red, int green, int blue ) {
+		return of( red, green, blue, 255 );
+	}
+
+	/**
+	 * Create a color from the red, green, blue and alpha components. The
+	 * components are clamped to the range from 0 to 255.
+	 *
+	 * @param red The red component, from 0 to 255
+	 * @param green The green component, from 0 to 255
+	 * @param blue The blue component, from 0 to 255
+	 * @param alpha The alpha component, from 0 to 255
+	 * @return The color
+	 */
+	public static ArgbColor of( int red, int green, int blue, int alpha ) {
+		return new ArgbColor( clamp( alpha ) << 24 | clamp( red ) << 16 | clamp( green ) << 8 | clamp( blue ) );
+	}
+
+	/**
+	 * Create a color from an FX color. The components are rounded to eight
+	 * bits.
+	 *
+	 * @param color The FX color
+	 * @return The color
+	 */
+	public static ArgbColor of( javafx.scene.paint.Color color ) {
+		return of( toByte( color.getRed() ), toByte( color.getGreen() ), toByte( color.getBlue() ), toByte( color.getOpacity() ) );
+	}
+
+	public int alpha() {
+		return argb >>> 24;
+	}
+
+	public int red() {
+		return argb >> 16 & 0xff;
+	}
+
+	public int green() {
+		return argb >> 8 & 0xff;
+	}
+
+	public int blue() {
+		return argb & 0xff;
+	}
+
+	public boolean isOpaque() {
+		return alpha() == 255;
+	}
+
+	public ArgbColor withAlpha( int alpha ) {
+		return new ArgbColor( clamp( alpha ) << 24 | argb & 0x00ffffff );
+	}
+
+	public javafx.scene.paint.Color toFxColor() {
+		return javafx.scene.paint.Color.rgb( red(), green(), blue(), alpha() / 255.0 );
+	}
+
+	@Override
+	public String toString() {
+		return String.format( "#%08x", argb );
+	}
+
+	private static int clamp( int value ) {
+		return Math.max( 0, Math.min( 255, value ) );
+	}
+
+	private static int toByte( double value ) {
+		return (int)Math.round( value * 255 );
+	}
+
+}
@@ -1,12 +1,13 @@
 package com.avereon.marea;
 
 import com.avereon.curve.math.Point;
+import com.avereon.marea.fx.FxRenderScheduler;
 import com.avereon.marea.fx.FxRenderer2d;
 import com.avereon.marea.geom.*;
 import javafx.application.Application;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
-import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.StackPane;
 import javafx.scene.paint.Color;
 import javafx.stage.Screen;
 import javafx.stage.Stage;
@@ -35,27 +36,38 @@ public class Demo2d extends Application {
 		renderer.setDpi( dpi, dpi );
 		renderer.setZoom( 10, 10 );
 		renderer.setViewpoint( 0.5, 0.0 );
+		renderer.setLevelOfDetail( true );
+		renderer.setFlattenCurves( true );
 		//renderer.setViewRotate( 45 );
 
-		renderer.zoomXProperty().addListener( ( p, o, n ) -> staticRender( renderer ) );
-		renderer.zoomYProperty().addListener( ( p, o, n ) -> staticRender( renderer ) );
-		renderer.viewpointXProperty().addListener( ( p, o, n ) -> staticRender( renderer ) );
-		renderer.viewpointYProperty().addListener( ( p, o, n ) -> staticRender( renderer ) );
-		renderer.widthProperty().addListener( ( p, o, n ) -> staticRender( renderer ) );
-		renderer.heightProperty().addListener( ( p, o, n ) -> staticRender( renderer ) );
+		renderer.setPainter( this::staticRender );
 
-		Parent container = new BorderPane( renderer );
+		// Screen decorations are drawn on an overlay so they stay in place when
+		// the renderer shifts its pixels to pan the view
+		FxRenderer2d overlay = new FxRenderer2d( 960, 540 );
+		overlay.setMouseTransparent( true );
+		overlay.widthProperty().addListener( ( p, o, n ) -> drawRules( overlay ) );
+		overlay.heightProperty().addListener( ( p, o, n ) -> drawRules( overlay ) );
+
+		Parent container = new StackPane( renderer, overlay );
 		Scene scene = (new Scene( container, Color.NAVY ));
 		stage.setScene( scene );
 		stage.show();
 
-		scene.widthProperty().addListener( ( p, o, n ) -> renderer.setWidth( n.doubleValue() ) );
-		scene.heightProperty().addListener( ( p, o, n ) -> renderer.setHeight( n.doubleValue() ) );
+		scene.widthProperty().addListener( ( p, o, n ) -> {
+			renderer.setWidth( n.doubleValue() );
+			overlay.setWidth( n.doubleValue() );
+		} );
+		scene.heightProperty().addListener( ( p, o, n ) -> {
+			renderer.setHeight( n.doubleValue() );
+			overlay.setHeight( n.doubleValue() );
+		} );
 
-		//Fx.run( () -> this.staticRender( renderer ) );
+		// The scheduler renders once per pulse when the view changes
+		FxRenderScheduler scheduler = new FxRenderScheduler( renderer );
+		scheduler.start();
 
-		renderer.clear();
-		staticRender( renderer );
+		drawRules( overlay );
 
 		//		Thread runner = new Thread( () -> {
 		//			final AtomicLong counter = new AtomicLong();
@@ -76,7 +88,7 @@ public class Demo2d extends Application {
 		//		runner.start();
 	}
 
-	private void staticRender( ShapeRenderer2d renderer ) {
+	private void drawRules( ShapeRenderer2d renderer ) {
 		renderer.clear();
 
 		Pen outlinePen = new Pen( Color.YELLOW, 1 );
@@ -84,7 +96,9 @@ public class Demo2d extends Application {
 		renderer.drawHRule( renderer.getHeight() - 10.5, outlinePen );
 		renderer.drawVRule( 10.5, outlinePen );
 		renderer.drawVRule( renderer.getWidth() - 10.5, outlinePen );
+	}
 
+	private void staticRender( ShapeRenderer2d renderer ) {
 		//		// Draw an arrow pointing up
 		//		renderer.draw( new Line( Point.of( 0, -1 ), Point.of( 0, 1 ) ), Color.GREEN, 0.1 );
 		//		renderer.draw( new Line( Point.of( -1, 0 ), Point.of( 0, 1 ) ), Color.GREEN, 0.1 );
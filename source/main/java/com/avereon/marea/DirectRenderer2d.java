@@ -1,5 +1,6 @@
 package com.avereon.marea;
 
+import com.avereon.marea.geom.PackedPath;
 import com.avereon.marea.geom.Path;
 import javafx.scene.paint.Paint;
 
@@ -15,6 +16,27 @@ public interface DirectRenderer2d extends Renderer {
 
 	void setDrawPen( Pen pen, boolean text );
 
+	/**
+	 * Get the paint of the draw pen.
+	 *
+	 * @return The draw paint, or null if it is not known
+	 */
+	Paint getDrawPaint();
+
+	/**
+	 * Get the width of the draw pen.
+	 *
+	 * @return The draw width
+	 */
+	double getDrawWidth();
+
+	/**
+	 * Get the fill paint.
+	 *
+	 * @return The fill paint, or null if it is not known
+	 */
+	Paint getFillPaint();
+
 	void drawLine( double x1, double y1, double x2, double y2 );
 
 	void drawEllipse( double cx, double cy, double rx, double ry, double rotate );
@@ -27,6 +49,66 @@ public interface DirectRenderer2d extends Renderer {
 
 	void drawPath( List<Path.Step> path );
 
+	void drawPath( PackedPath path );
+
+	/**
+	 * Draw connected lines through the points. The points are x and y
+	 * coordinate pairs in the array.
+	 *
+	 * @param xy The point coordinates
+	 * @param offset The index of the first coordinate
+	 * @param count The number of points
+	 */
+	default void drawPolyline( double[] xy, int offset, int count ) {
+		if( count < 2 ) return;
+		startPath();
+		moveTo( xy[ offset ], xy[ offset + 1 ] );
+		for( int index = offset + 2; index < offset + 2 * count; index += 2 ) {
+			lineTo( xy[ index ], xy[ index + 1 ] );
+		}
+		drawPath();
+	}
+
+	/**
+	 * Draw separate lines between pairs of points. The points are x and y
+	 * coordinate pairs in the array, and each two points are one line.
+	 *
+	 * @param xy The point coordinates
+	 * @param offset The index of the first coordinate
+	 * @param count The number of points, two for each line
+	 */
+	default void drawLines( double[] xy, int offset, int count ) {
+		if( count < 2 ) return;
+		startPath();
+		for( int index = offset; index < offset + 2 * (count - 1); index += 4 ) {
+			moveTo( xy[ index ], xy[ index + 1 ] );
+			lineTo( xy[ index + 2 ], xy[ index + 3 ] );
+		}
+		drawPath();
+	}
+
+	/**
+	 * Draw a dot at each point. The dot diameter is the draw pen width. The
+	 * points are x and y coordinate pairs in the array. The dots are circles
+	 * filled with the draw paint, and the fill paint is restored afterward.
+	 *
+	 * @param xy The point coordinates
+	 * @param offset The index of the first coordinate
+	 * @param count The number of points
+	 */
+	default void drawPoints( double[] xy, int offset, int count ) {
+		Paint paint = getDrawPaint();
+		if( count < 1 || paint == null ) return;
+		double radius = 0.5 * getDrawWidth();
+
+		Paint fill = getFillPaint();
+		setFillPen( paint );
+		for( int index = offset; index < offset + 2 * count; index += 2 ) {
+			fillEllipse( xy[ index ], xy[ index + 1 ], radius, radius, 0 );
+		}
+		if( fill != null ) setFillPen( fill );
+	}
+
 	void drawText( double x, double y, double height, double rotate, String text, Font font );
 
 	void fillEllipse( double cx, double cy, double rx, double ry, double rotate );
@@ -34,6 +116,27 @@ public interface DirectRenderer2d extends Renderer {
 	@Deprecated
 	void fillPath( List<Path.Step> path );
 
+	void fillPath( PackedPath path );
+
+	/**
+	 * Fill the polygon with corners at the points. The points are x and y
+	 * coordinate pairs in the array.
+	 *
+	 * @param xy The point coordinates
+	 * @param offset The index of the first coordinate
+	 * @param count The number of points
+	 */
+	default void fillPolygon( double[] xy, int offset, int count ) {
+		if( count < 3 ) return;
+		startPath();
+		moveTo( xy[ offset ], xy[ offset + 1 ] );
+		for( int index = offset + 2; index < offset + 2 * count; index += 2 ) {
+			lineTo( xy[ index ], xy[ index + 1 ] );
+		}
+		pathClose();
+		fillPath();
+	}
+
 	void startPath();
 
 	void moveTo( double x, double y );
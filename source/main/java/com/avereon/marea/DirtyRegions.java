@@ -0,0 +1,144 @@
+package com.avereon.marea;
+
+import javafx.geometry.Rectangle2D;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A small set of screen rectangles that need to be redrawn. Rectangles that
+ * overlap or touch are merged as they are added. When there are more than the
+ * maximum number of rectangles, the two rectangles that waste the least area
+ * when merged are merged, so the set stays small while covering as little
+ * extra area as possible.
+ * <p>
+ * This class is not thread safe.
+ */
+public class DirtyRegions {
+
+	public static final int DEFAULT_MAX_COUNT = 8;
+
+	private final int maxCount;
+
+	private final List<Rectangle2D> regions;
+
+	private final List<Rectangle2D> readOnlyRegions;
+
+	public DirtyRegions() {
+		this( DEFAULT_MAX_COUNT );
+	}
+
+	public DirtyRegions( int maxCount ) {
+		if( maxCount < 1 ) throw new IllegalArgumentException( "Max count must be greater than zero: " + maxCount );
+		this.maxCount = maxCount;
+		this.regions = new ArrayList<>( maxCount + 1 );
+		this.readOnlyRegions = Collections.unmodifiableList( regions );
+	}
+
+	public int getMaxCount() {
+		return maxCount;
+	}
+
+	public int size() {
+		return regions.size();
+	}
+
+	public boolean isEmpty() {
+		return regions.isEmpty();
+	}
+
+	public void clear() {
+		regions.clear();
+	}
+
+	/**
+	 * Get the dirty regions. The returned list is a read only view that
+	 * changes when regions are added.
+	 *
+	 * @return The dirty regions
+	 */
+	public List<Rectangle2D> getRegions() {
+		return readOnlyRegions;
+	}
+
+	public void add( Rectangle2D region ) {
+		add( region.getMinX(), region.getMinY(), region.getWidth(), region.getHeight() );
+	}
+
+	/**
+	 * Add a dirty region. Empty regions are ignored.
+	 *
+	 * @param x The region x coordinate
+	 * @param y The region y coordinate
+	 * @param width The region width
+	 * @param height The region height
+	 */
+	public void add( double x, double y, double width, double height ) {
+		if( !(width > 0) || !(height > 0) ) return;
+		insert( new Rectangle2D( x, y, width, height ) );
+
+		while( regions.size() > maxCount ) {
+			int first = 0;
+			int second = 1;
+			double leastWaste = Double.POSITIVE_INFINITY;
+			for( int a = 0; a < regions.size(); a++ ) {
+				for( int b = a + 1; b < regions.size(); b++ ) {
+					double waste = waste( regions.get( a ), regions.get( b ) );
+					if( waste < leastWaste ) {
+						leastWaste = waste;
+						first = a;
+						second = b;
+					}
+				}
+			}
+			Rectangle2D merged = union( regions.get( first ), regions.get( second ) );
+			regions.remove( second );
+			regions.remove( first );
+			insert( merged );
+		}
+	}
+
+	/**
+	 * Add a region, merging it with the regions it overlaps or touches, until
+	 * it does not overlap or touch any region.
+	 */
+	private void insert( Rectangle2D region ) {
+		boolean merged = true;
+		while( merged ) {
+			merged = false;
+			for( int index = 0; index < regions.size(); index++ ) {
+				Rectangle2D other = regions.get( index );
+				if( touches( region, other ) ) {
+					region = union( region, other );
+					regions.remove( index );
+					merged = true;
+					break;
+				}
+			}
+		}
+		regions.add( region );
+	}
+
+	private static boolean touches( Rectangle2D a, Rectangle2D b ) {
+		return a.getMinX() <= b.getMaxX() && b.getMinX() <= a.getMaxX() && a.getMinY() <= b.getMaxY() && b.getMinY() <= a.getMaxY();
+	}
+
+	private static Rectangle2D union( Rectangle2D a, Rectangle2D b ) {
+		double minX = Math.min( a.getMinX(), b.getMinX() );
+		double minY = Math.min( a.getMinY(), b.getMinY() );
+		double maxX = Math.max( a.getMaxX(), b.getMaxX() );
+		double maxY = Math.max( a.getMaxY(), b.getMaxY() );
+		return new Rectangle2D( minX, minY, maxX - minX, maxY - minY );
+	}
+
+	/**
+	 * The area of the union of two regions that is not in either region. The
+	 * regions do not overlap so this is the union area less both areas.
+	 */
+	private static double waste( Rectangle2D a, Rectangle2D b ) {
+		Rectangle2D union = union( a, b );
+		return union.getWidth() * union.getHeight() - a.getWidth() * a.getHeight() - b.getWidth() * b.getHeight();
+	}
+
+}
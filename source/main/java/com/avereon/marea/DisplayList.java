@@ -0,0 +1,635 @@
+package com.avereon.marea;
+
+import com.avereon.marea.geom.PackedPath;
+import com.avereon.marea.geom.Path;
+import javafx.scene.paint.Paint;
+
+import java.util.*;
+
+/**
+ * A retained list of drawing commands. A display list is a
+ * {@link DirectRenderer2d} that records the calls made to it instead of
+ * rendering them. The recorded commands can then be replayed into any other
+ * direct renderer, using the view of that renderer, as many times as needed.
+ * This is much cheaper than rebuilding the commands from a domain model every
+ * time the view changes.
+ * <p>
+ * Commands are stored in compact primitive arrays. Each command is an opcode
+ * followed by its numeric arguments. Objects used by the commands, like pens,
+ * paints, fonts and strings, are stored once in a shared pool and referenced
+ * by index. Pens are copied when recorded so later changes to the pen do not
+ * change the recording, unless the pens are interned.
+ * <p>
+ * A display list is not thread safe. However, it can be recorded on one thread
+ * and replayed on another, as long as it is safely published and not modified
+ * while it is being replayed.
+ */
+public class DisplayList extends AbstractRenderer2d implements DirectRenderer2d {
+
+	private static final byte CLEAR = 1;
+
+	private static final byte DRAW_PEN = 2;
+
+	private static final byte FILL_PEN = 3;
+
+	private static final byte H_RULE = 4;
+
+	private static final byte V_RULE = 5;
+
+	private static final byte DRAW_LINE = 6;
+
+	private static final byte DRAW_ELLIPSE = 7;
+
+	private static final byte DRAW_ARC = 8;
+
+	private static final byte DRAW_QUAD = 9;
+
+	private static final byte DRAW_CUBIC = 10;
+
+	private static final byte DRAW_STEPS = 11;
+
+	private static final byte DRAW_TEXT = 12;
+
+	private static final byte FILL_ELLIPSE = 13;
+
+	private static final byte FILL_STEPS = 14;
+
+	private static final byte FILL_TEXT = 15;
+
+	private static final byte START_PATH = 16;
+
+	private static final byte MOVE_TO = 17;
+
+	private static final byte LINE_TO = 18;
+
+	private static final byte ARC_TO = 19;
+
+	private static final byte ARC_TO_CENTER = 20;
+
+	private static final byte QUAD_TO = 21;
+
+	private static final byte CUBIC_TO = 22;
+
+	private static final byte CLOSE_PATH = 23;
+
+	private static final byte DRAW_PATH = 24;
+
+	private static final byte FILL_PATH = 25;
+
+	private static final byte FILL_SCREEN_OVAL = 26;
+
+	private static final byte DRAW_SCREEN_OVAL = 27;
+
+	private static final byte FILL_SCREEN_BOX = 28;
+
+	private static final byte DRAW_SCREEN_BOX = 29;
+
+	private static final byte DRAW_SCREEN_H_RULE = 30;
+
+	private static final byte DRAW_SCREEN_V_RULE = 31;
+
+	private static final byte DRAW_PACKED_PATH = 32;
+
+	private static final byte FILL_PACKED_PATH = 33;
+
+	private static final byte DRAW_POLYLINE = 34;
+
+	private static final byte DRAW_LINES = 35;
+
+	private static final byte DRAW_POINTS = 36;
+
+	private static final byte FILL_POLYGON = 37;
+
+	private static final int NO_REFERENCE = -1;
+
+	private byte[] commands;
+
+	private int commandCount;
+
+	private double[] values;
+
+	private int valueCount;
+
+	private int[] references;
+
+	private int referenceCount;
+
+	private final List<Object> pool;
+
+	private final Map<Object, Integer> poolIndex;
+
+	private int drawPen;
+
+	private boolean drawPenText;
+
+	private int fillPen;
+
+	public DisplayList() {
+		this( 0, 0 );
+	}
+
+	public DisplayList( double width, double height ) {
+		super( width, height );
+		commands = new byte[ 64 ];
+		values = new double[ 256 ];
+		references = new int[ 32 ];
+		pool = new ArrayList<>();
+		poolIndex = new HashMap<>();
+		drawPen = NO_REFERENCE;
+		fillPen = NO_REFERENCE;
+	}
+
+	/**
+	 * Get the number of commands in the display list.
+	 *
+	 * @return The number of commands
+	 */
+	public int size() {
+		return commandCount;
+	}
+
+	public boolean isEmpty() {
+		return commandCount == 0;
+	}
+
+	/**
+	 * Remove all the commands from the display list. The allocated storage is
+	 * kept so the display list can be recorded again without growing.
+	 */
+	public void reset() {
+		commandCount = 0;
+		valueCount = 0;
+		referenceCount = 0;
+		pool.clear();
+		poolIndex.clear();
+		drawPen = NO_REFERENCE;
+		fillPen = NO_REFERENCE;
+	}
+
+	/**
+	 * Replay the recorded commands into the specified renderer. The commands
+	 * are rendered using the current view of the target renderer.
+	 *
+	 * @param renderer The renderer to replay the commands into
+	 */
+	// Commands recorded by the deprecated fillPath( List ) are replayed with it
+	@SuppressWarnings( "deprecation" )
+	public void replay( DirectRenderer2d renderer ) {
+		final double[] v = values;
+		final int[] r = references;
+		int vi = 0;
+		int ri = 0;
+
+		for( int index = 0; index < commandCount; index++ ) {
+			switch( commands[ index ] ) {
+				case CLEAR -> renderer.clear();
+				case DRAW_PEN -> {
+					renderer.setDrawPen( (Pen)pool.get( r[ ri ] ), r[ ri + 1 ] != 0 );
+					ri += 2;
+				}
+				case FILL_PEN -> renderer.setFillPen( (Paint)pool.get( r[ ri++ ] ) );
+				case H_RULE -> renderer.drawHRule( v[ vi++ ], (Pen)pool.get( r[ ri++ ] ) );
+				case V_RULE -> renderer.drawVRule( v[ vi++ ], (Pen)pool.get( r[ ri++ ] ) );
+				case DRAW_LINE -> {
+					renderer.drawLine( v[ vi ], v[ vi + 1 ], v[ vi + 2 ], v[ vi + 3 ] );
+					vi += 4;
+				}
+				case DRAW_ELLIPSE -> {
+					renderer.drawEllipse( v[ vi ], v[ vi + 1 ], v[ vi + 2 ], v[ vi + 3 ], v[ vi + 4 ] );
+					vi += 5;
+				}
+				case DRAW_ARC -> {
+					renderer.drawArc( v[ vi ], v[ vi + 1 ], v[ vi + 2 ], v[ vi + 3 ], v[ vi + 4 ], v[ vi + 5 ], v[ vi + 6 ] );
+					vi += 7;
+				}
+				case DRAW_QUAD -> {
+					renderer.drawQuad( v[ vi ], v[ vi + 1 ], v[ vi + 2 ], v[ vi + 3 ], v[ vi + 4 ], v[ vi + 5 ] );
+					vi += 6;
+				}
+				case DRAW_CUBIC -> {
+					renderer.drawCubic( v[ vi ], v[ vi + 1 ], v[ vi + 2 ], v[ vi + 3 ], v[ vi + 4 ], v[ vi + 5 ], v[ vi + 6 ], v[ vi + 7 ] );
+					vi += 8;
+				}
+				case DRAW_STEPS -> renderer.drawPath( getSteps( r[ ri++ ] ) );
+				case DRAW_TEXT -> {
+					renderer.drawText( v[ vi ], v[ vi + 1 ], v[ vi + 2 ], v[ vi + 3 ], (String)pool.get( r[ ri ] ), getFont( r[ ri + 1 ] ) );
+					vi += 4;
+					ri += 2;
+				}
+				case FILL_ELLIPSE -> {
+					renderer.fillEllipse( v[ vi ], v[ vi + 1 ], v[ vi + 2 ], v[ vi + 3 ], v[ vi + 4 ] );
+					vi += 5;
+				}
+				case FILL_STEPS -> renderer.fillPath( getSteps( r[ ri++ ] ) );
+				case FILL_TEXT -> {
+					renderer.fillText( v[ vi ], v[ vi + 1 ], v[ vi + 2 ], v[ vi + 3 ], (String)pool.get( r[ ri ] ), getFont( r[ ri + 1 ] ) );
+					vi += 4;
+					ri += 2;
+				}
+				case START_PATH -> renderer.startPath();
+				case MOVE_TO -> {
+					renderer.moveTo( v[ vi ], v[ vi + 1 ] );
+					vi += 2;
+				}
+				case LINE_TO -> {
+					renderer.lineTo( v[ vi ], v[ vi + 1 ] );
+					vi += 2;
+				}
+				case ARC_TO -> {
+					renderer.arcTo( v[ vi ], v[ vi + 1 ], v[ vi + 2 ], v[ vi + 3 ], v[ vi + 4 ], v[ vi + 5 ] != 0, v[ vi + 6 ] != 0 );
+					vi += 7;
+				}
+				case ARC_TO_CENTER -> {
+					renderer.arcTo( v[ vi ], v[ vi + 1 ], v[ vi + 2 ], v[ vi + 3 ], v[ vi + 4 ], v[ vi + 5 ] );
+					vi += 6;
+				}
+				case QUAD_TO -> {
+					renderer.pathQuadTo( v[ vi ], v[ vi + 1 ], v[ vi + 2 ], v[ vi + 3 ] );
+					vi += 4;
+				}
+				case CUBIC_TO -> {
+					renderer.pathCubicTo( v[ vi ], v[ vi + 1 ], v[ vi + 2 ], v[ vi + 3 ], v[ vi + 4 ], v[ vi + 5 ] );
+					vi += 6;
+				}
+				case CLOSE_PATH -> renderer.pathClose();
+				case DRAW_PATH -> renderer.drawPath();
+				case FILL_PATH -> renderer.fillPath();
+				case FILL_SCREEN_OVAL -> {
+					renderer.fillScreenOval( v[ vi ], v[ vi + 1 ], v[ vi + 2 ], v[ vi + 3 ] );
+					vi += 4;
+				}
+				case DRAW_SCREEN_OVAL -> {
+					renderer.drawScreenOval( v[ vi ], v[ vi + 1 ], v[ vi + 2 ], v[ vi + 3 ] );
+					vi += 4;
+				}
+				case FILL_SCREEN_BOX -> {
+					renderer.fillScreenBox( v[ vi ], v[ vi + 1 ], v[ vi + 2 ], v[ vi + 3 ] );
+					vi += 4;
+				}
+				case DRAW_SCREEN_BOX -> {
+					renderer.drawScreenBox( v[ vi ], v[ vi + 1 ], v[ vi + 2 ], v[ vi + 3 ] );
+					vi += 4;
+				}
+				case DRAW_SCREEN_H_RULE -> renderer.drawScreenHRule( v[ vi++ ] );
+				case DRAW_SCREEN_V_RULE -> renderer.drawScreenVRule( v[ vi++ ] );
+				case DRAW_PACKED_PATH -> renderer.drawPath( (PackedPath)pool.get( r[ ri++ ] ) );
+				case FILL_PACKED_PATH -> renderer.fillPath( (PackedPath)pool.get( r[ ri++ ] ) );
+				case DRAW_POLYLINE -> {
+					int count = r[ ri++ ];
+					renderer.drawPolyline( v, vi, count );
+					vi += 2 * count;
+				}
+				case DRAW_LINES -> {
+					int count = r[ ri++ ];
+					renderer.drawLines( v, vi, count );
+					vi += 2 * count;
+				}
+				case DRAW_POINTS -> {
+					int count = r[ ri++ ];
+					renderer.drawPoints( v, vi, count );
+					vi += 2 * count;
+				}
+				case FILL_POLYGON -> {
+					int count = r[ ri++ ];
+					renderer.fillPolygon( v, vi, count );
+					vi += 2 * count;
+				}
+			}
+		}
+	}
+
+	@Override
+	public void clear() {
+		command( CLEAR );
+	}
+
+	@Override
+	public Paint getDrawPaint() {
+		return drawPen == NO_REFERENCE ? null : ((Pen)pool.get( drawPen )).paint();
+	}
+
+	@Override
+	public double getDrawWidth() {
+		return drawPen == NO_REFERENCE ? 0 : ((Pen)pool.get( drawPen )).width();
+	}
+
+	@Override
+	public Paint getFillPaint() {
+		return fillPen == NO_REFERENCE ? null : (Paint)pool.get( fillPen );
+	}
+
+	@Override
+	public void drawHRule( double position, Pen pen ) {
+		command( H_RULE );
+		value( position );
+		reference( copy( pen ) );
+		// Rules change the stroke of the target renderer
+		drawPen = NO_REFERENCE;
+	}
+
+	@Override
+	public void drawVRule( double position, Pen pen ) {
+		command( V_RULE );
+		value( position );
+		reference( copy( pen ) );
+		// Rules change the stroke of the target renderer
+		drawPen = NO_REFERENCE;
+	}
+
+	@Override
+	public void setDrawPen( Paint paint, double width, LineCap cap, LineJoin join, double[] dashes, double offset ) {
+		setDrawPen( new Pen( paint, width ).cap( cap ).join( join ).dashes( dashes ).offset( offset ), false );
+	}
+
+	@Override
+	public void setDrawPen( Pen pen ) {
+		setDrawPen( pen, false );
+	}
+
+	@Override
+	public void setDrawPen( Pen pen, boolean text ) {
+		int index = pool( copy( pen ) );
+		if( index == drawPen && text == drawPenText ) return;
+
+		command( DRAW_PEN );
+		references( index, text ? 1 : 0 );
+		drawPen = index;
+		drawPenText = text;
+	}
+
+	@Override
+	public void setFillPen( Paint paint ) {
+		int index = pool( paint );
+		if( index == fillPen ) return;
+
+		command( FILL_PEN );
+		references( index );
+		fillPen = index;
+	}
+
+	@Override
+	public void drawLine( double x1, double y1, double x2, double y2 ) {
+		command( DRAW_LINE );
+		values( x1, y1, x2, y2 );
+	}
+
+	@Override
+	public void drawEllipse( double cx, double cy, double rx, double ry, double rotate ) {
+		command( DRAW_ELLIPSE );
+		values( cx, cy, rx, ry, rotate );
+	}
+
+	@Override
+	public void drawArc( double cx, double cy, double rx, double ry, double rotate, double start, double extent ) {
+		command( DRAW_ARC );
+		values( cx, cy, rx, ry, rotate, start, extent );
+	}
+
+	@Override
+	public void drawQuad( double x1, double y1, double x2, double y2, double x3, double y3 ) {
+		command( DRAW_QUAD );
+		values( x1, y1, x2, y2, x3, y3 );
+	}
+
+	@Override
+	public void drawCubic( double x1, double y1, double x2, double y2, double x3, double y3, double x4, double y4 ) {
+		command( DRAW_CUBIC );
+		values( x1, y1, x2, y2, x3, y3, x4, y4 );
+	}
+
+	@Override
+	public void drawPath( List<Path.Step> path ) {
+		command( DRAW_STEPS );
+		reference( List.copyOf( path ) );
+	}
+
+	/**
+	 * Record drawing a packed path. The path is copied, so the caller may reuse
+	 * the path after this call.
+	 */
+	@Override
+	public void drawPath( PackedPath path ) {
+		command( DRAW_PACKED_PATH );
+		reference( new PackedPath( path ) );
+	}
+
+	@Override
+	public void drawText( double x, double y, double height, double rotate, String text, Font font ) {
+		command( DRAW_TEXT );
+		values( x, y, height, rotate );
+		references( pool( text ), font == null ? NO_REFERENCE : pool( font ) );
+	}
+
+	@Override
+	public void fillEllipse( double cx, double cy, double rx, double ry, double rotate ) {
+		command( FILL_ELLIPSE );
+		values( cx, cy, rx, ry, rotate );
+	}
+
+	@Override
+	@Deprecated
+	public void fillPath( List<Path.Step> path ) {
+		command( FILL_STEPS );
+		reference( List.copyOf( path ) );
+	}
+
+	/**
+	 * Record filling a packed path. The path is copied, so the caller may reuse
+	 * the path after this call.
+	 */
+	@Override
+	public void fillPath( PackedPath path ) {
+		command( FILL_PACKED_PATH );
+		reference( new PackedPath( path ) );
+	}
+
+	@Override
+	public void drawPolyline( double[] xy, int offset, int count ) {
+		points( DRAW_POLYLINE, xy, offset, count );
+	}
+
+	@Override
+	public void drawLines( double[] xy, int offset, int count ) {
+		points( DRAW_LINES, xy, offset, count );
+	}
+
+	@Override
+	public void drawPoints( double[] xy, int offset, int count ) {
+		points( DRAW_POINTS, xy, offset, count );
+	}
+
+	@Override
+	public void fillPolygon( double[] xy, int offset, int count ) {
+		points( FILL_POLYGON, xy, offset, count );
+	}
+
+	@Override
+	public void startPath() {
+		command( START_PATH );
+	}
+
+	@Override
+	public void moveTo( double x, double y ) {
+		command( MOVE_TO );
+		values( x, y );
+	}
+
+	@Override
+	public void lineTo( double x, double y ) {
+		command( LINE_TO );
+		values( x, y );
+	}
+
+	@Override
+	public void arcTo( double x, double y, double rx, double ry, double rotate, boolean large, boolean sweep ) {
+		command( ARC_TO );
+		values( x, y, rx, ry, rotate, large ? 1 : 0, sweep ? 1 : 0 );
+	}
+
+	@Override
+	public void arcTo( double cx, double cy, double rx, double ry, double start, double extent ) {
+		command( ARC_TO_CENTER );
+		values( cx, cy, rx, ry, start, extent );
+	}
+
+	@Override
+	public void pathQuadTo( double x1, double y1, double x2, double y2 ) {
+		command( QUAD_TO );
+		values( x1, y1, x2, y2 );
+	}
+
+	@Override
+	public void pathCubicTo( double x1, double y1, double x2, double y2, double x3, double y3 ) {
+		command( CUBIC_TO );
+		values( x1, y1, x2, y2, x3, y3 );
+	}
+
+	@Override
+	public void pathClose() {
+		command( CLOSE_PATH );
+	}
+
+	@Override
+	public void drawPath() {
+		command( DRAW_PATH );
+	}
+
+	@Override
+	public void fillPath() {
+		command( FILL_PATH );
+	}
+
+	@Override
+	public void fillText( double x, double y, double height, double rotate, String text, Font font ) {
+		command( FILL_TEXT );
+		values( x, y, height, rotate );
+		references( pool( text ), font == null ? NO_REFERENCE : pool( font ) );
+	}
+
+	@Override
+	public void fillScreenOval( double x, double y, double w, double h ) {
+		command( FILL_SCREEN_OVAL );
+		values( x, y, w, h );
+	}
+
+	@Override
+	public void drawScreenOval( double x, double y, double w, double h ) {
+		command( DRAW_SCREEN_OVAL );
+		values( x, y, w, h );
+	}
+
+	@Override
+	public void fillScreenBox( double x, double y, double w, double h ) {
+		command( FILL_SCREEN_BOX );
+		values( x, y, w, h );
+	}
+
+	@Override
+	public void drawScreenBox( double x, double y, double w, double h ) {
+		command( DRAW_SCREEN_BOX );
+		values( x, y, w, h );
+	}
+
+	@Override
+	public void drawScreenHRule( double position ) {
+		command( DRAW_SCREEN_H_RULE );
+		value( position );
+	}
+
+	@Override
+	public void drawScreenVRule( double position ) {
+		command( DRAW_SCREEN_V_RULE );
+		value( position );
+	}
+
+	@SuppressWarnings( "unchecked" )
+	private List<Path.Step> getSteps( int index ) {
+		return (List<Path.Step>)pool.get( index );
+	}
+
+	private Font getFont( int index ) {
+		return index == NO_REFERENCE ? null : (Font)pool.get( index );
+	}
+
+	private void command( byte command ) {
+		if( commandCount == commands.length ) commands = Arrays.copyOf( commands, 2 * commandCount );
+		commands[ commandCount++ ] = command;
+	}
+
+	private void value( double value ) {
+		if( valueCount == values.length ) values = Arrays.copyOf( values, 2 * valueCount );
+		values[ valueCount++ ] = value;
+	}
+
+	private void values( double... values ) {
+		if( valueCount + values.length > this.values.length ) this.values = Arrays.copyOf( this.values, Math.max( 2 * this.values.length, valueCount + values.length ) );
+		System.arraycopy( values, 0, this.values, valueCount, values.length );
+		valueCount += values.length;
+	}
+
+	/**
+	 * Record a command with a point count and the point coordinates. The
+	 * coordinates are replayed directly from the value array.
+	 */
+	private void points( byte command, double[] xy, int offset, int count ) {
+		if( count < 1 ) return;
+		command( command );
+		references( count );
+		int length = 2 * count;
+		if( valueCount + length > values.length ) values = Arrays.copyOf( values, Math.max( 2 * values.length, valueCount + length ) );
+		System.arraycopy( xy, offset, values, valueCount, length );
+		valueCount += length;
+	}
+
+	private void reference( Object object ) {
+		references( pool( object ) );
+	}
+
+	private void references( int... indexes ) {
+		if( referenceCount + indexes.length > references.length ) references = Arrays.copyOf( references, Math.max( 2 * references.length, referenceCount + indexes.length ) );
+		System.arraycopy( indexes, 0, references, referenceCount, indexes.length );
+		referenceCount += indexes.length;
+	}
+
+	/**
+	 * Add an object to the pool, if an equal object is not already in the pool,
+	 * and return the index of the object in the pool.
+	 */
+	private int pool( Object object ) {
+		Integer index = poolIndex.get( object );
+		if( index != null ) return index;
+
+		index = pool.size();
+		pool.add( object );
+		poolIndex.put( object, index );
+		return index;
+	}
+
+	private static Pen copy( Pen pen ) {
+		// Interned pens cannot change so they do not need to be copied
+		if( pen.isInterned() ) return pen;
+		double[] dashes = pen.dashes();
+		return new Pen( pen.paint(), pen.width() ).cap( pen.cap() ).join( pen.join() ).dashes( dashes == null ? null : dashes.clone() ).offset( pen.offset() );
+	}
+
+}
@@ -25,6 +25,11 @@ public class Font {
 		ITALIC
 	}
 
+	/**
+	 * The font used when no font is specified.
+	 */
+	public static final Font DEFAULT = new Font();
+
 	private final String name;
 
 	private final Weight weight;
@@ -72,10 +77,6 @@ public class Font {
 	}
 
 	public static javafx.scene.text.Font toFxFont( Font font ) {
-		String name = font.getName();
-		FontWeight weight = FontUtil.getFontWeight( name );
-		FontPosture posture = FontUtil.getFontPosture( name );
-		double size = font.getSize();
-		return javafx.scene.text.Font.font( name, weight, posture, size );
+		return FontCache.resolve( font ).getFxFont();
 	}
 }
@@ -0,0 +1,69 @@
+package com.avereon.marea;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A cache of resolved fonts, keyed by the font name, weight, posture and size.
+ * Resolving a font parses the font name and looks up the platform fonts, which
+ * is too slow to do for every text draw. The cache returns the same
+ * {@link ResolvedFont} for the same key so renderers can also compare fonts by
+ * identity.
+ * <p>
+ * The cache holds at most {@link #MAX_SIZE} fonts. When the cache is full it
+ * is cleared, which is simple and only happens when a very large number of
+ * distinct font sizes is used. This class is thread safe.
+ */
+public final class FontCache {
+
+	public static final int MAX_SIZE = 4096;
+
+	private static final Map<Key, ResolvedFont> fonts = new ConcurrentHashMap<>();
+
+	private FontCache() {}
+
+	/**
+	 * Resolve a font at its own size.
+	 *
+	 * @param font The font, or null for the default font
+	 * @return The resolved font
+	 */
+	public static ResolvedFont resolve( Font font ) {
+		if( font == null ) font = Font.DEFAULT;
+		return resolve( font, font.getSize() );
+	}
+
+	/**
+	 * Resolve a font at a specific size.
+	 *
+	 * @param font The font, or null for the default font
+	 * @param size The font size
+	 * @return The resolved font
+	 */
+	public static ResolvedFont resolve( Font font, double size ) {
+		if( font == null ) font = Font.DEFAULT;
+		Key key = new Key( font.getName(), font.getWeight(), font.getPosture(), size );
+		ResolvedFont resolved = fonts.get( key );
+		if( resolved != null ) return resolved;
+
+		if( fonts.size() >= MAX_SIZE ) fonts.clear();
+		Font sized = font.getSize() == size ? font : font.derive( size );
+		return fonts.computeIfAbsent( key, k -> new ResolvedFont( sized ) );
+	}
+
+	/**
+	 * Get the number of cached fonts.
+	 *
+	 * @return The number of cached fonts
+	 */
+	public static int size() {
+		return fonts.size();
+	}
+
+	public static void clear() {
+		fonts.clear();
+	}
+
+	private record Key(String name, Font.Weight weight, Font.Posture posture, double size) {}
+
+}
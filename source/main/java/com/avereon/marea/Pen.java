@@ -2,13 +2,36 @@ package com.avereon.marea;
 
 import javafx.scene.paint.Color;
 import javafx.scene.paint.Paint;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Setter;
+import lombok.ToString;
 import lombok.experimental.Accessors;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The paint and line style used to draw and fill shapes.
+ * <p>
+ * Pens are mutable, but a pen can be {@link #intern() interned}. Interning a
+ * pen returns the one shared, read only pen equal to it, with a stable
+ * {@link #id() id}. Caches and state tracking can compare interned pens by
+ * reference or by id instead of comparing every value. Pens created from an
+ * {@link ArgbColor} convert the color to an FX paint once, when the pen is
+ * created, so interned pens do not convert colors for each draw.
+ */
 @Data
+@EqualsAndHashCode( doNotUseGetters = true )
 @Accessors( fluent = true )
 public class Pen {
 
+	private static final Map<Pen, Pen> interned = new ConcurrentHashMap<>();
+
+	private static final AtomicInteger internedIds = new AtomicInteger();
+
 	// TODO This class uses FX Paint and Color. Create and use Marea paint and color.
 	private Paint paint = Color.BLACK;
 
@@ -22,6 +45,14 @@ public class Pen {
 
 	private double offset = 0.0;
 
+	/**
+	 * The interned pen id, or zero if the pen is not interned.
+	 */
+	@Setter( AccessLevel.NONE )
+	@EqualsAndHashCode.Exclude
+	@ToString.Exclude
+	private int id;
+
 	public Pen() {}
 
 	public Pen( Paint paint ) {
@@ -37,4 +68,105 @@ public class Pen {
 		this.width = width;
 	}
 
+	public Pen( ArgbColor color, double width ) {
+		this( color.toFxColor(), width );
+	}
+
+	public Pen paint( Paint paint ) {
+		checkMutable();
+		this.paint = paint;
+		return this;
+	}
+
+	public Pen width( double width ) {
+		checkMutable();
+		this.width = width;
+		return this;
+	}
+
+	public Pen cap( LineCap cap ) {
+		checkMutable();
+		this.cap = cap;
+		return this;
+	}
+
+	public Pen join( LineJoin join ) {
+		checkMutable();
+		this.join = join;
+		return this;
+	}
+
+	/**
+	 * Get the dash lengths. Interned pens are shared, so an interned pen returns
+	 * a copy of its dashes that can be changed without changing the pen.
+	 *
+	 * @return The dash lengths
+	 */
+	public double[] dashes() {
+		return isInterned() && dashes != null ? dashes.clone() : dashes;
+	}
+
+	public Pen dashes( double[] dashes ) {
+		checkMutable();
+		this.dashes = dashes;
+		return this;
+	}
+
+	public Pen offset( double offset ) {
+		checkMutable();
+		this.offset = offset;
+		return this;
+	}
+
+	/**
+	 * Check if this pen is an interned pen. Interned pens cannot be changed.
+	 *
+	 * @return True if this pen is interned
+	 */
+	public boolean isInterned() {
+		return id != 0;
+	}
+
+	/**
+	 * Get the interned pen equal to this pen. The first time an equal pen is
+	 * interned, a read only copy of the pen is created and given the next id.
+	 * After that the same copy is returned for every equal pen. Interned pens
+	 * are never released, so only pens that are used often should be interned.
+	 *
+	 * @return The interned pen
+	 */
+	public Pen intern() {
+		if( isInterned() ) return this;
+
+		Pen pen = interned.get( this );
+		if( pen != null ) return pen;
+
+		return interned.computeIfAbsent( copy(), copy -> {
+			copy.id = internedIds.incrementAndGet();
+			return copy;
+		} );
+	}
+
+	/**
+	 * Get the number of interned pens.
+	 *
+	 * @return The number of interned pens
+	 */
+	public static int getInternedCount() {
+		return interned.size();
+	}
+
+	private Pen copy() {
+		Pen copy = new Pen( paint, width );
+		copy.cap = cap;
+		copy.join = join;
+		copy.dashes = dashes == null ? null : dashes.clone();
+		copy.offset = offset;
+		return copy;
+	}
+
+	private void checkMutable() {
+		if( isInterned() ) throw new IllegalStateException( "Interned pens cannot be changed" );
+	}
+
 }
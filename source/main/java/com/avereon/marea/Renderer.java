@@ -2,6 +2,9 @@ package com.avereon.marea;
 
 import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
 import javafx.geometry.Point2D;
 import javafx.geometry.Point3D;
 import javafx.scene.transform.Transform;
@@ -346,6 +349,44 @@ public interface Renderer {
 	 */
 	void setZoomAt( double x, double y, double zoomX, double zoomY );
 
+	/**
+	 * Zoom in or out by one {@link #getZoomStep() zoom step} while keeping a
+	 * world point at the same screen position.
+	 *
+	 * @param x The world x coordinate of the fixed point
+	 * @param y The world y coordinate of the fixed point
+	 * @param zoomIn True to zoom in, false to zoom out
+	 */
+	default void stepZoom( double x, double y, boolean zoomIn ) {
+		setViewState( getViewState().withZoomStep( x, y, getZoomStep(), zoomIn ) );
+	}
+
+	/**
+	 * Get the view state. The view state is an immutable snapshot of the view
+	 * properties that determine the world to screen transform.
+	 *
+	 * @return The view state
+	 */
+	ViewState getViewState();
+
+	/**
+	 * Change the view in one step. The world transforms are updated once and
+	 * the view state property notifies its listeners once, with the view state
+	 * before and after the change. The individual view properties are updated
+	 * after the view state, so their listeners see the complete new view.
+	 *
+	 * @param state The new view state
+	 */
+	void setViewState( ViewState state );
+
+	/**
+	 * Get the view state property. The property changes once for each view
+	 * change, no matter how many view properties changed.
+	 *
+	 * @return The view state property
+	 */
+	ReadOnlyObjectProperty<ViewState> viewStateProperty();
+
 	/**
 	 * Clear the rendering buffer. This is typically called before rendering new
 	 * geometry.
@@ -426,6 +467,20 @@ public interface Renderer {
 
 	Transform getScreenToWorldTransform();
 
+	/**
+	 * Get the bounds of the visible area of the renderer in world coordinates.
+	 * If the view is rotated these are the bounds of the rotated visible area.
+	 * If the view transform cannot be inverted, for example when the zoom is
+	 * zero, the visible area is not known.
+	 *
+	 * @return The world bounds of the visible area or null if not known
+	 */
+	default Bounds getVisibleBounds() {
+		Transform transform = getScreenToWorldTransform();
+		if( transform == null ) return null;
+		return transform.transform( new BoundingBox( 0, 0, getWidth(), getHeight() ) );
+	}
+
 	/**
 	 * Convert an x, y point in parent coordinates to local coordinates.
 	 *
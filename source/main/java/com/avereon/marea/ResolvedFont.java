@@ -0,0 +1,179 @@
+package com.avereon.marea;
+
+import com.avereon.zerra.font.FontUtil;
+import javafx.scene.text.FontPosture;
+import javafx.scene.text.FontWeight;
+
+import java.awt.font.FontRenderContext;
+import java.awt.font.LineMetrics;
+
+/**
+ * A font resolved to the platform fonts at a specific size, with its metrics.
+ * Resolved fonts are created and shared by the {@link FontCache}.
+ * <p>
+ * The metrics are computed with the matching AWT font, which does not need
+ * the FX toolkit, so the metrics are available on any thread. The AWT font and
+ * the JavaFX font use the same weight and posture, and each is resolved the
+ * first time it is requested. This class is thread safe.
+ */
+public final class ResolvedFont {
+
+	/**
+	 * The font render context used for all metrics. Font render contexts are
+	 * immutable so one context is shared by all threads.
+	 */
+	static final FontRenderContext FONT_RENDER_CONTEXT = new FontRenderContext( null, true, true );
+
+	private final Font font;
+
+	private final FontWeight weight;
+
+	private final FontPosture posture;
+
+	private volatile AwtFont awtFont;
+
+	private volatile javafx.scene.text.Font fxFont;
+
+	ResolvedFont( Font font ) {
+		this.font = font;
+		this.weight = resolveWeight( font );
+		this.posture = resolvePosture( font );
+	}
+
+	/**
+	 * Get the font that was resolved. The font size is the resolved size.
+	 *
+	 * @return The font
+	 */
+	public Font getFont() {
+		return font;
+	}
+
+	public double getSize() {
+		return font.getSize();
+	}
+
+	/**
+	 * Get the weight used for both the JavaFX font and the AWT font.
+	 *
+	 * @return The font weight
+	 */
+	public FontWeight getWeight() {
+		return weight;
+	}
+
+	/**
+	 * Get the posture used for both the JavaFX font and the AWT font.
+	 *
+	 * @return The font posture
+	 */
+	public FontPosture getPosture() {
+		return posture;
+	}
+
+	/**
+	 * Get the JavaFX font.
+	 *
+	 * @return The JavaFX font
+	 */
+	public javafx.scene.text.Font getFxFont() {
+		javafx.scene.text.Font result = fxFont;
+		if( result == null ) {
+			result = javafx.scene.text.Font.font( font.getName(), weight, posture, font.getSize() );
+			fxFont = result;
+		}
+		return result;
+	}
+
+	/**
+	 * Get the AWT font. This is used for glyph outlines and metrics.
+	 *
+	 * @return The AWT font
+	 */
+	public java.awt.Font getAwtFont() {
+		return getAwt().font();
+	}
+
+	/**
+	 * Get the distance from the baseline to the top of the tallest glyphs.
+	 *
+	 * @return The font ascent at the resolved size
+	 */
+	public double getAscent() {
+		return getAwt().ascent();
+	}
+
+	/**
+	 * Get the distance from the baseline to the bottom of the lowest glyphs.
+	 *
+	 * @return The font descent at the resolved size
+	 */
+	public double getDescent() {
+		return getAwt().descent();
+	}
+
+	/**
+	 * Get the advance width of a line of text.
+	 *
+	 * @param text The text
+	 * @return The advance width at the resolved size
+	 */
+	public double getAdvance( String text ) {
+		return getAwtFont().getStringBounds( text, FONT_RENDER_CONTEXT ).getWidth();
+	}
+
+	public double getLeading() {
+		return getAwt().leading();
+	}
+
+	/**
+	 * Get the distance between the baselines of two lines of text.
+	 *
+	 * @return The line height at the resolved size
+	 */
+	public double getLineHeight() {
+		AwtFont awt = getAwt();
+		return awt.ascent() + awt.descent() + awt.leading();
+	}
+
+	private AwtFont getAwt() {
+		AwtFont result = awtFont;
+		if( result == null ) {
+			int style = java.awt.Font.PLAIN;
+			if( weight.getWeight() >= FontWeight.SEMI_BOLD.getWeight() ) style |= java.awt.Font.BOLD;
+			if( posture == FontPosture.ITALIC ) style |= java.awt.Font.ITALIC;
+			String name = font.getName() == null || font.getName().isBlank() ? java.awt.Font.SANS_SERIF : font.getName();
+			java.awt.Font awt = new java.awt.Font( name, style, 1 ).deriveFont( (float)font.getSize() );
+
+			LineMetrics metrics = awt.getLineMetrics( "", FONT_RENDER_CONTEXT );
+			result = new AwtFont( awt, metrics.getAscent(), metrics.getDescent(), metrics.getLeading() );
+			awtFont = result;
+		}
+		return result;
+	}
+
+	/**
+	 * The font weight. A normal weight is also parsed from the font name, so
+	 * names like "Serif Bold" keep working.
+	 */
+	private static FontWeight resolveWeight( Font font ) {
+		if( font.getWeight() != null && font.getWeight() != Font.Weight.NORMAL ) return FontWeight.valueOf( font.getWeight().name() );
+		return font.getName() == null ? FontWeight.NORMAL : FontUtil.getFontWeight( font.getName() );
+	}
+
+	/**
+	 * The font posture. A regular posture is also parsed from the font name, so
+	 * names like "Serif Italic" keep working.
+	 */
+	private static FontPosture resolvePosture( Font font ) {
+		if( font.getPosture() == Font.Posture.ITALIC ) return FontPosture.ITALIC;
+		return font.getName() == null ? FontPosture.REGULAR : FontUtil.getFontPosture( font.getName() );
+	}
+
+	/**
+	 * The AWT font and its line metrics, created together the first time they
+	 * are needed.
+	 */
+	private record AwtFont(java.awt.Font font, double ascent, double descent, double leading) {}
+
+}
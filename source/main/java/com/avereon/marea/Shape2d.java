@@ -1,5 +1,8 @@
 package com.avereon.marea;
 
+import com.avereon.marea.geom.FlatPath;
+import javafx.geometry.Bounds;
+
 public interface Shape2d {
 
 	ShapeType type();
@@ -8,4 +11,24 @@ public interface Shape2d {
 
 	double getRotate();
 
+	/**
+	 * Get the bounds of the shape in world coordinates, including the shape
+	 * rotation. The bounds do not include the pen width.
+	 *
+	 * @return The world bounds of the shape
+	 */
+	Bounds getBounds();
+
+	/**
+	 * Get the shape flattened to line segments in world coordinates. Shapes
+	 * with curved geometry cache the result for the tolerance bucket, so the
+	 * same flat path is returned while the tolerance stays in the same bucket.
+	 *
+	 * @param tolerance The maximum distance between the segments and the shape
+	 * @return The flattened shape
+	 */
+	default FlatPath getFlatPath( double tolerance ) {
+		return FlatPath.of( this, tolerance );
+	}
+
 }
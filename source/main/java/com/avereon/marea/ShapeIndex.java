@@ -0,0 +1,485 @@
+package com.avereon.marea;
+
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * A spatial index of shapes, keyed by the world bounds of the shapes. The
+ * index is an R-tree that supports bulk loading using Sort-Tile-Recursive
+ * packing, individual inserts and removes, and window queries. A window query
+ * with the visible bounds of a renderer returns only the shapes that could be
+ * visible, so the cost of drawing depends on the number of visible shapes and
+ * not the total number of shapes.
+ * <p>
+ * The bounds of a shape must not change while the shape is in the index. This
+ * class is not thread safe.
+ *
+ * @param <T> The shape type
+ */
+public class ShapeIndex<T extends Shape2d> {
+
+	public static final int DEFAULT_NODE_CAPACITY = 16;
+
+	private final int maxEntries;
+
+	private final int minEntries;
+
+	private Node root;
+
+	private int size;
+
+	public ShapeIndex() {
+		this( DEFAULT_NODE_CAPACITY );
+	}
+
+	public ShapeIndex( int nodeCapacity ) {
+		if( nodeCapacity < 4 ) throw new IllegalArgumentException( "Node capacity must be at least 4: " + nodeCapacity );
+		this.maxEntries = nodeCapacity;
+		this.minEntries = Math.max( 2, (int)Math.ceil( 0.4 * nodeCapacity ) );
+		this.root = new Node( true, maxEntries );
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public void clear() {
+		root = new Node( true, maxEntries );
+		size = 0;
+	}
+
+	/**
+	 * Replace the contents of the index with the specified shapes. The tree is
+	 * packed using the Sort-Tile-Recursive algorithm, which is much faster than
+	 * inserting the shapes one at a time and produces a better tree.
+	 *
+	 * @param shapes The shapes to load
+	 */
+	public void load( Collection<? extends T> shapes ) {
+		List<Node> nodes = new ArrayList<>();
+
+		// Pack the shapes into leaf nodes
+		List<Entry> entries = new ArrayList<>( shapes.size() );
+		for( T shape : shapes ) {
+			Bounds bounds = shape.getBounds();
+			entries.add( new Entry( shape, bounds.getMinX(), bounds.getMinY(), bounds.getMaxX(), bounds.getMaxY() ) );
+		}
+		for( List<Entry> group : strGroups( entries ) ) {
+			Node leaf = new Node( true, maxEntries );
+			for( Entry entry : group ) leaf.add( entry.item(), entry.minX(), entry.minY(), entry.maxX(), entry.maxY() );
+			nodes.add( leaf );
+		}
+
+		// Pack the nodes into parent nodes until there is only one node
+		while( nodes.size() > 1 ) {
+			entries = new ArrayList<>( nodes.size() );
+			for( Node node : nodes ) entries.add( new Entry( node, node.minX(), node.minY(), node.maxX(), node.maxY() ) );
+
+			List<Node> parents = new ArrayList<>();
+			for( List<Entry> group : strGroups( entries ) ) {
+				Node parent = new Node( false, maxEntries );
+				for( Entry entry : group ) parent.add( entry.item(), entry.minX(), entry.minY(), entry.maxX(), entry.maxY() );
+				parents.add( parent );
+			}
+			nodes = parents;
+		}
+
+		root = nodes.isEmpty() ? new Node( true, maxEntries ) : nodes.get( 0 );
+		size = shapes.size();
+	}
+
+	/**
+	 * Add a shape to the index.
+	 *
+	 * @param shape The shape to add
+	 */
+	public void insert( T shape ) {
+		Bounds bounds = shape.getBounds();
+		insert( shape, bounds.getMinX(), bounds.getMinY(), bounds.getMaxX(), bounds.getMaxY(), 0 );
+		size++;
+	}
+
+	/**
+	 * Remove a shape from the index.
+	 *
+	 * @param shape The shape to remove
+	 * @return True if the shape was removed, false if it was not in the index
+	 */
+	public boolean remove( T shape ) {
+		Bounds bounds = shape.getBounds();
+		Deque<Node> path = new ArrayDeque<>();
+		if( !findLeaf( root, shape, bounds, path, true ) ) {
+			path.clear();
+			if( !findLeaf( root, shape, bounds, path, false ) ) return false;
+		}
+
+		Node leaf = path.peek();
+		leaf.remove( leaf.indexOf( shape ) );
+		size--;
+		condense( path );
+		return true;
+	}
+
+	/**
+	 * Get the shapes with bounds that intersect the window.
+	 *
+	 * @param window The window in world coordinates
+	 * @return The shapes that intersect the window
+	 */
+	public List<T> query( Bounds window ) {
+		return query( window.getMinX(), window.getMinY(), window.getMaxX(), window.getMaxY() );
+	}
+
+	/**
+	 * Get the shapes with bounds that intersect the window.
+	 *
+	 * @return The shapes that intersect the window
+	 */
+	public List<T> query( double minX, double minY, double maxX, double maxY ) {
+		List<T> result = new ArrayList<>();
+		query( minX, minY, maxX, maxY, result::add );
+		return result;
+	}
+
+	/**
+	 * Pass the shapes with bounds that intersect the window to the consumer. The
+	 * shapes are passed in no particular order.
+	 */
+	@SuppressWarnings( "unchecked" )
+	public void query( double minX, double minY, double maxX, double maxY, Consumer<? super T> consumer ) {
+		if( size == 0 ) return;
+
+		Node[] stack = new Node[ 16 ];
+		int top = 0;
+		stack[ top++ ] = root;
+		while( top > 0 ) {
+			Node node = stack[ --top ];
+			double[] b = node.bounds;
+			for( int index = 0; index < node.count; index++ ) {
+				int offset = 4 * index;
+				if( b[ offset ] > maxX || b[ offset + 1 ] > maxY || b[ offset + 2 ] < minX || b[ offset + 3 ] < minY ) continue;
+				if( node.leaf ) {
+					consumer.accept( (T)node.items[ index ] );
+				} else {
+					if( top == stack.length ) stack = Arrays.copyOf( stack, 2 * top );
+					stack[ top++ ] = (Node)node.items[ index ];
+				}
+			}
+		}
+	}
+
+	/**
+	 * Get the bounds of all the shapes in the index.
+	 *
+	 * @return The bounds of the index or null if the index is empty
+	 */
+	public Bounds getBounds() {
+		if( size == 0 ) return null;
+		return new BoundingBox( root.minX(), root.minY(), root.maxX() - root.minX(), root.maxY() - root.minY() );
+	}
+
+	private void insert( Object item, double minX, double minY, double maxX, double maxY, int level ) {
+		Node sibling = insert( root, item, minX, minY, maxX, maxY, height() - level );
+		if( sibling != null ) {
+			Node parent = new Node( false, maxEntries );
+			parent.add( root, root );
+			parent.add( sibling, sibling );
+			root = parent;
+		}
+	}
+
+	/**
+	 * Insert the item into the subtree at the specified depth. Depth zero is the
+	 * leaf level.
+	 *
+	 * @return The new sibling node if the node was split, null otherwise
+	 */
+	private Node insert( Node node, Object item, double minX, double minY, double maxX, double maxY, int depth ) {
+		if( depth == 0 ) {
+			node.add( item, minX, minY, maxX, maxY );
+		} else {
+			int index = chooseSubtree( node, minX, minY, maxX, maxY );
+			Node child = (Node)node.items[ index ];
+			Node sibling = insert( child, item, minX, minY, maxX, maxY, depth - 1 );
+			node.setBounds( index, child );
+			if( sibling != null ) node.add( sibling, sibling );
+		}
+
+		return node.count > maxEntries ? split( node ) : null;
+	}
+
+	private int height() {
+		int height = 0;
+		Node node = root;
+		while( !node.leaf ) {
+			node = (Node)node.items[ 0 ];
+			height++;
+		}
+		return height;
+	}
+
+	private int chooseSubtree( Node node, double minX, double minY, double maxX, double maxY ) {
+		int best = 0;
+		double bestEnlargement = Double.POSITIVE_INFINITY;
+		double bestArea = Double.POSITIVE_INFINITY;
+		double[] b = node.bounds;
+		for( int index = 0; index < node.count; index++ ) {
+			int offset = 4 * index;
+			double area = (b[ offset + 2 ] - b[ offset ]) * (b[ offset + 3 ] - b[ offset + 1 ]);
+			double enlarged = (Math.max( b[ offset + 2 ], maxX ) - Math.min( b[ offset ], minX )) * (Math.max( b[ offset + 3 ], maxY ) - Math.min( b[ offset + 1 ], minY ));
+			double enlargement = enlarged - area;
+			if( enlargement < bestEnlargement || (enlargement == bestEnlargement && area < bestArea) ) {
+				best = index;
+				bestEnlargement = enlargement;
+				bestArea = area;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Split an overflowing node. The entries are sorted by their centers along
+	 * the axis with the greatest spread and the upper half is moved to a new
+	 * sibling node.
+	 */
+	private Node split( Node node ) {
+		int count = node.count;
+		double[] b = node.bounds;
+		double spreadX = node.maxX() - node.minX();
+		double spreadY = node.maxY() - node.minY();
+		int axis = spreadX >= spreadY ? 0 : 1;
+
+		Integer[] order = new Integer[ count ];
+		for( int index = 0; index < count; index++ ) order[ index ] = index;
+		Arrays.sort( order, Comparator.comparingDouble( index -> b[ 4 * index + axis ] + b[ 4 * index + axis + 2 ] ) );
+
+		Object[] items = Arrays.copyOf( node.items, count );
+		double[] bounds = Arrays.copyOf( b, 4 * count );
+		node.count = 0;
+		Node sibling = new Node( node.leaf, maxEntries );
+		int half = count / 2;
+		for( int index = 0; index < count; index++ ) {
+			int source = order[ index ];
+			int offset = 4 * source;
+			(index < half ? node : sibling).add( items[ source ], bounds[ offset ], bounds[ offset + 1 ], bounds[ offset + 2 ], bounds[ offset + 3 ] );
+		}
+		Arrays.fill( node.items, node.count, node.items.length, null );
+
+		return sibling;
+	}
+
+	private boolean findLeaf( Node node, Object item, Bounds bounds, Deque<Node> path, boolean useBounds ) {
+		path.push( node );
+		if( node.leaf ) {
+			if( node.indexOf( item ) >= 0 ) return true;
+		} else {
+			double[] b = node.bounds;
+			for( int index = 0; index < node.count; index++ ) {
+				int offset = 4 * index;
+				if( useBounds && (b[ offset ] > bounds.getMinX() || b[ offset + 1 ] > bounds.getMinY() || b[ offset + 2 ] < bounds.getMaxX() || b[ offset + 3 ] < bounds.getMaxY()) ) continue;
+				if( findLeaf( (Node)node.items[ index ], item, bounds, path, useBounds ) ) return true;
+			}
+		}
+		path.pop();
+		return false;
+	}
+
+	/**
+	 * Update the bounds along the path from the leaf to the root and remove any
+	 * nodes that have too few entries. The entries from removed nodes are
+	 * inserted again.
+	 */
+	private void condense( Deque<Node> path ) {
+		List<Object> orphans = new ArrayList<>();
+		List<Integer> orphanLevels = new ArrayList<>();
+
+		int level = 0;
+		Node node = path.pop();
+		while( !path.isEmpty() ) {
+			Node parent = path.pop();
+			int index = parent.indexOf( node );
+			if( node.count < minEntries ) {
+				parent.remove( index );
+				for( int child = 0; child < node.count; child++ ) {
+					orphans.add( node.items[ child ] );
+					orphanLevels.add( level );
+				}
+			} else {
+				parent.setBounds( index, node );
+			}
+			node = parent;
+			level++;
+		}
+
+		// Shrink the tree if the root has only one child
+		while( !root.leaf && root.count == 1 ) root = (Node)root.items[ 0 ];
+		if( !root.leaf && root.count == 0 ) root = new Node( true, maxEntries );
+
+		for( int index = 0; index < orphans.size(); index++ ) {
+			Object orphan = orphans.get( index );
+			if( orphan instanceof Node orphanNode ) {
+				insertNode( orphanNode, orphanLevels.get( index ) );
+			} else {
+				Bounds bounds = ((Shape2d)orphan).getBounds();
+				insert( orphan, bounds.getMinX(), bounds.getMinY(), bounds.getMaxX(), bounds.getMaxY(), 0 );
+			}
+		}
+	}
+
+	/**
+	 * Insert a subtree back into a node at the specified level, where level zero
+	 * is the leaf level. If the tree is no longer tall enough the shapes in the
+	 * subtree are inserted instead.
+	 */
+	private void insertNode( Node node, int level ) {
+		if( level > height() ) {
+			List<Object> shapes = new ArrayList<>();
+			collect( node, shapes );
+			for( Object shape : shapes ) {
+				Bounds bounds = ((Shape2d)shape).getBounds();
+				insert( shape, bounds.getMinX(), bounds.getMinY(), bounds.getMaxX(), bounds.getMaxY(), 0 );
+			}
+		} else {
+			insert( node, node.minX(), node.minY(), node.maxX(), node.maxY(), level );
+		}
+	}
+
+	private void collect( Node node, List<Object> shapes ) {
+		for( int index = 0; index < node.count; index++ ) {
+			if( node.leaf ) {
+				shapes.add( node.items[ index ] );
+			} else {
+				collect( (Node)node.items[ index ], shapes );
+			}
+		}
+	}
+
+	/**
+	 * Group the entries into node sized groups using Sort-Tile-Recursive
+	 * packing. The entries are sorted by the x coordinate of their centers and
+	 * cut into vertical slices, then each slice is sorted by the y coordinate of
+	 * the centers and cut into groups.
+	 */
+	private List<List<Entry>> strGroups( List<Entry> entries ) {
+		int count = entries.size();
+		int nodeCount = (int)Math.ceil( (double)count / maxEntries );
+		int sliceCount = (int)Math.ceil( Math.sqrt( nodeCount ) );
+		int sliceSize = sliceCount * maxEntries;
+
+		entries.sort( Comparator.comparingDouble( Entry::centerX ) );
+		List<List<Entry>> groups = new ArrayList<>( nodeCount );
+		for( int sliceStart = 0; sliceStart < count; sliceStart += sliceSize ) {
+			List<Entry> slice = entries.subList( sliceStart, Math.min( sliceStart + sliceSize, count ) );
+			slice.sort( Comparator.comparingDouble( Entry::centerY ) );
+			for( int groupStart = 0; groupStart < slice.size(); groupStart += maxEntries ) {
+				groups.add( slice.subList( groupStart, Math.min( groupStart + maxEntries, slice.size() ) ) );
+			}
+		}
+		return groups;
+	}
+
+	private record Entry(Object item, double minX, double minY, double maxX, double maxY) {
+
+		double centerX() {
+			return minX + maxX;
+		}
+
+		double centerY() {
+			return minY + maxY;
+		}
+
+	}
+
+	/**
+	 * An R-tree node. The bounds of the entries are stored in a flat array of
+	 * min x, min y, max x and max y values so a query does not need to visit the
+	 * shapes or child nodes that do not intersect the window. A node has room
+	 * for one extra entry so it can overflow before being split.
+	 */
+	private static final class Node {
+
+		private final boolean leaf;
+
+		private final Object[] items;
+
+		private final double[] bounds;
+
+		private int count;
+
+		Node( boolean leaf, int capacity ) {
+			this.leaf = leaf;
+			this.items = new Object[ capacity + 1 ];
+			this.bounds = new double[ 4 * (capacity + 1) ];
+		}
+
+		void add( Object item, Node node ) {
+			add( item, node.minX(), node.minY(), node.maxX(), node.maxY() );
+		}
+
+		void add( Object item, double minX, double minY, double maxX, double maxY ) {
+			items[ count ] = item;
+			int offset = 4 * count;
+			bounds[ offset ] = minX;
+			bounds[ offset + 1 ] = minY;
+			bounds[ offset + 2 ] = maxX;
+			bounds[ offset + 3 ] = maxY;
+			count++;
+		}
+
+		void setBounds( int index, Node node ) {
+			int offset = 4 * index;
+			bounds[ offset ] = node.minX();
+			bounds[ offset + 1 ] = node.minY();
+			bounds[ offset + 2 ] = node.maxX();
+			bounds[ offset + 3 ] = node.maxY();
+		}
+
+		void remove( int index ) {
+			int last = count - 1;
+			items[ index ] = items[ last ];
+			System.arraycopy( bounds, 4 * last, bounds, 4 * index, 4 );
+			items[ last ] = null;
+			count--;
+		}
+
+		int indexOf( Object item ) {
+			for( int index = 0; index < count; index++ ) {
+				if( items[ index ] == item ) return index;
+			}
+			return -1;
+		}
+
+		double minX() {
+			double value = Double.POSITIVE_INFINITY;
+			for( int index = 0; index < count; index++ ) value = Math.min( value, bounds[ 4 * index ] );
+			return value;
+		}
+
+		double minY() {
+			double value = Double.POSITIVE_INFINITY;
+			for( int index = 0; index < count; index++ ) value = Math.min( value, bounds[ 4 * index + 1 ] );
+			return value;
+		}
+
+		double maxX() {
+			double value = Double.NEGATIVE_INFINITY;
+			for( int index = 0; index < count; index++ ) value = Math.max( value, bounds[ 4 * index + 2 ] );
+			return value;
+		}
+
+		double maxY() {
+			double value = Double.NEGATIVE_INFINITY;
+			for( int index = 0; index < count; index++ ) value = Math.max( value, bounds[ 4 * index + 3 ] );
+			return value;
+		}
+
+	}
+
+}
@@ -1,5 +1,8 @@
 package com.avereon.marea;
 
+import com.avereon.marea.geom.Marker;
+import javafx.geometry.Bounds;
+
 import java.util.Collection;
 
 public interface ShapeRenderer2d extends Renderer {
@@ -12,4 +15,77 @@ public interface ShapeRenderer2d extends Renderer {
 
 	void fill( Collection<? extends Shape2d> shape, Pen pen );
 
+	/**
+	 * Draw the shapes in the index that intersect the visible area. If the
+	 * visible area is not known all the shapes are drawn.
+	 *
+	 * @param index The shape index
+	 * @param pen The pen to draw the shapes with
+	 */
+	default void draw( ShapeIndex<? extends Shape2d> index, Pen pen ) {
+		Bounds visible = getVisibleBounds();
+		if( visible == null ) {
+			index.query( Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, shape -> draw( shape, pen ) );
+			return;
+		}
+		double margin = pen.width();
+		index.query( visible.getMinX() - margin, visible.getMinY() - margin, visible.getMaxX() + margin, visible.getMaxY() + margin, shape -> draw( shape, pen ) );
+	}
+
+	/**
+	 * Fill the shapes in the index that intersect the visible area. If the
+	 * visible area is not known all the shapes are filled.
+	 *
+	 * @param index The shape index
+	 * @param pen The pen to fill the shapes with
+	 */
+	default void fill( ShapeIndex<? extends Shape2d> index, Pen pen ) {
+		Bounds visible = getVisibleBounds();
+		if( visible == null ) {
+			index.query( Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, shape -> fill( shape, pen ) );
+			return;
+		}
+		index.query( visible.getMinX(), visible.getMinY(), visible.getMaxX(), visible.getMaxY(), shape -> fill( shape, pen ) );
+	}
+
+	/**
+	 * Draw a marker at each position. Each instance is scaled and rotated about
+	 * its position. The positions are x and y coordinate pairs in the array.
+	 * The default implementation draws each instance as a separate shape.
+	 *
+	 * @param marker The marker
+	 * @param xy The instance position coordinates
+	 * @param rotate The instance rotations in degrees, or null for no rotation
+	 * @param scale The instance scales, or null for a scale of one
+	 * @param count The number of instances
+	 * @param pen The pen to draw the markers with
+	 */
+	default void drawMarkers( Marker marker, double[] xy, double[] rotate, double[] scale, int count, Pen pen ) {
+		for( int index = 0; index < count; index++ ) {
+			double r = rotate == null ? 0.0 : rotate[ index ];
+			double s = scale == null ? 1.0 : scale[ index ];
+			draw( marker.place( xy[ 2 * index ], xy[ 2 * index + 1 ], r, s ), pen );
+		}
+	}
+
+	/**
+	 * Fill a marker at each position. Each instance is scaled and rotated about
+	 * its position. The positions are x and y coordinate pairs in the array.
+	 * The default implementation fills each instance as a separate shape.
+	 *
+	 * @param marker The marker
+	 * @param xy The instance position coordinates
+	 * @param rotate The instance rotations in degrees, or null for no rotation
+	 * @param scale The instance scales, or null for a scale of one
+	 * @param count The number of instances
+	 * @param pen The pen to fill the markers with
+	 */
+	default void fillMarkers( Marker marker, double[] xy, double[] rotate, double[] scale, int count, Pen pen ) {
+		for( int index = 0; index < count; index++ ) {
+			double r = rotate == null ? 0.0 : rotate[ index ];
+			double s = scale == null ? 1.0 : scale[ index ];
+			fill( marker.place( xy[ 2 * index ], xy[ 2 * index + 1 ], r, s ), pen );
+		}
+	}
+
 }
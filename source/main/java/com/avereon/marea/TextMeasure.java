@@ -0,0 +1,88 @@
+package com.avereon.marea;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Measures text without rendering it. Culling, hit testing and label placement
+ * need the extent of text before the text is drawn, often on a thread other
+ * than the FX application thread. The text is measured with the matching AWT
+ * font from the {@link FontCache}, so no canvas or live scene is needed.
+ * <p>
+ * The metrics are measured once for each text and font, for text with a
+ * height of one, and cached. The metrics for other heights are scaled from the
+ * cached metrics. The cache holds at most {@link #MAX_SIZE} entries and is
+ * cleared when it is full. This class is thread safe.
+ */
+public final class TextMeasure {
+
+	public static final int MAX_SIZE = 16384;
+
+	/**
+	 * The font size used to measure text. Text is measured at a large size so
+	 * the scaled metrics are not affected by rounding at small sizes.
+	 */
+	private static final double MEASURE_SIZE = 72;
+
+	private static final Map<Key, TextMetrics> metrics = new ConcurrentHashMap<>();
+
+	private TextMeasure() {}
+
+	/**
+	 * Measure text with a height of one.
+	 *
+	 * @param text The text, which may have several lines
+	 * @param font The font, or null for the default font
+	 * @return The text metrics
+	 */
+	public static TextMetrics measure( String text, Font font ) {
+		ResolvedFont resolved = FontCache.resolve( font, MEASURE_SIZE );
+		Key key = new Key( text == null ? "" : text, resolved );
+		TextMetrics result = metrics.get( key );
+		if( result != null ) return result;
+
+		if( metrics.size() >= MAX_SIZE ) metrics.clear();
+		return metrics.computeIfAbsent( key, k -> measure( k.text(), k.font() ) );
+	}
+
+	/**
+	 * Measure text with a specific height.
+	 *
+	 * @param text The text, which may have several lines
+	 * @param font The font, or null for the default font
+	 * @param height The text height
+	 * @return The text metrics
+	 */
+	public static TextMetrics measure( String text, Font font, double height ) {
+		return measure( text, font ).scale( height );
+	}
+
+	public static int size() {
+		return metrics.size();
+	}
+
+	public static void clear() {
+		metrics.clear();
+	}
+
+	private static TextMetrics measure( String text, ResolvedFont font ) {
+		double advance = 0;
+		int lineCount = 0;
+		int lineStart = 0;
+		while( lineStart <= text.length() ) {
+			int lineEnd = text.indexOf( '\n', lineStart );
+			if( lineEnd < 0 ) lineEnd = text.length();
+			if( lineEnd > lineStart ) advance = Math.max( advance, font.getAdvance( text.substring( lineStart, lineEnd ) ) );
+			lineStart = lineEnd + 1;
+			lineCount++;
+		}
+
+		double lineSpacing = font.getLineHeight();
+		double descent = font.getDescent() + (lineCount - 1) * lineSpacing;
+		double scale = 1 / font.getSize();
+		return new TextMetrics( advance * scale, font.getAscent() * scale, descent * scale, lineSpacing * scale, lineCount );
+	}
+
+	private record Key(String text, ResolvedFont font) {}
+
+}
@@ -0,0 +1,38 @@
+package com.avereon.marea;
+
+/**
+ * The measured extent of text. The values are distances from the text anchor
+ * along the text direction, before the text is rotated. The first line of text
+ * is on the anchor baseline and each following line is one line spacing lower.
+ * Metrics are created by {@link TextMeasure}.
+ *
+ * @param advance The advance width of the longest line
+ * @param ascent The distance from the baseline to the top of the first line
+ * @param descent The distance from the baseline to the bottom of the last line
+ * @param lineSpacing The distance between the baselines of two lines
+ * @param lineCount The number of lines
+ */
+public record TextMetrics(double advance, double ascent, double descent, double lineSpacing, int lineCount) {
+
+	/**
+	 * Get the total height of the text, from the top of the first line to the
+	 * bottom of the last line.
+	 *
+	 * @return The total text height
+	 */
+	public double getTotalHeight() {
+		return ascent + descent;
+	}
+
+	/**
+	 * Scale the metrics. This is used to convert the metrics of text with a
+	 * height of one to the metrics of text with a specific height.
+	 *
+	 * @param scale The scale factor
+	 * @return The scaled metrics
+	 */
+	public TextMetrics scale( double scale ) {
+		return new TextMetrics( advance * scale, ascent * scale, descent * scale, lineSpacing * scale, lineCount );
+	}
+
+}
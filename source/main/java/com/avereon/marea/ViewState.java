@@ -0,0 +1,165 @@
+package com.avereon.marea;
+
+import javafx.scene.transform.Affine;
+
+/**
+ * An immutable snapshot of everything that determines the world to screen
+ * transform of a renderer. A renderer applies a view state as one change, so
+ * the transforms are updated once and observers of the
+ * {@link Renderer#viewStateProperty() view state property} get one
+ * notification with the state before and after the change, instead of one
+ * notification for each view property.
+ * <p>
+ * The with methods return a copy of the view state with some values changed,
+ * so several changes can be combined and applied at once:
+ * <pre>
+ * renderer.setViewState( renderer.getViewState().withZoom( 2, 2 ).withViewRotate( 45 ) );
+ * </pre>
+ *
+ * @param lengthUnit The world length unit
+ * @param dpiX The screen DPI in the x direction
+ * @param dpiY The screen DPI in the y direction
+ * @param zoomX The zoom factor in the x direction
+ * @param zoomY The zoom factor in the y direction
+ * @param viewpointX The world x coordinate at the center of the renderer
+ * @param viewpointY The world y coordinate at the center of the renderer
+ * @param viewRotate The view rotation angle in degrees
+ * @param width The renderer width in pixels
+ * @param height The renderer height in pixels
+ */
+public record ViewState(
+	RenderUnit lengthUnit, double dpiX, double dpiY, double zoomX, double zoomY, double viewpointX, double viewpointY, double viewRotate, double width, double height
+) {
+
+	public static final RenderUnit DEFAULT_LENGTH_UNIT = RenderUnit.CM;
+
+	public static final double DEFAULT_DPI = 72.0;
+
+	public static final double DEFAULT_ZOOM = 1.0;
+
+	/**
+	 * Create a view state with the default view and the specified size.
+	 *
+	 * @param width The renderer width in pixels
+	 * @param height The renderer height in pixels
+	 */
+	public ViewState( double width, double height ) {
+		this( DEFAULT_LENGTH_UNIT, DEFAULT_DPI, DEFAULT_DPI, DEFAULT_ZOOM, DEFAULT_ZOOM, 0.0, 0.0, 0.0, width, height );
+	}
+
+	public ViewState withLengthUnit( RenderUnit lengthUnit ) {
+		return new ViewState( lengthUnit, dpiX, dpiY, zoomX, zoomY, viewpointX, viewpointY, viewRotate, width, height );
+	}
+
+	public ViewState withDpi( double dpiX, double dpiY ) {
+		return new ViewState( lengthUnit, dpiX, dpiY, zoomX, zoomY, viewpointX, viewpointY, viewRotate, width, height );
+	}
+
+	public ViewState withZoom( double zoomX, double zoomY ) {
+		return new ViewState( lengthUnit, dpiX, dpiY, zoomX, zoomY, viewpointX, viewpointY, viewRotate, width, height );
+	}
+
+	public ViewState withViewpoint( double viewpointX, double viewpointY ) {
+		return new ViewState( lengthUnit, dpiX, dpiY, zoomX, zoomY, viewpointX, viewpointY, viewRotate, width, height );
+	}
+
+	public ViewState withViewRotate( double viewRotate ) {
+		return new ViewState( lengthUnit, dpiX, dpiY, zoomX, zoomY, viewpointX, viewpointY, viewRotate, width, height );
+	}
+
+	public ViewState withSize( double width, double height ) {
+		return new ViewState( lengthUnit, dpiX, dpiY, zoomX, zoomY, viewpointX, viewpointY, viewRotate, width, height );
+	}
+
+	public ViewState withView( double viewpointX, double viewpointY, double viewRotate, double zoomX, double zoomY ) {
+		return new ViewState( lengthUnit, dpiX, dpiY, zoomX, zoomY, viewpointX, viewpointY, viewRotate, width, height );
+	}
+
+	/**
+	 * Change the zoom while keeping a world point at the same screen position.
+	 *
+	 * @param x The world x coordinate of the fixed point
+	 * @param y The world y coordinate of the fixed point
+	 * @param zoomX The new zoom factor in the x direction
+	 * @param zoomY The new zoom factor in the y direction
+	 * @return The changed view state
+	 */
+	public ViewState withZoomAt( double x, double y, double zoomX, double zoomY ) {
+		double viewpointX = x + (this.viewpointX - x) * this.zoomX / zoomX;
+		double viewpointY = y + (this.viewpointY - y) * this.zoomY / zoomY;
+		return new ViewState( lengthUnit, dpiX, dpiY, zoomX, zoomY, viewpointX, viewpointY, viewRotate, width, height );
+	}
+
+	/**
+	 * Change the zoom by one zoom step while keeping a world point at the same
+	 * screen position. Zooming in multiplies the zoom by one plus the zoom step
+	 * and zooming out divides the zoom by the same factor.
+	 *
+	 * @param x The world x coordinate of the fixed point
+	 * @param y The world y coordinate of the fixed point
+	 * @param zoomStep The zoom step
+	 * @param zoomIn True to zoom in, false to zoom out
+	 * @return The changed view state
+	 */
+	public ViewState withZoomStep( double x, double y, double zoomStep, boolean zoomIn ) {
+		double scale = zoomIn ? 1.0 + zoomStep : 1.0 / (1.0 + zoomStep);
+		return withZoomAt( x, y, scale * zoomX, scale * zoomY );
+	}
+
+	/**
+	 * Create the world to screen transform for this view. The viewpoint is at
+	 * the center of the screen, the y axis points up and the world is scaled by
+	 * the DPI and zoom.
+	 *
+	 * @return A new world to screen transform
+	 */
+	public Affine createWorldToScreenTransform() {
+		return createWorldToScreenTransform( 1.0, false );
+	}
+
+	/**
+	 * Create the world to screen transform for text drawn in points. The y axis
+	 * points down, like the text coordinates, and the world coordinates are
+	 * multiplied by the point size. Text at world coordinates times the point
+	 * size is drawn at the same screen position as the world coordinates with
+	 * the world to screen transform.
+	 *
+	 * @param pointSize The text points for one world unit
+	 * @return A new world to screen text transform
+	 */
+	public Affine createWorldToScreenTextTransform( double pointSize ) {
+		return createWorldToScreenTransform( pointSize, true );
+	}
+
+	private Affine createWorldToScreenTransform( double scale, boolean text ) {
+		double rotate = text ? -viewRotate : viewRotate;
+		double zoomY = text ? -this.zoomY : this.zoomY;
+		double viewpointY = text ? -this.viewpointY : this.viewpointY;
+
+		Affine affine = new Affine();
+
+		// NOTE The following transformations are prepended, so they are applied
+		// in the order they are listed
+
+		// Move model viewpoint to model origin
+		affine.prependTranslation( -viewpointX * scale, -viewpointY * scale );
+
+		// Apply rotate
+		affine.prependRotation( rotate );
+
+		// Flip the Y axis
+		affine.prependScale( 1, -1 );
+
+		// Apply DPI
+		affine.prependScale( lengthUnit.convert( dpiX ), lengthUnit.convert( dpiY ) );
+
+		// Apply zoom
+		affine.prependScale( zoomX / scale, zoomY / scale );
+
+		// Move model viewpoint back to node center
+		affine.prependTranslation( 0.5 * width, 0.5 * height );
+
+		return affine;
+	}
+
+}
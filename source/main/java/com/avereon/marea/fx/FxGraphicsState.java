@@ -0,0 +1,352 @@
+package com.avereon.marea.fx;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Paint;
+import javafx.scene.shape.FillRule;
+import javafx.scene.shape.StrokeLineCap;
+import javafx.scene.shape.StrokeLineJoin;
+import javafx.scene.text.Font;
+import javafx.scene.transform.Affine;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Objects;
+
+/**
+ * A shadow of the graphics context state. The canvas records every state
+ * change as a command in its buffer, even if the value did not change. This
+ * class keeps track of the values last sent to the graphics context and only
+ * sends a state change when the value is actually different.
+ * <p>
+ * All state changes to the graphics context must go through this class, or
+ * the shadow state must be {@link #invalidate() invalidated}. Changes made
+ * outside the renderer are handled by
+ * {@link FxRenderer2d#invalidateGraphicsState()}. The graphics
+ * context state should be saved and restored with {@link #save()} and
+ * {@link #restore()} so the shadow state is restored with it.
+ */
+final class FxGraphicsState {
+
+	private final GraphicsContext context;
+
+	private Paint stroke;
+
+	private Paint fill;
+
+	private double lineWidth;
+
+	private StrokeLineCap lineCap;
+
+	private StrokeLineJoin lineJoin;
+
+	private boolean lineDashesValid;
+
+	private double[] lineDashes;
+
+	private double lineDashOffset;
+
+	private FillRule fillRule;
+
+	private Font font;
+
+	// The id of the interned pen the stroke and fill state was set from, or
+	// zero if the state was changed in any other way
+	private int penId;
+
+	private boolean transformValid;
+
+	private double mxx;
+
+	private double myx;
+
+	private double mxy;
+
+	private double myy;
+
+	private double mxt;
+
+	private double myt;
+
+	private long changeCount;
+
+	private long skipCount;
+
+	private final Deque<SavedState> saved = new ArrayDeque<>();
+
+	FxGraphicsState( GraphicsContext context ) {
+		this.context = context;
+		invalidate();
+	}
+
+	/**
+	 * Forget the shadow state so the next state changes are sent to the
+	 * graphics context regardless of their value.
+	 */
+	void invalidate() {
+		stroke = null;
+		fill = null;
+		lineWidth = Double.NaN;
+		lineCap = null;
+		lineJoin = null;
+		lineDashesValid = false;
+		lineDashes = null;
+		lineDashOffset = Double.NaN;
+		fillRule = null;
+		font = null;
+		penId = 0;
+		transformValid = false;
+	}
+
+	/**
+	 * Save the graphics context state and the shadow state.
+	 */
+	void save() {
+		context.save();
+		saved.push( new SavedState( stroke, fill, lineWidth, lineCap, lineJoin, lineDashesValid, lineDashes, lineDashOffset, fillRule, font, penId, transformValid, mxx, myx, mxy, myy, mxt, myt ) );
+	}
+
+	/**
+	 * Restore the graphics context state and the shadow state that were saved
+	 * by the matching call to {@link #save()}.
+	 */
+	void restore() {
+		context.restore();
+		SavedState state = saved.pop();
+		stroke = state.stroke();
+		fill = state.fill();
+		lineWidth = state.lineWidth();
+		lineCap = state.lineCap();
+		lineJoin = state.lineJoin();
+		lineDashesValid = state.lineDashesValid();
+		lineDashes = state.lineDashes();
+		lineDashOffset = state.lineDashOffset();
+		fillRule = state.fillRule();
+		font = state.font();
+		penId = state.penId();
+		transformValid = state.transformValid();
+		mxx = state.mxx();
+		myx = state.myx();
+		mxy = state.mxy();
+		myy = state.myy();
+		mxt = state.mxt();
+		myt = state.myt();
+	}
+
+	/**
+	 * Check if the stroke and fill state was set from an interned pen, and has
+	 * not changed since. If so, none of the pen values need to be compared.
+	 *
+	 * @param id The interned pen id, or zero if the pen is not interned
+	 * @return True if the state is already set from the pen
+	 */
+	boolean isPen( int id ) {
+		if( id == 0 || id != penId ) return false;
+		skipCount++;
+		return true;
+	}
+
+	/**
+	 * Record that the stroke and fill state was just set from an interned pen.
+	 *
+	 * @param id The interned pen id, or zero if the pen is not interned
+	 */
+	void setPenId( int id ) {
+		penId = id;
+	}
+
+	Paint getStroke() {
+		return stroke;
+	}
+
+	void setStroke( Paint stroke ) {
+		if( stroke == this.stroke || (stroke != null && stroke.equals( this.stroke )) ) {
+			skipCount++;
+			return;
+		}
+		context.setStroke( stroke );
+		this.stroke = stroke;
+		penId = 0;
+		changeCount++;
+	}
+
+	Paint getFill() {
+		return fill;
+	}
+
+	void setFill( Paint fill ) {
+		if( fill == this.fill || (fill != null && fill.equals( this.fill )) ) {
+			skipCount++;
+			return;
+		}
+		context.setFill( fill );
+		this.fill = fill;
+		penId = 0;
+		changeCount++;
+	}
+
+	double getLineWidth() {
+		return lineWidth;
+	}
+
+	void setLineWidth( double lineWidth ) {
+		if( lineWidth == this.lineWidth ) {
+			skipCount++;
+			return;
+		}
+		context.setLineWidth( lineWidth );
+		this.lineWidth = lineWidth;
+		penId = 0;
+		changeCount++;
+	}
+
+	void setLineCap( StrokeLineCap lineCap ) {
+		if( lineCap == this.lineCap ) {
+			skipCount++;
+			return;
+		}
+		context.setLineCap( lineCap );
+		this.lineCap = lineCap;
+		penId = 0;
+		changeCount++;
+	}
+
+	void setLineJoin( StrokeLineJoin lineJoin ) {
+		if( lineJoin == this.lineJoin ) {
+			skipCount++;
+			return;
+		}
+		context.setLineJoin( lineJoin );
+		this.lineJoin = lineJoin;
+		penId = 0;
+		changeCount++;
+	}
+
+	/**
+	 * Get the current line dashes. The returned array must not be modified.
+	 *
+	 * @return The current line dashes, or null if there are no dashes
+	 */
+	double[] getLineDashes() {
+		return lineDashes;
+	}
+
+	void setLineDashes( double[] lineDashes ) {
+		// The graphics context treats empty dashes the same as no dashes
+		if( lineDashes != null && lineDashes.length == 0 ) lineDashes = null;
+		if( lineDashesValid && Arrays.equals( lineDashes, this.lineDashes ) ) {
+			skipCount++;
+			return;
+		}
+		context.setLineDashes( lineDashes );
+		this.lineDashes = lineDashes == null ? null : lineDashes.clone();
+		lineDashesValid = true;
+		penId = 0;
+		changeCount++;
+	}
+
+	double getLineDashOffset() {
+		return lineDashOffset;
+	}
+
+	void setLineDashOffset( double lineDashOffset ) {
+		if( lineDashOffset == this.lineDashOffset ) {
+			skipCount++;
+			return;
+		}
+		context.setLineDashOffset( lineDashOffset );
+		this.lineDashOffset = lineDashOffset;
+		penId = 0;
+		changeCount++;
+	}
+
+	FillRule getFillRule() {
+		return fillRule;
+	}
+
+	void setFillRule( FillRule fillRule ) {
+		if( fillRule == this.fillRule ) {
+			skipCount++;
+			return;
+		}
+		context.setFillRule( fillRule );
+		this.fillRule = fillRule;
+		changeCount++;
+	}
+
+	void setFont( Font font ) {
+		if( font == this.font || Objects.equals( font, this.font ) ) {
+			skipCount++;
+			return;
+		}
+		context.setFont( font );
+		this.font = font;
+		changeCount++;
+	}
+
+	void setTransform( Affine transform ) {
+		setTransform( transform.getMxx(), transform.getMyx(), transform.getMxy(), transform.getMyy(), transform.getTx(), transform.getTy() );
+	}
+
+	void setTransform( double mxx, double myx, double mxy, double myy, double mxt, double myt ) {
+		if( transformValid && mxx == this.mxx && myx == this.myx && mxy == this.mxy && myy == this.myy && mxt == this.mxt && myt == this.myt ) {
+			skipCount++;
+			return;
+		}
+		context.setTransform( mxx, myx, mxy, myy, mxt, myt );
+		this.mxx = mxx;
+		this.myx = myx;
+		this.mxy = mxy;
+		this.myy = myy;
+		this.mxt = mxt;
+		this.myt = myt;
+		transformValid = true;
+		changeCount++;
+	}
+
+	/**
+	 * Get the number of state changes that were sent to the graphics context.
+	 *
+	 * @return The number of state changes sent
+	 */
+	long getChangeCount() {
+		return changeCount;
+	}
+
+	/**
+	 * Get the number of state changes that were not sent to the graphics context
+	 * because the value did not change.
+	 *
+	 * @return The number of state changes skipped
+	 */
+	long getSkipCount() {
+		return skipCount;
+	}
+
+	void resetCounts() {
+		changeCount = 0;
+		skipCount = 0;
+	}
+
+	private record SavedState(
+		Paint stroke,
+		Paint fill,
+		double lineWidth,
+		StrokeLineCap lineCap,
+		StrokeLineJoin lineJoin,
+		boolean lineDashesValid,
+		double[] lineDashes,
+		double lineDashOffset,
+		FillRule fillRule,
+		Font font,
+		int penId,
+		boolean transformValid,
+		double mxx,
+		double myx,
+		double mxy,
+		double myy,
+		double mxt,
+		double myt
+	) {}
+
+}
@@ -0,0 +1,327 @@
+package com.avereon.marea.fx;
+
+import com.avereon.marea.DirtyRegions;
+import com.avereon.marea.ViewState;
+import javafx.geometry.Bounds;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import javafx.scene.transform.Transform;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A stack of named layers that are drawn in order. The layer stack is a scene
+ * painter, so it is usually set as the {@link FxRenderer2d#setPainter painter}
+ * of a renderer.
+ * <p>
+ * Each cached layer is rendered into its own image with the view of the
+ * renderer and the images are composited in order. A cached layer is only
+ * drawn again when the layer is {@link Layer#invalidate() invalidated} or
+ * the view changes, so a heavy static layer, like a background grid, is not
+ * redrawn when a light layer above it changes. When the view only moved by
+ * whole pixels the layer image is shifted and only the exposed edges are
+ * drawn, and when part of a layer {@link Layer#invalidate(Bounds) changed}
+ * only that part is drawn. When the renderer draws a region, like a dirty
+ * region, only that region of each layer image is composited. Layers that
+ * change on most frames, like a cursor, can be drawn directly on the
+ * renderer by turning off {@link Layer#setCached(boolean) caching}.
+ * <p>
+ * The layer painters should only draw in world coordinates, for the same
+ * reasons as the renderer scene painter. Invalidating a layer does not draw
+ * the renderer, so the renderer, or its {@link FxRenderScheduler}, must also
+ * be invalidated. This class must be used on the FX application thread.
+ */
+public class FxLayerStack implements Consumer<FxRenderer2d> {
+
+	private final List<Layer> layers;
+
+	private final List<Layer> readOnlyLayers;
+
+	private final SnapshotParameters snapshotParameters;
+
+	private FxRenderer2d layerRenderer;
+
+	private long renderCount;
+
+	private long updateCount;
+
+	public FxLayerStack() {
+		this.layers = new ArrayList<>();
+		this.readOnlyLayers = Collections.unmodifiableList( layers );
+		this.snapshotParameters = new SnapshotParameters();
+		this.snapshotParameters.setFill( Color.TRANSPARENT );
+	}
+
+	/**
+	 * Add a layer on top of the other layers.
+	 *
+	 * @param name The layer name
+	 * @param painter The layer painter
+	 * @return The new layer
+	 * @throws IllegalArgumentException If there is already a layer with the name
+	 */
+	public Layer addLayer( String name, Consumer<? super FxRenderer2d> painter ) {
+		if( getLayer( name ) != null ) throw new IllegalArgumentException( "Layer already exists: " + name );
+		Layer layer = new Layer( name, painter );
+		layers.add( layer );
+		return layer;
+	}
+
+	/**
+	 * Get a layer by name.
+	 *
+	 * @param name The layer name
+	 * @return The layer, or null if there is no layer with the name
+	 */
+	public Layer getLayer( String name ) {
+		for( Layer layer : layers ) {
+			if( layer.getName().equals( name ) ) return layer;
+		}
+		return null;
+	}
+
+	public boolean removeLayer( String name ) {
+		return layers.removeIf( layer -> layer.getName().equals( name ) );
+	}
+
+	/**
+	 * Get the layers, from the bottom to the top.
+	 *
+	 * @return A read only list of the layers
+	 */
+	public List<Layer> getLayers() {
+		return readOnlyLayers;
+	}
+
+	/**
+	 * Invalidate all the layers.
+	 */
+	public void invalidate() {
+		layers.forEach( Layer::invalidate );
+	}
+
+	/**
+	 * Get the number of times a cached layer was completely rendered into its
+	 * image. This is useful to measure how well the layer images are reused.
+	 *
+	 * @return The number of layer images rendered
+	 */
+	public long getRenderCount() {
+		return renderCount;
+	}
+
+	/**
+	 * Get the number of times a cached layer image was updated by drawing only
+	 * part of the layer, because the view only moved or only part of the layer
+	 * changed.
+	 *
+	 * @return The number of layer images updated
+	 */
+	public long getUpdateCount() {
+		return updateCount;
+	}
+
+	/**
+	 * Draw the visible layers on the renderer, drawing the cached layers that
+	 * are not valid for the view of the renderer.
+	 *
+	 * @param renderer The renderer to draw on
+	 */
+	@Override
+	public void accept( FxRenderer2d renderer ) {
+		int width = (int)Math.ceil( renderer.getWidth() );
+		int height = (int)Math.ceil( renderer.getHeight() );
+		if( width <= 0 || height <= 0 ) return;
+
+		Rectangle2D region = renderer.getPaintRegion();
+		for( Layer layer : layers ) {
+			if( !layer.isVisible() ) continue;
+			if( !layer.isCached() ) {
+				layer.painter.accept( renderer );
+				continue;
+			}
+			if( !layer.isValidFor( renderer.getViewState() ) ) renderLayer( renderer, layer, width, height );
+			if( region == null ) {
+				renderer.drawScreenImage( layer.image, 0, 0 );
+			} else {
+				renderer.drawScreenImage( layer.image, region );
+			}
+		}
+	}
+
+	private void renderLayer( FxRenderer2d renderer, Layer layer, int width, int height ) {
+		if( layerRenderer == null ) layerRenderer = new FxRenderer2d();
+		layerRenderer.copyRenderSettings( renderer );
+		layerRenderer.setViewState( renderer.getViewState().withSize( width, height ) );
+		layerRenderer.clear();
+
+		Transform transform = layerRenderer.getWorldToScreenTransform();
+		WritableImage image = layer.image;
+		boolean sameSize = image != null && (int)image.getWidth() == width && (int)image.getHeight() == height;
+		boolean reusable = sameSize && layerRenderer.getVisibleBounds() != null;
+		List<Rectangle2D> regions = reusable ? getUpdateRegions( layer, transform, width, height ) : null;
+		if( regions == null ) {
+			layer.painter.accept( layerRenderer );
+			renderCount++;
+		} else {
+			// Shift the old image and draw the exposed and changed regions
+			double dx = Math.round( transform.getTx() - layer.transform.getTx() );
+			double dy = Math.round( transform.getTy() - layer.transform.getTy() );
+			layerRenderer.drawScreenImage( image, dx, dy );
+			for( Rectangle2D region : regions ) {
+				layerRenderer.paintRegion( region, layer.painter, true );
+			}
+			updateCount++;
+		}
+
+		// The old image is drawn on the layer renderer, so the snapshot is taken
+		// into the spare image
+		WritableImage spare = layer.spare;
+		if( spare == null || (int)spare.getWidth() != width || (int)spare.getHeight() != height ) spare = null;
+		layer.spare = sameSize ? image : null;
+		layer.image = layerRenderer.snapshot( snapshotParameters, spare );
+		layer.viewState = renderer.getViewState();
+		layer.transform = transform;
+		layer.changes.clear();
+	}
+
+	/**
+	 * Get the screen regions of a layer image that need to be drawn for the
+	 * new view when the rest of the image can be reused.
+	 *
+	 * @return The regions to draw, or null if the whole layer must be drawn
+	 */
+	private static List<Rectangle2D> getUpdateRegions( Layer layer, Transform transform, int width, int height ) {
+		Transform prior = layer.transform;
+		if( prior == null ) return null;
+		if( prior.getMxx() != transform.getMxx() || prior.getMxy() != transform.getMxy() || prior.getMyx() != transform.getMyx() || prior.getMyy() != transform.getMyy() ) return null;
+
+		double dx = transform.getTx() - prior.getTx();
+		double dy = transform.getTy() - prior.getTy();
+		if( !FxRenderer2d.isWholePixels( dx ) || !FxRenderer2d.isWholePixels( dy ) ) return null;
+
+		List<Rectangle2D> exposed = FxRenderer2d.getExposedRegions( width, height, Math.round( dx ), Math.round( dy ) );
+		if( exposed == null ) return null;
+
+		DirtyRegions regions = new DirtyRegions();
+		exposed.forEach( regions::add );
+		for( Bounds bounds : layer.changes ) {
+			// Include the antialiased pixels along the edges
+			Bounds screen = transform.transform( bounds );
+			double minX = Math.max( 0, Math.floor( screen.getMinX() ) - 1 );
+			double minY = Math.max( 0, Math.floor( screen.getMinY() ) - 1 );
+			double maxX = Math.min( width, Math.ceil( screen.getMaxX() ) + 1 );
+			double maxY = Math.min( height, Math.ceil( screen.getMaxY() ) + 1 );
+			if( maxX > minX && maxY > minY ) regions.add( minX, minY, maxX - minX, maxY - minY );
+		}
+		return regions.getRegions();
+	}
+
+	/**
+	 * A named layer in a layer stack.
+	 */
+	public static final class Layer {
+
+		private final String name;
+
+		private final Consumer<? super FxRenderer2d> painter;
+
+		private boolean visible = true;
+
+		private boolean cached = true;
+
+		private WritableImage image;
+
+		// The previous image, reused for the next snapshot
+		private WritableImage spare;
+
+		// The view the image was rendered with, or null if the image is not valid
+		private ViewState viewState;
+
+		// The world to screen transform the image was rendered with, or null if
+		// the image is not valid
+		private Transform transform;
+
+		// The world bounds that changed since the image was rendered
+		private final List<Bounds> changes = new ArrayList<>();
+
+		private Layer( String name, Consumer<? super FxRenderer2d> painter ) {
+			this.name = name;
+			this.painter = painter;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public Consumer<? super FxRenderer2d> getPainter() {
+			return painter;
+		}
+
+		public boolean isVisible() {
+			return visible;
+		}
+
+		public void setVisible( boolean visible ) {
+			this.visible = visible;
+		}
+
+		/**
+		 * Check if the layer is rendered into a cached image. Layers that are not
+		 * cached are drawn directly on the renderer every time.
+		 *
+		 * @return True if the layer is cached
+		 */
+		public boolean isCached() {
+			return cached;
+		}
+
+		public void setCached( boolean cached ) {
+			this.cached = cached;
+			if( !cached ) {
+				image = null;
+				spare = null;
+				invalidate();
+			}
+		}
+
+		/**
+		 * Mark the layer content as changed so the layer is rendered again the
+		 * next time it is drawn.
+		 */
+		public void invalidate() {
+			viewState = null;
+			transform = null;
+			changes.clear();
+		}
+
+		/**
+		 * Mark part of the layer content as changed so only that part of the
+		 * layer is drawn again the next time it is drawn.
+		 *
+		 * @param bounds The world bounds that changed
+		 */
+		public void invalidate( Bounds bounds ) {
+			if( transform == null || bounds == null || bounds.isEmpty() ) return;
+			changes.add( bounds );
+		}
+
+		/**
+		 * Check if the cached image of the layer can be used for a view.
+		 *
+		 * @param view The view to check
+		 * @return True if the cached image was rendered with the view and has not
+		 * changed
+		 */
+		public boolean isValidFor( ViewState view ) {
+			return image != null && changes.isEmpty() && view.equals( viewState );
+		}
+
+	}
+
+}
@@ -0,0 +1,161 @@
+package com.avereon.marea.fx;
+
+import com.avereon.marea.LineCap;
+import com.avereon.marea.LineJoin;
+import com.avereon.marea.Pen;
+import com.avereon.marea.geom.FlatPath;
+import com.avereon.marea.geom.Marker;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+
+import java.awt.BasicStroke;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Rasterized markers, or stamps. Small markers drawn at many positions look
+ * the same at every position, so the marker is rasterized once for the pen
+ * and the screen transform and then drawn by copying the stamp image to each
+ * position. The stamp is placed on whole pixels, so a stamped marker can be up
+ * to half a pixel from its true position.
+ * <p>
+ * The markers are rasterized with AWT, so no live scene is needed. Filled
+ * markers use the non-zero fill rule. When the cache is full it is cleared
+ * and the stamps are rasterized again as they are used. This class must be
+ * used on the FX application thread.
+ */
+final class FxMarkerStamps {
+
+	static final int MAX_STAMPS = 256;
+
+	/**
+	 * The empty pixels around each stamp so antialiased edges are not clipped.
+	 */
+	private static final int PADDING = 1;
+
+	private final Map<Key, Stamp> stamps = new HashMap<>();
+
+	/**
+	 * Get the number of stamps in the cache.
+	 *
+	 * @return The number of stamps
+	 */
+	int size() {
+		return stamps.size();
+	}
+
+	/**
+	 * Get the stamp for a marker, rasterizing the marker if it is not in the
+	 * cache. The linear transform converts marker coordinates to screen pixels.
+	 * The pen width is in marker coordinates. Only pens with a solid color and
+	 * no dashes can be stamped.
+	 *
+	 * @param marker The marker
+	 * @param pen The pen to draw or fill the marker with
+	 * @param fill True to fill the marker, false to draw the marker outline
+	 * @return The stamp, or null if the marker cannot be stamped
+	 */
+	Stamp get( Marker marker, Pen pen, boolean fill, double mxx, double mxy, double myx, double myy ) {
+		if( !(pen.paint() instanceof Color color) ) return null;
+		if( !fill && pen.dashes() != null && pen.dashes().length > 0 ) return null;
+
+		double width = fill ? 0.0 : pen.width();
+		Key key = new Key( marker, fill, color, width, pen.cap(), pen.join(), mxx, mxy, myx, myy );
+		Stamp stamp = stamps.get( key );
+		if( stamp == null ) {
+			if( stamps.size() >= MAX_STAMPS ) stamps.clear();
+			stamp = rasterize( marker, color, fill, width, pen.cap(), pen.join(), mxx, mxy, myx, myy );
+			stamps.put( key, stamp );
+		}
+		return stamp;
+	}
+
+	private Stamp rasterize( Marker marker, Color color, boolean fill, double width, LineCap cap, LineJoin join, double mxx, double mxy, double myx, double myy ) {
+		double pixelScale = Math.sqrt( Math.abs( mxx * myy - mxy * myx ) );
+		FlatPath flat = marker.getFlatPath( FxRenderer2d.FLATNESS / pixelScale );
+
+		Path2D.Double path = new Path2D.Double( Path2D.WIND_NON_ZERO );
+		for( int contour = 0; contour < flat.getContourCount(); contour++ ) {
+			int start = flat.getContourStart( contour );
+			int end = flat.getContourEnd( contour );
+			for( int index = start; index < end; index++ ) {
+				double x = flat.getX( index );
+				double y = flat.getY( index );
+				double sx = mxx * x + mxy * y;
+				double sy = myx * x + myy * y;
+				if( index == start ) {
+					path.moveTo( sx, sy );
+				} else {
+					path.lineTo( sx, sy );
+				}
+			}
+			if( flat.isClosed( contour ) ) path.closePath();
+		}
+
+		Shape shape = fill ? path : new BasicStroke( (float)(width * pixelScale), getCap( cap ), getJoin( join ) ).createStrokedShape( path );
+
+		// The marker origin is at the center of the origin pixel
+		Rectangle2D bounds = shape.getBounds2D();
+		int originX = PADDING + (int)Math.ceil( Math.max( 0, -bounds.getMinX() - 0.5 ) );
+		int originY = PADDING + (int)Math.ceil( Math.max( 0, -bounds.getMinY() - 0.5 ) );
+		int imageWidth = originX + (int)Math.ceil( Math.max( 0, bounds.getMaxX() + 0.5 ) ) + PADDING;
+		int imageHeight = originY + (int)Math.ceil( Math.max( 0, bounds.getMaxY() + 0.5 ) ) + PADDING;
+
+		BufferedImage image = new BufferedImage( imageWidth, imageHeight, BufferedImage.TYPE_INT_ARGB_PRE );
+		Graphics2D graphics = image.createGraphics();
+		try {
+			graphics.setRenderingHint( RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON );
+			graphics.setRenderingHint( RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE );
+			graphics.setColor( new java.awt.Color( (float)color.getRed(), (float)color.getGreen(), (float)color.getBlue(), (float)color.getOpacity() ) );
+			graphics.translate( originX + 0.5, originY + 0.5 );
+			graphics.fill( shape );
+		} finally {
+			graphics.dispose();
+		}
+
+		WritableImage stamp = new WritableImage( imageWidth, imageHeight );
+		int[] pixels = ((DataBufferInt)image.getRaster().getDataBuffer()).getData();
+		stamp.getPixelWriter().setPixels( 0, 0, imageWidth, imageHeight, PixelFormat.getIntArgbPreInstance(), pixels, 0, imageWidth );
+
+		return new Stamp( stamp, originX, originY );
+	}
+
+	private static int getCap( LineCap cap ) {
+		if( cap == null ) return BasicStroke.CAP_ROUND;
+		return switch( cap ) {
+			case SQUARE -> BasicStroke.CAP_SQUARE;
+			case BUTT -> BasicStroke.CAP_BUTT;
+			default -> BasicStroke.CAP_ROUND;
+		};
+	}
+
+	private static int getJoin( LineJoin join ) {
+		if( join == null ) return BasicStroke.JOIN_ROUND;
+		return switch( join ) {
+			case BEVEL -> BasicStroke.JOIN_BEVEL;
+			case MITER -> BasicStroke.JOIN_MITER;
+			default -> BasicStroke.JOIN_ROUND;
+		};
+	}
+
+	private record Key(Marker marker, boolean fill, Color color, double width, LineCap cap, LineJoin join, double mxx, double mxy, double myx, double myy) {}
+
+	/**
+	 * A rasterized marker.
+	 *
+	 * @param image The stamp image
+	 * @param originX The pixel column of the marker origin in the stamp image
+	 * @param originY The pixel row of the marker origin in the stamp image
+	 */
+	record Stamp(Image image, int originX, int originY) {}
+
+}
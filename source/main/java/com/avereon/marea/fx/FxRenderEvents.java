@@ -0,0 +1,98 @@
+package com.avereon.marea.fx;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The JDK Flight Recorder events of the FX renderer. The events are only
+ * recorded when they are enabled in a recording, for example with:
+ * <pre>
+ * java -XX:StartFlightRecording:filename=marea.jfr ...
+ * </pre>
+ * When the events are not enabled, creating and committing an event costs
+ * almost nothing, so the events are always created. Events in the hot paths
+ * only fill in their fields when they will be committed.
+ */
+final class FxRenderEvents {
+
+	private static final String CATEGORY = "Marea";
+
+	private FxRenderEvents() {}
+
+	@Name( "com.avereon.marea.FrameRender" )
+	@Label( "Frame Render" )
+	@Description( "A renderer frame drawn by render or refresh. The counts are only set when render stats are enabled." )
+	@Category( CATEGORY )
+	@StackTrace( false )
+	static final class FrameRender extends Event {
+
+		@Label( "Width" )
+		double width;
+
+		@Label( "Height" )
+		double height;
+
+		@Label( "Shapes" )
+		long shapes;
+
+		@Label( "State Changes" )
+		long stateChanges;
+
+		@Label( "Path Segments" )
+		long pathSegments;
+
+		@Label( "Text Draws" )
+		long textDraws;
+
+	}
+
+	@Name( "com.avereon.marea.ViewTransformUpdate" )
+	@Label( "View Transform Update" )
+	@Description( "The world to screen transforms updated for a view change" )
+	@Category( CATEGORY )
+	@StackTrace( false )
+	static final class ViewTransformUpdate extends Event {
+
+		@Label( "Zoom X" )
+		double zoomX;
+
+		@Label( "Zoom Y" )
+		double zoomY;
+
+		@Label( "Rotate" )
+		double rotate;
+
+	}
+
+	@Name( "com.avereon.marea.TextSetup" )
+	@Label( "Text Setup" )
+	@Description( "The font and transform set up to draw text" )
+	@Category( CATEGORY )
+	@StackTrace( false )
+	static final class TextSetup extends Event {
+
+		@Label( "Font" )
+		String font;
+
+		@Label( "Size" )
+		double size;
+
+	}
+
+	@Name( "com.avereon.marea.PathRun" )
+	@Label( "Path Run" )
+	@Description( "The steps of a path sent to the canvas" )
+	@Category( CATEGORY )
+	@StackTrace( false )
+	static final class PathRun extends Event {
+
+		@Label( "Segments" )
+		int segments;
+
+	}
+
+}
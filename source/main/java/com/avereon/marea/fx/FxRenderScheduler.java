@@ -0,0 +1,134 @@
+package com.avereon.marea.fx;
+
+import javafx.animation.AnimationTimer;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Draws an {@link FxRenderer2d} at most once per JavaFX pulse. Callers
+ * {@link #invalidate() invalidate} the scheduler when the scene changes,
+ * and mark {@link FxRenderer2d#invalidateRegion dirty regions} for small
+ * changes, instead of drawing the renderer themselves. On each pulse the
+ * scheduler checks what changed since the last frame:
+ * <ul>
+ *   <li>If the scene changed, the whole scene is rendered.</li>
+ *   <li>If the view or the dirty regions changed, the renderer is
+ *   {@link FxRenderer2d#refresh() refreshed}, which shifts the pixels when the
+ *   view only moved and redraws only the dirty regions.</li>
+ *   <li>Otherwise the frame is skipped and nothing is drawn.</li>
+ * </ul>
+ * Since the view is compared once per pulse, setting several view
+ * properties, like the zoom and the viewpoint, causes only one frame. The
+ * scene is drawn with the {@link FxRenderer2d#getPainter() scene painter} of
+ * the renderer.
+ * <p>
+ * The {@link #invalidate()} method may be called from any thread. The other
+ * methods must be called on the FX application thread.
+ */
+public class FxRenderScheduler {
+
+	private final FxRenderer2d renderer;
+
+	private final AtomicLong sceneVersion = new AtomicLong();
+
+	private long renderedSceneVersion = -1;
+
+	private AnimationTimer timer;
+
+	private long frameCount;
+
+	private long skipCount;
+
+	public FxRenderScheduler( FxRenderer2d renderer ) {
+		this.renderer = renderer;
+	}
+
+	public FxRenderer2d getRenderer() {
+		return renderer;
+	}
+
+	/**
+	 * Mark the scene as changed so the whole scene is rendered on the next
+	 * pulse. Calling this several times before the next pulse causes only one
+	 * frame.
+	 */
+	public void invalidate() {
+		sceneVersion.incrementAndGet();
+	}
+
+	/**
+	 * Get the scene version. The version is incremented each time the scene is
+	 * invalidated.
+	 *
+	 * @return The scene version
+	 */
+	public long getSceneVersion() {
+		return sceneVersion.get();
+	}
+
+	/**
+	 * Start drawing the renderer on each pulse. While the scheduler is running
+	 * {@link FxRenderer2d#pan(double, double) panning} the renderer only moves
+	 * the view and the pixels are updated on the next pulse.
+	 */
+	public void start() {
+		if( timer == null ) {
+			timer = new AnimationTimer() {
+
+				@Override
+				public void handle( long now ) {
+					pulse();
+				}
+
+			};
+		}
+		renderer.scheduled = true;
+		timer.start();
+	}
+
+	public void stop() {
+		if( timer != null ) timer.stop();
+		renderer.scheduled = false;
+	}
+
+	/**
+	 * Get the number of frames drawn since the scheduler was created.
+	 *
+	 * @return The number of frames drawn
+	 */
+	public long getFrameCount() {
+		return frameCount;
+	}
+
+	/**
+	 * Get the number of pulses skipped because nothing changed since the
+	 * scheduler was created.
+	 *
+	 * @return The number of pulses skipped
+	 */
+	public long getSkipCount() {
+		return skipCount;
+	}
+
+	/**
+	 * Draw the renderer if anything changed since the last frame. This is
+	 * called on each pulse.
+	 *
+	 * @return True if a frame was drawn, false if the frame was skipped
+	 */
+	boolean pulse() {
+		long version = sceneVersion.get();
+		if( version != renderedSceneVersion ) {
+			renderedSceneVersion = version;
+			renderer.render();
+		} else if( renderer.isViewChanged() || renderer.isDirty() ) {
+			renderer.refresh();
+		} else {
+			skipCount++;
+			return false;
+		}
+		frameCount++;
+		return true;
+	}
+
+}
@@ -2,19 +2,29 @@ package com.avereon.marea.fx;
 
 import com.avereon.curve.math.Geometry;
 import com.avereon.curve.math.Point;
-import com.avereon.curve.math.Vector;
 import com.avereon.marea.*;
 import com.avereon.marea.geom.*;
+import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleDoubleProperty;
 import javafx.beans.property.SimpleObjectProperty;
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
 import javafx.geometry.Point2D;
 import javafx.geometry.Point3D;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.SnapshotParameters;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.image.WritableImage;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.input.ScrollEvent;
+import javafx.scene.paint.Color;
 import javafx.scene.paint.Paint;
 import javafx.scene.shape.ArcType;
 import javafx.scene.shape.FillRule;
@@ -25,21 +35,97 @@ import javafx.scene.transform.NonInvertibleTransformException;
 import javafx.scene.transform.Transform;
 import lombok.CustomLog;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 @CustomLog
 public class FxRenderer2d extends Canvas implements DirectRenderer2d, ShapeRenderer2d {
 
-	public static final RenderUnit DEFAULT_LENGTH_UNIT = RenderUnit.CM;
+	public static final RenderUnit DEFAULT_LENGTH_UNIT = ViewState.DEFAULT_LENGTH_UNIT;
 
-	public static final double DEFAULT_DPI = 72.0;
+	public static final double DEFAULT_DPI = ViewState.DEFAULT_DPI;
 
-	public static final double DEFAULT_ZOOM = 1.0;
+	public static final double DEFAULT_ZOOM = ViewState.DEFAULT_ZOOM;
 
 	public static final double DEFAULT_ZOOM_STEP_FACTOR = 0.1;
 
+	public static final boolean DEFAULT_LEVEL_OF_DETAIL = false;
+
+	/**
+	 * The default screen size, in pixels, below which a shape is collapsed to a
+	 * dot when level of detail rendering is enabled.
+	 */
+	public static final double DEFAULT_MINIMUM_SHAPE_SIZE = 1.0;
+
+	/**
+	 * The default screen text height, in pixels, below which text is replaced
+	 * with a filled bar when level of detail rendering is enabled.
+	 */
+	public static final double DEFAULT_GREEK_TEXT_HEIGHT = 4.0;
+
+	public static final boolean DEFAULT_SKIP_SMALL_SHAPES = false;
+
+	public static final boolean DEFAULT_FLATTEN_CURVES = false;
+
+	public static final boolean DEFAULT_TEXT_ATLAS = false;
+
+	/**
+	 * The default screen size, in pixels, up to which markers are drawn by
+	 * copying a rasterized stamp of the marker.
+	 */
+	public static final double DEFAULT_MARKER_STAMP_SIZE = 32.0;
+
+	public static final boolean DEFAULT_TILED = false;
+
+	public static final boolean DEFAULT_RENDER_STATS = false;
+
+	public static final boolean DEFAULT_STATS_HUD = false;
+
+	/**
+	 * The maximum distance, in pixels, between flattened segments and the true
+	 * curve.
+	 */
+	public static final double FLATNESS = 0.25;
+
+	/**
+	 * The greeking bar advance per character as a ratio of the text height.
+	 */
+	private static final double GREEK_ADVANCE = 0.5;
+
+	/**
+	 * The greeking bar height as a ratio of the text height.
+	 */
+	private static final double GREEK_BAR_HEIGHT = 0.5;
+
+	/**
+	 * The line spacing of greeked text as a ratio of the text height.
+	 */
+	private static final double GREEK_LINE_SPACING = 1.2;
+
+	/**
+	 * The size of the render stats HUD, in pixels.
+	 */
+	private static final double HUD_WIDTH = 220;
+
+	private static final double HUD_LINE_HEIGHT = 14;
+
+	private static final int HUD_LINES = 5;
+
+	/**
+	 * The largest difference from a whole number of pixels that is treated as
+	 * a whole number of pixels when shifting the pixels.
+	 */
+	private static final double PIXEL_TOLERANCE = 1e-6;
+
+	/**
+	 * The most shapes filled as one canvas path. Each shape added to the path
+	 * is checked for overlap with the shapes already in the path.
+	 */
+	private static final int MAX_FILL_BATCH = 256;
+
 	/**
 	 * This value needs to be large enough to allow small font heights to be
 	 * rendered correctly. This is done by choosing a value that ensures small
@@ -61,8 +147,23 @@ public class FxRenderer2d extends Canvas implements DirectRenderer2d, ShapeRende
 
 	private Affine worldToScreenTextTransform = new Affine( Transform.scale( 1, 1 ) );
 
+	private Bounds visibleBounds;
+
+	/**
+	 * The number of pixels per world unit, used for level of detail decisions.
+	 */
+	private double worldScale;
+
+	// Graphics state -----------------------------------------------------------
+
+	private final FxGraphicsState state;
+
 	// Properties ---------------------------------------------------------------
 
+	private ViewState viewState;
+
+	private ReadOnlyObjectWrapper<ViewState> viewStateProperty;
+
 	private ObjectProperty<RenderUnit> lengthUnit;
 
 	private DoubleProperty dpiX;
@@ -81,18 +182,93 @@ public class FxRenderer2d extends Canvas implements DirectRenderer2d, ShapeRende
 
 	private DoubleProperty viewRotate;
 
+	private BooleanProperty levelOfDetail;
+
+	private DoubleProperty minimumShapeSize;
+
+	private DoubleProperty greekTextHeight;
+
+	private BooleanProperty skipSmallShapes;
+
+	private BooleanProperty flattenCurves;
+
+	private BooleanProperty textAtlas;
+
+	private DoubleProperty markerStampSize;
+
+	private BooleanProperty tiled;
+
+	private BooleanProperty renderStats;
+
+	private BooleanProperty statsHud;
+
+	private ObjectProperty<Consumer<? super FxRenderer2d>> painter;
+
 	// Internal variables -------------------------------------------------------
 
-	private double positiveZoomStep;
+	private final DirtyRegions dirtyRegions = new DirtyRegions();
 
-	private double negativeZoomStep;
+	// The tile cache used in tiled mode, created when first needed
+	private FxTileCache tileCache;
 
 	private Point3D dragViewpoint;
 
 	private Point3D dragAnchor;
 
+	// The images used to shift the pixels when panning. Two images are used so
+	// the image being drawn is not the image being written by the next pan.
+	private WritableImage panImage;
+
+	private WritableImage panSpareImage;
+
+	private SnapshotParameters panParameters;
+
+	// The screen region the scene painter is drawing, or null for the whole renderer
+	private Rectangle2D paintRegion;
+
+	// The view the pixels were drawn with by the scene painter
+	private Affine renderedTransform;
+
+	private double renderedWidth;
+
+	private double renderedHeight;
+
+	/**
+	 * True if an {@link FxRenderScheduler} updates the pixels on each pulse.
+	 */
+	boolean scheduled;
+
+	// The stats of the frame being drawn, or null if stats are not collected
+	private RenderStats frameStats;
+
+	// The stats of the last frame drawn
+	private RenderStats lastFrameStats;
+
+	// The number of nested frames, since render is also called by refresh
+	private int frameDepth;
+
+	private long frameStart;
+
+	private long frameStateChanges;
+
+	// True if the whole scene was drawn in the frame
+	private boolean frameRendered;
+
+	private FxRenderEvents.FrameRender frameEvent;
+
+	// The screen region of the stats HUD, or null if the HUD is not drawn
+	private Rectangle2D hudRegion;
+
 	//private double[] pathStart = new double[]{ 0, 0 };
-	private double[] pathPrior = new double[]{ 0, 0 };
+	// The current path point, updated in place so path steps do not allocate
+	private final double[] pathPrior = new double[]{ 0, 0 };
+
+	// The endpoint arc parameters, reused for each arc step
+	private final double[] pathArc = new double[ 7 ];
+
+	private final FxMarkerStamps markerStamps = new FxMarkerStamps();
+
+	private final double[] fillBatchBounds = new double[ 4 * MAX_FILL_BATCH ];
 
 	public FxRenderer2d() {
 		this( 0, 0 );
@@ -100,8 +276,7 @@ public class FxRenderer2d extends Canvas implements DirectRenderer2d, ShapeRende
 
 	public FxRenderer2d( double width, double height ) {
 		super( width, height );
-
-		setZoomStep( DEFAULT_ZOOM_STEP_FACTOR );
+		state = new FxGraphicsState( getGraphicsContext2D() );
 
 		// These are the default handlers
 		setOnScroll( this::doOnScroll );
@@ -109,95 +284,112 @@ public class FxRenderer2d extends Canvas implements DirectRenderer2d, ShapeRende
 		setOnMouseDragged( this::doOnDragMouse );
 		setOnMouseReleased( this::doOnDragFinish );
 
-		widthProperty().addListener( ( p, o, n ) -> updateWorldTransforms( getLengthUnit(),
-			getDpiX(),
-			getDpiY(),
-			getZoomX(),
-			getZoomY(),
-			getViewpointX(),
-			getViewpointY(),
-			getViewRotate(),
-			n.doubleValue(),
-			getHeight()
-		) );
-		heightProperty().addListener( ( p, o, n ) -> updateWorldTransforms( getLengthUnit(),
-			getDpiX(),
-			getDpiY(),
-			getZoomX(),
-			getZoomY(),
-			getViewpointX(),
-			getViewpointY(),
-			getViewRotate(),
-			getWidth(),
-			n.doubleValue()
-		) );
-
-		updateWorldTransforms();
-	}
-
-	private void updateWorldTransforms() {
-		updateWorldTransforms( getLengthUnit(), getDpiX(), getDpiY(), getZoomX(), getZoomY(), getViewpointX(), getViewpointY(), getViewRotate(), getWidth(), getHeight() );
+		viewState = new ViewState( width, height );
+		widthProperty().addListener( ( p, o, n ) -> setViewState( viewState.withSize( n.doubleValue(), viewState.height() ) ) );
+		heightProperty().addListener( ( p, o, n ) -> setViewState( viewState.withSize( viewState.width(), n.doubleValue() ) ) );
+
+		updateWorldTransforms( viewState );
 	}
 
 	@Override
 	public void clear() {
-		getGraphicsContext2D().setTransform( screenTransform );
+		state.setTransform( screenTransform );
 		getGraphicsContext2D().clearRect( 0, 0, getWidth(), getHeight() );
 	}
 
+	/**
+	 * Get the number of graphics state changes, like stroke, fill, line width
+	 * and transform changes, sent to the canvas since the counts were reset.
+	 *
+	 * @return The number of state changes sent to the canvas
+	 */
+	public long getStateChangeCount() {
+		return state.getChangeCount();
+	}
+
+	/**
+	 * Get the number of graphics state changes that were not sent to the canvas
+	 * because the value was already set, since the counts were reset.
+	 *
+	 * @return The number of redundant state changes skipped
+	 */
+	public long getSkippedStateChangeCount() {
+		return state.getSkipCount();
+	}
+
+	public void resetStateCounts() {
+		state.resetCounts();
+	}
+
+	/**
+	 * Forget the graphics state last sent to the canvas. The renderer skips
+	 * state changes, like stroke, fill and transform changes, when the value is
+	 * already set. Code that changes the graphics context directly, through
+	 * {@link #getGraphicsContext2D()}, must call this method afterward, or the
+	 * renderer may skip a change that is needed.
+	 */
+	public void invalidateGraphicsState() {
+		state.invalidate();
+	}
+
 	public void setSize( double width, double height ) {
-		super.setWidth( width );
-		super.setHeight( height );
+		setViewState( viewState.withSize( width, height ) );
 	}
 
 	@Override
 	public RenderUnit getLengthUnit() {
-		return lengthUnit == null ? DEFAULT_LENGTH_UNIT : lengthUnit.get();
+		return viewState.lengthUnit();
 	}
 
 	@Override
 	public void setLengthUnit( RenderUnit unit ) {
-		updateWorldTransforms( unit, getDpiX(), getDpiY(), getZoomX(), getZoomY(), getViewpointX(), getViewpointY(), getViewRotate(), getWidth(), getHeight() );
-		lengthUnitProperty().set( unit );
+		setViewState( viewState.withLengthUnit( unit ) );
 	}
 
 	@Override
 	public ObjectProperty<RenderUnit> lengthUnitProperty() {
-		if( lengthUnit == null ) lengthUnit = new SimpleObjectProperty<>( DEFAULT_LENGTH_UNIT );
+		if( lengthUnit == null ) {
+			lengthUnit = new SimpleObjectProperty<>( viewState.lengthUnit() );
+			lengthUnit.addListener( ( p, o, n ) -> setViewState( viewState.withLengthUnit( n ) ) );
+		}
 		return lengthUnit;
 	}
 
 	@Override
 	public double getDpiX() {
-		return dpiX == null ? DEFAULT_DPI : dpiXProperty().getValue();
+		return viewState.dpiX();
 	}
 
 	@Override
 	public void setDpiX( double dpiX ) {
-		updateWorldTransforms( getLengthUnit(), dpiX, getDpiY(), getZoomX(), getZoomY(), getViewpointX(), getViewpointY(), getViewRotate(), getWidth(), getHeight() );
-		dpiXProperty().set( dpiX );
+		setViewState( viewState.withDpi( dpiX, viewState.dpiY() ) );
 	}
 
 	@Override
 	public DoubleProperty dpiXProperty() {
-		if( dpiX == null ) dpiX = new SimpleDoubleProperty( DEFAULT_DPI );
+		if( dpiX == null ) {
+			dpiX = new SimpleDoubleProperty( viewState.dpiX() );
+			dpiX.addListener( ( p, o, n ) -> setViewState( viewState.withDpi( n.doubleValue(), viewState.dpiY() ) ) );
+		}
 		return dpiX;
 	}
 
 	@Override
 	public double getDpiY() {
-		return dpiY == null ? DEFAULT_DPI : dpiYProperty().getValue();
+		return viewState.dpiY();
 	}
 
 	@Override
 	public void setDpiY( double dpiY ) {
-		updateWorldTransforms( getLengthUnit(), getDpiX(), dpiY, getZoomX(), getZoomY(), getViewpointX(), getViewpointY(), getViewRotate(), getWidth(), getHeight() );
-		dpiYProperty().set( dpiY );
+		setViewState( viewState.withDpi( viewState.dpiX(), dpiY ) );
 	}
 
 	@Override
 	public DoubleProperty dpiYProperty() {
-		if( dpiY == null ) dpiY = new SimpleDoubleProperty( DEFAULT_DPI );
+		if( dpiY == null ) {
+			dpiY = new SimpleDoubleProperty( viewState.dpiY() );
+			dpiY.addListener( ( p, o, n ) -> setViewState( viewState.withDpi( viewState.dpiX(), n.doubleValue() ) ) );
+		}
 		return dpiY;
 	}
 
@@ -210,9 +402,7 @@ public class FxRenderer2d extends Canvas implements DirectRenderer2d, ShapeRende
 	 */
 	@Override
 	public void setDpi( double dpiX, double dpiY ) {
-		updateWorldTransforms( getLengthUnit(), dpiX, dpiY, getZoomX(), getZoomY(), getViewpointX(), getViewpointY(), getViewRotate(), getWidth(), getHeight() );
-		dpiXProperty().set( dpiX );
-		dpiYProperty().set( dpiY );
+		setViewState( viewState.withDpi( dpiX, dpiY ) );
 	}
 
 	/**
@@ -220,35 +410,39 @@ public class FxRenderer2d extends Canvas implements DirectRenderer2d, ShapeRende
 	 */
 	@Override
 	public double getZoomX() {
-		return zoomX == null ? DEFAULT_ZOOM : zoomXProperty().getValue();
+		return viewState.zoomX();
 	}
 
 	@Override
 	public void setZoomX( double zoomX ) {
-		updateWorldTransforms( getLengthUnit(), getDpiX(), getDpiY(), zoomX, getZoomY(), getViewpointX(), getViewpointY(), getViewRotate(), getWidth(), getHeight() );
-		zoomXProperty().set( zoomX );
+		setViewState( viewState.withZoom( zoomX, viewState.zoomY() ) );
 	}
 
 	@Override
 	public DoubleProperty zoomXProperty() {
-		if( zoomX == null ) zoomX = new SimpleDoubleProperty( DEFAULT_ZOOM );
+		if( zoomX == null ) {
+			zoomX = new SimpleDoubleProperty( viewState.zoomX() );
+			zoomX.addListener( ( p, o, n ) -> setViewState( viewState.withZoom( n.doubleValue(), viewState.zoomY() ) ) );
+		}
 		return zoomX;
 	}
 
 	@Override
 	public double getZoomY() {
-		return zoomY == null ? DEFAULT_ZOOM : zoomYProperty().getValue();
+		return viewState.zoomY();
 	}
 
 	@Override
 	public void setZoomY( double zoomY ) {
-		updateWorldTransforms( getLengthUnit(), getDpiX(), getDpiY(), getZoomX(), zoomY, getViewpointX(), getViewpointY(), getViewRotate(), getWidth(), getHeight() );
-		zoomYProperty().set( zoomY );
+		setViewState( viewState.withZoom( viewState.zoomX(), zoomY ) );
 	}
 
 	@Override
 	public DoubleProperty zoomYProperty() {
-		if( zoomY == null ) zoomY = new SimpleDoubleProperty( DEFAULT_ZOOM );
+		if( zoomY == null ) {
+			zoomY = new SimpleDoubleProperty( viewState.zoomY() );
+			zoomY.addListener( ( p, o, n ) -> setViewState( viewState.withZoom( viewState.zoomX(), n.doubleValue() ) ) );
+		}
 		return zoomY;
 	}
 
@@ -266,9 +460,7 @@ public class FxRenderer2d extends Canvas implements DirectRenderer2d, ShapeRende
 	 */
 	@Override
 	public void setZoom( double zoomX, double zoomY ) {
-		updateWorldTransforms( getLengthUnit(), getDpiX(), getDpiY(), zoomX, zoomY, getViewpointX(), getViewpointY(), getViewRotate(), getWidth(), getHeight() );
-		zoomXProperty().set( zoomX );
-		zoomYProperty().set( zoomY );
+		setViewState( viewState.withZoom( zoomX, zoomY ) );
 	}
 
 	@Override
@@ -279,8 +471,6 @@ public class FxRenderer2d extends Canvas implements DirectRenderer2d, ShapeRende
 	@Override
 	public void setZoomStep( double zoomStep ) {
 		zoomStepProperty().set( zoomStep );
-		positiveZoomStep = 1.0 + zoomStep;
-		negativeZoomStep = 1.0 / positiveZoomStep;
 	}
 
 	@Override
@@ -291,35 +481,39 @@ public class FxRenderer2d extends Canvas implements DirectRenderer2d, ShapeRende
 
 	@Override
 	public double getViewpointX() {
-		return viewpointX == null ? 0.0 : viewpointXProperty().getValue();
+		return viewState.viewpointX();
 	}
 
 	@Override
 	public void setViewpointX( double viewpointX ) {
-		updateWorldTransforms( getLengthUnit(), getDpiX(), getDpiY(), getZoomX(), getZoomY(), viewpointX, getViewpointY(), getViewRotate(), getWidth(), getHeight() );
-		viewpointXProperty().set( viewpointX );
+		setViewState( viewState.withViewpoint( viewpointX, viewState.viewpointY() ) );
 	}
 
 	@Override
 	public DoubleProperty viewpointXProperty() {
-		if( viewpointX == null ) viewpointX = new SimpleDoubleProperty( 0.0 );
+		if( viewpointX == null ) {
+			viewpointX = new SimpleDoubleProperty( viewState.viewpointX() );
+			viewpointX.addListener( ( p, o, n ) -> setViewState( viewState.withViewpoint( n.doubleValue(), viewState.viewpointY() ) ) );
+		}
 		return viewpointX;
 	}
 
 	@Override
 	public double getViewpointY() {
-		return viewpointY == null ? 0.0 : viewpointYProperty().getValue();
+		return viewState.viewpointY();
 	}
 
 	@Override
 	public void setViewpointY( double viewpointY ) {
-		updateWorldTransforms( getLengthUnit(), getDpiX(), getDpiY(), getZoomX(), getZoomY(), getViewpointX(), viewpointY, getViewRotate(), getWidth(), getHeight() );
-		viewpointYProperty().set( viewpointY );
+		setViewState( viewState.withViewpoint( viewState.viewpointX(), viewpointY ) );
 	}
 
 	@Override
 	public DoubleProperty viewpointYProperty() {
-		if( viewpointY == null ) viewpointY = new SimpleDoubleProperty( 0.0 );
+		if( viewpointY == null ) {
+			viewpointY = new SimpleDoubleProperty( viewState.viewpointY() );
+			viewpointY.addListener( ( p, o, n ) -> setViewState( viewState.withViewpoint( viewState.viewpointX(), n.doubleValue() ) ) );
+		}
 		return viewpointY;
 	}
 
@@ -332,47 +526,817 @@ public class FxRenderer2d extends Canvas implements DirectRenderer2d, ShapeRende
 	 */
 	@Override
 	public void setViewpoint( double viewpointX, double viewpointY ) {
-		updateWorldTransforms( getLengthUnit(), getDpiX(), getDpiY(), getZoomX(), getZoomY(), viewpointX, viewpointY, getViewRotate(), getWidth(), getHeight() );
-		viewpointXProperty().set( viewpointX );
-		viewpointYProperty().set( viewpointY );
+		setViewState( viewState.withViewpoint( viewpointX, viewpointY ) );
 	}
 
 	@Override
 	public double getViewRotate() {
-		return viewRotate == null ? 0.0 : viewRotateProperty().getValue();
+		return viewState.viewRotate();
 	}
 
 	@Override
 	public void setViewRotate( double viewRotate ) {
-		updateWorldTransforms( getLengthUnit(), getDpiX(), getDpiY(), getZoomX(), getZoomY(), getViewpointX(), getViewpointY(), viewRotate, getWidth(), getHeight() );
-		viewRotateProperty().set( viewRotate );
+		setViewState( viewState.withViewRotate( viewRotate ) );
 	}
 
 	@Override
 	public DoubleProperty viewRotateProperty() {
-		if( viewRotate == null ) viewRotate = new SimpleDoubleProperty( 0.0 );
+		if( viewRotate == null ) {
+			viewRotate = new SimpleDoubleProperty( viewState.viewRotate() );
+			viewRotate.addListener( ( p, o, n ) -> setViewState( viewState.withViewRotate( n.doubleValue() ) ) );
+		}
 		return viewRotate;
 	}
 
-	public void setZoomAt( double viewpointX, double viewpointY, double zoomX, double zoomY ) {
-		double x = viewpointX + (getViewpointX() - viewpointX) * getZoomX() / zoomX;
-		double y = viewpointY + (getViewpointY() - viewpointY) * getZoomY() / zoomY;
+	@Override
+	public ViewState getViewState() {
+		return viewState;
+	}
+
+	@Override
+	public void setViewState( ViewState state ) {
+		ViewState prior = viewState;
+		if( state.equals( prior ) ) return;
+
+		updateWorldTransforms( state );
+		viewState = state;
+
+		// The individual properties see the complete new view
+		setWidth( state.width() );
+		setHeight( state.height() );
+		if( lengthUnit != null ) lengthUnit.set( state.lengthUnit() );
+		if( dpiX != null ) dpiX.set( state.dpiX() );
+		if( dpiY != null ) dpiY.set( state.dpiY() );
+		if( zoomX != null ) zoomX.set( state.zoomX() );
+		if( zoomY != null ) zoomY.set( state.zoomY() );
+		if( viewpointX != null ) viewpointX.set( state.viewpointX() );
+		if( viewpointY != null ) viewpointY.set( state.viewpointY() );
+		if( viewRotate != null ) viewRotate.set( state.viewRotate() );
+
+		if( viewStateProperty != null ) viewStateProperty.set( viewState );
+	}
+
+	@Override
+	public ReadOnlyObjectProperty<ViewState> viewStateProperty() {
+		if( viewStateProperty == null ) viewStateProperty = new ReadOnlyObjectWrapper<>( viewState );
+		return viewStateProperty.getReadOnlyProperty();
+	}
+
+	/**
+	 * Check if level of detail rendering is enabled. When enabled, shapes
+	 * smaller than the {@link #getMinimumShapeSize() minimum shape size} are
+	 * drawn as a dot, or skipped, and text shorter than the
+	 * {@link #getGreekTextHeight() greek text height} is drawn as a filled bar.
+	 *
+	 * @return True if level of detail rendering is enabled
+	 */
+	public boolean isLevelOfDetail() {
+		return levelOfDetail == null ? DEFAULT_LEVEL_OF_DETAIL : levelOfDetail.get();
+	}
+
+	public void setLevelOfDetail( boolean levelOfDetail ) {
+		levelOfDetailProperty().set( levelOfDetail );
+	}
+
+	public BooleanProperty levelOfDetailProperty() {
+		if( levelOfDetail == null ) levelOfDetail = new SimpleBooleanProperty( DEFAULT_LEVEL_OF_DETAIL );
+		return levelOfDetail;
+	}
+
+	/**
+	 * Get the screen size, in pixels, below which shapes are collapsed when
+	 * level of detail rendering is enabled.
+	 *
+	 * @return The minimum shape size in pixels
+	 */
+	public double getMinimumShapeSize() {
+		return minimumShapeSize == null ? DEFAULT_MINIMUM_SHAPE_SIZE : minimumShapeSize.get();
+	}
+
+	public void setMinimumShapeSize( double size ) {
+		minimumShapeSizeProperty().set( size );
+	}
+
+	public DoubleProperty minimumShapeSizeProperty() {
+		if( minimumShapeSize == null ) minimumShapeSize = new SimpleDoubleProperty( DEFAULT_MINIMUM_SHAPE_SIZE );
+		return minimumShapeSize;
+	}
+
+	/**
+	 * Get the screen text height, in pixels, below which text is greeked when
+	 * level of detail rendering is enabled.
+	 *
+	 * @return The greek text height in pixels
+	 */
+	public double getGreekTextHeight() {
+		return greekTextHeight == null ? DEFAULT_GREEK_TEXT_HEIGHT : greekTextHeight.get();
+	}
+
+	public void setGreekTextHeight( double height ) {
+		greekTextHeightProperty().set( height );
+	}
+
+	public DoubleProperty greekTextHeightProperty() {
+		if( greekTextHeight == null ) greekTextHeight = new SimpleDoubleProperty( DEFAULT_GREEK_TEXT_HEIGHT );
+		return greekTextHeight;
+	}
+
+	/**
+	 * Check if shapes smaller than the minimum shape size are skipped instead of
+	 * drawn as a dot.
+	 *
+	 * @return True if small shapes are skipped
+	 */
+	public boolean isSkipSmallShapes() {
+		return skipSmallShapes == null ? DEFAULT_SKIP_SMALL_SHAPES : skipSmallShapes.get();
+	}
+
+	public void setSkipSmallShapes( boolean skip ) {
+		skipSmallShapesProperty().set( skip );
+	}
+
+	public BooleanProperty skipSmallShapesProperty() {
+		if( skipSmallShapes == null ) skipSmallShapes = new SimpleBooleanProperty( DEFAULT_SKIP_SMALL_SHAPES );
+		return skipSmallShapes;
+	}
+
+	/**
+	 * Check if curved shapes, drawn with {@link #draw(Shape2d, Pen)} and
+	 * {@link #fill(Shape2d, Pen)}, are drawn using the cached flattened geometry
+	 * of the shape instead of sending the curves to the canvas.
+	 *
+	 * @return True if curved shapes are flattened
+	 */
+	public boolean isFlattenCurves() {
+		return flattenCurves == null ? DEFAULT_FLATTEN_CURVES : flattenCurves.get();
+	}
+
+	public void setFlattenCurves( boolean flatten ) {
+		flattenCurvesProperty().set( flatten );
+	}
+
+	public BooleanProperty flattenCurvesProperty() {
+		if( flattenCurves == null ) flattenCurves = new SimpleBooleanProperty( DEFAULT_FLATTEN_CURVES );
+		return flattenCurves;
+	}
+
+	/**
+	 * Check if filled text is drawn from the shared {@link FxTextAtlas}. Single
+	 * line text with a solid color, no taller than the atlas maximum text
+	 * height, is rasterized once and then copied from the atlas image. Other
+	 * text is drawn directly.
+	 *
+	 * @return True if filled text is drawn from the text atlas
+	 */
+	public boolean isTextAtlas() {
+		return textAtlas == null ? DEFAULT_TEXT_ATLAS : textAtlas.get();
+	}
+
+	public void setTextAtlas( boolean enabled ) {
+		textAtlasProperty().set( enabled );
+	}
+
+	public BooleanProperty textAtlasProperty() {
+		if( textAtlas == null ) textAtlas = new SimpleBooleanProperty( DEFAULT_TEXT_ATLAS );
+		return textAtlas;
+	}
+
+	/**
+	 * Get the screen size, in pixels, up to which markers that are the same at
+	 * every position are drawn by copying a rasterized stamp of the marker.
+	 * Larger markers, and markers with a rotation or scale for each position,
+	 * are drawn as one path. A size of zero disables stamps.
+	 *
+	 * @return The marker stamp size in pixels
+	 */
+	public double getMarkerStampSize() {
+		return markerStampSize == null ? DEFAULT_MARKER_STAMP_SIZE : markerStampSize.get();
+	}
+
+	public void setMarkerStampSize( double size ) {
+		markerStampSizeProperty().set( size );
+	}
+
+	public DoubleProperty markerStampSizeProperty() {
+		if( markerStampSize == null ) markerStampSize = new SimpleDoubleProperty( DEFAULT_MARKER_STAMP_SIZE );
+		return markerStampSize;
+	}
+
+	/**
+	 * Check if the scene is drawn from cached tiles. In tiled mode the scene
+	 * painter draws the scene into fixed size tiles that are kept in the
+	 * {@link #getTileCache() tile cache}, and rendering draws the visible tiles.
+	 * Panning and returning to an earlier zoom level then mostly copy tiles
+	 * that are already rendered. The tiles are removed when the scene painter
+	 * changes and when dirty regions are redrawn, but the tile cache must be
+	 * {@link FxTileCache#invalidate() invalidated} for any other scene change.
+	 *
+	 * @return True if the scene is drawn from cached tiles
+	 */
+	public boolean isTiled() {
+		return tiled == null ? DEFAULT_TILED : tiled.get();
+	}
+
+	public void setTiled( boolean tiled ) {
+		tiledProperty().set( tiled );
+	}
+
+	public BooleanProperty tiledProperty() {
+		if( tiled == null ) tiled = new SimpleBooleanProperty( DEFAULT_TILED );
+		return tiled;
+	}
+
+	/**
+	 * Get the tile cache used in tiled mode.
+	 *
+	 * @return The tile cache
+	 */
+	public FxTileCache getTileCache() {
+		if( tileCache == null ) tileCache = new FxTileCache( this::paintTile );
+		return tileCache;
+	}
+
+	/**
+	 * Check if render stats are collected for each frame. When enabled, the
+	 * stats of the last frame are available from {@link #getRenderStats()}.
+	 * Collecting the stats is cheap, but not free, so it is disabled by default.
+	 *
+	 * @return True if render stats are collected
+	 */
+	public boolean isRenderStats() {
+		return renderStats == null ? DEFAULT_RENDER_STATS : renderStats.get();
+	}
+
+	public void setRenderStats( boolean enabled ) {
+		renderStatsProperty().set( enabled );
+	}
 
-		// Set the new zoom and viewpoint
-		updateWorldTransforms( getLengthUnit(), getDpiX(), getDpiY(), zoomX, zoomY, x, y, getViewRotate(), getWidth(), getHeight() );
-		viewpointXProperty().set( x );
-		viewpointYProperty().set( y );
-		zoomXProperty().set( zoomX );
-		zoomYProperty().set( zoomY );
+	public BooleanProperty renderStatsProperty() {
+		if( renderStats == null ) {
+			renderStats = new SimpleBooleanProperty( DEFAULT_RENDER_STATS );
+			renderStats.addListener( ( p, o, n ) -> {
+				frameStats = n ? new RenderStats() : null;
+				lastFrameStats = null;
+			} );
+		}
+		return renderStats;
+	}
+
+	/**
+	 * Get the stats of the last frame drawn by {@link #render()} or
+	 * {@link #refresh()}.
+	 *
+	 * @return The last frame stats, or null if render stats are not collected or no frame was drawn
+	 */
+	public RenderStats getRenderStats() {
+		return lastFrameStats;
+	}
+
+	/**
+	 * Check if the render stats of each frame are drawn in the top left corner
+	 * of the renderer. The HUD is only drawn when render stats are collected.
+	 *
+	 * @return True if the stats HUD is drawn
+	 */
+	public boolean isStatsHud() {
+		return statsHud == null ? DEFAULT_STATS_HUD : statsHud.get();
+	}
+
+	public void setStatsHud( boolean enabled ) {
+		statsHudProperty().set( enabled );
+	}
+
+	public BooleanProperty statsHudProperty() {
+		if( statsHud == null ) statsHud = new SimpleBooleanProperty( DEFAULT_STATS_HUD );
+		return statsHud;
+	}
+
+	/**
+	 * Get the world tolerance for flattening curves in the current view. This
+	 * is the {@link #FLATNESS} converted to world units.
+	 *
+	 * @return The flattening tolerance in world units
+	 */
+	public double getFlatteningTolerance() {
+		return FLATNESS / worldScale;
+	}
+
+	/**
+	 * Check if a shape with the specified world size is collapsed by level of
+	 * detail rendering in the current view.
+	 *
+	 * @param size The largest world dimension of the shape
+	 * @return True if the shape is smaller than the minimum shape size
+	 */
+	public boolean isSmallShape( double size ) {
+		return isLevelOfDetail() && size * worldScale < getMinimumShapeSize();
+	}
+
+	/**
+	 * Check if text with the specified world height is greeked by level of
+	 * detail rendering in the current view.
+	 *
+	 * @param height The world text height
+	 * @return True if the text is shorter than the greek text height
+	 */
+	public boolean isGreekText( double height ) {
+		return isLevelOfDetail() && height * worldScale < getGreekTextHeight();
+	}
+
+	/**
+	 * Copy the settings that change how shapes are drawn, like the level of
+	 * detail settings, from another renderer. This is used by off-screen
+	 * renderers that draw part of the scene of another renderer. The view is
+	 * not copied.
+	 *
+	 * @param source The renderer to copy the settings from
+	 */
+	void copyRenderSettings( FxRenderer2d source ) {
+		setLevelOfDetail( source.isLevelOfDetail() );
+		setMinimumShapeSize( source.getMinimumShapeSize() );
+		setGreekTextHeight( source.getGreekTextHeight() );
+		setSkipSmallShapes( source.isSkipSmallShapes() );
+		setFlattenCurves( source.isFlattenCurves() );
+		setTextAtlas( source.isTextAtlas() );
+		setMarkerStampSize( source.getMarkerStampSize() );
+	}
+
+	/**
+	 * Get the scene painter. The scene painter draws the scene on this renderer
+	 * when the renderer is {@link #render() rendered} and draws the exposed
+	 * regions when the view is {@link #pan(double, double) panned}.
+	 *
+	 * @return The scene painter, or null if there is no scene painter
+	 */
+	public Consumer<? super FxRenderer2d> getPainter() {
+		return painter == null ? null : painter.get();
+	}
+
+	/**
+	 * Set the scene painter. When the view is panned, the pixels already drawn
+	 * are moved with the view, so the scene painter should only draw in world
+	 * coordinates and should not clear the renderer. Screen decorations, like
+	 * rules, move with the pixels and need to be redrawn by the caller.
+	 *
+	 * @param painter The scene painter, or null to remove the scene painter
+	 */
+	public void setPainter( Consumer<? super FxRenderer2d> painter ) {
+		painterProperty().set( painter );
+	}
+
+	public ObjectProperty<Consumer<? super FxRenderer2d>> painterProperty() {
+		if( painter == null ) {
+			painter = new SimpleObjectProperty<>();
+			// The tiles were drawn by the old painter
+			painter.addListener( ( p, o, n ) -> {
+				if( tileCache != null ) tileCache.invalidate();
+			} );
+		}
+		return painter;
+	}
+
+	/**
+	 * Clear the renderer and draw the scene with the scene painter. This also
+	 * clears the dirty regions. In {@link #isTiled() tiled mode} the scene is
+	 * drawn from the cached tiles.
+	 */
+	public void render() {
+		beginFrame();
+		try {
+			// The dirty regions may be from an earlier view, so all the tiles are removed
+			if( tileCache != null && !dirtyRegions.isEmpty() ) tileCache.invalidate();
+			dirtyRegions.clear();
+			clear();
+			Consumer<? super FxRenderer2d> painter = getPainter();
+			if( painter != null ) {
+				if( isTiled() ) {
+					getTileCache().paint( this );
+				} else {
+					painter.accept( this );
+				}
+			}
+			setRenderedView();
+			frameRendered = true;
+		} finally {
+			endFrame();
+		}
+	}
+
+	/**
+	 * Bring the pixels up to date with the view and the dirty regions, drawing
+	 * as little as possible. If the view only moved by whole pixels since the
+	 * scene was last drawn, the pixels are shifted and only the exposed regions
+	 * are drawn. If the view changed in any other way the whole scene is
+	 * rendered. Then the dirty regions are redrawn. Nothing is drawn if there
+	 * is no scene painter. In {@link #isTiled() tiled mode} a view change is
+	 * drawn from the cached tiles instead of shifting the pixels.
+	 * <p>
+	 * This method must be called on the FX application thread.
+	 */
+	public void refresh() {
+		if( getPainter() == null ) return;
+
+		beginFrame();
+		try {
+			if( isViewChanged() ) {
+				Affine rendered = renderedTransform;
+				boolean sameScale = rendered != null && rendered.getMxx() == worldToScreenTransform.getMxx() && rendered.getMxy() == worldToScreenTransform.getMxy() && rendered.getMyx() == worldToScreenTransform.getMyx() && rendered.getMyy() == worldToScreenTransform.getMyy();
+				boolean sameSize = renderedWidth == getWidth() && renderedHeight == getHeight();
+				double dx = sameScale ? worldToScreenTransform.getTx() - rendered.getTx() : Double.NaN;
+				double dy = sameScale ? worldToScreenTransform.getTy() - rendered.getTy() : Double.NaN;
+				if( isTiled() || !sameSize || !isWholePixels( dx ) || !isWholePixels( dy ) ) {
+					render();
+					return;
+				}
+				// The HUD pixels move with the scene, so redraw the scene under them
+				if( hudRegion != null ) dirtyRegions.add( hudRegion );
+				scroll( Math.round( dx ), Math.round( dy ) );
+			}
+
+			renderDirtyRegions();
+		} finally {
+			endFrame();
+		}
+	}
+
+	/**
+	 * Check if the view changed since the scene was drawn with the scene
+	 * painter, by {@link #render()}, {@link #refresh()} or
+	 * {@link #pan(double, double)}.
+	 *
+	 * @return True if the pixels do not match the current view
+	 */
+	public boolean isViewChanged() {
+		Affine rendered = renderedTransform;
+		if( rendered == null || renderedWidth != getWidth() || renderedHeight != getHeight() ) return true;
+		if( rendered == worldToScreenTransform ) return false;
+		Affine current = worldToScreenTransform;
+		return rendered.getMxx() != current.getMxx() || rendered.getMxy() != current.getMxy() || rendered.getMyx() != current.getMyx() || rendered.getMyy() != current.getMyy() || rendered.getTx() != current.getTx() || rendered.getTy() != current.getTy();
+	}
+
+	/**
+	 * Move the view to the viewpoint and redraw only the exposed regions. The
+	 * pixels already drawn are shifted by the screen distance the view moved
+	 * and the scene painter only draws the strips along the edges that were
+	 * not visible before, clipped to those strips. The viewpoint is adjusted
+	 * slightly so the pixels are shifted by whole pixels, which keeps the
+	 * shifted pixels sharp.
+	 * <p>
+	 * If there is no scene painter the viewpoint is set without drawing. If the
+	 * view moved farther than the renderer size the whole scene is rendered.
+	 * If the renderer is scheduled by an {@link FxRenderScheduler}, the pixels
+	 * are updated on the next pulse instead of immediately. This method must
+	 * be called on the FX application thread.
+	 *
+	 * @param viewpointX The viewpoint in the x direction
+	 * @param viewpointY The viewpoint in the y direction
+	 */
+	public void pan( double viewpointX, double viewpointY ) {
+		if( getPainter() == null || screenToWorldTransform == null ) {
+			setViewpoint( viewpointX, viewpointY );
+			return;
+		}
+
+		// The screen distance the pixels move, rounded to whole pixels
+		double worldDx = getViewpointX() - viewpointX;
+		double worldDy = getViewpointY() - viewpointY;
+		double dx = Math.round( worldToScreenTransform.getMxx() * worldDx + worldToScreenTransform.getMxy() * worldDy );
+		double dy = Math.round( worldToScreenTransform.getMyx() * worldDx + worldToScreenTransform.getMyy() * worldDy );
+		if( dx == 0 && dy == 0 ) return;
+
+		// The viewpoint that moves the pixels by exactly the rounded distance
+		Point2D delta = screenToWorldTransform.deltaTransform( dx, dy );
+		setViewpoint( getViewpointX() - delta.getX(), getViewpointY() - delta.getY() );
+		if( !scheduled ) refresh();
+	}
+
+	/**
+	 * Shift the pixels by a whole number of pixels and draw the exposed
+	 * regions. The view must already be set.
+	 */
+	private void scroll( double dx, double dy ) {
+		double width = getWidth();
+		double height = getHeight();
+		List<Rectangle2D> exposed = getExposedRegions( width, height, dx, dy );
+		if( exposed == null ) {
+			render();
+			return;
+		}
+
+		if( !exposed.isEmpty() ) {
+			WritableImage image = snapshotPixels( (int)Math.ceil( width ), (int)Math.ceil( height ) );
+			clear();
+			drawScreenImage( image, dx, dy );
+
+			Consumer<? super FxRenderer2d> painter = getPainter();
+			for( Rectangle2D region : exposed ) {
+				paintRegion( region, painter, false );
+			}
+
+			// The dirty regions move with the pixels
+			if( !dirtyRegions.isEmpty() ) {
+				List<Rectangle2D> regions = new ArrayList<>( dirtyRegions.getRegions() );
+				dirtyRegions.clear();
+				for( Rectangle2D region : regions ) {
+					addScreenDirtyRegion( region.getMinX() + dx, region.getMinY() + dy, region.getMaxX() + dx, region.getMaxY() + dy );
+				}
+			}
+		}
+		setRenderedView();
+	}
+
+	/**
+	 * Mark the screen area covered by world bounds as needing to be redrawn,
+	 * usually the bounds of a shape that changed. The bounds are converted to a
+	 * screen rectangle and merged with the other dirty regions. The dirty
+	 * regions are redrawn by {@link #renderDirtyRegions()}.
+	 *
+	 * @param bounds The world bounds that changed
+	 */
+	public void invalidateRegion( Bounds bounds ) {
+		invalidateRegion( bounds, 0.0 );
+	}
+
+	/**
+	 * Mark the screen area covered by world bounds, expanded by a margin, as
+	 * needing to be redrawn. The margin is usually half the pen width of the
+	 * shape that changed.
+	 *
+	 * @param bounds The world bounds that changed
+	 * @param margin The world distance to expand the bounds
+	 */
+	public void invalidateRegion( Bounds bounds, double margin ) {
+		if( bounds == null || bounds.isEmpty() ) return;
+
+		double minX = Double.POSITIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+		for( int corner = 0; corner < 4; corner++ ) {
+			double x = (corner & 1) == 0 ? bounds.getMinX() - margin : bounds.getMaxX() + margin;
+			double y = (corner & 2) == 0 ? bounds.getMinY() - margin : bounds.getMaxY() + margin;
+			double sx = worldToScreenTransform.getMxx() * x + worldToScreenTransform.getMxy() * y + worldToScreenTransform.getTx();
+			double sy = worldToScreenTransform.getMyx() * x + worldToScreenTransform.getMyy() * y + worldToScreenTransform.getTy();
+			minX = Math.min( minX, sx );
+			minY = Math.min( minY, sy );
+			maxX = Math.max( maxX, sx );
+			maxY = Math.max( maxY, sy );
+		}
+
+		// Include the antialiased pixels along the edges
+		addScreenDirtyRegion( Math.floor( minX ) - 1, Math.floor( minY ) - 1, Math.ceil( maxX ) + 1, Math.ceil( maxY ) + 1 );
+	}
+
+	/**
+	 * Check if there are screen regions that need to be redrawn.
+	 *
+	 * @return True if there are dirty regions
+	 */
+	public boolean isDirty() {
+		return !dirtyRegions.isEmpty();
+	}
+
+	/**
+	 * Get the screen regions that need to be redrawn.
+	 *
+	 * @return A read only list of the dirty regions
+	 */
+	public List<Rectangle2D> getDirtyRegions() {
+		return dirtyRegions.getRegions();
+	}
+
+	/**
+	 * Redraw the dirty regions. Each region is cleared and the scene painter
+	 * draws the scene clipped to the region. While the scene painter draws a
+	 * region, the {@link #getVisibleBounds() visible bounds} are the world
+	 * bounds of the region, so shapes outside the region are culled and the
+	 * cost depends on the size of the change and not the size of the scene.
+	 * <p>
+	 * The dirty regions are in screen coordinates, so if the view changed in
+	 * any way other than {@link #pan(double, double) panning} since the
+	 * regions were marked, the renderer should be {@link #render() rendered}
+	 * instead. Nothing is drawn if there is no scene painter. The cached tiles
+	 * that cover the regions are removed.
+	 */
+	public void renderDirtyRegions() {
+		Consumer<? super FxRenderer2d> painter = getPainter();
+		if( painter == null || screenToWorldTransform == null ) return;
+		for( Rectangle2D region : dirtyRegions.getRegions() ) {
+			if( tileCache != null ) tileCache.invalidate( this, region );
+			paintRegion( region, painter, true );
+		}
+		dirtyRegions.clear();
+	}
+
+	/**
+	 * Get the screen regions exposed when the pixels of a renderer are shifted
+	 * by a screen distance. There is one vertical strip along the left or right
+	 * edge and one horizontal strip along the top or bottom edge, not counting
+	 * the corner already in the vertical strip.
+	 *
+	 * @param width The renderer width
+	 * @param height The renderer height
+	 * @param dx The distance the pixels move in the x direction
+	 * @param dy The distance the pixels move in the y direction
+	 * @return The exposed regions, or null if no pixels remain visible
+	 */
+	static List<Rectangle2D> getExposedRegions( double width, double height, double dx, double dy ) {
+		if( Math.abs( dx ) >= width || Math.abs( dy ) >= height ) return null;
+
+		List<Rectangle2D> regions = new ArrayList<>( 2 );
+		double columnX = 0;
+		double columnWidth = width;
+		if( dx > 0 ) {
+			regions.add( new Rectangle2D( 0, 0, dx, height ) );
+			columnX = dx;
+			columnWidth = width - dx;
+		} else if( dx < 0 ) {
+			regions.add( new Rectangle2D( width + dx, 0, -dx, height ) );
+			columnWidth = width + dx;
+		}
+		if( dy > 0 ) {
+			regions.add( new Rectangle2D( columnX, 0, columnWidth, dy ) );
+		} else if( dy < 0 ) {
+			regions.add( new Rectangle2D( columnX, height + dy, columnWidth, -dy ) );
+		}
+		return regions;
+	}
+
+	/**
+	 * Start a frame. Frames can be nested, since a refresh can render the
+	 * whole scene, and only the outer frame is measured.
+	 */
+	private void beginFrame() {
+		if( frameDepth++ > 0 ) return;
+		frameRendered = false;
+		frameEvent = new FxRenderEvents.FrameRender();
+		frameEvent.begin();
+		if( frameStats == null ) return;
+		frameStats.reset();
+		frameStart = System.nanoTime();
+		frameStateChanges = state.getChangeCount();
+	}
+
+	private void endFrame() {
+		if( --frameDepth > 0 ) return;
+
+		FxRenderEvents.FrameRender event = frameEvent;
+		frameEvent = null;
+		event.end();
+
+		if( frameStats != null ) {
+			frameStats.setStateChanges( state.getChangeCount() - frameStateChanges );
+			frameStats.setNanos( System.nanoTime() - frameStart );
+			lastFrameStats = frameStats.copy();
+			if( isStatsHud() ) drawStatsHud( lastFrameStats );
+		} else {
+			hudRegion = null;
+		}
+
+		if( event.shouldCommit() ) {
+			event.width = getWidth();
+			event.height = getHeight();
+			if( lastFrameStats != null ) {
+				event.shapes = lastFrameStats.getShapeCount();
+				event.stateChanges = lastFrameStats.getStateChanges();
+				event.pathSegments = lastFrameStats.getPathSegments();
+				event.textDraws = lastFrameStats.getTextDraws();
+			}
+			event.commit();
+		}
+	}
+
+	/**
+	 * Draw the frame stats in the top left corner. Unless the whole scene was
+	 * just drawn, the scene under the HUD is drawn again first, since the text
+	 * changes every frame.
+	 */
+	private void drawStatsHud( RenderStats stats ) {
+		Rectangle2D region = new Rectangle2D( 0, 0, Math.min( HUD_WIDTH, getWidth() ), Math.min( HUD_LINES * HUD_LINE_HEIGHT + 4, getHeight() ) );
+		if( region.getWidth() <= 0 || region.getHeight() <= 0 ) return;
+
+		Consumer<? super FxRenderer2d> painter = getPainter();
+		if( !frameRendered && painter != null && screenToWorldTransform != null ) paintRegion( region, painter, true );
+		hudRegion = region;
+
+		GraphicsContext gc = getGraphicsContext2D();
+		state.save();
+		try {
+			screenSetup();
+			state.setFill( Color.color( 0, 0, 0, 0.6 ) );
+			gc.fillRect( region.getMinX(), region.getMinY(), region.getWidth(), region.getHeight() );
+			state.setFill( Color.WHITE );
+			state.setFont( FontCache.resolve( null, HUD_LINE_HEIGHT - 2 ).getFxFont() );
+			String[] lines = {
+				String.format( "frame %.3f ms", stats.getNanos() * 1e-6 ),
+				"shapes " + stats.getShapeCount(),
+				"state changes " + stats.getStateChanges(),
+				"path segments " + stats.getPathSegments(),
+				"text draws " + stats.getTextDraws()
+			};
+			for( int index = 0; index < lines.length; index++ ) {
+				gc.fillText( lines[ index ], 4, (index + 1) * HUD_LINE_HEIGHT );
+			}
+		} finally {
+			state.restore();
+		}
+	}
+
+	private void countShape( ShapeType type ) {
+		if( frameStats != null ) frameStats.addShape( type );
+	}
+
+	private void countText() {
+		if( frameStats != null ) frameStats.addTextDraw();
+	}
+
+	private void setRenderedView() {
+		renderedTransform = worldToScreenTransform;
+		renderedWidth = getWidth();
+		renderedHeight = getHeight();
+	}
+
+	static boolean isWholePixels( double distance ) {
+		return Math.abs( distance - Math.round( distance ) ) < PIXEL_TOLERANCE;
+	}
+
+	/**
+	 * Add a screen dirty region clipped to the renderer.
+	 */
+	private void addScreenDirtyRegion( double minX, double minY, double maxX, double maxY ) {
+		minX = Math.max( 0, minX );
+		minY = Math.max( 0, minY );
+		maxX = Math.min( getWidth(), maxX );
+		maxY = Math.min( getHeight(), maxY );
+		dirtyRegions.add( minX, minY, maxX - minX, maxY - minY );
+	}
+
+	/**
+	 * Draw the scene on a tile renderer of the tile cache.
+	 */
+	private void paintTile( FxRenderer2d tileRenderer ) {
+		Consumer<? super FxRenderer2d> painter = getPainter();
+		if( painter != null ) painter.accept( tileRenderer );
+	}
+
+	/**
+	 * Draw the scene clipped to a screen region. The visible bounds are the
+	 * world bounds of the region while the scene is drawn.
+	 */
+	void paintRegion( Rectangle2D region, Consumer<? super FxRenderer2d> painter, boolean clear ) {
+		GraphicsContext gc = getGraphicsContext2D();
+		Bounds visible = visibleBounds;
+		Rectangle2D priorRegion = paintRegion;
+		paintRegion = region;
+		state.save();
+		try {
+			screenSetup();
+			gc.beginPath();
+			gc.rect( region.getMinX(), region.getMinY(), region.getWidth(), region.getHeight() );
+			gc.clip();
+			if( clear ) gc.clearRect( region.getMinX(), region.getMinY(), region.getWidth(), region.getHeight() );
+			visibleBounds = screenToWorldTransform.transform( new BoundingBox( region.getMinX(), region.getMinY(), region.getWidth(), region.getHeight() ) );
+			painter.accept( this );
+		} finally {
+			visibleBounds = visible;
+			paintRegion = priorRegion;
+			state.restore();
+		}
+	}
+
+	/**
+	 * Get the screen region the scene painter is drawing. The drawing is
+	 * clipped to this region, so painters that copy images can copy only the
+	 * part of the image in the region.
+	 *
+	 * @return The screen region, or null if the whole renderer is drawn
+	 */
+	Rectangle2D getPaintRegion() {
+		return paintRegion;
+	}
+
+	/**
+	 * Copy the canvas pixels into one of the pan images.
+	 */
+	private WritableImage snapshotPixels( int width, int height ) {
+		if( panParameters == null ) {
+			panParameters = new SnapshotParameters();
+			panParameters.setFill( Color.TRANSPARENT );
+		}
+
+		WritableImage image = panSpareImage;
+		if( image == null || (int)image.getWidth() != width || (int)image.getHeight() != height ) image = new WritableImage( width, height );
+		panSpareImage = panImage;
+		panImage = snapshot( panParameters, image );
+		return panImage;
+	}
+
+	public void setZoomAt( double viewpointX, double viewpointY, double zoomX, double zoomY ) {
+		setViewState( viewState.withZoomAt( viewpointX, viewpointY, zoomX, zoomY ) );
 	}
 
 	public void setView( double viewpointX, double viewpointY, double rotate, double zoomX, double zoomY ) {
-		updateWorldTransforms( getLengthUnit(), getDpiX(), getDpiY(), zoomX, zoomY, viewpointX, viewpointY, rotate, getWidth(), getHeight() );
-		viewpointXProperty().set( viewpointX );
-		viewpointYProperty().set( viewpointY );
-		viewRotateProperty().set( rotate );
-		zoomXProperty().set( zoomX );
-		zoomYProperty().set( zoomY );
+		setViewState( viewState.withView( viewpointX, viewpointY, rotate, zoomX, zoomY ) );
 	}
 
 	/**
@@ -403,11 +1367,39 @@ public class FxRenderer2d extends Canvas implements DirectRenderer2d, ShapeRende
 	/**
 	 * Get a copy of the screen to world transform.
 	 *
-	 * @return A copy of the screen to world transform.
+	 * @return A copy of the screen to world transform, or null if the view
+	 * transform cannot be inverted.
 	 */
 	@Override
 	public Transform getScreenToWorldTransform() {
-		return screenToWorldTransform.clone();
+		return screenToWorldTransform == null ? null : screenToWorldTransform.clone();
+	}
+
+	/**
+	 * Get the world bounds of the visible area. The bounds are computed when the
+	 * view changes, so this method does not allocate.
+	 *
+	 * @return The world bounds of the visible area or null if not known
+	 */
+	@Override
+	public Bounds getVisibleBounds() {
+		return visibleBounds;
+	}
+
+	/**
+	 * Check if the shape could be visible in the current view. This compares the
+	 * world bounds of the shape, expanded by the margin, with the world bounds
+	 * of the visible area.
+	 *
+	 * @param shape The shape to check
+	 * @param margin The distance to expand the shape bounds, usually the pen width
+	 * @return True if the shape could be visible, false otherwise
+	 */
+	public boolean isVisible( Shape2d shape, double margin ) {
+		if( visibleBounds == null ) return true;
+		Bounds bounds = shape.getBounds();
+		if( bounds.isEmpty() ) return false;
+		return bounds.getMaxX() + margin >= visibleBounds.getMinX() && bounds.getMinX() - margin <= visibleBounds.getMaxX() && bounds.getMaxY() + margin >= visibleBounds.getMinY() && bounds.getMinY() - margin <= visibleBounds.getMaxY();
 	}
 
 	@Override
@@ -438,51 +1430,88 @@ public class FxRenderer2d extends Canvas implements DirectRenderer2d, ShapeRende
 	}
 
 	public void setDrawPen( Paint paint, double width, LineCap cap, LineJoin join, double[] dashes, double offset, boolean text ) {
-		getGraphicsContext2D().setStroke( paint );
-		getGraphicsContext2D().setLineCap( getCap( cap ) );
-		getGraphicsContext2D().setLineJoin( getJoin( join ) );
+		state.setStroke( paint );
+		state.setLineCap( getCap( cap ) );
+		state.setLineJoin( getJoin( join ) );
 		if( !text ) {
-			getGraphicsContext2D().setLineWidth( width );
-			getGraphicsContext2D().setLineDashes( dashes );
-			getGraphicsContext2D().setLineDashOffset( offset );
+			state.setLineWidth( width );
+			state.setLineDashes( dashes );
+			state.setLineDashOffset( offset );
 		} else {
-			getGraphicsContext2D().setLineWidth( width * FONT_POINT_SIZE );
-			if( dashes == null ) {
-				getGraphicsContext2D().setLineDashes( (double[])null );
-			} else {
-				getGraphicsContext2D().setLineDashes( Arrays.stream( dashes ).map( d -> d * FONT_POINT_SIZE ).toArray() );
-			}
-			if( getGraphicsContext2D().getLineDashes() != null ) getGraphicsContext2D().setLineDashes( Arrays.stream( getGraphicsContext2D().getLineDashes() ).map( d -> d * FONT_POINT_SIZE ).toArray() );
-			getGraphicsContext2D().setLineDashOffset( offset * FONT_POINT_SIZE );
+			state.setLineWidth( width * FONT_POINT_SIZE );
+			state.setLineDashes( dashes == null ? null : Arrays.stream( dashes ).map( d -> d * FONT_POINT_SIZE ).toArray() );
+			state.setLineDashOffset( offset * FONT_POINT_SIZE );
 		}
 	}
 
-	public void setFillPen( Paint paint ) {
-		getGraphicsContext2D().setFill( paint );
+	public void setFillPen( Paint paint ) {
+		state.setFill( paint );
+	}
+
+	@Override
+	public Paint getDrawPaint() {
+		return state.getStroke();
+	}
+
+	@Override
+	public double getDrawWidth() {
+		return state.getLineWidth();
+	}
+
+	@Override
+	public Paint getFillPaint() {
+		return state.getFill();
 	}
 
 	public void drawBox( double x, double y, double w, double h, double rotate ) {
+		if( isSmallShape( Math.max( Math.abs( w ), Math.abs( h ) ) ) ) {
+			drawDot( x + 0.5 * w, y + 0.5 * h, state.getStroke() );
+			return;
+		}
 		shapeSetup( x, y, rotate );
 		getGraphicsContext2D().strokeRect( x, y, w, h );
 	}
 
 	public void drawLine( double x1, double y1, double x2, double y2 ) {
+		countShape( ShapeType.LINE );
+		if( isSmallShape( Math.max( Math.abs( x2 - x1 ), Math.abs( y2 - y1 ) ) ) ) {
+			drawDot( x1, y1, state.getStroke() );
+			return;
+		}
+
 		// Line does not use translate or rotate transforms
 		shapeSetup();
 		getGraphicsContext2D().strokeLine( x1, y1, x2, y2 );
 	}
 
 	public void drawEllipse( double cx, double cy, double rx, double ry, double rotate ) {
+		countShape( ShapeType.ELLIPSE );
+		if( isSmallShape( 2 * Math.max( rx, ry ) ) ) {
+			drawDot( cx, cy, state.getStroke() );
+			return;
+		}
 		shapeSetup( cx, cy, rotate );
 		getGraphicsContext2D().strokeOval( cx - rx, cy - ry, 2 * rx, 2 * ry );
 	}
 
 	public void drawArc( double cx, double cy, double rx, double ry, double rotate, double start, double extent ) {
+		countShape( ShapeType.ARC );
+		if( isSmallShape( 2 * Math.max( rx, ry ) ) ) {
+			drawDot( cx, cy, state.getStroke() );
+			return;
+		}
 		shapeSetup( cx, cy, rotate );
 		getGraphicsContext2D().strokeArc( cx - rx, cy - ry, 2 * rx, 2 * ry, -start, -extent, ArcType.OPEN );
 	}
 
 	public void drawQuad( double x1, double y1, double x2, double y2, double x3, double y3 ) {
+		countShape( ShapeType.QUAD );
+		double size = Math.max( Math.max( x1, Math.max( x2, x3 ) ) - Math.min( x1, Math.min( x2, x3 ) ), Math.max( y1, Math.max( y2, y3 ) ) - Math.min( y1, Math.min( y2, y3 ) ) );
+		if( isSmallShape( size ) ) {
+			drawDot( x1, y1, state.getStroke() );
+			return;
+		}
+
 		// Quad does not use translate or rotate transforms
 		shapeSetup();
 		getGraphicsContext2D().beginPath();
@@ -492,6 +1521,14 @@ public class FxRenderer2d extends Canvas implements DirectRenderer2d, ShapeRende
 	}
 
 	public void drawCubic( double x1, double y1, double x2, double y2, double x3, double y3, double x4, double y4 ) {
+		countShape( ShapeType.CURVE );
+		double width = Math.max( Math.max( x1, x2 ), Math.max( x3, x4 ) ) - Math.min( Math.min( x1, x2 ), Math.min( x3, x4 ) );
+		double height = Math.max( Math.max( y1, y2 ), Math.max( y3, y4 ) ) - Math.min( Math.min( y1, y2 ), Math.min( y3, y4 ) );
+		if( isSmallShape( Math.max( width, height ) ) ) {
+			drawDot( x1, y1, state.getStroke() );
+			return;
+		}
+
 		// Cubic does not use translate or rotate transforms
 		shapeSetup();
 		getGraphicsContext2D().beginPath();
@@ -502,36 +1539,157 @@ public class FxRenderer2d extends Canvas implements DirectRenderer2d, ShapeRende
 
 	@Override
 	public void drawPath( List<Path.Step> path ) {
+		countShape( ShapeType.PATH );
+		shapeSetup();
+		getGraphicsContext2D().beginPath();
+		runPath( path );
+		getGraphicsContext2D().stroke();
+	}
+
+	@Override
+	public void drawPath( PackedPath path ) {
+		countShape( ShapeType.PATH );
 		shapeSetup();
 		getGraphicsContext2D().beginPath();
 		runPath( path );
 		getGraphicsContext2D().stroke();
 	}
 
+	@Override
+	public void drawPolyline( double[] xy, int offset, int count ) {
+		if( count < 2 ) return;
+		countShape( ShapeType.PATH );
+		shapeSetup();
+		GraphicsContext gc = getGraphicsContext2D();
+		gc.beginPath();
+		gc.moveTo( xy[ offset ], xy[ offset + 1 ] );
+		addLines( gc, xy, offset + 2, count - 1 );
+		gc.stroke();
+	}
+
+	@Override
+	public void drawLines( double[] xy, int offset, int count ) {
+		if( count < 2 ) return;
+		countShape( ShapeType.PATH );
+		shapeSetup();
+		GraphicsContext gc = getGraphicsContext2D();
+		gc.beginPath();
+		int end = offset + 2 * (count - 1);
+		for( int index = offset; index < end; index += 4 ) {
+			gc.moveTo( xy[ index ], xy[ index + 1 ] );
+			gc.lineTo( xy[ index + 2 ], xy[ index + 3 ] );
+		}
+		gc.stroke();
+		if( frameStats != null ) frameStats.addPathSegments( count );
+	}
+
+	/**
+	 * Draw a dot at each point. The dots are circles in one path, filled with
+	 * the draw paint, so all the dots are sent to the canvas at once. The fill
+	 * paint and fill rule are restored afterward.
+	 */
+	@Override
+	public void drawPoints( double[] xy, int offset, int count ) {
+		if( count < 1 || state.getStroke() == null ) return;
+		countShape( ShapeType.PATH );
+		double radius = 0.5 * state.getLineWidth();
+
+		Paint fill = state.getFill();
+		FillRule rule = state.getFillRule();
+		shapeSetup();
+		state.setFill( state.getStroke() );
+		state.setFillRule( FillRule.NON_ZERO );
+		GraphicsContext gc = getGraphicsContext2D();
+		gc.beginPath();
+		int end = offset + 2 * count;
+		for( int index = offset; index < end; index += 2 ) {
+			double x = xy[ index ];
+			double y = xy[ index + 1 ];
+			gc.moveTo( x + radius, y );
+			gc.arc( x, y, radius, radius, 0, 360 );
+			gc.closePath();
+		}
+		gc.fill();
+		if( fill != null ) state.setFill( fill );
+		if( rule != null ) state.setFillRule( rule );
+		if( frameStats != null ) frameStats.addPathSegments( count );
+	}
+
 	public void drawText( double x, double y, double height, double rotate, String text, Font font ) {
+		countShape( ShapeType.TEXT );
+		countText();
+		if( isGreekText( height ) ) {
+			fillGreekText( x, y, height, rotate, text, state.getStroke() );
+			return;
+		}
 		textSetup( x, y, height, rotate, font );
 		getGraphicsContext2D().strokeText( text, x * FONT_POINT_SIZE, -y * FONT_POINT_SIZE );
 	}
 
 	public void fillBox( double x, double y, double w, double h, double rotate ) {
+		if( isSmallShape( Math.max( Math.abs( w ), Math.abs( h ) ) ) ) {
+			drawDot( x + 0.5 * w, y + 0.5 * h, state.getFill() );
+			return;
+		}
 		shapeSetup( x, y, rotate );
 		getGraphicsContext2D().fillRect( x, y, w, h );
 	}
 
 	public void fillEllipse( double cx, double cy, double rx, double ry, double rotate ) {
+		countShape( ShapeType.ELLIPSE );
+		if( isSmallShape( 2 * Math.max( rx, ry ) ) ) {
+			drawDot( cx, cy, state.getFill() );
+			return;
+		}
 		shapeSetup( cx, cy, rotate );
 		getGraphicsContext2D().fillOval( cx - rx, cy - ry, 2 * rx, 2 * ry );
 	}
 
 	@Override
 	public void fillPath( List<Path.Step> path ) {
+		countShape( ShapeType.PATH );
+		shapeSetup();
+		state.setFillRule( FillRule.EVEN_ODD );
+		getGraphicsContext2D().beginPath();
+		runPath( path );
+		getGraphicsContext2D().fill();
+	}
+
+	@Override
+	public void fillPath( PackedPath path ) {
+		countShape( ShapeType.PATH );
 		shapeSetup();
-		getGraphicsContext2D().setFillRule( FillRule.EVEN_ODD );
+		state.setFillRule( FillRule.EVEN_ODD );
 		getGraphicsContext2D().beginPath();
 		runPath( path );
 		getGraphicsContext2D().fill();
 	}
 
+	@Override
+	public void fillPolygon( double[] xy, int offset, int count ) {
+		if( count < 3 ) return;
+		countShape( ShapeType.PATH );
+		shapeSetup();
+		state.setFillRule( FillRule.EVEN_ODD );
+		GraphicsContext gc = getGraphicsContext2D();
+		gc.beginPath();
+		gc.moveTo( xy[ offset ], xy[ offset + 1 ] );
+		addLines( gc, xy, offset + 2, count - 1 );
+		gc.closePath();
+		gc.fill();
+	}
+
+	/**
+	 * Add a line to each of the points to the current path.
+	 */
+	private void addLines( GraphicsContext gc, double[] xy, int offset, int count ) {
+		int end = offset + 2 * count;
+		for( int index = offset; index < end; index += 2 ) {
+			gc.lineTo( xy[ index ], xy[ index + 1 ] );
+		}
+		if( frameStats != null ) frameStats.addPathSegments( count + 1 );
+	}
+
 	@Override
 	public void startPath() {
 		shapeSetup();
@@ -541,27 +1699,39 @@ public class FxRenderer2d extends Canvas implements DirectRenderer2d, ShapeRende
 	@Override
 	public void moveTo( double x, double y ) {
 		getGraphicsContext2D().moveTo( x, y );
-		pathPrior = new double[]{ x, y };
+		pathPrior[ 0 ] = x;
+		pathPrior[ 1 ] = y;
 	}
 
 	@Override
 	public void lineTo( double x, double y ) {
 		getGraphicsContext2D().lineTo( x, y );
-		pathPrior = new double[]{ x, y };
+		pathPrior[ 0 ] = x;
+		pathPrior[ 1 ] = y;
 	}
 
 	@Override
 	public void arcTo( double x, double y, double rx, double ry, double rotate, boolean large, boolean sweep ) {
-		double[] data = Geometry.arcEndpointToCenter( pathPrior, new double[]{ x, y, rx, ry, rotate, large ? 1.0 : 0.0, sweep ? 1.0 : 0.0 } );
+		double[] arc = pathArc;
+		arc[ 0 ] = x;
+		arc[ 1 ] = y;
+		arc[ 2 ] = rx;
+		arc[ 3 ] = ry;
+		arc[ 4 ] = rotate;
+		arc[ 5 ] = large ? 1.0 : 0.0;
+		arc[ 6 ] = sweep ? 1.0 : 0.0;
+		double[] data = Geometry.arcEndpointToCenter( pathPrior, arc );
 		getGraphicsContext2D().arc( data[ 0 ], data[ 1 ], data[ 2 ], data[ 3 ], data[ 4 ], data[ 5 ] );
-		pathPrior = new double[]{ x, y };
+		pathPrior[ 0 ] = x;
+		pathPrior[ 1 ] = y;
 	}
 
 	@Override
 	public void arcTo( double cx, double cy, double rx, double ry, double start, double extent ) {
 		getGraphicsContext2D().arc( cx, cy, rx, ry, start, extent );
 		double[][] data = Geometry.arcEndPoints( cx, cy, rx, ry, 0.0, start, extent );
-		pathPrior = data[ 1 ];
+		pathPrior[ 0 ] = data[ 1 ][ 0 ];
+		pathPrior[ 1 ] = data[ 1 ][ 1 ];
 	}
 
 	@Override
@@ -591,6 +1761,13 @@ public class FxRenderer2d extends Canvas implements DirectRenderer2d, ShapeRende
 
 	@Override
 	public void fillText( double x, double y, double height, double rotate, String text, Font font ) {
+		countShape( ShapeType.TEXT );
+		countText();
+		if( isGreekText( height ) ) {
+			fillGreekText( x, y, height, rotate, text, state.getFill() );
+			return;
+		}
+		if( fillAtlasText( x, y, height, rotate, text, font ) ) return;
 		textSetup( x, y, height, rotate, font );
 		getGraphicsContext2D().fillText( text, x * FONT_POINT_SIZE, -y * FONT_POINT_SIZE );
 	}
@@ -625,10 +1802,40 @@ public class FxRenderer2d extends Canvas implements DirectRenderer2d, ShapeRende
 		getGraphicsContext2D().strokeLine( position, 0, position, getHeight() );
 	}
 
+	/**
+	 * Draw an image at its natural size with the top left corner at the screen
+	 * position.
+	 */
+	void drawScreenImage( Image image, double x, double y ) {
+		screenSetup();
+		getGraphicsContext2D().drawImage( image, x, y );
+	}
+
+	/**
+	 * Draw the part of a renderer sized image that is in a screen region, at
+	 * the same place on the screen.
+	 */
+	void drawScreenImage( Image image, Rectangle2D region ) {
+		double minX = Math.max( 0, region.getMinX() );
+		double minY = Math.max( 0, region.getMinY() );
+		double maxX = Math.min( image.getWidth(), region.getMaxX() );
+		double maxY = Math.min( image.getHeight(), region.getMaxY() );
+		if( maxX <= minX || maxY <= minY ) return;
+		screenSetup();
+		getGraphicsContext2D().drawImage( image, minX, minY, maxX - minX, maxY - minY, minX, minY, maxX - minX, maxY - minY );
+	}
+
 	@Override
 	@Deprecated
 	public void draw( Shape2d shape, Pen pen ) {
+		if( !isVisible( shape, pen.width() ) ) return;
+		countShape( shape.type() );
 		setPen( pen );
+		if( drawDetail( shape, pen ) ) return;
+		if( isFlattenCurves() && isCurved( shape ) ) {
+			drawFlatPath( shape.getFlatPath( getFlatteningTolerance() ), false );
+			return;
+		}
 		switch( shape.type() ) {
 			case ARC -> drawArc( (Arc)shape );
 			case CURVE -> drawCurve( (Curve)shape );
@@ -640,27 +1847,59 @@ public class FxRenderer2d extends Canvas implements DirectRenderer2d, ShapeRende
 		}
 	}
 
+	/**
+	 * Draw the shapes with one pen. The pen is set once and the shapes are
+	 * added to one canvas path that is stroked once, instead of setting up and
+	 * stroking each shape. Text is drawn separately.
+	 */
 	@Deprecated
 	public void draw( Collection<? extends Shape2d> shapes, Pen pen ) {
-		shapes.forEach( s -> draw( s, pen ) );
+		setPen( pen );
+		GraphicsContext gc = getGraphicsContext2D();
+		boolean open = false;
+		for( Shape2d shape : shapes ) {
+			if( !isVisible( shape, pen.width() ) ) continue;
+			countShape( shape.type() );
+			if( drawDetail( shape, pen ) ) continue;
+			if( shape.type() == ShapeType.TEXT ) {
+				if( open ) {
+					shapeSetup();
+					gc.stroke();
+					open = false;
+				}
+				drawText( (Text)shape );
+				setPen( pen );
+				continue;
+			}
+			if( !open ) {
+				shapeSetup();
+				gc.beginPath();
+				open = true;
+			}
+			addShape( gc, shape );
+		}
+		if( open ) {
+			shapeSetup();
+			gc.stroke();
+		}
 	}
 
 	@Deprecated
 	private void drawArc( Arc arc ) {
-		double[] anchor = Vector.add( arc.getAnchor(), Point.of( -arc.getRadius()[ 0 ], -arc.getRadius()[ 1 ] ) );
-		double[] radius = Vector.scale( arc.getRadius(), 2 );
+		double[] center = arc.getAnchor();
+		double[] radius = arc.getRadius();
 
 		shapeSetup( arc );
-		getGraphicsContext2D().strokeArc( anchor[ 0 ], anchor[ 1 ], radius[ 0 ], radius[ 1 ], -arc.getStart(), -arc.getExtent(), ArcType.OPEN );
+		getGraphicsContext2D().strokeArc( center[ 0 ] - radius[ 0 ], center[ 1 ] - radius[ 1 ], 2 * radius[ 0 ], 2 * radius[ 1 ], -arc.getStart(), -arc.getExtent(), ArcType.OPEN );
 	}
 
 	@Deprecated
 	private void drawEllipse( Ellipse ellipse ) {
-		double[] anchor = Vector.add( ellipse.getAnchor(), Point.of( -ellipse.getRadius()[ 0 ], -ellipse.getRadius()[ 1 ] ) );
-		double[] radius = Vector.scale( ellipse.getRadius(), 2 );
+		double[] center = ellipse.getAnchor();
+		double[] radius = ellipse.getRadius();
 
 		shapeSetup( ellipse );
-		getGraphicsContext2D().strokeOval( anchor[ 0 ], anchor[ 1 ], radius[ 0 ], radius[ 1 ] );
+		getGraphicsContext2D().strokeOval( center[ 0 ] - radius[ 0 ], center[ 1 ] - radius[ 1 ], 2 * radius[ 0 ], 2 * radius[ 1 ] );
 	}
 
 	@Deprecated
@@ -709,6 +1948,7 @@ public class FxRenderer2d extends Canvas implements DirectRenderer2d, ShapeRende
 
 	@Deprecated
 	private void drawText( Text text ) {
+		countText();
 		textSetup( text );
 		double[] anchor = text.getAnchor();
 		getGraphicsContext2D().strokeText( text.getText(), anchor[ 0 ] * FONT_POINT_SIZE, -anchor[ 1 ] * FONT_POINT_SIZE );
@@ -717,7 +1957,14 @@ public class FxRenderer2d extends Canvas implements DirectRenderer2d, ShapeRende
 	@Override
 	@Deprecated
 	public void fill( Shape2d shape, Pen pen ) {
+		if( !isFillable( shape ) || !isVisible( shape, 0.0 ) ) return;
+		countShape( shape.type() );
 		setPen( pen );
+		if( drawDetail( shape, pen ) ) return;
+		if( isFlattenCurves() && isCurved( shape ) ) {
+			drawFlatPath( shape.getFlatPath( getFlatteningTolerance() ), true );
+			return;
+		}
 		switch( shape.type() ) {
 			case ELLIPSE -> fillEllipse( (Ellipse)shape );
 			case PATH -> fillPath( (Path)shape );
@@ -725,18 +1972,182 @@ public class FxRenderer2d extends Canvas implements DirectRenderer2d, ShapeRende
 		}
 	}
 
+	/**
+	 * Fill the shapes with one pen. The pen is set once and the shapes are
+	 * added to one canvas path that is filled once. The path is filled with the
+	 * even-odd rule, so a shape that overlaps a shape already in the path
+	 * starts a new path. Otherwise the overlap would be left empty. Text is
+	 * filled separately.
+	 */
 	@Deprecated
 	public void fill( Collection<? extends Shape2d> shapes, Pen pen ) {
-		shapes.forEach( s -> fill( s, pen ) );
+		setPen( pen );
+		GraphicsContext gc = getGraphicsContext2D();
+		int batch = 0;
+		for( Shape2d shape : shapes ) {
+			if( !isFillable( shape ) || !isVisible( shape, 0.0 ) ) continue;
+			countShape( shape.type() );
+			if( drawDetail( shape, pen ) ) continue;
+			if( shape.type() == ShapeType.TEXT ) {
+				if( batch > 0 ) fillBatch( gc );
+				batch = 0;
+				fillText( (Text)shape );
+				continue;
+			}
+
+			Bounds bounds = shape.getBounds();
+			if( batch == MAX_FILL_BATCH || isFillBatchOverlap( bounds, batch ) ) {
+				fillBatch( gc );
+				batch = 0;
+			}
+			if( batch == 0 ) {
+				shapeSetup();
+				gc.beginPath();
+			}
+			int index = 4 * batch++;
+			fillBatchBounds[ index ] = bounds.getMinX();
+			fillBatchBounds[ index + 1 ] = bounds.getMinY();
+			fillBatchBounds[ index + 2 ] = bounds.getMaxX();
+			fillBatchBounds[ index + 3 ] = bounds.getMaxY();
+			addShape( gc, shape );
+		}
+		if( batch > 0 ) fillBatch( gc );
+	}
+
+	/**
+	 * Check if the bounds overlap the bounds of a shape in the fill batch.
+	 */
+	private boolean isFillBatchOverlap( Bounds bounds, int batch ) {
+		double minX = bounds.getMinX();
+		double minY = bounds.getMinY();
+		double maxX = bounds.getMaxX();
+		double maxY = bounds.getMaxY();
+		for( int index = 0; index < 4 * batch; index += 4 ) {
+			if( maxX >= fillBatchBounds[ index ] && minX <= fillBatchBounds[ index + 2 ] && maxY >= fillBatchBounds[ index + 1 ] && minY <= fillBatchBounds[ index + 3 ] ) return true;
+		}
+		return false;
+	}
+
+	private void fillBatch( GraphicsContext gc ) {
+		shapeSetup();
+		state.setFillRule( FillRule.EVEN_ODD );
+		gc.fill();
+	}
+
+	/**
+	 * Add a shape to the current canvas path. The path is in world
+	 * coordinates. Rotated arcs and ellipses are converted to cubic Bezier
+	 * curves in world coordinates. Other rotated shapes are added with the
+	 * rotated transform, since the canvas transforms path steps as they are
+	 * added. The transform is reset to the world transform for the next shape.
+	 */
+	private void addShape( GraphicsContext gc, Shape2d shape ) {
+		shapeSetup();
+		if( isFlattenCurves() && isCurved( shape ) ) {
+			addFlatPath( gc, shape.getFlatPath( getFlatteningTolerance() ) );
+			return;
+		}
+		switch( shape.type() ) {
+			case ARC -> {
+				Arc arc = (Arc)shape;
+				double[] c = arc.getAnchor();
+				double[] r = arc.getRadius();
+				addArc( gc, c[ 0 ], c[ 1 ], r[ 0 ], r[ 1 ], arc.getRotate(), arc.getStart(), arc.getExtent() );
+			}
+			case ELLIPSE -> {
+				Ellipse ellipse = (Ellipse)shape;
+				double[] c = ellipse.getAnchor();
+				double[] r = ellipse.getRadius();
+				addArc( gc, c[ 0 ], c[ 1 ], r[ 0 ], r[ 1 ], ellipse.getRotate(), 0.0, 360.0 );
+				gc.closePath();
+			}
+			case LINE -> {
+				Line line = (Line)shape;
+				double[] a = line.getAnchor();
+				double[] b = line.getVector();
+				if( line.getRotate() != 0.0 ) shapeSetup( line );
+				gc.moveTo( a[ 0 ], a[ 1 ] );
+				gc.lineTo( b[ 0 ], b[ 1 ] );
+			}
+			case CURVE -> {
+				Curve curve = (Curve)shape;
+				double[] a = curve.getAnchor();
+				double[] b = curve.getAnchorControl();
+				double[] c = curve.getVectorControl();
+				double[] d = curve.getVector();
+				if( curve.getRotate() != 0.0 ) shapeSetup( curve );
+				gc.moveTo( a[ 0 ], a[ 1 ] );
+				gc.bezierCurveTo( b[ 0 ], b[ 1 ], c[ 0 ], c[ 1 ], d[ 0 ], d[ 1 ] );
+			}
+			case QUAD -> {
+				Quad quad = (Quad)shape;
+				double[] a = quad.getAnchor();
+				double[] b = quad.getControl();
+				double[] c = quad.getVector();
+				if( quad.getRotate() != 0.0 ) shapeSetup( quad );
+				gc.moveTo( a[ 0 ], a[ 1 ] );
+				gc.quadraticCurveTo( b[ 0 ], b[ 1 ], c[ 0 ], c[ 1 ] );
+			}
+			case PATH -> {
+				Path path = (Path)shape;
+				if( path.getRotate() != 0.0 ) shapeSetup( path );
+				runPath( path.getSteps() );
+			}
+		}
+	}
+
+	/**
+	 * Add an elliptical arc to the current canvas path as a new contour. An
+	 * unrotated arc is added as a canvas arc. A rotated arc is split into
+	 * segments of no more than 90 degrees and each segment is added as a cubic
+	 * Bezier curve, so the world transform does not change.
+	 */
+	private void addArc( GraphicsContext gc, double cx, double cy, double rx, double ry, double rotate, double start, double extent ) {
+		double startRadians = Math.toRadians( start );
+		if( rotate == 0.0 ) {
+			gc.moveTo( cx + rx * Math.cos( startRadians ), cy + ry * Math.sin( startRadians ) );
+			gc.arc( cx, cy, rx, ry, -start, -extent );
+			return;
+		}
+
+		double cos = Math.cos( Math.toRadians( rotate ) );
+		double sin = Math.sin( Math.toRadians( rotate ) );
+		int segments = Math.max( 1, (int)Math.ceil( Math.abs( extent ) / 90.0 ) );
+		double step = Math.toRadians( extent ) / segments;
+		double k = 4.0 / 3.0 * Math.tan( 0.25 * step );
+
+		// The unit circle points and tangents are scaled by the radii and rotated
+		double u = Math.cos( startRadians );
+		double v = Math.sin( startRadians );
+		gc.moveTo( cx + rx * u * cos - ry * v * sin, cy + rx * u * sin + ry * v * cos );
+		for( int segment = 1; segment <= segments; segment++ ) {
+			double angle = startRadians + segment * step;
+			double u2 = Math.cos( angle );
+			double v2 = Math.sin( angle );
+			double u0 = u - k * v;
+			double v0 = v + k * u;
+			double u1 = u2 + k * v2;
+			double v1 = v2 - k * u2;
+			gc.bezierCurveTo(
+				cx + rx * u0 * cos - ry * v0 * sin,
+				cy + rx * u0 * sin + ry * v0 * cos,
+				cx + rx * u1 * cos - ry * v1 * sin,
+				cy + rx * u1 * sin + ry * v1 * cos,
+				cx + rx * u2 * cos - ry * v2 * sin,
+				cy + rx * u2 * sin + ry * v2 * cos
+			);
+			u = u2;
+			v = v2;
+		}
 	}
 
 	@Deprecated
 	private void fillEllipse( Ellipse ellipse ) {
-		double[] anchor = Vector.add( ellipse.getAnchor(), Point.of( -ellipse.getRadius()[ 0 ], -ellipse.getRadius()[ 1 ] ) );
-		double[] radius = Vector.scale( ellipse.getRadius(), 2 );
+		double[] center = ellipse.getAnchor();
+		double[] radius = ellipse.getRadius();
 
 		shapeSetup( ellipse );
-		getGraphicsContext2D().fillOval( anchor[ 0 ], anchor[ 1 ], radius[ 0 ], radius[ 1 ] );
+		getGraphicsContext2D().fillOval( center[ 0 ] - radius[ 0 ], center[ 1 ] - radius[ 1 ], 2 * radius[ 0 ], 2 * radius[ 1 ] );
 	}
 
 	@Deprecated
@@ -749,140 +2160,423 @@ public class FxRenderer2d extends Canvas implements DirectRenderer2d, ShapeRende
 
 	@Deprecated
 	private void fillText( Text text ) {
-		textSetup( text );
+		countText();
 		double[] anchor = text.getAnchor();
+		if( fillAtlasText( anchor[ 0 ], anchor[ 1 ], text.getHeight(), text.getRotate(), text.getText(), text.getFont() ) ) return;
+		textSetup( text );
 		getGraphicsContext2D().fillText( text.getText(), anchor[ 0 ] * FONT_POINT_SIZE, -anchor[ 1 ] * FONT_POINT_SIZE );
 	}
 
+	@Override
+	public void drawMarkers( Marker marker, double[] xy, double[] rotate, double[] scale, int count, Pen pen ) {
+		drawMarkers( marker, xy, rotate, scale, count, pen, false );
+	}
+
+	@Override
+	public void fillMarkers( Marker marker, double[] xy, double[] rotate, double[] scale, int count, Pen pen ) {
+		drawMarkers( marker, xy, rotate, scale, count, pen, true );
+	}
+
+	/**
+	 * Draw or fill a marker at each visible position. Markers that are the same
+	 * at every position and no larger than the marker stamp size are copied
+	 * from a rasterized stamp. Other markers are flattened once and all the
+	 * instances are sent to the canvas as one path. Filled markers use the
+	 * non-zero fill rule so overlapping instances do not cancel each other, and
+	 * the fill rule is restored afterward.
+	 */
+	private void drawMarkers( Marker marker, double[] xy, double[] rotate, double[] scale, int count, Pen pen, boolean fill ) {
+		if( count < 1 || pen.paint() == null ) return;
+		ShapeType type = marker.getType();
+
+		double maxScale = 1.0;
+		if( scale != null ) {
+			maxScale = 0.0;
+			for( int index = 0; index < count; index++ ) maxScale = Math.max( maxScale, Math.abs( scale[ index ] ) );
+			if( maxScale == 0.0 ) return;
+		}
+		double margin = fill ? 0.0 : pen.width();
+		double size = 2 * marker.getRadius() * maxScale;
+
+		setPen( pen );
+		if( isSmallShape( size ) ) {
+			for( int index = 0; index < count; index++ ) {
+				double x = xy[ 2 * index ];
+				double y = xy[ 2 * index + 1 ];
+				if( !isMarkerVisible( x, y, marker.getRadius() * maxScale + margin ) ) continue;
+				countShape( type );
+				drawDot( x, y, pen.paint() );
+			}
+			return;
+		}
+
+		if( rotate == null && scale == null && size * worldScale <= getMarkerStampSize() ) {
+			Affine transform = worldToScreenTransform;
+			FxMarkerStamps.Stamp stamp = markerStamps.get( marker, pen, fill, transform.getMxx(), transform.getMxy(), transform.getMyx(), transform.getMyy() );
+			if( stamp != null ) {
+				screenSetup();
+				GraphicsContext gc = getGraphicsContext2D();
+				for( int index = 0; index < count; index++ ) {
+					double x = xy[ 2 * index ];
+					double y = xy[ 2 * index + 1 ];
+					if( !isMarkerVisible( x, y, marker.getRadius() + margin ) ) continue;
+					countShape( type );
+					double sx = transform.getMxx() * x + transform.getMxy() * y + transform.getTx();
+					double sy = transform.getMyx() * x + transform.getMyy() * y + transform.getTy();
+					gc.drawImage( stamp.image(), Math.floor( sx ) - stamp.originX(), Math.floor( sy ) - stamp.originY() );
+				}
+				return;
+			}
+		}
+
+		FlatPath flat = marker.getFlatPath( getFlatteningTolerance() / maxScale );
+		int contours = flat.getContourCount();
+		if( contours == 0 ) return;
+
+		shapeSetup();
+		GraphicsContext gc = getGraphicsContext2D();
+		gc.beginPath();
+		int drawn = 0;
+		for( int index = 0; index < count; index++ ) {
+			double x = xy[ 2 * index ];
+			double y = xy[ 2 * index + 1 ];
+			double s = scale == null ? 1.0 : scale[ index ];
+			if( !isMarkerVisible( x, y, marker.getRadius() * Math.abs( s ) + margin ) ) continue;
+			countShape( type );
+			drawn++;
+
+			double radians = rotate == null ? 0.0 : Math.toRadians( rotate[ index ] );
+			double cos = s * Math.cos( radians );
+			double sin = s * Math.sin( radians );
+			for( int contour = 0; contour < contours; contour++ ) {
+				int start = flat.getContourStart( contour );
+				int end = flat.getContourEnd( contour );
+				double px = flat.getX( start );
+				double py = flat.getY( start );
+				gc.moveTo( x + cos * px - sin * py, y + sin * px + cos * py );
+				for( int point = start + 1; point < end; point++ ) {
+					px = flat.getX( point );
+					py = flat.getY( point );
+					gc.lineTo( x + cos * px - sin * py, y + sin * px + cos * py );
+				}
+				if( flat.isClosed( contour ) ) gc.closePath();
+			}
+		}
+		if( drawn == 0 ) return;
+
+		if( fill ) {
+			FillRule rule = state.getFillRule();
+			state.setFillRule( FillRule.NON_ZERO );
+			gc.fill();
+			if( rule != null ) state.setFillRule( rule );
+		} else {
+			gc.stroke();
+		}
+		if( frameStats != null ) frameStats.addPathSegments( drawn * flat.getPointCount() );
+	}
+
+	/**
+	 * Check if a marker instance could be visible in the current view.
+	 *
+	 * @param x The x coordinate of the instance position
+	 * @param y The y coordinate of the instance position
+	 * @param extent The largest world distance from the position to the drawn marker
+	 */
+	private boolean isMarkerVisible( double x, double y, double extent ) {
+		if( visibleBounds == null ) return true;
+		return x + extent >= visibleBounds.getMinX() && x - extent <= visibleBounds.getMaxX() && y + extent >= visibleBounds.getMinY() && y - extent <= visibleBounds.getMaxY();
+	}
+
 	@Override
 	public void drawHRule( double position, Pen pen ) {
 		screenSetup();
-		getGraphicsContext2D().setStroke( pen.paint() );
-		getGraphicsContext2D().setLineWidth( pen.width() );
+		state.setStroke( pen.paint() );
+		state.setLineWidth( pen.width() );
 		getGraphicsContext2D().strokeLine( 0, position, getWidth(), position );
 	}
 
 	@Override
 	public void drawVRule( double position, Pen pen ) {
 		screenSetup();
-		getGraphicsContext2D().setStroke( pen.paint() );
-		getGraphicsContext2D().setLineWidth( pen.width() );
+		state.setStroke( pen.paint() );
+		state.setLineWidth( pen.width() );
 		getGraphicsContext2D().strokeLine( position, 0, position, getHeight() );
 	}
 
+	/**
+	 * Check if the shape has an inside to fill. Only ellipses, paths and text
+	 * are filled, whether curves are flattened or not.
+	 */
+	private static boolean isFillable( Shape2d shape ) {
+		return switch( shape.type() ) {
+			case ELLIPSE, PATH, TEXT -> true;
+			default -> false;
+		};
+	}
+
+	private static boolean isCurved( Shape2d shape ) {
+		return switch( shape.type() ) {
+			case ARC, CURVE, ELLIPSE, PATH, QUAD -> true;
+			default -> false;
+		};
+	}
+
+	/**
+	 * Stroke or fill flattened geometry. The points are already in world
+	 * coordinates so the shape rotation is not applied again. Single contours
+	 * use the polyline and polygon methods, which send the points to the canvas
+	 * in one call.
+	 */
+	private void drawFlatPath( FlatPath path, boolean fill ) {
+		int contours = path.getContourCount();
+		if( contours == 0 ) return;
+		if( frameStats != null ) frameStats.addPathSegments( path.getPointCount() );
+
+		shapeSetup();
+		GraphicsContext gc = getGraphicsContext2D();
+		if( contours == 1 ) {
+			int count = path.getPointCount();
+			if( fill ) {
+				gc.fillPolygon( path.getXs(), path.getYs(), count );
+			} else if( path.isClosed( 0 ) ) {
+				gc.strokePolygon( path.getXs(), path.getYs(), count );
+			} else {
+				gc.strokePolyline( path.getXs(), path.getYs(), count );
+			}
+			return;
+		}
+
+		gc.beginPath();
+		addContours( gc, path );
+		if( fill ) {
+			state.setFillRule( FillRule.EVEN_ODD );
+			gc.fill();
+		} else {
+			gc.stroke();
+		}
+	}
+
+	/**
+	 * Add flattened geometry to the current canvas path.
+	 */
+	private void addFlatPath( GraphicsContext gc, FlatPath path ) {
+		if( frameStats != null ) frameStats.addPathSegments( path.getPointCount() );
+		addContours( gc, path );
+	}
+
+	private void addContours( GraphicsContext gc, FlatPath path ) {
+		for( int contour = 0; contour < path.getContourCount(); contour++ ) {
+			int start = path.getContourStart( contour );
+			int end = path.getContourEnd( contour );
+			gc.moveTo( path.getX( start ), path.getY( start ) );
+			for( int index = start + 1; index < end; index++ ) gc.lineTo( path.getX( index ), path.getY( index ) );
+			if( path.isClosed( contour ) ) gc.closePath();
+		}
+	}
+
+	/**
+	 * Draw the reduced detail version of a shape if level of detail rendering
+	 * applies to the shape.
+	 *
+	 * @return True if the shape was handled, false if the shape should be drawn normally
+	 */
+	private boolean drawDetail( Shape2d shape, Pen pen ) {
+		if( !isLevelOfDetail() ) return false;
+
+		if( shape.type() == ShapeType.TEXT ) {
+			Text text = (Text)shape;
+			if( !isGreekText( text.getHeight() ) ) return false;
+			double[] anchor = text.getAnchor();
+			fillGreekText( anchor[ 0 ], anchor[ 1 ], text.getHeight(), text.getRotate(), text.getText(), pen.paint() );
+			return true;
+		}
+
+		Bounds bounds = shape.getBounds();
+		if( !isSmallShape( Math.max( bounds.getWidth(), bounds.getHeight() ) ) ) return false;
+		drawDot( bounds.getCenterX(), bounds.getCenterY(), pen.paint() );
+		return true;
+	}
+
+	/**
+	 * Fill a one pixel dot at the world point in place of a shape that is
+	 * smaller than the minimum shape size, or do nothing if small shapes are
+	 * skipped. The fill paint is restored afterward.
+	 */
+	private void drawDot( double x, double y, Paint paint ) {
+		if( isSkipSmallShapes() || paint == null ) return;
+
+		double sx = worldToScreenTransform.getMxx() * x + worldToScreenTransform.getMxy() * y + worldToScreenTransform.getTx();
+		double sy = worldToScreenTransform.getMyx() * x + worldToScreenTransform.getMyy() * y + worldToScreenTransform.getTy();
+
+		Paint fill = state.getFill();
+		screenSetup();
+		state.setFill( paint );
+		getGraphicsContext2D().fillRect( Math.floor( sx ), Math.floor( sy ), 1, 1 );
+		if( fill != null ) state.setFill( fill );
+	}
+
+	/**
+	 * Fill a bar for each line of text in place of text that is too small to
+	 * read. The bars are an estimate of the text extent and avoid the cost of
+	 * laying out and rasterizing glyphs. The fill paint is restored afterward.
+	 */
+	private void fillGreekText( double x, double y, double height, double rotate, String text, Paint paint ) {
+		if( paint == null || text == null ) return;
+
+		Paint fill = state.getFill();
+		shapeSetup( x, y, rotate );
+		state.setFill( paint );
+
+		GraphicsContext gc = getGraphicsContext2D();
+		int lineStart = 0;
+		double lineY = y;
+		while( lineStart <= text.length() ) {
+			int lineEnd = text.indexOf( '\n', lineStart );
+			if( lineEnd < 0 ) lineEnd = text.length();
+			int length = lineEnd - lineStart;
+			if( length > 0 ) gc.fillRect( x, lineY, length * height * GREEK_ADVANCE, height * GREEK_BAR_HEIGHT );
+			lineStart = lineEnd + 1;
+			lineY -= height * GREEK_LINE_SPACING;
+		}
+
+		if( fill != null ) state.setFill( fill );
+	}
+
 	private void setPen( Pen pen ) {
-		getGraphicsContext2D().setFill( pen.paint() );
-		getGraphicsContext2D().setStroke( pen.paint() );
-		getGraphicsContext2D().setLineWidth( pen.width() );
-		getGraphicsContext2D().setLineCap( getCap( pen.cap() ) );
-		getGraphicsContext2D().setLineJoin( getJoin( pen.join() ) );
-		getGraphicsContext2D().setLineDashes( pen.dashes() );
-		getGraphicsContext2D().setLineDashOffset( pen.offset() );
+		// An interned pen that is already set does not need its values compared
+		if( state.isPen( pen.id() ) ) return;
+		state.setFill( pen.paint() );
+		state.setStroke( pen.paint() );
+		state.setLineWidth( pen.width() );
+		state.setLineCap( getCap( pen.cap() ) );
+		state.setLineJoin( getJoin( pen.join() ) );
+		state.setLineDashes( pen.dashes() );
+		state.setLineDashOffset( pen.offset() );
+		state.setPenId( pen.id() );
+	}
+
+	/**
+	 * Fill text by copying the rasterized text from the text atlas, if the text
+	 * atlas is enabled and the text can be put in the atlas. The atlas image is
+	 * drawn with the text transform, so the text is rotated and positioned the
+	 * same as text drawn directly.
+	 *
+	 * @return True if the text was drawn, false if the text should be drawn directly
+	 */
+	private boolean fillAtlasText( double x, double y, double height, double rotate, String text, Font font ) {
+		if( !isTextAtlas() || !(state.getFill() instanceof Color color) ) return false;
+
+		int pixelHeight = (int)Math.round( height * worldScale );
+		FxTextAtlas.Entry entry = FxTextAtlas.getShared().get( text, font, pixelHeight, color );
+		if( entry == null ) return false;
+
+		double scale = height * FONT_POINT_SIZE / pixelHeight;
+		double left = x * FONT_POINT_SIZE - entry.originX() * scale;
+		double top = -y * FONT_POINT_SIZE - entry.originY() * scale;
+		setRotatedTransform( worldToScreenTextTransform, -rotate, x * FONT_POINT_SIZE, -y * FONT_POINT_SIZE );
+		getGraphicsContext2D().drawImage( entry.image(), entry.x(), entry.y(), entry.width(), entry.height(), left, top, entry.width() * scale, entry.height() * scale );
+		return true;
 	}
 
 	private void textSetup( Text text ) {
-		getGraphicsContext2D().setLineWidth( getGraphicsContext2D().getLineWidth() * FONT_POINT_SIZE );
-		if( getGraphicsContext2D().getLineDashes() != null ) getGraphicsContext2D().setLineDashes( Arrays.stream( getGraphicsContext2D().getLineDashes() ).map( d -> d * FONT_POINT_SIZE ).toArray() );
-		getGraphicsContext2D().setLineDashOffset( getGraphicsContext2D().getLineDashOffset() * FONT_POINT_SIZE );
+		state.setLineWidth( state.getLineWidth() * FONT_POINT_SIZE );
+		if( state.getLineDashes() != null ) state.setLineDashes( Arrays.stream( state.getLineDashes() ).map( d -> d * FONT_POINT_SIZE ).toArray() );
+		state.setLineDashOffset( state.getLineDashOffset() * FONT_POINT_SIZE );
 
 		double[] anchor = text.getAnchor();
 		textSetup( anchor[ 0 ], anchor[ 1 ], text.getHeight(), text.getRotate(), text.getFont() );
 	}
 
 	private void textSetup( double x, double y, double height, double rotate, Font font ) {
-		if( font == null ) font = new Font();
-		getGraphicsContext2D().setFont( Font.toFxFont( font.derive( height * FONT_POINT_SIZE ) ) );
-		double[] anchor = Vector.scale( x, y, FONT_POINT_SIZE, -FONT_POINT_SIZE );
-		getGraphicsContext2D().setTransform( rotate( worldToScreenTextTransform, -rotate, anchor[ 0 ], anchor[ 1 ] ) );
+		FxRenderEvents.TextSetup event = new FxRenderEvents.TextSetup();
+		event.begin();
+		ResolvedFont resolved = FontCache.resolve( font, height * FONT_POINT_SIZE );
+		state.setFont( resolved.getFxFont() );
+		setRotatedTransform( worldToScreenTextTransform, -rotate, x * FONT_POINT_SIZE, -y * FONT_POINT_SIZE );
+		event.end();
+		if( event.shouldCommit() ) {
+			event.font = resolved.getFont().getName();
+			event.size = resolved.getSize();
+			event.commit();
+		}
 	}
 
-	private void updateWorldTransforms( RenderUnit unit, double dpiX, double dpiY, double zoomX, double zoomY, double viewpointX, double viewpointY, double rotate, double width, double height ) {
-		worldToScreenTransform = createWorldTransform( unit, dpiX, dpiY, zoomX, zoomY, viewpointX, viewpointY, rotate, width, height, false );
-		worldToScreenTextTransform = createWorldTransform( unit, dpiX, dpiY, zoomX, zoomY, viewpointX, viewpointY, rotate, width, height, true );
+	private void updateWorldTransforms( ViewState state ) {
+		FxRenderEvents.ViewTransformUpdate event = new FxRenderEvents.ViewTransformUpdate();
+		event.begin();
+		worldToScreenTransform = state.createWorldToScreenTransform();
+		worldToScreenTextTransform = state.createWorldToScreenTextTransform( FONT_POINT_SIZE );
 
 		try {
+			worldScale = Math.max( Math.hypot( worldToScreenTransform.getMxx(), worldToScreenTransform.getMyx() ), Math.hypot( worldToScreenTransform.getMxy(), worldToScreenTransform.getMyy() ) );
 			screenToWorldTransform = worldToScreenTransform.createInverse();
+			visibleBounds = screenToWorldTransform.transform( new BoundingBox( 0, 0, state.width(), state.height() ) );
 		}catch( NonInvertibleTransformException exception ) {
 			screenToWorldTransform = null;
+			visibleBounds = null;
+		}
+
+		event.end();
+		if( event.shouldCommit() ) {
+			event.zoomX = state.zoomX();
+			event.zoomY = state.zoomY();
+			event.rotate = state.viewRotate();
+			event.commit();
 		}
 	}
 
 	public static boolean logEnabled = false;
 
-	private static Affine createWorldTransform(
-		RenderUnit unit, double dpiX, double dpiY, double zoomX, double zoomY, double viewpointX, double viewpointY, double rotate, double width, double height, boolean isFontTransform
-	) {
-		double scale = 1.0;
-		if( isFontTransform ) {
-			scale = FONT_POINT_SIZE;
-			rotate = -rotate;
-			zoomY = -zoomY;
-			viewpointY = -viewpointY;
+	/**
+	 * Set the graphics transform to the specified transform with a rotation
+	 * about an anchor point appended. This is equivalent to appending a rotation
+	 * to a copy of the transform but does not allocate any objects.
+	 *
+	 * @param transform The base transform
+	 * @param rotate The rotation angle in degrees
+	 * @param anchorX The x coordinate of the rotation anchor
+	 * @param anchorY The y coordinate of the rotation anchor
+	 */
+	private void setRotatedTransform( Affine transform, double rotate, double anchorX, double anchorY ) {
+		if( rotate == 0.0 ) {
+			state.setTransform( transform );
+			return;
 		}
 
-		//System.out.println( "width: " + width + ", height: " + height );
-
-		Affine affine = new Affine();
-
-		//		// NOTE the following transformations are applied in reverse order
-		//
-		//		// Center the origin before applying scale and zoom
-		//		affine.append( Transform.translate( 0.5 * width, 0.5 * height ) );
-		//
-		//		// Scale for screen DPI
-		//		affine.append( Transform.scale( unit.convert( dpiX ), unit.convert( dpiY ) ) );
-		//
-		//		// Apply the zoom factor
-		//		affine.append( Transform.scale( zoomX / scale, zoomY / scale ) );
-		//
-		//		// Rotate the view
-		//		affine.append( Transform.rotate( rotate, -viewpointX * scale, viewpointY * scale ) );
-		//
-		//		// Center the viewpoint. The viewpoint is given in world coordinates.
-		//		affine.append( Transform.translate( -viewpointX * scale, viewpointY * scale ) );
-
-		// Move model viewpoint to model origin
-		affine.prependTranslation( -viewpointX * scale, -viewpointY * scale );
-		//if( logEnabled && !isFontTransform ) System.out.println( "viewpoint: " + viewpointX + ", " + viewpointY );
-
-		// Apply rotate
-		affine.prependRotation( rotate );
-		//if( logEnabled && !isFontTransform ) System.out.println( "rotate: " + rotate );
-
-		// Flip the Y axis
-		affine.prependScale( 1, -1 );
+		double radians = Math.toRadians( rotate );
+		double cos = Math.cos( radians );
+		double sin = Math.sin( radians );
 
-		// Apply DPI
-		affine.prependScale( unit.convert( dpiX ), unit.convert( dpiY ) );
+		// The rotation about the anchor point
+		double tx = anchorX - cos * anchorX + sin * anchorY;
+		double ty = anchorY - sin * anchorX - cos * anchorY;
 
-		// Apply zoom
-		affine.prependScale( zoomX / scale, zoomY / scale );
+		double mxx = transform.getMxx();
+		double mxy = transform.getMxy();
+		double myx = transform.getMyx();
+		double myy = transform.getMyy();
 
-		// Move model viewpoint back to node center
-		affine.prependTranslation( 0.5 * width, 0.5 * height );
-		//if( logEnabled && !isFontTransform ) System.out.println( affine.transform( 0, 0 ) );
-
-		return affine;
-	}
-
-	private Affine rotate( Affine transform, double rotate, double anchorX, double anchorY ) {
-		Affine affine = new Affine();
-		affine.append( transform );
-		affine.appendRotation( rotate, anchorX, anchorY );
-		return affine;
+		state.setTransform(
+			mxx * cos + mxy * sin,
+			myx * cos + myy * sin,
+			mxy * cos - mxx * sin,
+			myy * cos - myx * sin,
+			mxx * tx + mxy * ty + transform.getTx(),
+			myx * tx + myy * ty + transform.getTy()
+		);
 	}
 
 	private void screenSetup() {
 		// set transform to screen
-		getGraphicsContext2D().setTransform( screenTransform );
+		state.setTransform( screenTransform );
 	}
 
 	private void shapeSetup() {
-		getGraphicsContext2D().setTransform( worldToScreenTransform );
+		state.setTransform( worldToScreenTransform );
 	}
 
 	private void shapeSetup( double x, double y, double rotate ) {
-		getGraphicsContext2D().setTransform( rotate( worldToScreenTransform, rotate, x, y ) );
+		setRotatedTransform( worldToScreenTransform, rotate, x, y );
 	}
 
 	@Deprecated
@@ -910,25 +2604,23 @@ public class FxRenderer2d extends Canvas implements DirectRenderer2d, ShapeRende
 	private void dragMove( double x, double y ) {
 		double dx = (x - dragAnchor.getX()) / getLengthUnit().convert( getDpiX() * getZoomX() );
 		double dy = (y - dragAnchor.getY()) / getLengthUnit().convert( getDpiY() * getZoomY() );
-		setViewpoint( dragViewpoint.getX() - dx, dragViewpoint.getY() + dy );
+		if( getPainter() == null ) {
+			setViewpoint( dragViewpoint.getX() - dx, dragViewpoint.getY() + dy );
+		} else {
+			pan( dragViewpoint.getX() - dx, dragViewpoint.getY() + dy );
+		}
 	}
 
 	private void doOnScroll( ScrollEvent e ) {
 		if( e.getDeltaY() != 0.0 ) {
-			double zoomX = getZoom().getX();
-			double zoomY = getZoom().getY();
-
-			double scale = Math.signum( e.getDeltaY() ) < 0 ? negativeZoomStep : positiveZoomStep;
-
-			zoomX = scale * zoomX;
-			zoomY = scale * zoomY;
-
 			Point2D mouse = parentToLocal( e.getX(), e.getY() );
-			setZoomAt( mouse.getX(), mouse.getY(), zoomX, zoomY );
+			stepZoom( mouse.getX(), mouse.getY(), e.getDeltaY() > 0 );
 		}
 	}
 
 	private void runPath( List<Path.Step> steps ) {
+		FxRenderEvents.PathRun event = new FxRenderEvents.PathRun();
+		event.begin();
 		GraphicsContext gc = getGraphicsContext2D();
 		double[] start = new double[]{ 0, 0 };
 		double[] prior = new double[]{ 0, 0 };
@@ -965,6 +2657,72 @@ public class FxRenderer2d extends Canvas implements DirectRenderer2d, ShapeRende
 				}
 			}
 		}
+		endPathRun( event, steps.size() );
+	}
+
+	/**
+	 * Send a packed path to the graphics context. The path is walked with a
+	 * cursor and the current point is tracked with primitives, so only arcs
+	 * allocate.
+	 */
+	private void runPath( PackedPath path ) {
+		FxRenderEvents.PathRun event = new FxRenderEvents.PathRun();
+		event.begin();
+		GraphicsContext gc = getGraphicsContext2D();
+		PackedPath.Cursor cursor = path.cursor();
+		double[] c = cursor.coords();
+		double startX = 0;
+		double startY = 0;
+		double priorX = 0;
+		double priorY = 0;
+
+		while( cursor.next() ) {
+			int o = cursor.offset();
+			switch( cursor.command() ) {
+				case MOVE -> {
+					gc.moveTo( c[ o ], c[ o + 1 ] );
+					startX = priorX = c[ o ];
+					startY = priorY = c[ o + 1 ];
+				}
+				case LINE -> {
+					gc.lineTo( c[ o ], c[ o + 1 ] );
+					priorX = c[ o ];
+					priorY = c[ o + 1 ];
+				}
+				case CURVE -> {
+					gc.bezierCurveTo( c[ o ], c[ o + 1 ], c[ o + 2 ], c[ o + 3 ], c[ o + 4 ], c[ o + 5 ] );
+					priorX = c[ o + 4 ];
+					priorY = c[ o + 5 ];
+				}
+				case ARC -> {
+					double[] endpointData = new double[]{ c[ o ], c[ o + 1 ], c[ o + 2 ], c[ o + 3 ], Math.toRadians( c[ o + 4 ] ), c[ o + 5 ], c[ o + 6 ] };
+					double[] data = Geometry.arcEndpointToCenter( Point.of( priorX, priorY ), endpointData );
+					gc.arc( data[ 0 ], data[ 1 ], data[ 2 ], data[ 3 ], -Math.toDegrees( data[ 4 ] ), -Math.toDegrees( data[ 5 ] ) );
+					priorX = c[ o ];
+					priorY = c[ o + 1 ];
+				}
+				case QUAD -> {
+					gc.quadraticCurveTo( c[ o ], c[ o + 1 ], c[ o + 2 ], c[ o + 3 ] );
+					priorX = c[ o + 2 ];
+					priorY = c[ o + 3 ];
+				}
+				case CLOSE -> {
+					gc.closePath();
+					priorX = startX;
+					priorY = startY;
+				}
+			}
+		}
+		endPathRun( event, path.size() );
+	}
+
+	private void endPathRun( FxRenderEvents.PathRun event, int segments ) {
+		if( frameStats != null ) frameStats.addPathSegments( segments );
+		event.end();
+		if( event.shouldCommit() ) {
+			event.segments = segments;
+			event.commit();
+		}
 	}
 
 	private StrokeLineCap getCap( LineCap cap ) {
@@ -0,0 +1,230 @@
+package com.avereon.marea.fx;
+
+import com.avereon.marea.Font;
+import com.avereon.marea.FontCache;
+import com.avereon.marea.ResolvedFont;
+import javafx.geometry.Bounds;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.image.Image;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An atlas of rasterized text. Drawings often repeat the same few hundred
+ * labels, like tags and pin numbers, thousands of times. The first time a
+ * label is drawn with a font, pixel height and color it is rasterized once
+ * into a shared atlas image. After that the label is drawn by copying its
+ * part of the atlas image, which is much faster than laying out and
+ * rasterizing the glyphs again.
+ * <p>
+ * Only single line text no taller than the
+ * {@link #getMaxTextHeight() maximum text height} is put in the atlas. Larger
+ * text is better drawn directly, since it is both less common and looks worse
+ * when the bitmap is rotated. The labels are packed in rows. When the atlas is
+ * full a new atlas image is started and the labels are rasterized again as
+ * they are used. The old image is not reused because the canvas may still
+ * have to draw labels from it.
+ * <p>
+ * The glyphs are rasterized from a snapshot of a text node with the same
+ * JavaFX font the renderer uses to draw text directly, so text from the atlas
+ * has the same typeface and metrics as text drawn directly. This class must be
+ * used on the FX application thread.
+ */
+public class FxTextAtlas {
+
+	public static final int DEFAULT_SIZE = 1024;
+
+	/**
+	 * The default screen text height, in pixels, above which text is drawn
+	 * directly instead of from the atlas.
+	 */
+	public static final int DEFAULT_MAX_TEXT_HEIGHT = 48;
+
+	/**
+	 * The empty pixels around each label so the labels do not bleed into each
+	 * other when the atlas image is scaled.
+	 */
+	private static final int PADDING = 1;
+
+	private static FxTextAtlas shared;
+
+	private final int size;
+
+	private final int maxTextHeight;
+
+	private final Map<Key, Entry> entries;
+
+	private WritableImage image;
+
+	private int rowX;
+
+	private int rowY;
+
+	private int rowHeight;
+
+	private long resetCount;
+
+	// The text node and snapshot parameters used to rasterize the labels
+	private javafx.scene.text.Text label;
+
+	private SnapshotParameters labelParameters;
+
+	public FxTextAtlas() {
+		this( DEFAULT_SIZE, DEFAULT_MAX_TEXT_HEIGHT );
+	}
+
+	public FxTextAtlas( int size, int maxTextHeight ) {
+		this.size = size;
+		this.maxTextHeight = maxTextHeight;
+		this.entries = new HashMap<>();
+	}
+
+	/**
+	 * Get the text atlas shared by all renderers.
+	 *
+	 * @return The shared text atlas
+	 */
+	public static FxTextAtlas getShared() {
+		if( shared == null ) shared = new FxTextAtlas();
+		return shared;
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	public int getMaxTextHeight() {
+		return maxTextHeight;
+	}
+
+	/**
+	 * Get the number of labels in the atlas.
+	 *
+	 * @return The number of labels
+	 */
+	public int getEntryCount() {
+		return entries.size();
+	}
+
+	/**
+	 * Get the number of times the atlas was full and a new atlas image was
+	 * started.
+	 *
+	 * @return The number of times the atlas was reset
+	 */
+	public long getResetCount() {
+		return resetCount;
+	}
+
+	/**
+	 * Get the atlas entry for a label, rasterizing the label if it is not in
+	 * the atlas.
+	 *
+	 * @param text The label text
+	 * @param font The font, or null for the default font
+	 * @param pixelHeight The text height in pixels
+	 * @param color The text color
+	 * @return The atlas entry, or null if the label cannot be put in the atlas
+	 */
+	public Entry get( String text, Font font, int pixelHeight, Color color ) {
+		if( text == null || text.isEmpty() || text.indexOf( '\n' ) >= 0 ) return null;
+		if( pixelHeight < 1 || pixelHeight > maxTextHeight ) return null;
+
+		ResolvedFont resolved = FontCache.resolve( font, pixelHeight );
+		Key key = new Key( text, resolved, argb( color ) );
+		Entry entry = entries.get( key );
+		if( entry == null ) {
+			entry = rasterize( text, resolved, color );
+			if( entry != null ) entries.put( key, entry );
+		}
+		return entry;
+	}
+
+	private Entry rasterize( String text, ResolvedFont font, Color color ) {
+		if( label == null ) {
+			label = new javafx.scene.text.Text();
+			labelParameters = new SnapshotParameters();
+			labelParameters.setFill( Color.TRANSPARENT );
+		}
+		label.setText( text );
+		label.setFont( font.getFxFont() );
+		label.setFill( color );
+
+		// The text node origin is on the baseline at the start of the text
+		Bounds bounds = label.getLayoutBounds();
+		int left = (int)Math.floor( Math.min( 0, bounds.getMinX() ) ) - PADDING;
+		int top = (int)Math.floor( bounds.getMinY() ) - PADDING;
+		int width = (int)Math.ceil( bounds.getMaxX() ) + PADDING - left;
+		int height = (int)Math.ceil( bounds.getMaxY() ) + PADDING - top;
+		if( width > size || height > size ) return null;
+
+		if( !reserve( width, height ) ) {
+			reset();
+			reserve( width, height );
+		}
+		int x = rowX - width;
+		int y = rowY;
+
+		labelParameters.setViewport( new Rectangle2D( left, top, width, height ) );
+		WritableImage snapshot = label.snapshot( labelParameters, null );
+		image.getPixelWriter().setPixels( x, y, width, height, snapshot.getPixelReader(), 0, 0 );
+
+		return new Entry( image, x, y, width, height, -left, -top );
+	}
+
+	/**
+	 * Reserve space for a label in the current row, or in a new row if the
+	 * label does not fit in the current row.
+	 *
+	 * @return True if the space was reserved, false if the atlas is full
+	 */
+	private boolean reserve( int width, int height ) {
+		if( image == null ) reset();
+		if( rowX + width > size ) {
+			rowY += rowHeight;
+			rowX = 0;
+			rowHeight = 0;
+		}
+		if( rowY + height > size ) return false;
+		rowX += width;
+		rowHeight = Math.max( rowHeight, height );
+		return true;
+	}
+
+	private void reset() {
+		if( image != null ) resetCount++;
+		image = new WritableImage( size, size );
+		entries.clear();
+		rowX = 0;
+		rowY = 0;
+		rowHeight = 0;
+	}
+
+	private static int argb( Color color ) {
+		int a = (int)Math.round( color.getOpacity() * 255 );
+		int r = (int)Math.round( color.getRed() * 255 );
+		int g = (int)Math.round( color.getGreen() * 255 );
+		int b = (int)Math.round( color.getBlue() * 255 );
+		return a << 24 | r << 16 | g << 8 | b;
+	}
+
+	private record Key(String text, ResolvedFont font, int argb) {}
+
+	/**
+	 * The location of a rasterized label in an atlas image.
+	 *
+	 * @param image The atlas image
+	 * @param x The left of the label in the atlas image
+	 * @param y The top of the label in the atlas image
+	 * @param width The label width in pixels
+	 * @param height The label height in pixels
+	 * @param originX The distance from the left of the label to the text anchor
+	 * @param originY The distance from the top of the label to the text baseline
+	 */
+	public record Entry(Image image, int x, int y, int width, int height, double originX, double originY) {}
+
+}
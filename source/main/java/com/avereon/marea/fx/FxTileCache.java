@@ -0,0 +1,224 @@
+package com.avereon.marea.fx;
+
+import javafx.geometry.Point2D;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import javafx.scene.transform.Transform;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * A cache of rendered scene tiles for an {@link FxRenderer2d}. The scene is
+ * split into fixed size screen tiles on a grid that is anchored to the world
+ * origin, so the tiles for a zoom level do not change when the view pans.
+ * Each tile is rendered once into an image and kept in a least recently used
+ * cache with a memory budget. Painting the renderer draws the visible tiles,
+ * rendering only the tiles that are not already in the cache, so panning and
+ * returning to an earlier zoom level are mostly image copies.
+ * <p>
+ * This is the cache used by the {@link FxRenderer2d#setTiled(boolean) tiled
+ * rendering mode} of the renderer, but it can also be used directly. The scene
+ * is drawn by the scene painter, once for each tile, into a tile sized
+ * renderer with the view of the tile. The scene painter should only draw in
+ * world coordinates since screen coordinates are relative to the tile. Screen
+ * decorations, like rules, should be drawn on the renderer after the tiles are
+ * painted.
+ * <p>
+ * The cache must be {@link #invalidate() invalidated} when the scene changes.
+ * This class must be used on the FX application thread.
+ */
+public class FxTileCache {
+
+	public static final int DEFAULT_TILE_SIZE = 256;
+
+	public static final long DEFAULT_MEMORY_BUDGET = 64L * 1024 * 1024;
+
+	private final Consumer<? super FxRenderer2d> scene;
+
+	private final int tileSize;
+
+	private final Map<TileKey, WritableImage> tiles;
+
+	private final FxRenderer2d tileRenderer;
+
+	private final SnapshotParameters snapshotParameters;
+
+	private long memoryBudget;
+
+	private long renderCount;
+
+	public FxTileCache( Consumer<? super FxRenderer2d> scene ) {
+		this( scene, DEFAULT_TILE_SIZE, DEFAULT_MEMORY_BUDGET );
+	}
+
+	public FxTileCache( Consumer<? super FxRenderer2d> scene, int tileSize, long memoryBudget ) {
+		if( tileSize < 1 ) throw new IllegalArgumentException( "Tile size must be greater than zero: " + tileSize );
+		this.scene = scene;
+		this.tileSize = tileSize;
+		this.memoryBudget = memoryBudget;
+		this.tiles = new LinkedHashMap<>( 64, 0.75f, true );
+		this.tileRenderer = new FxRenderer2d( tileSize, tileSize );
+		this.snapshotParameters = new SnapshotParameters();
+		this.snapshotParameters.setFill( Color.TRANSPARENT );
+	}
+
+	public int getTileSize() {
+		return tileSize;
+	}
+
+	public long getMemoryBudget() {
+		return memoryBudget;
+	}
+
+	/**
+	 * Set the memory budget in bytes. Tiles are evicted, least recently used
+	 * first, until the cache fits in the budget.
+	 *
+	 * @param memoryBudget The memory budget in bytes
+	 */
+	public void setMemoryBudget( long memoryBudget ) {
+		this.memoryBudget = memoryBudget;
+		evict();
+	}
+
+	/**
+	 * Get the number of tiles in the cache.
+	 *
+	 * @return The number of cached tiles
+	 */
+	public int getTileCount() {
+		return tiles.size();
+	}
+
+	/**
+	 * Get the approximate memory used by the cached tiles in bytes.
+	 *
+	 * @return The memory used by the cached tiles
+	 */
+	public long getMemoryUsage() {
+		return tiles.size() * getTileBytes();
+	}
+
+	/**
+	 * Get the number of tiles rendered since the cache was created. This is
+	 * useful to measure how well the cache is working.
+	 *
+	 * @return The number of tiles rendered
+	 */
+	public long getRenderCount() {
+		return renderCount;
+	}
+
+	/**
+	 * Remove all the tiles. This must be called when the scene changes.
+	 */
+	public void invalidate() {
+		tiles.clear();
+	}
+
+	/**
+	 * Remove the tiles that cover a screen region of the renderer, usually a
+	 * region where the scene changed. The tiles of the other zoom levels do not
+	 * line up with the region, so they are all removed.
+	 *
+	 * @param renderer The renderer the region is on
+	 * @param region The screen region that changed
+	 */
+	public void invalidate( FxRenderer2d renderer, Rectangle2D region ) {
+		Transform transform = renderer.getWorldToScreenTransform();
+		TileLevel level = getLevel( transform );
+		double originX = Math.round( transform.getTx() );
+		double originY = Math.round( transform.getTy() );
+
+		long firstColumn = (long)Math.floor( (region.getMinX() - originX) / tileSize );
+		long lastColumn = (long)Math.floor( (region.getMaxX() - originX) / tileSize );
+		long firstRow = (long)Math.floor( (region.getMinY() - originY) / tileSize );
+		long lastRow = (long)Math.floor( (region.getMaxY() - originY) / tileSize );
+
+		tiles.keySet().removeIf( key -> !key.level().equals( level ) || (key.column() >= firstColumn && key.column() <= lastColumn && key.row() >= firstRow && key.row() <= lastRow) );
+	}
+
+	/**
+	 * Paint the visible tiles on the renderer. The renderer is not cleared
+	 * first, so the caller can clear or paint a background as needed.
+	 *
+	 * @param renderer The renderer to paint
+	 */
+	public void paint( FxRenderer2d renderer ) {
+		if( renderer.getVisibleBounds() == null ) return;
+
+		Transform transform = renderer.getWorldToScreenTransform();
+		TileLevel level = getLevel( transform );
+
+		// The screen position of the world origin. The tile grid is anchored here.
+		double originX = Math.round( transform.getTx() );
+		double originY = Math.round( transform.getTy() );
+
+		long firstColumn = (long)Math.floor( -originX / tileSize );
+		long lastColumn = (long)Math.floor( (renderer.getWidth() - originX) / tileSize );
+		long firstRow = (long)Math.floor( -originY / tileSize );
+		long lastRow = (long)Math.floor( (renderer.getHeight() - originY) / tileSize );
+
+		for( long row = firstRow; row <= lastRow; row++ ) {
+			for( long column = firstColumn; column <= lastColumn; column++ ) {
+				TileKey key = new TileKey( level, column, row );
+				WritableImage image = tiles.get( key );
+				if( image == null ) {
+					image = renderTile( renderer, column, row );
+					tiles.put( key, image );
+				}
+				renderer.drawScreenImage( image, originX + column * tileSize, originY + row * tileSize );
+			}
+		}
+
+		// Evict after painting so the visible tiles are not evicted while painting
+		evict();
+	}
+
+	private WritableImage renderTile( FxRenderer2d renderer, long column, long row ) {
+		// The viewpoint that puts the tile at the origin of the tile renderer
+		Point2D viewpoint = renderer.getScreenToWorldTransform().deltaTransform( (column + 0.5) * tileSize, (row + 0.5) * tileSize );
+
+		tileRenderer.setViewState( renderer.getViewState().withSize( tileSize, tileSize ).withViewpoint( viewpoint.getX(), viewpoint.getY() ) );
+		tileRenderer.copyRenderSettings( renderer );
+
+		tileRenderer.clear();
+		scene.accept( tileRenderer );
+		renderCount++;
+
+		return tileRenderer.snapshot( snapshotParameters, null );
+	}
+
+	private void evict() {
+		long tileBytes = getTileBytes();
+		long bytes = tiles.size() * tileBytes;
+		Iterator<WritableImage> iterator = tiles.values().iterator();
+		while( bytes > memoryBudget && iterator.hasNext() ) {
+			iterator.next();
+			iterator.remove();
+			bytes -= tileBytes;
+		}
+	}
+
+	private static TileLevel getLevel( Transform transform ) {
+		return new TileLevel( transform.getMxx(), transform.getMxy(), transform.getMyx(), transform.getMyy() );
+	}
+
+	private long getTileBytes() {
+		return 4L * tileSize * tileSize;
+	}
+
+	/**
+	 * The linear part of the world to screen transform. Tiles are only valid
+	 * for the zoom, rotation and resolution they were rendered with.
+	 */
+	private record TileLevel(double mxx, double mxy, double myx, double myy) {}
+
+	private record TileKey(TileLevel level, long column, long row) {}
+
+}
@@ -0,0 +1,126 @@
+package com.avereon.marea.fx;
+
+import com.avereon.marea.ShapeType;
+
+/**
+ * Counts of the work done to draw one frame of an {@link FxRenderer2d}. A
+ * frame is one call to {@link FxRenderer2d#render()} or
+ * {@link FxRenderer2d#refresh()}. The stats are only collected when
+ * {@link FxRenderer2d#setRenderStats(boolean) enabled} on the renderer.
+ */
+public class RenderStats {
+
+	private static final ShapeType[] SHAPE_TYPES = ShapeType.values();
+
+	private final long[] shapeCounts = new long[ SHAPE_TYPES.length ];
+
+	private long stateChanges;
+
+	private long pathSegments;
+
+	private long textDraws;
+
+	private long nanos;
+
+	/**
+	 * Get the number of shapes of a type drawn or filled.
+	 *
+	 * @param type The shape type
+	 * @return The number of shapes of the type
+	 */
+	public long getShapeCount( ShapeType type ) {
+		return shapeCounts[ type.ordinal() ];
+	}
+
+	/**
+	 * Get the number of shapes of all types drawn or filled.
+	 *
+	 * @return The number of shapes
+	 */
+	public long getShapeCount() {
+		long count = 0;
+		for( long shapeCount : shapeCounts ) count += shapeCount;
+		return count;
+	}
+
+	/**
+	 * Get the number of graphics state changes sent to the canvas.
+	 *
+	 * @return The number of state changes
+	 */
+	public long getStateChanges() {
+		return stateChanges;
+	}
+
+	/**
+	 * Get the number of path steps sent to the canvas.
+	 *
+	 * @return The number of path segments
+	 */
+	public long getPathSegments() {
+		return pathSegments;
+	}
+
+	public long getTextDraws() {
+		return textDraws;
+	}
+
+	/**
+	 * Get the time spent drawing the frame.
+	 *
+	 * @return The frame time in nanoseconds
+	 */
+	public long getNanos() {
+		return nanos;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append( String.format( "frame=%.3fms", nanos * 1e-6 ) );
+		builder.append( " shapes=" ).append( getShapeCount() );
+		builder.append( " states=" ).append( stateChanges );
+		builder.append( " segments=" ).append( pathSegments );
+		builder.append( " text=" ).append( textDraws );
+		return builder.toString();
+	}
+
+	void addShape( ShapeType type ) {
+		shapeCounts[ type.ordinal() ]++;
+	}
+
+	void addPathSegments( int count ) {
+		pathSegments += count;
+	}
+
+	void addTextDraw() {
+		textDraws++;
+	}
+
+	void setStateChanges( long stateChanges ) {
+		this.stateChanges = stateChanges;
+	}
+
+	void setNanos( long nanos ) {
+		this.nanos = nanos;
+	}
+
+	void reset() {
+		for( int index = 0; index < shapeCounts.length; index++ ) shapeCounts[ index ] = 0;
+		stateChanges = 0;
+		pathSegments = 0;
+		textDraws = 0;
+		nanos = 0;
+	}
+
+	RenderStats copy() {
+		RenderStats copy = new RenderStats();
+		System.arraycopy( shapeCounts, 0, copy.shapeCounts, 0, shapeCounts.length );
+		copy.stateChanges = stateChanges;
+		copy.pathSegments = pathSegments;
+		copy.textDraws = textDraws;
+		copy.nanos = nanos;
+		return copy;
+	}
+
+}
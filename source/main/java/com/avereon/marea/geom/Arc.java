@@ -4,8 +4,14 @@ import com.avereon.curve.math.Point;
 import com.avereon.marea.Shape2d;
 import com.avereon.marea.Shape3d;
 import com.avereon.marea.ShapeType;
+import javafx.geometry.Bounds;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
 /**
  * An immutable arc.
@@ -39,6 +45,24 @@ public class Arc implements Shape2d, Shape3d {
 	 */
 	private final double extent;
 
+	/**
+	 * The cached world bounds.
+	 */
+	@Getter( AccessLevel.NONE )
+	@Setter( AccessLevel.NONE )
+	@EqualsAndHashCode.Exclude
+	@ToString.Exclude
+	private Bounds bounds;
+
+	/**
+	 * The cached flattened geometry.
+	 */
+	@Getter( AccessLevel.NONE )
+	@Setter( AccessLevel.NONE )
+	@EqualsAndHashCode.Exclude
+	@ToString.Exclude
+	private FlatPath flatPath;
+
 	public Arc( double x1, double y1, double x2, double y2, double rotate, double start, double extent ) {
 		this( Point.of( x1, y1 ), Point.of( x2, y2 ), rotate, start, extent );
 	}
@@ -48,4 +72,17 @@ public class Arc implements Shape2d, Shape3d {
 		return ShapeType.ARC;
 	}
 
+	@Override
+	public Bounds getBounds() {
+		if( bounds == null ) bounds = new ShapeBounds( anchor, rotate ).addArc( anchor[ 0 ], anchor[ 1 ], radius[ 0 ], radius[ 1 ], 0.0, start, extent ).toBounds();
+		return bounds;
+	}
+
+	@Override
+	public FlatPath getFlatPath( double tolerance ) {
+		FlatPath result = flatPath;
+		if( result == null || !result.matches( tolerance ) ) flatPath = result = FlatPath.of( this, tolerance );
+		return result;
+	}
+
 }
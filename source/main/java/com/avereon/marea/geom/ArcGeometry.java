@@ -0,0 +1,62 @@
+package com.avereon.marea.geom;
+
+/**
+ * Elliptical arc conversions shared by the shapes, the path representations
+ * and the renderers.
+ */
+public final class ArcGeometry {
+
+	private ArcGeometry() {}
+
+	/**
+	 * Convert an SVG style endpoint arc to a center arc. This follows the
+	 * conversion in the SVG implementation notes.
+	 *
+	 * @return The center x, center y, radius x, radius y, start angle and angle
+	 * extent in degrees, or null if the arc is a line
+	 */
+	public static double[] endpointToCenter( double x1, double y1, double x2, double y2, double rx, double ry, double rotate, boolean large, boolean sweep ) {
+		rx = Math.abs( rx );
+		ry = Math.abs( ry );
+		if( rx == 0 || ry == 0 || (x1 == x2 && y1 == y2) ) return null;
+
+		double phi = Math.toRadians( rotate );
+		double cosPhi = Math.cos( phi );
+		double sinPhi = Math.sin( phi );
+
+		double dx = 0.5 * (x1 - x2);
+		double dy = 0.5 * (y1 - y2);
+		double px = cosPhi * dx + sinPhi * dy;
+		double py = -sinPhi * dx + cosPhi * dy;
+
+		// Scale up the radii if they are too small
+		double lambda = (px * px) / (rx * rx) + (py * py) / (ry * ry);
+		if( lambda > 1 ) {
+			double scale = Math.sqrt( lambda );
+			rx *= scale;
+			ry *= scale;
+		}
+
+		double rxx = rx * rx;
+		double ryy = ry * ry;
+		double numerator = rxx * ryy - rxx * py * py - ryy * px * px;
+		double denominator = rxx * py * py + ryy * px * px;
+		double coefficient = Math.sqrt( Math.max( 0, numerator / denominator ) );
+		if( large == sweep ) coefficient = -coefficient;
+
+		double cpx = coefficient * rx * py / ry;
+		double cpy = -coefficient * ry * px / rx;
+
+		double cx = cosPhi * cpx - sinPhi * cpy + 0.5 * (x1 + x2);
+		double cy = sinPhi * cpx + cosPhi * cpy + 0.5 * (y1 + y2);
+
+		double start = Math.atan2( (py - cpy) / ry, (px - cpx) / rx );
+		double end = Math.atan2( (-py - cpy) / ry, (-px - cpx) / rx );
+		double extent = end - start;
+		if( sweep && extent < 0 ) extent += 2 * Math.PI;
+		if( !sweep && extent > 0 ) extent -= 2 * Math.PI;
+
+		return new double[]{ cx, cy, rx, ry, Math.toDegrees( start ), Math.toDegrees( extent ) };
+	}
+
+}
@@ -4,8 +4,14 @@ import com.avereon.curve.math.Point;
 import com.avereon.marea.Shape2d;
 import com.avereon.marea.Shape3d;
 import com.avereon.marea.ShapeType;
+import javafx.geometry.Bounds;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
 /**
  * An immutable ellipse.
@@ -28,6 +34,24 @@ public class Ellipse implements Shape2d, Shape3d {
 
 	private final double rotate;
 
+	/**
+	 * The cached world bounds.
+	 */
+	@Getter( AccessLevel.NONE )
+	@Setter( AccessLevel.NONE )
+	@EqualsAndHashCode.Exclude
+	@ToString.Exclude
+	private Bounds bounds;
+
+	/**
+	 * The cached flattened geometry.
+	 */
+	@Getter( AccessLevel.NONE )
+	@Setter( AccessLevel.NONE )
+	@EqualsAndHashCode.Exclude
+	@ToString.Exclude
+	private FlatPath flatPath;
+
 	public Ellipse( double[] anchor, double[] radius ) {
 		this( anchor, radius, 0.0 );
 	}
@@ -45,4 +69,17 @@ public class Ellipse implements Shape2d, Shape3d {
 		return ShapeType.ELLIPSE;
 	}
 
+	@Override
+	public Bounds getBounds() {
+		if( bounds == null ) bounds = new ShapeBounds( anchor, rotate ).addArc( anchor[ 0 ], anchor[ 1 ], radius[ 0 ], radius[ 1 ], 0.0, 0.0, 360.0 ).toBounds();
+		return bounds;
+	}
+
+	@Override
+	public FlatPath getFlatPath( double tolerance ) {
+		FlatPath result = flatPath;
+		if( result == null || !result.matches( tolerance ) ) flatPath = result = FlatPath.of( this, tolerance );
+		return result;
+	}
+
 }
@@ -0,0 +1,491 @@
+package com.avereon.marea.geom;
+
+import com.avereon.marea.Shape2d;
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The flattened geometry of a shape. Curves, quads, arcs and ellipses are
+ * converted to line segments that are within a tolerance of the true shape.
+ * The points are in world coordinates, including the shape rotation, and are
+ * grouped into contours. Each contour is a polyline that may be closed.
+ * <p>
+ * The tolerance is rounded down to a power of two, the tolerance bucket, so a
+ * flattened shape can be reused for any tolerance in the same bucket. This
+ * allows the flattened shape to be cached and reused while the zoom changes
+ * by less than a factor of two.
+ * <p>
+ * This class is immutable.
+ */
+public final class FlatPath {
+
+	/**
+	 * The maximum number of segments used for a single curve, quad or arc.
+	 */
+	private static final int MAX_SEGMENTS = 4096;
+
+	private static final FlatPath EMPTY = new FlatPath( 0.0, new double[ 0 ], new double[ 0 ], new int[]{ 0 }, new boolean[ 0 ] );
+
+	private final double tolerance;
+
+	private final double[] x;
+
+	private final double[] y;
+
+	private final int[] contours;
+
+	private final boolean[] closed;
+
+	private Bounds bounds;
+
+	private FlatPath( double tolerance, double[] x, double[] y, int[] contours, boolean[] closed ) {
+		this.tolerance = tolerance;
+		this.x = x;
+		this.y = y;
+		this.contours = contours;
+		this.closed = closed;
+	}
+
+	/**
+	 * Flatten the shape using the bucket tolerance for the specified tolerance.
+	 * Text is not flattened and returns an empty flat path.
+	 *
+	 * @param shape The shape to flatten
+	 * @param tolerance The maximum distance between the segments and the shape
+	 * @return The flattened shape
+	 */
+	public static FlatPath of( Shape2d shape, double tolerance ) {
+		double bucket = getBucketTolerance( tolerance );
+		Builder builder = new Builder( bucket, shape.getAnchor(), shape.getRotate() );
+		switch( shape.type() ) {
+			case LINE -> {
+				Line line = (Line)shape;
+				builder.moveTo( line.getAnchor()[ 0 ], line.getAnchor()[ 1 ] );
+				builder.lineTo( line.getVector()[ 0 ], line.getVector()[ 1 ] );
+			}
+			case ARC -> {
+				Arc arc = (Arc)shape;
+				double[] c = arc.getAnchor();
+				double[] r = arc.getRadius();
+				builder.arc( c[ 0 ], c[ 1 ], r[ 0 ], r[ 1 ], 0.0, arc.getStart(), arc.getExtent(), true );
+			}
+			case ELLIPSE -> {
+				Ellipse ellipse = (Ellipse)shape;
+				double[] c = ellipse.getAnchor();
+				double[] r = ellipse.getRadius();
+				builder.arc( c[ 0 ], c[ 1 ], r[ 0 ], r[ 1 ], 0.0, 0.0, 360.0, true );
+				builder.close();
+			}
+			case CURVE -> {
+				Curve curve = (Curve)shape;
+				double[] a = curve.getAnchor();
+				double[] b = curve.getAnchorControl();
+				double[] c = curve.getVectorControl();
+				double[] d = curve.getVector();
+				builder.moveTo( a[ 0 ], a[ 1 ] );
+				builder.cubicTo( b[ 0 ], b[ 1 ], c[ 0 ], c[ 1 ], d[ 0 ], d[ 1 ] );
+			}
+			case QUAD -> {
+				Quad quad = (Quad)shape;
+				double[] a = quad.getAnchor();
+				double[] b = quad.getControl();
+				double[] c = quad.getVector();
+				builder.moveTo( a[ 0 ], a[ 1 ] );
+				builder.quadTo( b[ 0 ], b[ 1 ], c[ 0 ], c[ 1 ] );
+			}
+			case PATH -> builder.steps( ((Path)shape).getSteps() );
+			default -> {
+				return EMPTY;
+			}
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Get the bucket tolerance for a tolerance. The bucket tolerance is the
+	 * largest power of two that is not greater than the tolerance.
+	 *
+	 * @param tolerance The requested tolerance
+	 * @return The bucket tolerance
+	 */
+	public static double getBucketTolerance( double tolerance ) {
+		if( !(tolerance > 0) ) throw new IllegalArgumentException( "Tolerance must be greater than zero: " + tolerance );
+		if( Double.isInfinite( tolerance ) ) return tolerance;
+		return Math.scalb( 1.0, Math.getExponent( tolerance ) );
+	}
+
+	/**
+	 * Get the bucket tolerance used to flatten the shape.
+	 *
+	 * @return The bucket tolerance
+	 */
+	public double getTolerance() {
+		return tolerance;
+	}
+
+	/**
+	 * Check if this flat path can be used for the specified tolerance.
+	 *
+	 * @param tolerance The requested tolerance
+	 * @return True if the tolerance is in the same bucket as this flat path
+	 */
+	public boolean matches( double tolerance ) {
+		return getBucketTolerance( tolerance ) == this.tolerance;
+	}
+
+	public int getContourCount() {
+		return closed.length;
+	}
+
+	/**
+	 * Get the index of the first point of the contour.
+	 */
+	public int getContourStart( int contour ) {
+		return contours[ contour ];
+	}
+
+	/**
+	 * Get the index after the last point of the contour.
+	 */
+	public int getContourEnd( int contour ) {
+		return contours[ contour + 1 ];
+	}
+
+	public boolean isClosed( int contour ) {
+		return closed[ contour ];
+	}
+
+	public int getPointCount() {
+		return contours[ closed.length ];
+	}
+
+	public double getX( int index ) {
+		return x[ index ];
+	}
+
+	public double getY( int index ) {
+		return y[ index ];
+	}
+
+	/**
+	 * Get the x coordinates of the points. The returned array may be longer
+	 * than the point count and must not be modified.
+	 */
+	public double[] getXs() {
+		return x;
+	}
+
+	/**
+	 * Get the y coordinates of the points. The returned array may be longer
+	 * than the point count and must not be modified.
+	 */
+	public double[] getYs() {
+		return y;
+	}
+
+	/**
+	 * Get the bounds of the flattened points.
+	 *
+	 * @return The bounds of the points
+	 */
+	public Bounds getBounds() {
+		if( bounds != null ) return bounds;
+		int count = getPointCount();
+		if( count == 0 ) return bounds = new BoundingBox( 0, 0, -1, -1 );
+
+		double minX = Double.POSITIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+		for( int index = 0; index < count; index++ ) {
+			minX = Math.min( minX, x[ index ] );
+			minY = Math.min( minY, y[ index ] );
+			maxX = Math.max( maxX, x[ index ] );
+			maxY = Math.max( maxY, y[ index ] );
+		}
+		return bounds = new BoundingBox( minX, minY, maxX - minX, maxY - minY );
+	}
+
+	/**
+	 * Check if the point is inside the filled area using the even-odd rule.
+	 * Every contour is treated as closed, the same way a fill closes open
+	 * contours.
+	 *
+	 * @param px The point x coordinate
+	 * @param py The point y coordinate
+	 * @return True if the point is inside the filled area
+	 */
+	public boolean contains( double px, double py ) {
+		boolean inside = false;
+		for( int contour = 0; contour < closed.length; contour++ ) {
+			int start = contours[ contour ];
+			int end = contours[ contour + 1 ];
+			for( int index = start, prior = end - 1; index < end; prior = index++ ) {
+				if( (y[ index ] > py) != (y[ prior ] > py) && px < (x[ prior ] - x[ index ]) * (py - y[ index ]) / (y[ prior ] - y[ index ]) + x[ index ] ) inside = !inside;
+			}
+		}
+		return inside;
+	}
+
+	/**
+	 * Check if the point is within a distance of the outline. This is useful
+	 * for hit testing stroked shapes, usually with half the pen width plus a
+	 * pick tolerance.
+	 *
+	 * @param px The point x coordinate
+	 * @param py The point y coordinate
+	 * @param distance The maximum distance from the outline
+	 * @return True if the point is near the outline
+	 */
+	public boolean isNear( double px, double py, double distance ) {
+		double distanceSquared = distance * distance;
+		for( int contour = 0; contour < closed.length; contour++ ) {
+			int start = contours[ contour ];
+			int end = contours[ contour + 1 ];
+			for( int index = start + 1; index < end; index++ ) {
+				if( segmentDistanceSquared( px, py, x[ index - 1 ], y[ index - 1 ], x[ index ], y[ index ] ) <= distanceSquared ) return true;
+			}
+			if( closed[ contour ] && end - start > 2 ) {
+				if( segmentDistanceSquared( px, py, x[ end - 1 ], y[ end - 1 ], x[ start ], y[ start ] ) <= distanceSquared ) return true;
+			}
+		}
+		return false;
+	}
+
+	private static double segmentDistanceSquared( double px, double py, double x1, double y1, double x2, double y2 ) {
+		double dx = x2 - x1;
+		double dy = y2 - y1;
+		double lengthSquared = dx * dx + dy * dy;
+		double t = lengthSquared == 0 ? 0 : Math.max( 0, Math.min( 1, ((px - x1) * dx + (py - y1) * dy) / lengthSquared ) );
+		double ex = x1 + t * dx - px;
+		double ey = y1 + t * dy - py;
+		return ex * ex + ey * ey;
+	}
+
+	/**
+	 * Builds a flat path from shape geometry in the local coordinates of the
+	 * shape. The points are rotated about the shape anchor as they are added.
+	 */
+	private static final class Builder {
+
+		private final double tolerance;
+
+		private final double anchorX;
+
+		private final double anchorY;
+
+		private final boolean rotated;
+
+		private final double cos;
+
+		private final double sin;
+
+		private double[] x = new double[ 16 ];
+
+		private double[] y = new double[ 16 ];
+
+		private int count;
+
+		private int[] contours = new int[ 4 ];
+
+		private boolean[] closed = new boolean[ 4 ];
+
+		private int contourCount;
+
+		private int contourStart;
+
+		// The current point and the start of the current contour in local coordinates
+		private double priorX;
+
+		private double priorY;
+
+		private double startX;
+
+		private double startY;
+
+		private boolean open;
+
+		Builder( double tolerance, double[] anchor, double rotate ) {
+			this.tolerance = tolerance;
+			this.anchorX = anchor == null ? 0.0 : anchor[ 0 ];
+			this.anchorY = anchor == null ? 0.0 : anchor[ 1 ];
+			this.rotated = rotate != 0.0;
+			this.cos = Math.cos( Math.toRadians( rotate ) );
+			this.sin = Math.sin( Math.toRadians( rotate ) );
+		}
+
+		void steps( List<Path.Step> steps ) {
+			for( Path.Step step : steps ) {
+				double[] data = step.data();
+				switch( step.command() ) {
+					case MOVE -> moveTo( data[ 0 ], data[ 1 ] );
+					case LINE -> lineTo( data[ 0 ], data[ 1 ] );
+					case ARC -> arcTo( data[ 0 ], data[ 1 ], data[ 2 ], data[ 3 ], data[ 4 ], data[ 5 ] != 0, data[ 6 ] != 0 );
+					case CURVE -> cubicTo( data[ 0 ], data[ 1 ], data[ 2 ], data[ 3 ], data[ 4 ], data[ 5 ] );
+					case QUAD -> quadTo( data[ 0 ], data[ 1 ], data[ 2 ], data[ 3 ] );
+					case CLOSE -> close();
+				}
+			}
+		}
+
+		void moveTo( double px, double py ) {
+			endContour( false );
+			startX = priorX = px;
+			startY = priorY = py;
+			point( px, py );
+			open = true;
+		}
+
+		void lineTo( double px, double py ) {
+			ensureOpen();
+			point( px, py );
+			priorX = px;
+			priorY = py;
+		}
+
+		void quadTo( double x1, double y1, double x2, double y2 ) {
+			ensureOpen();
+			double x0 = priorX;
+			double y0 = priorY;
+			double m = Math.hypot( x0 - 2 * x1 + x2, y0 - 2 * y1 + y2 );
+			int n = segments( Math.sqrt( 0.25 * m / tolerance ) );
+			for( int index = 1; index < n; index++ ) {
+				double t = (double)index / n;
+				double u = 1 - t;
+				point( u * u * x0 + 2 * u * t * x1 + t * t * x2, u * u * y0 + 2 * u * t * y1 + t * t * y2 );
+			}
+			lineTo( x2, y2 );
+		}
+
+		void cubicTo( double x1, double y1, double x2, double y2, double x3, double y3 ) {
+			ensureOpen();
+			double x0 = priorX;
+			double y0 = priorY;
+			double m = Math.max( Math.hypot( x0 - 2 * x1 + x2, y0 - 2 * y1 + y2 ), Math.hypot( x1 - 2 * x2 + x3, y1 - 2 * y2 + y3 ) );
+			int n = segments( Math.sqrt( 0.75 * m / tolerance ) );
+			for( int index = 1; index < n; index++ ) {
+				double t = (double)index / n;
+				double u = 1 - t;
+				double a = u * u * u;
+				double b = 3 * u * u * t;
+				double c = 3 * u * t * t;
+				double d = t * t * t;
+				point( a * x0 + b * x1 + c * x2 + d * x3, a * y0 + b * y1 + c * y2 + d * y3 );
+			}
+			lineTo( x3, y3 );
+		}
+
+		/**
+		 * Add an SVG style elliptical arc from the current point.
+		 */
+		void arcTo( double px, double py, double rx, double ry, double ellipseRotate, boolean large, boolean sweep ) {
+			double[] arc = ArcGeometry.endpointToCenter( priorX, priorY, px, py, rx, ry, ellipseRotate, large, sweep );
+			if( arc == null ) {
+				lineTo( px, py );
+				return;
+			}
+			ensureOpen();
+			arc( arc[ 0 ], arc[ 1 ], arc[ 2 ], arc[ 3 ], ellipseRotate, arc[ 4 ], arc[ 5 ], false );
+			lineTo( px, py );
+		}
+
+		/**
+		 * Add an elliptical arc. The angles are in degrees. If move is true the
+		 * arc starts a new contour, otherwise it is connected to the current
+		 * point and the caller adds the exact end point.
+		 */
+		void arc( double cx, double cy, double rx, double ry, double ellipseRotate, double start, double extent, boolean move ) {
+			double phi = Math.toRadians( ellipseRotate );
+			double cosPhi = Math.cos( phi );
+			double sinPhi = Math.sin( phi );
+			double startRadians = Math.toRadians( start );
+			double extentRadians = Math.toRadians( extent );
+
+			double radius = Math.max( Math.abs( rx ), Math.abs( ry ) );
+			double step = tolerance < radius ? 2 * Math.acos( 1 - tolerance / radius ) : 0.5 * Math.PI;
+			int n = segments( Math.abs( extentRadians ) / Math.min( step, 0.5 * Math.PI ) );
+
+			for( int index = 0; index <= n; index++ ) {
+				double t = startRadians + extentRadians * index / n;
+				double ex = rx * Math.cos( t );
+				double ey = ry * Math.sin( t );
+				double px = cx + ex * cosPhi - ey * sinPhi;
+				double py = cy + ex * sinPhi + ey * cosPhi;
+				if( index == 0 ) {
+					// A connected arc starts at the current point
+					if( move ) moveTo( px, py );
+				} else if( index < n || move ) {
+					lineTo( px, py );
+				}
+			}
+		}
+
+		void close() {
+			if( !open ) return;
+			endContour( true );
+			priorX = startX;
+			priorY = startY;
+		}
+
+		FlatPath build() {
+			endContour( false );
+			int[] contourArray = Arrays.copyOf( contours, contourCount + 1 );
+			contourArray[ contourCount ] = count;
+			return new FlatPath( tolerance, Arrays.copyOf( x, count ), Arrays.copyOf( y, count ), contourArray, Arrays.copyOf( closed, contourCount ) );
+		}
+
+		/**
+		 * Drawing after a close starts a new contour at the start of the closed
+		 * contour, the same as the graphics context.
+		 */
+		private void ensureOpen() {
+			if( !open ) moveTo( priorX, priorY );
+		}
+
+		private void endContour( boolean close ) {
+			if( !open ) return;
+			open = false;
+
+			// Drop contours without any segments
+			if( count - contourStart < 2 ) {
+				count = contourStart;
+				return;
+			}
+
+			if( contourCount + 1 >= contours.length ) {
+				contours = Arrays.copyOf( contours, 2 * contours.length );
+				closed = Arrays.copyOf( closed, 2 * closed.length );
+			}
+			contours[ contourCount ] = contourStart;
+			closed[ contourCount ] = close;
+			contourCount++;
+			contourStart = count;
+		}
+
+		private void point( double px, double py ) {
+			if( count == x.length ) {
+				x = Arrays.copyOf( x, 2 * count );
+				y = Arrays.copyOf( y, 2 * count );
+			}
+			if( rotated ) {
+				double dx = px - anchorX;
+				double dy = py - anchorY;
+				px = anchorX + dx * cos - dy * sin;
+				py = anchorY + dx * sin + dy * cos;
+			}
+			x[ count ] = px;
+			y[ count ] = py;
+			count++;
+		}
+
+		private static int segments( double value ) {
+			if( !(value > 1) ) return 1;
+			return (int)Math.min( MAX_SEGMENTS, Math.ceil( value ) );
+		}
+
+	}
+
+}
@@ -4,8 +4,14 @@ import com.avereon.curve.math.Point;
 import com.avereon.marea.Shape2d;
 import com.avereon.marea.Shape3d;
 import com.avereon.marea.ShapeType;
+import javafx.geometry.Bounds;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
 /**
  * An immutable line.
@@ -28,6 +34,15 @@ public class Line implements Shape2d, Shape3d {
 
 	private final double rotate;
 
+	/**
+	 * The cached world bounds.
+	 */
+	@Getter( AccessLevel.NONE )
+	@Setter( AccessLevel.NONE )
+	@EqualsAndHashCode.Exclude
+	@ToString.Exclude
+	private Bounds bounds;
+
 	public Line( double[] anchor, double[] vector ) {
 		this( anchor, vector, 0.0 );
 	}
@@ -45,4 +60,10 @@ public class Line implements Shape2d, Shape3d {
 		return ShapeType.LINE;
 	}
 
+	@Override
+	public Bounds getBounds() {
+		if( bounds == null ) bounds = new ShapeBounds( anchor, rotate ).add( anchor[ 0 ], anchor[ 1 ] ).add( vector[ 0 ], vector[ 1 ] ).toBounds();
+		return bounds;
+	}
+
 }
@@ -0,0 +1,161 @@
+package com.avereon.marea.geom;
+
+import com.avereon.marea.Shape2d;
+import com.avereon.marea.ShapeType;
+import javafx.geometry.Bounds;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * An immutable marker, like a circle, cross or triangle, drawn at many
+ * positions. The marker geometry is an ellipse or path in marker
+ * coordinates, where the origin is the marker position. Each instance of the
+ * marker is scaled and rotated about the origin and then moved to its
+ * position.
+ * <p>
+ * Paths can be changed after they are created, so the marker keeps its own
+ * copy of the geometry and only gives out copies. Markers are compared by
+ * identity, so renderers can cache the rasterized marker for as long as the
+ * marker is used.
+ */
+@ToString
+public final class Marker {
+
+	private final Shape2d shape;
+
+	private final double radius;
+
+	/**
+	 * Create a marker from an ellipse or path in marker coordinates.
+	 *
+	 * @param shape The marker geometry
+	 * @throws IllegalArgumentException If the shape is not an ellipse or path
+	 */
+	public Marker( Shape2d shape ) {
+		if( shape.type() != ShapeType.ELLIPSE && shape.type() != ShapeType.PATH ) {
+			throw new IllegalArgumentException( "Marker shape must be an ellipse or path: " + shape.type() );
+		}
+		this.shape = copy( shape );
+
+		Bounds bounds = shape.getBounds();
+		double x = Math.max( Math.abs( bounds.getMinX() ), Math.abs( bounds.getMaxX() ) );
+		double y = Math.max( Math.abs( bounds.getMinY() ), Math.abs( bounds.getMaxY() ) );
+		this.radius = Math.sqrt( x * x + y * y );
+	}
+
+	/**
+	 * Get a copy of the marker geometry in marker coordinates.
+	 *
+	 * @return The marker geometry
+	 */
+	public Shape2d getShape() {
+		return copy( shape );
+	}
+
+	/**
+	 * Get the type of the marker geometry.
+	 *
+	 * @return {@link ShapeType#ELLIPSE} or {@link ShapeType#PATH}
+	 */
+	public ShapeType getType() {
+		return shape.type();
+	}
+
+	/**
+	 * Get the largest distance from the origin to the marker geometry. An
+	 * instance, at any rotation, is inside this radius times the instance
+	 * scale from its position.
+	 *
+	 * @return The marker radius
+	 */
+	public double getRadius() {
+		return radius;
+	}
+
+	/**
+	 * Get the marker flattened to line segments in marker coordinates.
+	 *
+	 * @param tolerance The maximum distance between the segments and the marker
+	 * @return The flattened marker
+	 */
+	public FlatPath getFlatPath( double tolerance ) {
+		return shape.getFlatPath( tolerance );
+	}
+
+	/**
+	 * Get the geometry of one marker instance in world coordinates.
+	 *
+	 * @param x The x coordinate of the instance position
+	 * @param y The y coordinate of the instance position
+	 * @param rotate The instance rotation in degrees
+	 * @param scale The instance scale
+	 * @return The instance geometry
+	 */
+	public Shape2d place( double x, double y, double rotate, double scale ) {
+		double radians = Math.toRadians( rotate );
+		double cos = scale * Math.cos( radians );
+		double sin = scale * Math.sin( radians );
+
+		// The shape anchor moved by the instance transform
+		double[] anchor = shape.getAnchor();
+		double ax = anchor == null ? 0 : anchor[ 0 ];
+		double ay = anchor == null ? 0 : anchor[ 1 ];
+		double anchorX = x + cos * ax - sin * ay;
+		double anchorY = y + sin * ax + cos * ay;
+
+		if( shape.type() == ShapeType.ELLIPSE ) {
+			double[] r = ((Ellipse)shape).getRadius();
+			return new Ellipse( anchorX, anchorY, Math.abs( scale ) * r[ 0 ], Math.abs( scale ) * r[ 1 ], shape.getRotate() + rotate );
+		}
+
+		// The steps are scaled about the anchor and the rotation is added to the
+		// path rotation, which is about the anchor
+		Path path = (Path)shape;
+		Path result = new Path( new double[]{ anchorX, anchorY }, path.getRotate() + rotate, path.isClosed() );
+		List<Path.Step> steps = result.getSteps();
+		steps.clear();
+		for( Path.Step step : path.getSteps() ) {
+			double[] data = step.data().clone();
+			switch( step.command() ) {
+				case ARC -> {
+					placePoint( data, 0, ax, ay, anchorX, anchorY, scale );
+					data[ 2 ] *= Math.abs( scale );
+					data[ 3 ] *= Math.abs( scale );
+				}
+				case CURVE -> {
+					placePoint( data, 0, ax, ay, anchorX, anchorY, scale );
+					placePoint( data, 2, ax, ay, anchorX, anchorY, scale );
+					placePoint( data, 4, ax, ay, anchorX, anchorY, scale );
+				}
+				case QUAD -> {
+					placePoint( data, 0, ax, ay, anchorX, anchorY, scale );
+					placePoint( data, 2, ax, ay, anchorX, anchorY, scale );
+				}
+				case LINE, MOVE -> placePoint( data, 0, ax, ay, anchorX, anchorY, scale );
+			}
+			steps.add( new Path.Step( step.command(), data ) );
+		}
+		return result;
+	}
+
+	private static Shape2d copy( Shape2d shape ) {
+		double[] anchor = shape.getAnchor() == null ? null : shape.getAnchor().clone();
+		if( shape.type() == ShapeType.ELLIPSE ) return new Ellipse( anchor, ((Ellipse)shape).getRadius().clone(), shape.getRotate() );
+
+		Path path = (Path)shape;
+		Path result = new Path( anchor, path.getRotate(), path.isClosed() );
+		List<Path.Step> steps = result.getSteps();
+		steps.clear();
+		for( Path.Step step : path.getSteps() ) {
+			steps.add( new Path.Step( step.command(), step.data().clone() ) );
+		}
+		return result;
+	}
+
+	private static void placePoint( double[] data, int index, double ax, double ay, double anchorX, double anchorY, double scale ) {
+		data[ index ] = anchorX + scale * (data[ index ] - ax);
+		data[ index + 1 ] = anchorY + scale * (data[ index + 1 ] - ay);
+	}
+
+}
@@ -0,0 +1,408 @@
+package com.avereon.marea.geom;
+
+import javafx.geometry.Bounds;
+
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A compact path. The commands are stored in a byte array and all the
+ * coordinates are stored in one double array, so a path with many vertices
+ * is three objects instead of two objects per step like {@link Path}. The
+ * coordinates for each command are the same as the step data for the
+ * corresponding {@link Path.Command}.
+ * <p>
+ * Use a {@link Cursor} to walk the path without allocating. This class is not
+ * thread safe.
+ */
+public final class PackedPath {
+
+	private static final Path.Command[] COMMANDS = Path.Command.values();
+
+	private static final int DEFAULT_CAPACITY = 16;
+
+	private byte[] commands;
+
+	private int commandCount;
+
+	private double[] coords;
+
+	private int coordCount;
+
+	public PackedPath() {
+		this( DEFAULT_CAPACITY, 2 * DEFAULT_CAPACITY );
+	}
+
+	public PackedPath( int commandCapacity, int coordCapacity ) {
+		this.commands = new byte[ Math.max( 1, commandCapacity ) ];
+		this.coords = new double[ Math.max( 2, coordCapacity ) ];
+	}
+
+	/**
+	 * Create a trimmed copy of a packed path.
+	 *
+	 * @param path The path to copy
+	 */
+	public PackedPath( PackedPath path ) {
+		this.commands = Arrays.copyOf( path.commands, Math.max( 1, path.commandCount ) );
+		this.commandCount = path.commandCount;
+		this.coords = Arrays.copyOf( path.coords, Math.max( 2, path.coordCount ) );
+		this.coordCount = path.coordCount;
+	}
+
+	/**
+	 * Create a packed path from path steps.
+	 *
+	 * @param steps The path steps
+	 * @return A new packed path
+	 */
+	public static PackedPath of( List<Path.Step> steps ) {
+		PackedPath path = new PackedPath( steps.size(), 2 * steps.size() );
+		for( Path.Step step : steps ) {
+			// Points may have a z coordinate so only copy the coordinates used
+			int count = getCoordCount( step.command() );
+			path.command( step.command(), count );
+			System.arraycopy( step.data(), 0, path.coords, path.coordCount, count );
+			path.coordCount += count;
+		}
+		return path;
+	}
+
+	/**
+	 * Get the number of coordinates used by a command.
+	 *
+	 * @param command The command
+	 * @return The number of coordinates
+	 */
+	public static int getCoordCount( Path.Command command ) {
+		return switch( command ) {
+			case CLOSE -> 0;
+			case MOVE, LINE -> 2;
+			case QUAD -> 4;
+			case CURVE -> 6;
+			case ARC -> 7;
+		};
+	}
+
+	public PackedPath moveTo( double x, double y ) {
+		command( Path.Command.MOVE, 2 );
+		coords[ coordCount++ ] = x;
+		coords[ coordCount++ ] = y;
+		return this;
+	}
+
+	public PackedPath lineTo( double x, double y ) {
+		command( Path.Command.LINE, 2 );
+		coords[ coordCount++ ] = x;
+		coords[ coordCount++ ] = y;
+		return this;
+	}
+
+	/**
+	 * Add a line to each of the points. The points are x and y coordinate
+	 * pairs.
+	 *
+	 * @param points The point coordinates
+	 * @param offset The index of the first coordinate
+	 * @param count The number of points
+	 * @return This path
+	 */
+	public PackedPath lineTo( double[] points, int offset, int count ) {
+		ensureCommands( count );
+		ensureCoords( 2 * count );
+		Arrays.fill( commands, commandCount, commandCount + count, (byte)Path.Command.LINE.ordinal() );
+		commandCount += count;
+		System.arraycopy( points, offset, coords, coordCount, 2 * count );
+		coordCount += 2 * count;
+		return this;
+	}
+
+	/**
+	 * Add a line to each of the remaining points in the buffer. The points are
+	 * x and y coordinate pairs. The buffer position is advanced past the points.
+	 *
+	 * @param points The point coordinates
+	 * @return This path
+	 */
+	public PackedPath lineTo( DoubleBuffer points ) {
+		int count = points.remaining() / 2;
+		ensureCommands( count );
+		ensureCoords( 2 * count );
+		Arrays.fill( commands, commandCount, commandCount + count, (byte)Path.Command.LINE.ordinal() );
+		commandCount += count;
+		points.get( coords, coordCount, 2 * count );
+		coordCount += 2 * count;
+		return this;
+	}
+
+	/**
+	 * Start a new contour at the first point and add a line to each of the
+	 * other points. The points are x and y coordinate pairs.
+	 *
+	 * @param points The point coordinates
+	 * @param offset The index of the first coordinate
+	 * @param count The number of points
+	 * @return This path
+	 */
+	public PackedPath polyline( double[] points, int offset, int count ) {
+		if( count < 1 ) return this;
+		moveTo( points[ offset ], points[ offset + 1 ] );
+		return lineTo( points, offset + 2, count - 1 );
+	}
+
+	/**
+	 * Start a new contour at the first remaining point in the buffer and add a
+	 * line to each of the other points. The buffer position is advanced past
+	 * the points.
+	 *
+	 * @param points The point coordinates
+	 * @return This path
+	 */
+	public PackedPath polyline( DoubleBuffer points ) {
+		if( points.remaining() < 2 ) return this;
+		moveTo( points.get(), points.get() );
+		return lineTo( points );
+	}
+
+	public PackedPath quadTo( double x1, double y1, double x2, double y2 ) {
+		command( Path.Command.QUAD, 4 );
+		coords[ coordCount++ ] = x1;
+		coords[ coordCount++ ] = y1;
+		coords[ coordCount++ ] = x2;
+		coords[ coordCount++ ] = y2;
+		return this;
+	}
+
+	public PackedPath curveTo( double x1, double y1, double x2, double y2, double x3, double y3 ) {
+		command( Path.Command.CURVE, 6 );
+		coords[ coordCount++ ] = x1;
+		coords[ coordCount++ ] = y1;
+		coords[ coordCount++ ] = x2;
+		coords[ coordCount++ ] = y2;
+		coords[ coordCount++ ] = x3;
+		coords[ coordCount++ ] = y3;
+		return this;
+	}
+
+	/**
+	 * Add an SVG style elliptical arc from the current point.
+	 *
+	 * @param x The end point x coordinate
+	 * @param y The end point y coordinate
+	 * @param rx The ellipse x radius
+	 * @param ry The ellipse y radius
+	 * @param rotate The ellipse rotation in degrees
+	 * @param large True to use the large arc
+	 * @param sweep True to sweep in the positive angle direction
+	 * @return This path
+	 */
+	public PackedPath arcTo( double x, double y, double rx, double ry, double rotate, boolean large, boolean sweep ) {
+		command( Path.Command.ARC, 7 );
+		coords[ coordCount++ ] = x;
+		coords[ coordCount++ ] = y;
+		coords[ coordCount++ ] = rx;
+		coords[ coordCount++ ] = ry;
+		coords[ coordCount++ ] = rotate;
+		coords[ coordCount++ ] = large ? 1.0 : 0.0;
+		coords[ coordCount++ ] = sweep ? 1.0 : 0.0;
+		return this;
+	}
+
+	public PackedPath close() {
+		command( Path.Command.CLOSE, 0 );
+		return this;
+	}
+
+	/**
+	 * Remove all the commands but keep the storage.
+	 */
+	public void clear() {
+		commandCount = 0;
+		coordCount = 0;
+	}
+
+	public boolean isEmpty() {
+		return commandCount == 0;
+	}
+
+	/**
+	 * Get the number of commands.
+	 */
+	public int size() {
+		return commandCount;
+	}
+
+	public int getCoordCount() {
+		return coordCount;
+	}
+
+	public Path.Command getCommand( int index ) {
+		return COMMANDS[ commands[ index ] ];
+	}
+
+	/**
+	 * Get the coordinate array. The array may be longer than the coordinate
+	 * count and must not be modified.
+	 *
+	 * @return The coordinate array
+	 */
+	public double[] getCoords() {
+		return coords;
+	}
+
+	/**
+	 * Get the world bounds of the path.
+	 *
+	 * @return The path bounds
+	 */
+	public Bounds getBounds() {
+		ShapeBounds bounds = new ShapeBounds();
+		double startX = 0;
+		double startY = 0;
+		double priorX = 0;
+		double priorY = 0;
+		Cursor cursor = cursor();
+		while( cursor.next() ) {
+			double[] c = coords;
+			int o = cursor.offset();
+			switch( cursor.command() ) {
+				case MOVE -> {
+					bounds.add( c[ o ], c[ o + 1 ] );
+					startX = c[ o ];
+					startY = c[ o + 1 ];
+				}
+				case LINE -> bounds.add( c[ o ], c[ o + 1 ] );
+				case ARC -> bounds.addArc( priorX, priorY, c[ o ], c[ o + 1 ], c[ o + 2 ], c[ o + 3 ], c[ o + 4 ], c[ o + 5 ] != 0, c[ o + 6 ] != 0 );
+				case CURVE -> bounds.addCubic( priorX, priorY, c[ o ], c[ o + 1 ], c[ o + 2 ], c[ o + 3 ], c[ o + 4 ], c[ o + 5 ] );
+				case QUAD -> bounds.addQuad( priorX, priorY, c[ o ], c[ o + 1 ], c[ o + 2 ], c[ o + 3 ] );
+			}
+			boolean close = cursor.command() == Path.Command.CLOSE;
+			priorX = close ? startX : cursor.endX();
+			priorY = close ? startY : cursor.endY();
+		}
+		return bounds.toBounds();
+	}
+
+	/**
+	 * Get a cursor positioned before the first command.
+	 *
+	 * @return A new cursor
+	 */
+	public Cursor cursor() {
+		return new Cursor( this );
+	}
+
+	private void command( Path.Command command, int coordCount ) {
+		ensureCommands( 1 );
+		ensureCoords( coordCount );
+		commands[ commandCount++ ] = (byte)command.ordinal();
+	}
+
+	private void ensureCommands( int count ) {
+		if( commandCount + count > commands.length ) commands = Arrays.copyOf( commands, Math.max( 2 * commands.length, commandCount + count ) );
+	}
+
+	private void ensureCoords( int count ) {
+		if( coordCount + count > coords.length ) coords = Arrays.copyOf( coords, Math.max( 2 * coords.length, coordCount + count ) );
+	}
+
+	/**
+	 * A cursor over the commands in a packed path. The cursor does not
+	 * allocate while walking the path and can be {@link #reset() reset} to walk
+	 * the path again. The coordinates of the current command start at
+	 * {@link #offset()} in the {@link #coords() coordinate array}.
+	 */
+	public static final class Cursor {
+
+		private final PackedPath path;
+
+		private int index;
+
+		private int offset;
+
+		private int nextOffset;
+
+		private Path.Command command;
+
+		private Cursor( PackedPath path ) {
+			this.path = path;
+			reset();
+		}
+
+		public void reset() {
+			index = -1;
+			offset = 0;
+			nextOffset = 0;
+			command = null;
+		}
+
+		/**
+		 * Move to the next command.
+		 *
+		 * @return True if there is a command, false at the end of the path
+		 */
+		public boolean next() {
+			if( index + 1 >= path.commandCount ) return false;
+			index++;
+			offset = nextOffset;
+			command = COMMANDS[ path.commands[ index ] ];
+			nextOffset = offset + getCoordCount( command );
+			return true;
+		}
+
+		public Path.Command command() {
+			return command;
+		}
+
+		/**
+		 * Get the index of the first coordinate of the current command.
+		 */
+		public int offset() {
+			return offset;
+		}
+
+		/**
+		 * Get the coordinate array of the path.
+		 */
+		public double[] coords() {
+			return path.coords;
+		}
+
+		/**
+		 * Get a coordinate of the current command.
+		 *
+		 * @param index The coordinate index within the command
+		 * @return The coordinate value
+		 */
+		public double get( int index ) {
+			return path.coords[ offset + index ];
+		}
+
+		/**
+		 * Get the x coordinate of the end point of the current command. This is
+		 * not defined for a close command.
+		 */
+		public double endX() {
+			return switch( command ) {
+				case QUAD -> get( 2 );
+				case CURVE -> get( 4 );
+				default -> get( 0 );
+			};
+		}
+
+		/**
+		 * Get the y coordinate of the end point of the current command. This is
+		 * not defined for a close command.
+		 */
+		public double endY() {
+			return switch( command ) {
+				case QUAD -> get( 3 );
+				case CURVE -> get( 5 );
+				default -> get( 1 );
+			};
+		}
+
+	}
+
+}
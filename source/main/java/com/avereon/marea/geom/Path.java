@@ -4,8 +4,14 @@ import com.avereon.curve.math.Point;
 import com.avereon.marea.Shape2d;
 import com.avereon.marea.Shape3d;
 import com.avereon.marea.ShapeType;
+import javafx.geometry.Bounds;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -37,6 +43,24 @@ public class Path implements Shape2d, Shape3d {
 
 	private final boolean closed;
 
+	/**
+	 * The cached world bounds. This is cleared when a step is added.
+	 */
+	@Getter( AccessLevel.NONE )
+	@Setter( AccessLevel.NONE )
+	@EqualsAndHashCode.Exclude
+	@ToString.Exclude
+	private Bounds bounds;
+
+	/**
+	 * The cached flattened geometry. This is cleared when a step is added.
+	 */
+	@Getter( AccessLevel.NONE )
+	@Setter( AccessLevel.NONE )
+	@EqualsAndHashCode.Exclude
+	@ToString.Exclude
+	private FlatPath flatPath;
+
 	public Path() {
 		this( null, 0.0, false );
 	}
@@ -66,7 +90,63 @@ public class Path implements Shape2d, Shape3d {
 		return ShapeType.PATH;
 	}
 
+	@Override
+	public Bounds getBounds() {
+		if( bounds != null ) return bounds;
+
+		ShapeBounds shapeBounds = new ShapeBounds( anchor, rotate );
+		double startX = 0;
+		double startY = 0;
+		double priorX = 0;
+		double priorY = 0;
+		for( Step step : steps ) {
+			double[] data = step.data();
+			switch( step.command() ) {
+				case MOVE -> {
+					shapeBounds.add( data[ 0 ], data[ 1 ] );
+					startX = priorX = data[ 0 ];
+					startY = priorY = data[ 1 ];
+				}
+				case LINE -> {
+					shapeBounds.add( data[ 0 ], data[ 1 ] );
+					priorX = data[ 0 ];
+					priorY = data[ 1 ];
+				}
+				case ARC -> {
+					shapeBounds.addArc( priorX, priorY, data[ 0 ], data[ 1 ], data[ 2 ], data[ 3 ], data[ 4 ], data[ 5 ] != 0, data[ 6 ] != 0 );
+					priorX = data[ 0 ];
+					priorY = data[ 1 ];
+				}
+				case CURVE -> {
+					shapeBounds.addCubic( priorX, priorY, data[ 0 ], data[ 1 ], data[ 2 ], data[ 3 ], data[ 4 ], data[ 5 ] );
+					priorX = data[ 4 ];
+					priorY = data[ 5 ];
+				}
+				case QUAD -> {
+					shapeBounds.addQuad( priorX, priorY, data[ 0 ], data[ 1 ], data[ 2 ], data[ 3 ] );
+					priorX = data[ 2 ];
+					priorY = data[ 3 ];
+				}
+				case CLOSE -> {
+					priorX = startX;
+					priorY = startY;
+				}
+			}
+		}
+		bounds = shapeBounds.toBounds();
+		return bounds;
+	}
+
+	@Override
+	public FlatPath getFlatPath( double tolerance ) {
+		FlatPath result = flatPath;
+		if( result == null || !result.matches( tolerance ) ) flatPath = result = FlatPath.of( this, tolerance );
+		return result;
+	}
+
 	public Path move( double bx, double by ) {
+		bounds = null;
+		flatPath = null;
 		steps.add( new Step( Command.MOVE, new double[]{ bx, by } ) );
 		return this;
 	}
@@ -76,26 +156,36 @@ public class Path implements Shape2d, Shape3d {
 	}
 
 	public Path line( double[] point ) {
+		bounds = null;
+		flatPath = null;
 		steps.add( new Step( Command.LINE, point ) );
 		return this;
 	}
 
 	public Path arc( double x, double y, double rx, double ry, double rotate, double largeArc, double sweep ) {
+		bounds = null;
+		flatPath = null;
 		steps.add( new Step( Command.ARC, new double[]{ x, y, rx, ry, rotate, largeArc, sweep } ) );
 		return this;
 	}
 
 	public Path curve( double bx, double by, double cx, double cy, double dx, double dy ) {
+		bounds = null;
+		flatPath = null;
 		steps.add( new Step( Command.CURVE, new double[]{ bx, by, cx, cy, dx, dy } ) );
 		return this;
 	}
 
 	public Path quad( double bx, double by, double cx, double cy ) {
+		bounds = null;
+		flatPath = null;
 		steps.add( new Step( Command.QUAD, new double[]{ bx, by, cx, cy } ) );
 		return this;
 	}
 
 	public Path close() {
+		bounds = null;
+		flatPath = null;
 		steps.add( new Step( Command.CLOSE, new double[]{} ) );
 		return this;
 	}
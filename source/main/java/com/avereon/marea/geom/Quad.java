@@ -4,8 +4,14 @@ import com.avereon.curve.math.Point;
 import com.avereon.marea.Shape2d;
 import com.avereon.marea.Shape3d;
 import com.avereon.marea.ShapeType;
+import javafx.geometry.Bounds;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
 /**
  * An immutable bezier cubic curve.
@@ -28,6 +34,24 @@ public class Quad implements Shape2d, Shape3d {
 
 	private final double rotate;
 
+	/**
+	 * The cached world bounds.
+	 */
+	@Getter( AccessLevel.NONE )
+	@Setter( AccessLevel.NONE )
+	@EqualsAndHashCode.Exclude
+	@ToString.Exclude
+	private Bounds bounds;
+
+	/**
+	 * The cached flattened geometry.
+	 */
+	@Getter( AccessLevel.NONE )
+	@Setter( AccessLevel.NONE )
+	@EqualsAndHashCode.Exclude
+	@ToString.Exclude
+	private FlatPath flatPath;
+
 	public Quad( double ax, double ay, double bx, double by, double cx, double cy ) {
 		this( Point.of( ax, ay ), Point.of( bx, by ), Point.of( cx, cy ) );
 	}
@@ -41,4 +65,22 @@ public class Quad implements Shape2d, Shape3d {
 		return ShapeType.QUAD;
 	}
 
+	@Override
+	public Bounds getBounds() {
+		if( bounds == null ) {
+			double[] a = anchor;
+			double[] b = control;
+			double[] c = vector;
+			bounds = new ShapeBounds( anchor, rotate ).addQuad( a[ 0 ], a[ 1 ], b[ 0 ], b[ 1 ], c[ 0 ], c[ 1 ] ).toBounds();
+		}
+		return bounds;
+	}
+
+	@Override
+	public FlatPath getFlatPath( double tolerance ) {
+		FlatPath result = flatPath;
+		if( result == null || !result.matches( tolerance ) ) flatPath = result = FlatPath.of( this, tolerance );
+		return result;
+	}
+
 }
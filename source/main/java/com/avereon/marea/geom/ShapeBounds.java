@@ -0,0 +1,194 @@
+package com.avereon.marea.geom;
+
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
+
+/**
+ * A helper to compute the world bounds of the shapes. Points and curves are
+ * added in the local coordinates of the shape and are rotated about the shape
+ * anchor by the shape rotation before being added to the bounds.
+ */
+final class ShapeBounds {
+
+	private final double anchorX;
+
+	private final double anchorY;
+
+	private final double rotate;
+
+	private final double cos;
+
+	private final double sin;
+
+	private double minX = Double.POSITIVE_INFINITY;
+
+	private double minY = Double.POSITIVE_INFINITY;
+
+	private double maxX = Double.NEGATIVE_INFINITY;
+
+	private double maxY = Double.NEGATIVE_INFINITY;
+
+	ShapeBounds() {
+		this( null, 0.0 );
+	}
+
+	ShapeBounds( double[] anchor, double rotate ) {
+		this.anchorX = anchor == null ? 0.0 : anchor[ 0 ];
+		this.anchorY = anchor == null ? 0.0 : anchor[ 1 ];
+		this.rotate = rotate;
+		this.cos = Math.cos( Math.toRadians( rotate ) );
+		this.sin = Math.sin( Math.toRadians( rotate ) );
+	}
+
+	ShapeBounds add( double x, double y ) {
+		if( rotate != 0.0 ) {
+			double dx = x - anchorX;
+			double dy = y - anchorY;
+			x = anchorX + dx * cos - dy * sin;
+			y = anchorY + dx * sin + dy * cos;
+		}
+		include( x, y );
+		return this;
+	}
+
+	/**
+	 * Add a quadratic bezier curve.
+	 */
+	ShapeBounds addQuad( double x1, double y1, double x2, double y2, double x3, double y3 ) {
+		// Elevate the quad to a cubic
+		return addCubic( x1, y1, x1 + 2.0 / 3.0 * (x2 - x1), y1 + 2.0 / 3.0 * (y2 - y1), x3 + 2.0 / 3.0 * (x2 - x3), y3 + 2.0 / 3.0 * (y2 - y3), x3, y3 );
+	}
+
+	/**
+	 * Add a cubic bezier curve.
+	 */
+	ShapeBounds addCubic( double x1, double y1, double x2, double y2, double x3, double y3, double x4, double y4 ) {
+		double[] p = new double[]{ x1, y1, x2, y2, x3, y3, x4, y4 };
+		if( rotate != 0.0 ) {
+			// Rotating the control points rotates the curve
+			for( int index = 0; index < 8; index += 2 ) {
+				double dx = p[ index ] - anchorX;
+				double dy = p[ index + 1 ] - anchorY;
+				p[ index ] = anchorX + dx * cos - dy * sin;
+				p[ index + 1 ] = anchorY + dx * sin + dy * cos;
+			}
+		}
+
+		include( p[ 0 ], p[ 1 ] );
+		include( p[ 6 ], p[ 7 ] );
+		cubicExtrema( p[ 0 ], p[ 2 ], p[ 4 ], p[ 6 ], p, true );
+		cubicExtrema( p[ 1 ], p[ 3 ], p[ 5 ], p[ 7 ], p, false );
+		return this;
+	}
+
+	/**
+	 * Add an elliptical arc. The angles are in degrees, counter-clockwise from
+	 * the x-axis of the ellipse.
+	 *
+	 * @param cx The ellipse center x coordinate
+	 * @param cy The ellipse center y coordinate
+	 * @param rx The ellipse x radius
+	 * @param ry The ellipse y radius
+	 * @param ellipseRotate The rotation of the ellipse about its center
+	 * @param start The arc start angle
+	 * @param extent The arc angle extent, may be negative
+	 */
+	ShapeBounds addArc( double cx, double cy, double rx, double ry, double ellipseRotate, double start, double extent ) {
+		if( rotate != 0.0 ) {
+			double dx = cx - anchorX;
+			double dy = cy - anchorY;
+			cx = anchorX + dx * cos - dy * sin;
+			cy = anchorY + dx * sin + dy * cos;
+		}
+
+		double phi = Math.toRadians( ellipseRotate + rotate );
+		double cosPhi = Math.cos( phi );
+		double sinPhi = Math.sin( phi );
+
+		if( extent < 0 ) {
+			start += extent;
+			extent = -extent;
+		}
+		double startRadians = Math.toRadians( start );
+		double extentRadians = Math.toRadians( Math.min( extent, 360.0 ) );
+
+		// The arc end points
+		includeArcPoint( cx, cy, rx, ry, cosPhi, sinPhi, startRadians );
+		includeArcPoint( cx, cy, rx, ry, cosPhi, sinPhi, startRadians + extentRadians );
+
+		// The angles where the ellipse has extreme x and y values
+		double tx = Math.atan2( -ry * sinPhi, rx * cosPhi );
+		double ty = Math.atan2( ry * cosPhi, rx * sinPhi );
+		for( double t : new double[]{ tx, tx + Math.PI, ty, ty + Math.PI } ) {
+			if( isInSweep( t, startRadians, extentRadians ) ) includeArcPoint( cx, cy, rx, ry, cosPhi, sinPhi, t );
+		}
+
+		return this;
+	}
+
+	/**
+	 * Add an SVG style elliptical arc from the prior point to the end point. If
+	 * the radii are zero the arc is treated as a line.
+	 */
+	ShapeBounds addArc( double x1, double y1, double x2, double y2, double rx, double ry, double ellipseRotate, boolean large, boolean sweep ) {
+		double[] arc = ArcGeometry.endpointToCenter( x1, y1, x2, y2, rx, ry, ellipseRotate, large, sweep );
+		if( arc == null ) return add( x1, y1 ).add( x2, y2 );
+		return addArc( arc[ 0 ], arc[ 1 ], arc[ 2 ], arc[ 3 ], ellipseRotate, arc[ 4 ], arc[ 5 ] );
+	}
+
+	Bounds toBounds() {
+		if( minX > maxX || minY > maxY ) return new BoundingBox( 0, 0, -1, -1 );
+		return new BoundingBox( minX, minY, maxX - minX, maxY - minY );
+	}
+
+	private void include( double x, double y ) {
+		if( x < minX ) minX = x;
+		if( x > maxX ) maxX = x;
+		if( y < minY ) minY = y;
+		if( y > maxY ) maxY = y;
+	}
+
+	private void includeArcPoint( double cx, double cy, double rx, double ry, double cosPhi, double sinPhi, double t ) {
+		double ex = rx * Math.cos( t );
+		double ey = ry * Math.sin( t );
+		include( cx + ex * cosPhi - ey * sinPhi, cy + ex * sinPhi + ey * cosPhi );
+	}
+
+	private static boolean isInSweep( double angle, double start, double extent ) {
+		double delta = (angle - start) % (2 * Math.PI);
+		if( delta < 0 ) delta += 2 * Math.PI;
+		return delta <= extent;
+	}
+
+	/**
+	 * Include the extreme values of one coordinate of a cubic bezier curve.
+	 */
+	private void cubicExtrema( double a, double b, double c, double d, double[] p, boolean isX ) {
+		// The derivative coefficients
+		double qa = -a + 3 * b - 3 * c + d;
+		double qb = 2 * (a - 2 * b + c);
+		double qc = b - a;
+
+		if( Math.abs( qa ) < 1e-12 ) {
+			if( qb != 0 ) includeCubicPoint( p, -qc / qb );
+			return;
+		}
+
+		double discriminant = qb * qb - 4 * qa * qc;
+		if( discriminant < 0 ) return;
+		double root = Math.sqrt( discriminant );
+		includeCubicPoint( p, (-qb + root) / (2 * qa) );
+		includeCubicPoint( p, (-qb - root) / (2 * qa) );
+	}
+
+	private void includeCubicPoint( double[] p, double t ) {
+		if( t <= 0 || t >= 1 ) return;
+		double u = 1 - t;
+		double a = u * u * u;
+		double b = 3 * u * u * t;
+		double c = 3 * u * t * t;
+		double d = t * t * t;
+		include( a * p[ 0 ] + b * p[ 2 ] + c * p[ 4 ] + d * p[ 6 ], a * p[ 1 ] + b * p[ 3 ] + c * p[ 5 ] + d * p[ 7 ] );
+	}
+
+}
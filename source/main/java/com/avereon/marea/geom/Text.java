@@ -5,8 +5,16 @@ import com.avereon.marea.Font;
 import com.avereon.marea.Shape2d;
 import com.avereon.marea.Shape3d;
 import com.avereon.marea.ShapeType;
+import com.avereon.marea.TextMeasure;
+import com.avereon.marea.TextMetrics;
+import javafx.geometry.Bounds;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
 /**
  * Immutable text.
@@ -40,6 +48,15 @@ public class Text implements Shape2d, Shape3d {
 	 */
 	private final Font font;
 
+	/**
+	 * The cached world bounds.
+	 */
+	@Getter( AccessLevel.NONE )
+	@Setter( AccessLevel.NONE )
+	@EqualsAndHashCode.Exclude
+	@ToString.Exclude
+	private Bounds bounds;
+
 	public Text( String text, double[] anchor, double height ) {
 		this( text, anchor, height, 0.0, null );
 	}
@@ -61,4 +78,37 @@ public class Text implements Shape2d, Shape3d {
 		return ShapeType.TEXT;
 	}
 
+	/**
+	 * Get the measured extent of the text at the text height. The metrics are
+	 * cached by the {@link TextMeasure}, so this can be called often and from
+	 * any thread.
+	 *
+	 * @return The text metrics
+	 */
+	public TextMetrics getMetrics() {
+		return TextMeasure.measure( text, font, height );
+	}
+
+	/**
+	 * Get the world bounds of the text. The bounds contain the advance of the
+	 * longest line, from the top of the first line to the bottom of the last
+	 * line, rotated about the anchor.
+	 *
+	 * @return The text bounds
+	 */
+	@Override
+	public Bounds getBounds() {
+		if( bounds != null ) return bounds;
+
+		TextMetrics metrics = getMetrics();
+		double x = anchor[ 0 ];
+		double y = anchor[ 1 ];
+		double right = x + metrics.advance();
+		double top = y + metrics.ascent();
+		double bottom = y - metrics.descent();
+		ShapeBounds shapeBounds = new ShapeBounds( anchor, rotate );
+		bounds = shapeBounds.add( x, bottom ).add( right, bottom ).add( right, top ).add( x, top ).toBounds();
+		return bounds;
+	}
+
 }
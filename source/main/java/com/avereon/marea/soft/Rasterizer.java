@@ -0,0 +1,352 @@
+package com.avereon.marea.soft;
+
+import java.util.Arrays;
+
+/**
+ * A scanline polygon rasterizer with coverage anti-aliasing. Edges are added
+ * in screen coordinates and filled with a color using the even-odd or
+ * non-zero winding rule. Each pixel row is sampled with
+ * {@link #SUBSAMPLES} sub-scanlines and the horizontal coverage of each span
+ * is computed exactly in fixed point.
+ * <p>
+ * All the coverage math is done with integers after the crossings are
+ * computed, so the value of a pixel does not depend on the clip. This allows
+ * an image to be rendered in tiles with the same result as rendering the
+ * whole image at once.
+ * <p>
+ * The pixels are non-premultiplied ARGB values. This class is not thread
+ * safe.
+ */
+final class Rasterizer {
+
+	/**
+	 * The number of sub-scanlines per pixel row.
+	 */
+	static final int SUBSAMPLES = 16;
+
+	/**
+	 * The number of fixed point bits for horizontal positions.
+	 */
+	private static final int SHIFT = 8;
+
+	private static final int ONE = 1 << SHIFT;
+
+	private static final int MASK = ONE - 1;
+
+	private static final int FULL = SUBSAMPLES * ONE;
+
+	// Target ----------------------------------------------------------------
+
+	private int[] pixels;
+
+	private int stride;
+
+	private int originX;
+
+	private int originY;
+
+	private int clipX0;
+
+	private int clipY0;
+
+	private int clipX1;
+
+	private int clipY1;
+
+	// Edges -----------------------------------------------------------------
+
+	private double[] edgeTop = new double[ 64 ];
+
+	private double[] edgeBottom = new double[ 64 ];
+
+	private double[] edgeX = new double[ 64 ];
+
+	private double[] edgeSlope = new double[ 64 ];
+
+	private int[] edgeWinding = new int[ 64 ];
+
+	private int edgeCount;
+
+	private double minY = Double.POSITIVE_INFINITY;
+
+	private double maxY = Double.NEGATIVE_INFINITY;
+
+	// Scanline state ----------------------------------------------------------
+
+	private int[] rowStart = new int[ 0 ];
+
+	private int[] order = new int[ 64 ];
+
+	private int[] active = new int[ 64 ];
+
+	private int[] crossX = new int[ 64 ];
+
+	private int[] crossWinding = new int[ 64 ];
+
+	private int[] cover = new int[ 0 ];
+
+	private int[] delta = new int[ 0 ];
+
+	/**
+	 * Set the target pixels. The pixel at screen position x, y is at index
+	 * (y - originY) * stride + (x - originX). The clip is set to the target.
+	 *
+	 * @param pixels The ARGB pixels
+	 * @param stride The number of pixels in a target row
+	 * @param height The number of target rows
+	 * @param originX The screen x coordinate of the first target column
+	 * @param originY The screen y coordinate of the first target row
+	 */
+	void setTarget( int[] pixels, int stride, int height, int originX, int originY ) {
+		this.pixels = pixels;
+		this.stride = stride;
+		this.originX = originX;
+		this.originY = originY;
+		setClip( originX, originY, originX + stride, originY + height );
+	}
+
+	/**
+	 * Set the screen clip rectangle. The clip must be inside the target.
+	 */
+	void setClip( int x0, int y0, int x1, int y1 ) {
+		clipX0 = x0;
+		clipY0 = y0;
+		clipX1 = Math.max( x0, x1 );
+		clipY1 = Math.max( y0, y1 );
+		int columns = clipX1 - clipX0 + 2;
+		if( cover.length < columns ) {
+			cover = new int[ columns ];
+			delta = new int[ columns ];
+		}
+	}
+
+	/**
+	 * Remove all the edges.
+	 */
+	void reset() {
+		edgeCount = 0;
+		minY = Double.POSITIVE_INFINITY;
+		maxY = Double.NEGATIVE_INFINITY;
+	}
+
+	boolean isEmpty() {
+		return edgeCount == 0;
+	}
+
+	void addEdge( double x0, double y0, double x1, double y1 ) {
+		if( y0 == y1 || Double.isNaN( x0 + y0 + x1 + y1 ) ) return;
+
+		int winding = 1;
+		if( y0 > y1 ) {
+			double t = x0;
+			x0 = x1;
+			x1 = t;
+			t = y0;
+			y0 = y1;
+			y1 = t;
+			winding = -1;
+		}
+
+		// Edges that are completely above or below the clip do not matter
+		if( y1 <= clipY0 || y0 >= clipY1 ) return;
+
+		if( edgeCount == edgeTop.length ) {
+			int size = 2 * edgeCount;
+			edgeTop = Arrays.copyOf( edgeTop, size );
+			edgeBottom = Arrays.copyOf( edgeBottom, size );
+			edgeX = Arrays.copyOf( edgeX, size );
+			edgeSlope = Arrays.copyOf( edgeSlope, size );
+			edgeWinding = Arrays.copyOf( edgeWinding, size );
+		}
+
+		edgeTop[ edgeCount ] = y0;
+		edgeBottom[ edgeCount ] = y1;
+		edgeX[ edgeCount ] = x0;
+		edgeSlope[ edgeCount ] = (x1 - x0) / (y1 - y0);
+		edgeWinding[ edgeCount ] = winding;
+		edgeCount++;
+
+		minY = Math.min( minY, y0 );
+		maxY = Math.max( maxY, y1 );
+	}
+
+	/**
+	 * Add the edges of every contour in the path. Each contour is closed.
+	 */
+	void addPath( ScreenPath path ) {
+		int contours = path.getContourCount();
+		for( int contour = 0; contour < contours; contour++ ) {
+			int start = path.getContourStart( contour );
+			int end = path.getContourEnd( contour );
+			if( end - start < 2 ) continue;
+			double px = path.getX( end - 1 );
+			double py = path.getY( end - 1 );
+			for( int index = start; index < end; index++ ) {
+				double x = path.getX( index );
+				double y = path.getY( index );
+				addEdge( px, py, x, y );
+				px = x;
+				py = y;
+			}
+		}
+	}
+
+	/**
+	 * Fill the edges with the color and remove the edges.
+	 *
+	 * @param argb The non-premultiplied ARGB color
+	 * @param nonZero True to use the non-zero winding rule, false to use the even-odd rule
+	 */
+	void fill( int argb, boolean nonZero ) {
+		try {
+			if( edgeCount > 0 && (argb >>> 24) != 0 ) scan( argb, nonZero );
+		} finally {
+			reset();
+		}
+	}
+
+	private void scan( int argb, boolean nonZero ) {
+		int firstRow = (int)Math.max( clipY0, Math.floor( minY ) );
+		int lastRow = (int)Math.min( clipY1, Math.ceil( maxY ) );
+		if( firstRow >= lastRow ) return;
+
+		// Bucket the edges by the first row they cross
+		int rows = lastRow - firstRow;
+		if( rowStart.length < rows + 1 ) rowStart = new int[ rows + 1 ];
+		Arrays.fill( rowStart, 0, rows + 1, 0 );
+		for( int edge = 0; edge < edgeCount; edge++ ) {
+			rowStart[ firstRowOf( edge, firstRow ) - firstRow + 1 ]++;
+		}
+		for( int row = 0; row < rows; row++ ) {
+			rowStart[ row + 1 ] += rowStart[ row ];
+		}
+		if( order.length < edgeCount ) order = new int[ edgeCount ];
+		for( int edge = 0; edge < edgeCount; edge++ ) {
+			order[ rowStart[ firstRowOf( edge, firstRow ) - firstRow ]++ ] = edge;
+		}
+		// The bucket offsets were advanced to the end of each bucket
+		if( active.length < edgeCount ) {
+			active = new int[ edgeCount ];
+			crossX = new int[ edgeCount ];
+			crossWinding = new int[ edgeCount ];
+		}
+
+		int next = 0;
+		int activeCount = 0;
+		int maxX = (clipX1 - clipX0) << SHIFT;
+		long originFixed = (long)clipX0 << SHIFT;
+		for( int row = firstRow; row < lastRow; row++ ) {
+			// Add the edges that start in this row
+			int bucketEnd = rowStart[ row - firstRow ];
+			while( next < bucketEnd ) active[ activeCount++ ] = order[ next++ ];
+
+			int minColumn = Integer.MAX_VALUE;
+			int maxColumn = Integer.MIN_VALUE;
+			for( int sample = 0; sample < SUBSAMPLES; sample++ ) {
+				double y = row + (sample + 0.5) / SUBSAMPLES;
+
+				// Find and sort the crossings
+				int count = 0;
+				for( int index = 0; index < activeCount; index++ ) {
+					int edge = active[ index ];
+					if( y < edgeTop[ edge ] || y >= edgeBottom[ edge ] ) continue;
+					double x = edgeX[ edge ] + (y - edgeTop[ edge ]) * edgeSlope[ edge ];
+					int fixed = (int)Math.max( 0, Math.min( maxX, Math.round( x * ONE ) - originFixed ) );
+					int winding = edgeWinding[ edge ];
+					int position = count++;
+					while( position > 0 && crossX[ position - 1 ] > fixed ) {
+						crossX[ position ] = crossX[ position - 1 ];
+						crossWinding[ position ] = crossWinding[ position - 1 ];
+						position--;
+					}
+					crossX[ position ] = fixed;
+					crossWinding[ position ] = winding;
+				}
+
+				// Accumulate the coverage of the spans inside the shape
+				int winding = 0;
+				for( int index = 0; index < count - 1; index++ ) {
+					winding += crossWinding[ index ];
+					boolean inside = nonZero ? winding != 0 : (winding & 1) != 0;
+					if( !inside ) continue;
+					int x0 = crossX[ index ];
+					int x1 = crossX[ index + 1 ];
+					if( x0 == x1 ) continue;
+					int c0 = x0 >> SHIFT;
+					int c1 = x1 >> SHIFT;
+					if( c0 == c1 ) {
+						cover[ c0 ] += x1 - x0;
+					} else {
+						cover[ c0 ] += ONE - (x0 & MASK);
+						delta[ c0 + 1 ] += ONE;
+						delta[ c1 ] -= ONE;
+						cover[ c1 ] += x1 & MASK;
+					}
+					minColumn = Math.min( minColumn, c0 );
+					maxColumn = Math.max( maxColumn, c1 );
+				}
+			}
+
+			if( minColumn <= maxColumn ) composite( row, minColumn, maxColumn, argb );
+
+			// Remove the edges that end in this row
+			int keep = 0;
+			for( int index = 0; index < activeCount; index++ ) {
+				int edge = active[ index ];
+				if( edgeBottom[ edge ] > row + 1 ) active[ keep++ ] = edge;
+			}
+			activeCount = keep;
+		}
+	}
+
+	private int firstRowOf( int edge, int firstRow ) {
+		return (int)Math.max( firstRow, Math.floor( edgeTop[ edge ] ) );
+	}
+
+	/**
+	 * Blend the accumulated row coverage into the pixels and clear the
+	 * coverage.
+	 */
+	private void composite( int row, int minColumn, int maxColumn, int argb ) {
+		int alpha = argb >>> 24;
+		int rgb = argb & 0xffffff;
+		int lastColumn = Math.min( maxColumn, clipX1 - clipX0 - 1 );
+		int offset = (row - originY) * stride + clipX0 - originX;
+		int run = 0;
+		for( int column = minColumn; column <= maxColumn + 1; column++ ) {
+			run += delta[ column ];
+			int coverage = cover[ column ] + run;
+			cover[ column ] = 0;
+			delta[ column ] = 0;
+			if( coverage <= 0 || column > lastColumn ) continue;
+
+			int a = ((coverage >= FULL ? 255 : (coverage * 255 + FULL / 2) / FULL) * alpha + 127) / 255;
+			if( a == 0 ) continue;
+
+			int index = offset + column;
+			if( a == 255 ) {
+				pixels[ index ] = argb;
+			} else {
+				pixels[ index ] = blend( pixels[ index ], rgb, a );
+			}
+		}
+	}
+
+	/**
+	 * Blend a color over a pixel using the source over rule with
+	 * non-premultiplied colors.
+	 */
+	static int blend( int pixel, int rgb, int alpha ) {
+		int da = pixel >>> 24;
+		if( da == 0 ) return (alpha << 24) | rgb;
+
+		// The destination weight scaled by 255
+		int dw = da * (255 - alpha) / 255;
+		int oa = alpha + dw;
+		int r = (((rgb >> 16) & 0xff) * alpha + ((pixel >> 16) & 0xff) * dw + oa / 2) / oa;
+		int g = (((rgb >> 8) & 0xff) * alpha + ((pixel >> 8) & 0xff) * dw + oa / 2) / oa;
+		int b = ((rgb & 0xff) * alpha + (pixel & 0xff) * dw + oa / 2) / oa;
+		return (oa << 24) | (r << 16) | (g << 8) | b;
+	}
+
+}
@@ -0,0 +1,384 @@
+package com.avereon.marea.soft;
+
+import com.avereon.marea.geom.ArcGeometry;
+import javafx.scene.transform.Affine;
+
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.PathIterator;
+import java.util.Arrays;
+
+/**
+ * A path of polylines in screen coordinates. The path methods take local
+ * coordinates, usually world coordinates, that are transformed to the screen
+ * with an affine transform. Curves and arcs are flattened after they are
+ * transformed so the segments are within {@link #FLATNESS} pixels of the
+ * true curve at any zoom level.
+ * <p>
+ * This class is not thread safe.
+ */
+final class ScreenPath {
+
+	/**
+	 * The maximum distance, in pixels, between flattened segments and the true
+	 * curve.
+	 */
+	static final double FLATNESS = 0.25;
+
+	private static final int MAX_SEGMENTS = 4096;
+
+	private double mxx = 1;
+
+	private double mxy;
+
+	private double myx;
+
+	private double myy = 1;
+
+	private double tx;
+
+	private double ty;
+
+	private double[] coords = new double[ 64 ];
+
+	private int pointCount;
+
+	private int[] contourEnds = new int[ 8 ];
+
+	private boolean[] closed = new boolean[ 8 ];
+
+	private int contourCount;
+
+	private boolean open;
+
+	// The current and start points in local coordinates
+	private double localX;
+
+	private double localY;
+
+	private double localStartX;
+
+	private double localStartY;
+
+	/**
+	 * Set the local to screen transform to the identity transform.
+	 */
+	void setIdentity() {
+		setTransform( 1, 0, 0, 1, 0, 0 );
+	}
+
+	void setTransform( Affine transform ) {
+		setTransform( transform.getMxx(), transform.getMyx(), transform.getMxy(), transform.getMyy(), transform.getTx(), transform.getTy() );
+	}
+
+	/**
+	 * Set the local to screen transform to the transform with a rotation about
+	 * an anchor point appended.
+	 *
+	 * @param transform The base transform
+	 * @param rotate The rotation angle in degrees
+	 * @param anchorX The x coordinate of the rotation anchor
+	 * @param anchorY The y coordinate of the rotation anchor
+	 */
+	void setTransform( Affine transform, double rotate, double anchorX, double anchorY ) {
+		if( rotate == 0.0 ) {
+			setTransform( transform );
+			return;
+		}
+
+		double radians = Math.toRadians( rotate );
+		double cos = Math.cos( radians );
+		double sin = Math.sin( radians );
+
+		// The rotation about the anchor point
+		double rtx = anchorX - cos * anchorX + sin * anchorY;
+		double rty = anchorY - sin * anchorX - cos * anchorY;
+
+		double axx = transform.getMxx();
+		double axy = transform.getMxy();
+		double ayx = transform.getMyx();
+		double ayy = transform.getMyy();
+
+		setTransform(
+			axx * cos + axy * sin,
+			ayx * cos + ayy * sin,
+			axy * cos - axx * sin,
+			ayy * cos - ayx * sin,
+			axx * rtx + axy * rty + transform.getTx(),
+			ayx * rtx + ayy * rty + transform.getTy()
+		);
+	}
+
+	/**
+	 * Set the local to screen transform. The arguments are in the same order as
+	 * the graphics context transform arguments.
+	 */
+	void setTransform( double mxx, double myx, double mxy, double myy, double tx, double ty ) {
+		this.mxx = mxx;
+		this.myx = myx;
+		this.mxy = mxy;
+		this.myy = myy;
+		this.tx = tx;
+		this.ty = ty;
+	}
+
+	/**
+	 * Get the scale of the local to screen transform. This is the geometric
+	 * mean of the axis scales and is used to convert widths to pixels.
+	 *
+	 * @return The transform scale
+	 */
+	double getScale() {
+		return Math.sqrt( Math.abs( mxx * myy - mxy * myx ) );
+	}
+
+	void reset() {
+		pointCount = 0;
+		contourCount = 0;
+		open = false;
+		localX = localY = localStartX = localStartY = 0;
+	}
+
+	boolean isEmpty() {
+		return pointCount == 0;
+	}
+
+	void moveTo( double x, double y ) {
+		endContour();
+		localX = localStartX = x;
+		localY = localStartY = y;
+		addScreenPoint( screenX( x, y ), screenY( x, y ) );
+		open = true;
+	}
+
+	void lineTo( double x, double y ) {
+		if( !open ) moveTo( localX, localY );
+		localX = x;
+		localY = y;
+		addScreenPoint( screenX( x, y ), screenY( x, y ) );
+	}
+
+	void quadTo( double x1, double y1, double x2, double y2 ) {
+		if( !open ) moveTo( localX, localY );
+		double ax = lastX();
+		double ay = lastY();
+		double bx = screenX( x1, y1 );
+		double by = screenY( x1, y1 );
+		double cx = screenX( x2, y2 );
+		double cy = screenY( x2, y2 );
+
+		double dd = Math.hypot( ax - 2 * bx + cx, ay - 2 * by + cy );
+		int count = segments( Math.sqrt( 0.25 * dd / FLATNESS ) );
+		for( int index = 1; index < count; index++ ) {
+			double t = (double)index / count;
+			double u = 1 - t;
+			addScreenPoint( u * u * ax + 2 * u * t * bx + t * t * cx, u * u * ay + 2 * u * t * by + t * t * cy );
+		}
+		addScreenPoint( cx, cy );
+		localX = x2;
+		localY = y2;
+	}
+
+	void cubicTo( double x1, double y1, double x2, double y2, double x3, double y3 ) {
+		if( !open ) moveTo( localX, localY );
+		double ax = lastX();
+		double ay = lastY();
+		double bx = screenX( x1, y1 );
+		double by = screenY( x1, y1 );
+		double cx = screenX( x2, y2 );
+		double cy = screenY( x2, y2 );
+		double dx = screenX( x3, y3 );
+		double dy = screenY( x3, y3 );
+
+		double dd = Math.max( Math.hypot( ax - 2 * bx + cx, ay - 2 * by + cy ), Math.hypot( bx - 2 * cx + dx, by - 2 * cy + dy ) );
+		int count = segments( Math.sqrt( 0.75 * dd / FLATNESS ) );
+		for( int index = 1; index < count; index++ ) {
+			double t = (double)index / count;
+			double u = 1 - t;
+			double a = u * u * u;
+			double b = 3 * u * u * t;
+			double c = 3 * u * t * t;
+			double d = t * t * t;
+			addScreenPoint( a * ax + b * bx + c * cx + d * dx, a * ay + b * by + c * cy + d * dy );
+		}
+		addScreenPoint( dx, dy );
+		localX = x3;
+		localY = y3;
+	}
+
+	/**
+	 * Add an elliptical arc. The point at angle a is at (rx cos a, ry sin a)
+	 * rotated by the ellipse rotation and moved to the center.
+	 *
+	 * @param cx The center x coordinate
+	 * @param cy The center y coordinate
+	 * @param rx The x radius
+	 * @param ry The y radius
+	 * @param rotate The ellipse rotation in degrees
+	 * @param start The start angle in degrees
+	 * @param extent The angle extent in degrees
+	 * @param connect True to connect the arc to the current point, false to start a new contour
+	 */
+	void arc( double cx, double cy, double rx, double ry, double rotate, double start, double extent, boolean connect ) {
+		double phi = Math.toRadians( rotate );
+		double cosPhi = Math.cos( phi );
+		double sinPhi = Math.sin( phi );
+
+		// The largest screen radius determines the number of segments
+		double radius = Math.max( Math.abs( rx ), Math.abs( ry ) ) * Math.max( Math.hypot( mxx, myx ), Math.hypot( mxy, myy ) );
+		double sweep = Math.toRadians( extent );
+		int count = 1;
+		if( radius > FLATNESS ) count = segments( Math.abs( sweep ) / (2 * Math.acos( 1 - FLATNESS / radius )) );
+
+		double angle = Math.toRadians( start );
+		for( int index = 0; index <= count; index++ ) {
+			double a = angle + sweep * index / count;
+			double ex = rx * Math.cos( a );
+			double ey = ry * Math.sin( a );
+			double x = cx + cosPhi * ex - sinPhi * ey;
+			double y = cy + sinPhi * ex + cosPhi * ey;
+			if( index == 0 ) {
+				if( connect && open ) {
+					lineTo( x, y );
+				} else {
+					moveTo( x, y );
+				}
+			} else {
+				lineTo( x, y );
+			}
+		}
+	}
+
+	/**
+	 * Add an SVG style elliptical arc from the current point.
+	 */
+	void arcTo( double x, double y, double rx, double ry, double rotate, boolean large, boolean sweep ) {
+		double[] arc = ArcGeometry.endpointToCenter( localX, localY, x, y, rx, ry, rotate, large, sweep );
+		if( arc == null ) {
+			lineTo( x, y );
+			return;
+		}
+		arc( arc[ 0 ], arc[ 1 ], arc[ 2 ], arc[ 3 ], rotate, arc[ 4 ], arc[ 5 ], true );
+		// Use the exact end point
+		localX = x;
+		localY = y;
+	}
+
+	/**
+	 * Add the outline of an AWT shape, like a glyph outline. The shape is
+	 * transformed with the local transform and then with the path transform.
+	 *
+	 * @param shape The shape to add
+	 * @param local The transform from the shape coordinates to local coordinates
+	 * @return The shape winding rule, one of the {@link PathIterator} winding rules
+	 */
+	int append( Shape shape, AffineTransform local ) {
+		AffineTransform transform = new AffineTransform( mxx, myx, mxy, myy, tx, ty );
+		transform.concatenate( local );
+		PathIterator iterator = shape.getPathIterator( transform, FLATNESS );
+		double[] segment = new double[ 6 ];
+		while( !iterator.isDone() ) {
+			switch( iterator.currentSegment( segment ) ) {
+				case PathIterator.SEG_MOVETO -> {
+					endContour();
+					addScreenPoint( segment[ 0 ], segment[ 1 ] );
+				}
+				case PathIterator.SEG_LINETO -> addScreenPoint( segment[ 0 ], segment[ 1 ] );
+				case PathIterator.SEG_CLOSE -> close();
+			}
+			iterator.next();
+		}
+		endContour();
+		return iterator.getWindingRule();
+	}
+
+	void close() {
+		if( !open ) return;
+		closed[ contourCount ] = true;
+		endContour();
+		localX = localStartX;
+		localY = localStartY;
+	}
+
+	int getContourCount() {
+		return contourCount + (open ? 1 : 0);
+	}
+
+	int getContourStart( int contour ) {
+		return contour == 0 ? 0 : contourEnds[ contour - 1 ];
+	}
+
+	int getContourEnd( int contour ) {
+		return contour < contourCount ? contourEnds[ contour ] : pointCount;
+	}
+
+	boolean isClosed( int contour ) {
+		return contour < contourCount && closed[ contour ];
+	}
+
+	int getPointCount() {
+		return pointCount;
+	}
+
+	double getX( int index ) {
+		return coords[ 2 * index ];
+	}
+
+	double getY( int index ) {
+		return coords[ 2 * index + 1 ];
+	}
+
+	/**
+	 * Add a point in screen coordinates to the current contour, ignoring the
+	 * transform. A contour is started if there is no open contour.
+	 */
+	void addScreenPoint( double x, double y ) {
+		if( !open ) {
+			ensureContours();
+			closed[ contourCount ] = false;
+			open = true;
+		}
+		if( 2 * pointCount + 2 > coords.length ) coords = Arrays.copyOf( coords, 2 * coords.length );
+		coords[ 2 * pointCount ] = x;
+		coords[ 2 * pointCount + 1 ] = y;
+		pointCount++;
+	}
+
+	/**
+	 * End the current contour so the next screen point starts a new contour.
+	 */
+	void endContour() {
+		if( !open ) return;
+		ensureContours();
+		contourEnds[ contourCount++ ] = pointCount;
+		open = false;
+	}
+
+	private void ensureContours() {
+		if( contourCount + 1 < contourEnds.length ) return;
+		contourEnds = Arrays.copyOf( contourEnds, 2 * contourEnds.length );
+		closed = Arrays.copyOf( closed, 2 * closed.length );
+	}
+
+	private double lastX() {
+		return coords[ 2 * pointCount - 2 ];
+	}
+
+	private double lastY() {
+		return coords[ 2 * pointCount - 1 ];
+	}
+
+	private double screenX( double x, double y ) {
+		return mxx * x + mxy * y + tx;
+	}
+
+	private double screenY( double x, double y ) {
+		return myx * x + myy * y + ty;
+	}
+
+	private static int segments( double count ) {
+		if( !(count > 1) ) return 1;
+		return (int)Math.min( MAX_SEGMENTS, Math.ceil( count ) );
+	}
+
+}
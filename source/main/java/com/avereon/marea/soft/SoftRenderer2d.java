@@ -0,0 +1,734 @@
+package com.avereon.marea.soft;
+
+import com.avereon.marea.*;
+import com.avereon.marea.geom.*;
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.LinearGradient;
+import javafx.scene.paint.Paint;
+import javafx.scene.paint.RadialGradient;
+import javafx.scene.shape.FillRule;
+import javafx.scene.transform.Affine;
+import javafx.scene.transform.Transform;
+
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.PathIterator;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A renderer that rasterizes into an ARGB pixel buffer in memory instead of a
+ * JavaFX canvas. It does not need the FX toolkit or a display, so it can be
+ * used on headless servers and in tests, and it may be used on any thread
+ * as long as it is only used by one thread at a time.
+ * <p>
+ * The view properties and transforms are the same as the FX renderer, so the
+ * same drawing code produces the same image. Shapes are anti-aliased with
+ * scanline coverage. Strokes support the line caps, line joins and dashes and
+ * fills support the even-odd and non-zero winding rules. Text is drawn with
+ * the AWT glyph outlines of the font.
+ * <p>
+ * The pixels are non-premultiplied ARGB values, one int per pixel, in rows
+ * from the top left corner. The buffer is sized to the renderer width and
+ * height, rounded up, and is reallocated when the size changes.
+ */
+public class SoftRenderer2d extends AbstractRenderer2d implements DirectRenderer2d, ShapeRenderer2d {
+
+	public static final FillRule DEFAULT_FILL_RULE = FillRule.EVEN_ODD;
+
+	/**
+	 * The font size used to create glyph outlines. The outlines are scaled to
+	 * the text height.
+	 */
+	private static final float GLYPH_SIZE = 72f;
+
+	private final ScreenPath path = new ScreenPath();
+
+	private final ScreenPath outline = new ScreenPath();
+
+	private final Stroker stroker = new Stroker();
+
+	private final Rasterizer rasterizer = new Rasterizer();
+
+	private final FontRenderContext fontRenderContext = new FontRenderContext( null, true, true );
+
+	private int[] pixels;
+
+	private int pixelWidth;
+
+	private int pixelHeight;
+
+	// Pen state ----------------------------------------------------------------
+
+	private Paint drawPaint = Color.BLACK;
+
+	private int drawColor = 0xff000000;
+
+	private double drawWidth = 1.0;
+
+	private LineCap drawCap = LineCap.ROUND;
+
+	private LineJoin drawJoin = LineJoin.ROUND;
+
+	private double[] drawDashes;
+
+	private double drawDashOffset;
+
+	private double[] screenDashes = new double[ 0 ];
+
+	private Paint fillPaint = Color.BLACK;
+
+	private int fillColor = 0xff000000;
+
+	private FillRule fillRule = DEFAULT_FILL_RULE;
+
+	// The ids of the interned pens the draw and fill state was set from, or zero
+	private int drawPenId;
+
+	private int fillPenId;
+
+	// Cached values ------------------------------------------------------------
+
+	private Affine visibleTransform;
+
+	private Bounds visibleBounds;
+
+	public SoftRenderer2d() {
+		this( 0, 0 );
+	}
+
+	public SoftRenderer2d( double width, double height ) {
+		super( width, height );
+	}
+
+	/**
+	 * Get the pixel buffer. The buffer is replaced when the renderer size
+	 * changes, so the buffer should not be kept across size changes.
+	 *
+	 * @return The non-premultiplied ARGB pixels
+	 */
+	public int[] getPixels() {
+		flush();
+		return buffer();
+	}
+
+	public int getPixelWidth() {
+		ensureBuffer();
+		return pixelWidth;
+	}
+
+	public int getPixelHeight() {
+		ensureBuffer();
+		return pixelHeight;
+	}
+
+	/**
+	 * Get a pixel value.
+	 *
+	 * @param x The pixel column
+	 * @param y The pixel row
+	 * @return The non-premultiplied ARGB pixel value
+	 */
+	public int getPixel( int x, int y ) {
+		flush();
+		return buffer()[ y * pixelWidth + x ];
+	}
+
+	/**
+	 * Copy the pixels to a new image.
+	 *
+	 * @return A new ARGB image with the rendered pixels
+	 */
+	public BufferedImage toBufferedImage() {
+		flush();
+		ensureBuffer();
+		BufferedImage image = new BufferedImage( pixelWidth, pixelHeight, BufferedImage.TYPE_INT_ARGB );
+		image.setRGB( 0, 0, pixelWidth, pixelHeight, pixels, 0, pixelWidth );
+		return image;
+	}
+
+	/**
+	 * Get the winding rule used to fill paths. Glyph outlines always use the
+	 * winding rule of the font.
+	 *
+	 * @return The fill rule
+	 */
+	public FillRule getFillRule() {
+		return fillRule;
+	}
+
+	public void setFillRule( FillRule fillRule ) {
+		this.fillRule = fillRule == null ? DEFAULT_FILL_RULE : fillRule;
+	}
+
+	@Override
+	public void clear() {
+		ensureBuffer();
+		Arrays.fill( pixels, 0 );
+	}
+
+	/**
+	 * Get the world bounds of the visible area. The bounds are computed once
+	 * for each view.
+	 *
+	 * @return The world bounds of the visible area or null if the view
+	 * transform cannot be inverted
+	 */
+	@Override
+	public Bounds getVisibleBounds() {
+		Affine transform = getWorldToScreen();
+		if( visibleTransform != transform ) {
+			visibleTransform = transform;
+			Transform inverse = getScreenToWorldTransform();
+			visibleBounds = inverse == null ? null : inverse.transform( new BoundingBox( 0, 0, getWidth(), getHeight() ) );
+		}
+		return visibleBounds;
+	}
+
+	/**
+	 * Check if the shape could be visible in the current view.
+	 *
+	 * @param shape The shape to check
+	 * @param margin The distance to expand the shape bounds, usually the pen width
+	 * @return True if the shape could be visible, false otherwise
+	 */
+	public boolean isVisible( Shape2d shape, double margin ) {
+		Bounds visible = getVisibleBounds();
+		Bounds bounds = shape.getBounds();
+		if( bounds.isEmpty() ) return false;
+		if( visible == null ) return true;
+		return bounds.getMaxX() + margin >= visible.getMinX() && bounds.getMinX() - margin <= visible.getMaxX() && bounds.getMaxY() + margin >= visible.getMinY() && bounds.getMinY() - margin <= visible.getMaxY();
+	}
+
+	@Override
+	public void setDrawPen( Pen pen ) {
+		// An interned pen that is already set does not need its color converted
+		if( pen.isInterned() && pen.id() == drawPenId ) return;
+		setDrawPen( pen.paint(), pen.width(), pen.cap(), pen.join(), pen.dashes(), pen.offset() );
+		drawPenId = pen.id();
+	}
+
+	/**
+	 * Set the draw pen. The text flag is only needed by renderers that draw
+	 * text in a scaled coordinate system, text strokes are always in world
+	 * units with this renderer.
+	 */
+	@Override
+	public void setDrawPen( Pen pen, boolean text ) {
+		setDrawPen( pen );
+	}
+
+	@Override
+	public void setDrawPen( Paint paint, double width, LineCap cap, LineJoin join, double[] dashes, double offset ) {
+		drawPaint = paint;
+		drawColor = toArgb( paint );
+		drawWidth = width;
+		drawCap = cap;
+		drawJoin = join;
+		drawDashes = dashes;
+		drawDashOffset = offset;
+		drawPenId = 0;
+	}
+
+	@Override
+	public void setFillPen( Paint paint ) {
+		fillPaint = paint;
+		fillColor = toArgb( paint );
+		fillPenId = 0;
+	}
+
+	@Override
+	public Paint getDrawPaint() {
+		return drawPaint;
+	}
+
+	@Override
+	public double getDrawWidth() {
+		return drawWidth;
+	}
+
+	@Override
+	public Paint getFillPaint() {
+		return fillPaint;
+	}
+
+	private void setFillPen( Pen pen ) {
+		if( pen.isInterned() && pen.id() == fillPenId ) return;
+		setFillPen( pen.paint() );
+		fillPenId = pen.id();
+	}
+
+	public void drawBox( double x, double y, double w, double h, double rotate ) {
+		worldPath( rotate, x, y );
+		box( x, y, w, h );
+		strokeWorld();
+	}
+
+	@Override
+	public void drawLine( double x1, double y1, double x2, double y2 ) {
+		worldPath();
+		path.moveTo( x1, y1 );
+		path.lineTo( x2, y2 );
+		strokeWorld();
+	}
+
+	@Override
+	public void drawEllipse( double cx, double cy, double rx, double ry, double rotate ) {
+		worldPath( rotate, cx, cy );
+		path.arc( cx, cy, rx, ry, 0.0, 0.0, 360.0, false );
+		path.close();
+		strokeWorld();
+	}
+
+	@Override
+	public void drawArc( double cx, double cy, double rx, double ry, double rotate, double start, double extent ) {
+		worldPath( rotate, cx, cy );
+		path.arc( cx, cy, rx, ry, 0.0, start, extent, false );
+		strokeWorld();
+	}
+
+	@Override
+	public void drawQuad( double x1, double y1, double x2, double y2, double x3, double y3 ) {
+		worldPath();
+		path.moveTo( x1, y1 );
+		path.quadTo( x2, y2, x3, y3 );
+		strokeWorld();
+	}
+
+	@Override
+	public void drawCubic( double x1, double y1, double x2, double y2, double x3, double y3, double x4, double y4 ) {
+		worldPath();
+		path.moveTo( x1, y1 );
+		path.cubicTo( x2, y2, x3, y3, x4, y4 );
+		strokeWorld();
+	}
+
+	@Override
+	public void drawPath( List<Path.Step> steps ) {
+		worldPath();
+		runPath( steps );
+		strokeWorld();
+	}
+
+	@Override
+	public void drawPath( PackedPath packed ) {
+		worldPath();
+		runPath( packed );
+		strokeWorld();
+	}
+
+	@Override
+	public void drawText( double x, double y, double height, double rotate, String text, Font font ) {
+		worldPath( rotate, x, y );
+		glyphs( x, y, height, text, font );
+		strokeWorld();
+	}
+
+	public void fillBox( double x, double y, double w, double h, double rotate ) {
+		worldPath( rotate, x, y );
+		box( x, y, w, h );
+		fill( fillColor, false );
+	}
+
+	@Override
+	public void fillEllipse( double cx, double cy, double rx, double ry, double rotate ) {
+		worldPath( rotate, cx, cy );
+		path.arc( cx, cy, rx, ry, 0.0, 0.0, 360.0, false );
+		path.close();
+		fill( fillColor, false );
+	}
+
+	@Override
+	@Deprecated
+	public void fillPath( List<Path.Step> steps ) {
+		worldPath();
+		runPath( steps );
+		fill( fillColor, fillRule == FillRule.NON_ZERO );
+	}
+
+	@Override
+	public void fillPath( PackedPath packed ) {
+		worldPath();
+		runPath( packed );
+		fill( fillColor, fillRule == FillRule.NON_ZERO );
+	}
+
+	@Override
+	public void fillText( double x, double y, double height, double rotate, String text, Font font ) {
+		worldPath( rotate, x, y );
+		int winding = glyphs( x, y, height, text, font );
+		fill( fillColor, winding == PathIterator.WIND_NON_ZERO );
+	}
+
+	@Override
+	public void startPath() {
+		worldPath();
+	}
+
+	@Override
+	public void moveTo( double x, double y ) {
+		path.moveTo( x, y );
+	}
+
+	@Override
+	public void lineTo( double x, double y ) {
+		path.lineTo( x, y );
+	}
+
+	@Override
+	public void arcTo( double x, double y, double rx, double ry, double rotate, boolean large, boolean sweep ) {
+		path.arcTo( x, y, rx, ry, rotate, large, sweep );
+	}
+
+	/**
+	 * Add a center arc to the current path. The angles have the same direction
+	 * as the FX renderer, which uses the graphics context arc angles.
+	 */
+	@Override
+	public void arcTo( double cx, double cy, double rx, double ry, double start, double extent ) {
+		path.arc( cx, cy, rx, ry, 0.0, -start, -extent, true );
+	}
+
+	@Override
+	public void pathQuadTo( double x1, double y1, double x2, double y2 ) {
+		path.quadTo( x1, y1, x2, y2 );
+	}
+
+	@Override
+	public void pathCubicTo( double x1, double y1, double x2, double y2, double x3, double y3 ) {
+		path.cubicTo( x1, y1, x2, y2, x3, y3 );
+	}
+
+	@Override
+	public void pathClose() {
+		path.close();
+	}
+
+	@Override
+	public void drawPath() {
+		strokeWorld();
+	}
+
+	@Override
+	public void fillPath() {
+		fill( fillColor, fillRule == FillRule.NON_ZERO );
+	}
+
+	@Override
+	public void fillScreenOval( double x, double y, double w, double h ) {
+		screenPath();
+		path.arc( x + 0.5 * w, y + 0.5 * h, 0.5 * w, 0.5 * h, 0.0, 0.0, 360.0, false );
+		path.close();
+		fill( fillColor, false );
+	}
+
+	@Override
+	public void drawScreenOval( double x, double y, double w, double h ) {
+		screenPath();
+		path.arc( x + 0.5 * w, y + 0.5 * h, 0.5 * w, 0.5 * h, 0.0, 0.0, 360.0, false );
+		path.close();
+		stroke( 1.0 );
+	}
+
+	@Override
+	public void fillScreenBox( double x, double y, double w, double h ) {
+		screenPath();
+		box( x, y, w, h );
+		fill( fillColor, false );
+	}
+
+	@Override
+	public void drawScreenBox( double x, double y, double w, double h ) {
+		screenPath();
+		box( x, y, w, h );
+		stroke( 1.0 );
+	}
+
+	@Override
+	public void drawScreenHRule( double position ) {
+		screenPath();
+		path.moveTo( 0, position );
+		path.lineTo( getWidth(), position );
+		stroke( 1.0 );
+	}
+
+	@Override
+	public void drawScreenVRule( double position ) {
+		screenPath();
+		path.moveTo( position, 0 );
+		path.lineTo( position, getHeight() );
+		stroke( 1.0 );
+	}
+
+	@Override
+	public void drawHRule( double position, Pen pen ) {
+		int color = drawColor;
+		double width = drawWidth;
+		drawColor = toArgb( pen.paint() );
+		drawWidth = pen.width();
+		drawScreenHRule( position );
+		drawColor = color;
+		drawWidth = width;
+	}
+
+	@Override
+	public void drawVRule( double position, Pen pen ) {
+		int color = drawColor;
+		double width = drawWidth;
+		drawColor = toArgb( pen.paint() );
+		drawWidth = pen.width();
+		drawScreenVRule( position );
+		drawColor = color;
+		drawWidth = width;
+	}
+
+	@Override
+	public void draw( Shape2d shape, Pen pen ) {
+		if( !isVisible( shape, pen.width() ) ) return;
+		setDrawPen( pen );
+		if( shape.type() == ShapeType.TEXT ) {
+			Text text = (Text)shape;
+			double[] anchor = text.getAnchor();
+			drawText( anchor[ 0 ], anchor[ 1 ], text.getHeight(), text.getRotate(), text.getText(), text.getFont() );
+			return;
+		}
+		flatPath( shape );
+		strokeWorld();
+	}
+
+	@Override
+	public void draw( Collection<? extends Shape2d> shapes, Pen pen ) {
+		shapes.forEach( s -> draw( s, pen ) );
+	}
+
+	/**
+	 * Fill a shape. Like the FX renderer, only ellipses, paths and text are
+	 * filled.
+	 */
+	@Override
+	public void fill( Shape2d shape, Pen pen ) {
+		if( !isVisible( shape, 0.0 ) ) return;
+		setFillPen( pen );
+		switch( shape.type() ) {
+			case ELLIPSE, PATH -> {
+				flatPath( shape );
+				fill( fillColor, fillRule == FillRule.NON_ZERO );
+			}
+			case TEXT -> {
+				Text text = (Text)shape;
+				double[] anchor = text.getAnchor();
+				fillText( anchor[ 0 ], anchor[ 1 ], text.getHeight(), text.getRotate(), text.getText(), text.getFont() );
+			}
+		}
+	}
+
+	@Override
+	public void fill( Collection<? extends Shape2d> shapes, Pen pen ) {
+		shapes.forEach( s -> fill( s, pen ) );
+	}
+
+	/**
+	 * Convert a paint to a non-premultiplied ARGB color. Gradients use the
+	 * color of the first stop and other paints are black. A null paint is
+	 * transparent, so nothing is drawn.
+	 *
+	 * @param paint The paint to convert
+	 * @return The ARGB color
+	 */
+	static int toArgb( Paint paint ) {
+		if( paint == null ) return 0;
+		Color color = Color.BLACK;
+		if( paint instanceof Color value ) {
+			color = value;
+		} else if( paint instanceof LinearGradient gradient && !gradient.getStops().isEmpty() ) {
+			color = gradient.getStops().get( 0 ).getColor();
+		} else if( paint instanceof RadialGradient gradient && !gradient.getStops().isEmpty() ) {
+			color = gradient.getStops().get( 0 ).getColor();
+		}
+		int a = (int)Math.round( color.getOpacity() * 255 );
+		int r = (int)Math.round( color.getRed() * 255 );
+		int g = (int)Math.round( color.getGreen() * 255 );
+		int b = (int)Math.round( color.getBlue() * 255 );
+		return (a << 24) | (r << 16) | (g << 8) | b;
+	}
+
+	/**
+	 * Get the pixel buffer without waiting for pending drawing.
+	 */
+	int[] buffer() {
+		ensureBuffer();
+		return pixels;
+	}
+
+	/**
+	 * Finish any pending drawing. Drawing is immediate with this renderer, but
+	 * renderers that defer the rasterization must finish before the pixels are
+	 * read.
+	 */
+	void flush() {}
+
+	/**
+	 * Fill the contours of a screen path with a color. All the drawing methods
+	 * end here, so this is the only method that writes pixels.
+	 *
+	 * @param source The screen path to fill
+	 * @param color The non-premultiplied ARGB color
+	 * @param nonZero True to use the non-zero winding rule, false to use the even-odd rule
+	 */
+	void rasterize( ScreenPath source, int color, boolean nonZero ) {
+		ensureBuffer();
+		rasterizer.addPath( source );
+		rasterizer.fill( color, nonZero );
+	}
+
+	private void ensureBuffer() {
+		int width = (int)Math.max( 0, Math.ceil( getWidth() ) );
+		int height = (int)Math.max( 0, Math.ceil( getHeight() ) );
+		if( pixels != null && width == pixelWidth && height == pixelHeight ) return;
+		pixels = new int[ width * height ];
+		pixelWidth = width;
+		pixelHeight = height;
+		rasterizer.setTarget( pixels, width, height, 0, 0 );
+	}
+
+	private void worldPath() {
+		path.reset();
+		path.setTransform( getWorldToScreen() );
+	}
+
+	private void worldPath( double rotate, double anchorX, double anchorY ) {
+		path.reset();
+		path.setTransform( getWorldToScreen(), rotate, anchorX, anchorY );
+	}
+
+	private void screenPath() {
+		path.reset();
+		path.setIdentity();
+	}
+
+	private void box( double x, double y, double w, double h ) {
+		path.moveTo( x, y );
+		path.lineTo( x + w, y );
+		path.lineTo( x + w, y + h );
+		path.lineTo( x, y + h );
+		path.close();
+	}
+
+	/**
+	 * Set the path to the flattened shape. The flattened points are in world
+	 * coordinates and already include the shape rotation.
+	 */
+	private void flatPath( Shape2d shape ) {
+		worldPath();
+		Affine transform = getWorldToScreen();
+		double scale = Math.max( Math.hypot( transform.getMxx(), transform.getMyx() ), Math.hypot( transform.getMxy(), transform.getMyy() ) );
+		FlatPath flat = shape.getFlatPath( ScreenPath.FLATNESS / scale );
+		int contours = flat.getContourCount();
+		for( int contour = 0; contour < contours; contour++ ) {
+			int start = flat.getContourStart( contour );
+			int end = flat.getContourEnd( contour );
+			path.moveTo( flat.getX( start ), flat.getY( start ) );
+			for( int index = start + 1; index < end; index++ ) path.lineTo( flat.getX( index ), flat.getY( index ) );
+			if( flat.isClosed( contour ) ) path.close();
+		}
+	}
+
+	/**
+	 * Add the glyph outlines of the text to the path. The text baseline starts
+	 * at the anchor and each line is below the previous line.
+	 *
+	 * @return The winding rule of the glyph outlines
+	 */
+	private int glyphs( double x, double y, double height, String text, Font font ) {
+		if( text == null || text.isEmpty() ) return PathIterator.WIND_NON_ZERO;
+		ResolvedFont glyphFont = FontCache.resolve( font, GLYPH_SIZE );
+		java.awt.Font awtFont = glyphFont.getAwtFont();
+		double scale = height / GLYPH_SIZE;
+		AffineTransform local = new AffineTransform( scale, 0, 0, -scale, x, y );
+		double lineHeight = glyphFont.getLineHeight();
+
+		int winding = PathIterator.WIND_NON_ZERO;
+		int lineStart = 0;
+		int line = 0;
+		while( lineStart <= text.length() ) {
+			int lineEnd = text.indexOf( '\n', lineStart );
+			if( lineEnd < 0 ) lineEnd = text.length();
+			if( lineEnd > lineStart ) {
+				GlyphVector glyphs = awtFont.createGlyphVector( fontRenderContext, text.substring( lineStart, lineEnd ) );
+				winding = path.append( glyphs.getOutline( 0, (float)(line * lineHeight) ), local );
+			}
+			lineStart = lineEnd + 1;
+			line++;
+		}
+		return winding;
+	}
+
+	/**
+	 * Stroke the path with the draw pen. The pen width and dashes are in world
+	 * units.
+	 */
+	private void strokeWorld() {
+		stroke( path.getScale() );
+	}
+
+	/**
+	 * Stroke the path with the draw pen.
+	 *
+	 * @param scale The number of pixels per pen unit
+	 */
+	private void stroke( double scale ) {
+		if( (drawColor >>> 24) == 0 ) return;
+
+		double[] dashes = null;
+		if( drawDashes != null && drawDashes.length > 0 ) {
+			if( screenDashes.length != drawDashes.length ) screenDashes = new double[ drawDashes.length ];
+			for( int index = 0; index < drawDashes.length; index++ ) screenDashes[ index ] = drawDashes[ index ] * scale;
+			dashes = screenDashes;
+		}
+
+		outline.reset();
+		stroker.stroke( path, outline, drawWidth * scale, drawCap, drawJoin, dashes, drawDashOffset * scale );
+		rasterize( outline, drawColor, true );
+	}
+
+	private void fill( int color, boolean nonZero ) {
+		if( (color >>> 24) == 0 ) return;
+		rasterize( path, color, nonZero );
+	}
+
+	private void runPath( List<Path.Step> steps ) {
+		for( Path.Step step : steps ) {
+			double[] data = step.data();
+			switch( step.command() ) {
+				case MOVE -> path.moveTo( data[ 0 ], data[ 1 ] );
+				case LINE -> path.lineTo( data[ 0 ], data[ 1 ] );
+				case CURVE -> path.cubicTo( data[ 0 ], data[ 1 ], data[ 2 ], data[ 3 ], data[ 4 ], data[ 5 ] );
+				case QUAD -> path.quadTo( data[ 0 ], data[ 1 ], data[ 2 ], data[ 3 ] );
+				case ARC -> path.arcTo( data[ 0 ], data[ 1 ], data[ 2 ], data[ 3 ], data[ 4 ], data[ 5 ] != 0, data[ 6 ] != 0 );
+				case CLOSE -> path.close();
+			}
+		}
+	}
+
+	private void runPath( PackedPath packed ) {
+		PackedPath.Cursor cursor = packed.cursor();
+		double[] c = cursor.coords();
+		while( cursor.next() ) {
+			int o = cursor.offset();
+			switch( cursor.command() ) {
+				case MOVE -> path.moveTo( c[ o ], c[ o + 1 ] );
+				case LINE -> path.lineTo( c[ o ], c[ o + 1 ] );
+				case CURVE -> path.cubicTo( c[ o ], c[ o + 1 ], c[ o + 2 ], c[ o + 3 ], c[ o + 4 ], c[ o + 5 ] );
+				case QUAD -> path.quadTo( c[ o ], c[ o + 1 ], c[ o + 2 ], c[ o + 3 ] );
+				case ARC -> path.arcTo( c[ o ], c[ o + 1 ], c[ o + 2 ], c[ o + 3 ], c[ o + 4 ], c[ o + 5 ] != 0, c[ o + 6 ] != 0 );
+				case CLOSE -> path.close();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,298 @@
+package com.avereon.marea.soft;
+
+import com.avereon.marea.LineCap;
+import com.avereon.marea.LineJoin;
+
+/**
+ * Converts the contours of a screen path to the outline of a stroke. Each
+ * segment, join and cap is added as a separate polygon with the same
+ * orientation, so filling the result with the non-zero winding rule fills
+ * the union of the pieces without seams. Dashes are applied before the
+ * stroke so each dash gets caps.
+ * <p>
+ * All the lengths are in pixels. This class is not thread safe.
+ */
+final class Stroker {
+
+	private static final double MITER_LIMIT = 10.0;
+
+	private static final double EPSILON = 1e-9;
+
+	private final ScreenPath dashed = new ScreenPath();
+
+	private final double[] polygon = new double[ 8 ];
+
+	private double[] points = new double[ 64 ];
+
+	private ScreenPath output;
+
+	private double halfWidth;
+
+	private LineCap cap;
+
+	private LineJoin join;
+
+	/**
+	 * Add the stroke outline of the path to the output path. The output path
+	 * must be filled with the non-zero winding rule.
+	 *
+	 * @param path The path to stroke
+	 * @param output The path to add the outline polygons to
+	 * @param width The stroke width in pixels
+	 * @param cap The line cap
+	 * @param join The line join
+	 * @param dashes The dash pattern in pixels, may be null or empty
+	 * @param offset The dash offset in pixels
+	 */
+	void stroke( ScreenPath path, ScreenPath output, double width, LineCap cap, LineJoin join, double[] dashes, double offset ) {
+		if( !(width > 0) ) return;
+		this.output = output;
+		this.halfWidth = 0.5 * width;
+		this.cap = cap == null ? LineCap.ROUND : cap;
+		this.join = join == null ? LineJoin.ROUND : join;
+
+		if( isDashed( dashes ) ) {
+			dashed.reset();
+			dash( path, dashes, offset );
+			path = dashed;
+		}
+
+		int contours = path.getContourCount();
+		for( int contour = 0; contour < contours; contour++ ) {
+			strokeContour( path, path.getContourStart( contour ), path.getContourEnd( contour ), path.isClosed( contour ) );
+		}
+		this.output = null;
+	}
+
+	private static boolean isDashed( double[] dashes ) {
+		if( dashes == null || dashes.length == 0 ) return false;
+		double total = 0;
+		for( double dash : dashes ) {
+			if( !(dash >= 0) ) return false;
+			total += dash;
+		}
+		return total > 0;
+	}
+
+	/**
+	 * Split the contours of the path into open dash contours. An odd length
+	 * pattern is repeated so the dashes alternate.
+	 */
+	private void dash( ScreenPath path, double[] dashes, double offset ) {
+		int patternLength = dashes.length % 2 == 0 ? dashes.length : 2 * dashes.length;
+		double total = 0;
+		for( int index = 0; index < patternLength; index++ ) total += dashes[ index % dashes.length ];
+
+		int contours = path.getContourCount();
+		for( int contour = 0; contour < contours; contour++ ) {
+			int start = path.getContourStart( contour );
+			int end = path.getContourEnd( contour );
+			boolean closed = path.isClosed( contour );
+
+			// Find the starting dash from the offset
+			int dash = 0;
+			double phase = offset % total;
+			if( phase < 0 ) phase += total;
+			while( phase >= dashes[ dash % dashes.length ] ) {
+				phase -= dashes[ dash % dashes.length ];
+				dash = (dash + 1) % patternLength;
+			}
+			double remaining = dashes[ dash % dashes.length ] - phase;
+			boolean on = dash % 2 == 0;
+
+			if( on ) dashed.addScreenPoint( path.getX( start ), path.getY( start ) );
+			int segments = closed ? end - start : end - start - 1;
+			for( int segment = 0; segment < segments; segment++ ) {
+				int a = start + segment;
+				int b = a + 1 < end ? a + 1 : start;
+				double ax = path.getX( a );
+				double ay = path.getY( a );
+				double dx = path.getX( b ) - ax;
+				double dy = path.getY( b ) - ay;
+				double length = Math.hypot( dx, dy );
+				double position = 0;
+				while( length - position > remaining ) {
+					position += remaining;
+					double t = position / length;
+					dashed.addScreenPoint( ax + t * dx, ay + t * dy );
+					if( on ) dashed.endContour();
+					on = !on;
+					dash = (dash + 1) % patternLength;
+					remaining = dashes[ dash % dashes.length ];
+				}
+				remaining -= length - position;
+				if( on ) dashed.addScreenPoint( ax + dx, ay + dy );
+			}
+			dashed.endContour();
+		}
+	}
+
+	private void strokeContour( ScreenPath path, int start, int end, boolean closed ) {
+		// Remove repeated points
+		int count = 0;
+		if( points.length < 2 * (end - start) ) points = new double[ 2 * (end - start) ];
+		for( int index = start; index < end; index++ ) {
+			double x = path.getX( index );
+			double y = path.getY( index );
+			if( count > 0 && Math.abs( x - points[ 2 * count - 2 ] ) < EPSILON && Math.abs( y - points[ 2 * count - 1 ] ) < EPSILON ) continue;
+			points[ 2 * count ] = x;
+			points[ 2 * count + 1 ] = y;
+			count++;
+		}
+		if( closed && count > 1 && Math.abs( points[ 0 ] - points[ 2 * count - 2 ] ) < EPSILON && Math.abs( points[ 1 ] - points[ 2 * count - 1 ] ) < EPSILON ) count--;
+		if( count == 0 ) return;
+
+		if( count == 1 ) {
+			dot( points[ 0 ], points[ 1 ] );
+			return;
+		}
+
+		int segments = closed ? count : count - 1;
+		for( int segment = 0; segment < segments; segment++ ) {
+			int a = segment;
+			int b = (segment + 1) % count;
+			segment( points[ 2 * a ], points[ 2 * a + 1 ], points[ 2 * b ], points[ 2 * b + 1 ] );
+		}
+
+		// Joins
+		int first = closed ? 0 : 1;
+		int last = closed ? count : count - 1;
+		for( int vertex = first; vertex < last; vertex++ ) {
+			int p = (vertex + count - 1) % count;
+			int n = (vertex + 1) % count;
+			join( points[ 2 * p ], points[ 2 * p + 1 ], points[ 2 * vertex ], points[ 2 * vertex + 1 ], points[ 2 * n ], points[ 2 * n + 1 ] );
+		}
+
+		// Caps
+		if( !closed ) {
+			cap( points[ 0 ], points[ 1 ], points[ 2 ], points[ 3 ] );
+			cap( points[ 2 * count - 2 ], points[ 2 * count - 1 ], points[ 2 * count - 4 ], points[ 2 * count - 3 ] );
+		}
+	}
+
+	/**
+	 * Add the rectangle covering a segment.
+	 */
+	private void segment( double x0, double y0, double x1, double y1 ) {
+		double dx = x1 - x0;
+		double dy = y1 - y0;
+		double length = Math.hypot( dx, dy );
+		double nx = -dy / length * halfWidth;
+		double ny = dx / length * halfWidth;
+		polygon( 4, x0 + nx, y0 + ny, x1 + nx, y1 + ny, x1 - nx, y1 - ny, x0 - nx, y0 - ny );
+	}
+
+	/**
+	 * Add the join between the segments from p to v and from v to n.
+	 */
+	private void join( double px, double py, double vx, double vy, double nx, double ny ) {
+		if( join == LineJoin.ROUND ) {
+			circle( vx, vy );
+			return;
+		}
+
+		double ax = vx - px;
+		double ay = vy - py;
+		double al = Math.hypot( ax, ay );
+		ax /= al;
+		ay /= al;
+		double bx = nx - vx;
+		double by = ny - vy;
+		double bl = Math.hypot( bx, by );
+		bx /= bl;
+		by /= bl;
+
+		double cross = ax * by - ay * bx;
+		if( Math.abs( cross ) < EPSILON ) return;
+
+		// The offsets on the outer side of the turn
+		double side = cross > 0 ? -halfWidth : halfWidth;
+		double ox0 = -ay * side;
+		double oy0 = ax * side;
+		double ox1 = -by * side;
+		double oy1 = bx * side;
+
+		if( join == LineJoin.MITER ) {
+			double cos = ax * bx + ay * by;
+			double ratio = Math.sqrt( 2 / (1 + cos) );
+			if( ratio <= MITER_LIMIT ) {
+				double scale = 1 / (1 + cos);
+				double mx = (ox0 + ox1) * scale;
+				double my = (oy0 + oy1) * scale;
+				polygon( 4, vx, vy, vx + ox0, vy + oy0, vx + mx, vy + my, vx + ox1, vy + oy1 );
+				return;
+			}
+		}
+
+		polygon( 3, vx, vy, vx + ox0, vy + oy0, vx + ox1, vy + oy1, 0, 0 );
+	}
+
+	/**
+	 * Add the cap at the end point x, y of a segment that comes from the
+	 * point px, py.
+	 */
+	private void cap( double x, double y, double px, double py ) {
+		switch( cap ) {
+			case ROUND -> circle( x, y );
+			case SQUARE -> {
+				double dx = x - px;
+				double dy = y - py;
+				double length = Math.hypot( dx, dy );
+				dx = dx / length * halfWidth;
+				dy = dy / length * halfWidth;
+				polygon( 4, x - dy, y + dx, x + dx - dy, y + dy + dx, x + dx + dy, y + dy - dx, x + dy, y - dx );
+			}
+			default -> {}
+		}
+	}
+
+	/**
+	 * Add the stroke of a contour that is a single point.
+	 */
+	private void dot( double x, double y ) {
+		switch( cap ) {
+			case ROUND -> circle( x, y );
+			case SQUARE -> polygon( 4, x - halfWidth, y - halfWidth, x + halfWidth, y - halfWidth, x + halfWidth, y + halfWidth, x - halfWidth, y + halfWidth );
+			default -> {}
+		}
+	}
+
+	private void circle( double x, double y ) {
+		int count = 8;
+		if( halfWidth > ScreenPath.FLATNESS ) count = Math.max( count, (int)Math.ceil( Math.PI / Math.acos( 1 - ScreenPath.FLATNESS / halfWidth ) ) );
+		for( int index = 0; index < count; index++ ) {
+			double angle = 2 * Math.PI * index / count;
+			output.addScreenPoint( x + halfWidth * Math.cos( angle ), y + halfWidth * Math.sin( angle ) );
+		}
+		output.endContour();
+	}
+
+	/**
+	 * Add a polygon with a positive orientation, the same orientation as the
+	 * circles, so the pieces of the stroke do not cancel each other.
+	 */
+	private void polygon( int count, double x0, double y0, double x1, double y1, double x2, double y2, double x3, double y3 ) {
+		polygon[ 0 ] = x0;
+		polygon[ 1 ] = y0;
+		polygon[ 2 ] = x1;
+		polygon[ 3 ] = y1;
+		polygon[ 4 ] = x2;
+		polygon[ 5 ] = y2;
+		polygon[ 6 ] = x3;
+		polygon[ 7 ] = y3;
+
+		double area = 0;
+		for( int index = 0; index < count; index++ ) {
+			int next = (index + 1) % count;
+			area += polygon[ 2 * index ] * polygon[ 2 * next + 1 ] - polygon[ 2 * next ] * polygon[ 2 * index + 1 ];
+		}
+
+		if( area >= 0 ) {
+			for( int index = 0; index < count; index++ ) output.addScreenPoint( polygon[ 2 * index ], polygon[ 2 * index + 1 ] );
+		} else {
+			for( int index = count - 1; index >= 0; index-- ) output.addScreenPoint( polygon[ 2 * index ], polygon[ 2 * index + 1 ] );
+		}
+		output.endContour();
+	}
+
+}
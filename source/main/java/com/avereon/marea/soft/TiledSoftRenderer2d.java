@@ -0,0 +1,308 @@
+package com.avereon.marea.soft;
+
+import com.avereon.marea.ViewState;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A software renderer that rasterizes in parallel tiles. The drawing methods
+ * convert each shape to screen polygons and record them with their screen
+ * bounds. When the pixels are needed, or when the recorded polygons reach a
+ * limit, each polygon is routed to the tiles its bounds cover and the tiles
+ * are rasterized in parallel on a fork join pool.
+ * <p>
+ * Each tile rasterizes its polygons in the order they were drawn and only
+ * writes the pixels inside the tile. The rasterizer coverage does not depend
+ * on the clip, so the image is pixel identical to the image from
+ * {@link SoftRenderer2d}, regardless of the tile size or the number of
+ * threads.
+ * <p>
+ * The drawing methods must be used by one thread at a time, like
+ * {@link SoftRenderer2d}.
+ */
+public class TiledSoftRenderer2d extends SoftRenderer2d {
+
+	public static final int DEFAULT_TILE_SIZE = 256;
+
+	/**
+	 * The number of recorded points that causes the recorded polygons to be
+	 * rasterized, to limit the memory used by large scenes.
+	 */
+	private static final int FLUSH_POINT_COUNT = 1 << 22;
+
+	private final int tileSize;
+
+	private final ForkJoinPool pool;
+
+	// Recorded polygons --------------------------------------------------------
+
+	private double[] points = new double[ 1024 ];
+
+	private int pointCount;
+
+	private int[] contourEnds = new int[ 64 ];
+
+	private int contourCount;
+
+	private int[] polygonEnds = new int[ 64 ];
+
+	private int[] polygonColors = new int[ 64 ];
+
+	private boolean[] polygonNonZero = new boolean[ 64 ];
+
+	// The screen pixel bounds of each polygon: min x, min y, max x, max y
+	private int[] polygonBounds = new int[ 256 ];
+
+	private int polygonCount;
+
+	public TiledSoftRenderer2d() {
+		this( 0, 0 );
+	}
+
+	public TiledSoftRenderer2d( double width, double height ) {
+		this( width, height, DEFAULT_TILE_SIZE, ForkJoinPool.commonPool() );
+	}
+
+	public TiledSoftRenderer2d( double width, double height, int tileSize, ForkJoinPool pool ) {
+		super( width, height );
+		if( tileSize < 1 ) throw new IllegalArgumentException( "Tile size must be greater than zero: " + tileSize );
+		this.tileSize = tileSize;
+		this.pool = pool;
+	}
+
+	public int getTileSize() {
+		return tileSize;
+	}
+
+	public ForkJoinPool getPool() {
+		return pool;
+	}
+
+	/**
+	 * Get the number of polygons waiting to be rasterized.
+	 *
+	 * @return The number of pending polygons
+	 */
+	public int getPendingCount() {
+		return polygonCount;
+	}
+
+	/**
+	 * Rasterize the pending polygons before the size changes, since they were
+	 * recorded for the pixel buffer of the old size.
+	 */
+	@Override
+	public void setViewState( ViewState state ) {
+		if( polygonCount > 0 && (state.width() != getWidth() || state.height() != getHeight()) ) flush();
+		super.setViewState( state );
+	}
+
+	/**
+	 * Clear the pixels and discard the pending polygons.
+	 */
+	@Override
+	public void clear() {
+		resetPolygons();
+		super.clear();
+	}
+
+	/**
+	 * Rasterize the pending polygons. This is called when the pixels are read,
+	 * so it is usually not necessary to call it directly.
+	 */
+	@Override
+	public void flush() {
+		if( polygonCount == 0 ) return;
+		try {
+			int[] pixels = buffer();
+			int width = getPixelWidth();
+			int height = getPixelHeight();
+			if( width == 0 || height == 0 ) return;
+
+			int columns = (width + tileSize - 1) / tileSize;
+			int rows = (height + tileSize - 1) / tileSize;
+			int[][] tiles = route( columns, rows );
+			TileJob job = new TileJob( pixels, width, height, tileSize, columns, tiles, points, contourEnds, polygonEnds, polygonColors, polygonNonZero );
+			pool.invoke( new TileTask( job, 0, tiles.length ) );
+		} finally {
+			resetPolygons();
+		}
+	}
+
+	@Override
+	void rasterize( ScreenPath source, int color, boolean nonZero ) {
+		int contours = source.getContourCount();
+		int start = pointCount;
+		double minX = Double.POSITIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+
+		for( int contour = 0; contour < contours; contour++ ) {
+			int contourStart = source.getContourStart( contour );
+			int contourEnd = source.getContourEnd( contour );
+			if( contourEnd - contourStart < 2 ) continue;
+			ensurePoints( contourEnd - contourStart );
+			for( int index = contourStart; index < contourEnd; index++ ) {
+				double x = source.getX( index );
+				double y = source.getY( index );
+				points[ 2 * pointCount ] = x;
+				points[ 2 * pointCount + 1 ] = y;
+				pointCount++;
+				minX = Math.min( minX, x );
+				minY = Math.min( minY, y );
+				maxX = Math.max( maxX, x );
+				maxY = Math.max( maxY, y );
+			}
+			if( contourCount == contourEnds.length ) contourEnds = Arrays.copyOf( contourEnds, 2 * contourCount );
+			contourEnds[ contourCount++ ] = pointCount;
+		}
+
+		// Ignore polygons that are empty or outside the target
+		boolean outside = maxX < 0 || maxY < 0 || minX >= getPixelWidth() || minY >= getPixelHeight();
+		if( pointCount == start || outside || Double.isNaN( minX + minY + maxX + maxY ) ) {
+			while( contourCount > 0 && contourEnds[ contourCount - 1 ] > start ) contourCount--;
+			pointCount = start;
+			return;
+		}
+
+		if( polygonCount == polygonEnds.length ) {
+			int size = 2 * polygonCount;
+			polygonEnds = Arrays.copyOf( polygonEnds, size );
+			polygonColors = Arrays.copyOf( polygonColors, size );
+			polygonNonZero = Arrays.copyOf( polygonNonZero, size );
+			polygonBounds = Arrays.copyOf( polygonBounds, 4 * size );
+		}
+		polygonEnds[ polygonCount ] = contourCount;
+		polygonColors[ polygonCount ] = color;
+		polygonNonZero[ polygonCount ] = nonZero;
+		polygonBounds[ 4 * polygonCount ] = (int)Math.max( 0, Math.floor( minX ) );
+		polygonBounds[ 4 * polygonCount + 1 ] = (int)Math.max( 0, Math.floor( minY ) );
+		polygonBounds[ 4 * polygonCount + 2 ] = (int)Math.min( getPixelWidth() - 1, Math.floor( maxX ) );
+		polygonBounds[ 4 * polygonCount + 3 ] = (int)Math.min( getPixelHeight() - 1, Math.floor( maxY ) );
+		polygonCount++;
+
+		if( pointCount >= FLUSH_POINT_COUNT ) flush();
+	}
+
+	/**
+	 * Route the polygons to the tiles their bounds cover. The polygons in each
+	 * tile are in the order they were drawn.
+	 *
+	 * @return The polygon indexes for each tile
+	 */
+	private int[][] route( int columns, int rows ) {
+		int[] counts = new int[ columns * rows ];
+		for( int polygon = 0; polygon < polygonCount; polygon++ ) {
+			int b = 4 * polygon;
+			for( int row = polygonBounds[ b + 1 ] / tileSize; row <= polygonBounds[ b + 3 ] / tileSize; row++ ) {
+				for( int column = polygonBounds[ b ] / tileSize; column <= polygonBounds[ b + 2 ] / tileSize; column++ ) {
+					counts[ row * columns + column ]++;
+				}
+			}
+		}
+
+		int[][] tiles = new int[ columns * rows ][];
+		for( int tile = 0; tile < tiles.length; tile++ ) {
+			tiles[ tile ] = new int[ counts[ tile ] ];
+			counts[ tile ] = 0;
+		}
+
+		for( int polygon = 0; polygon < polygonCount; polygon++ ) {
+			int b = 4 * polygon;
+			for( int row = polygonBounds[ b + 1 ] / tileSize; row <= polygonBounds[ b + 3 ] / tileSize; row++ ) {
+				for( int column = polygonBounds[ b ] / tileSize; column <= polygonBounds[ b + 2 ] / tileSize; column++ ) {
+					int tile = row * columns + column;
+					tiles[ tile ][ counts[ tile ]++ ] = polygon;
+				}
+			}
+		}
+		return tiles;
+	}
+
+	private void ensurePoints( int count ) {
+		if( 2 * (pointCount + count) > points.length ) points = Arrays.copyOf( points, Math.max( 2 * points.length, 2 * (pointCount + count) ) );
+	}
+
+	private void resetPolygons() {
+		pointCount = 0;
+		contourCount = 0;
+		polygonCount = 0;
+	}
+
+	/**
+	 * The pixel target and the routed polygons shared by the tile tasks of one
+	 * flush.
+	 */
+	private record TileJob(int[] pixels, int width, int height, int tileSize, int columns, int[][] tiles, double[] points, int[] contourEnds, int[] polygonEnds, int[] polygonColors, boolean[] polygonNonZero) implements Serializable {}
+
+	/**
+	 * Rasterize a range of tiles, splitting the range until there is one tile.
+	 */
+	private static final class TileTask extends RecursiveAction {
+
+		@Serial
+		private static final long serialVersionUID = 1L;
+
+		private final TileJob job;
+
+		private final int first;
+
+		private final int last;
+
+		private TileTask( TileJob job, int first, int last ) {
+			this.job = job;
+			this.first = first;
+			this.last = last;
+		}
+
+		@Override
+		protected void compute() {
+			if( last - first > 1 ) {
+				int middle = (first + last) >>> 1;
+				invokeAll( new TileTask( job, first, middle ), new TileTask( job, middle, last ) );
+				return;
+			}
+
+			int[] polygons = job.tiles()[ first ];
+			if( polygons.length == 0 ) return;
+
+			int tileSize = job.tileSize();
+			int width = job.width();
+			int height = job.height();
+			int x = (first % job.columns()) * tileSize;
+			int y = (first / job.columns()) * tileSize;
+			Rasterizer rasterizer = new Rasterizer();
+			rasterizer.setTarget( job.pixels(), width, height, 0, 0 );
+			rasterizer.setClip( x, y, Math.min( width, x + tileSize ), Math.min( height, y + tileSize ) );
+
+			double[] points = job.points();
+			int[] contourEnds = job.contourEnds();
+			int[] polygonEnds = job.polygonEnds();
+			for( int polygon : polygons ) {
+				int contourStart = polygon == 0 ? 0 : polygonEnds[ polygon - 1 ];
+				int contourEnd = polygonEnds[ polygon ];
+				for( int contour = contourStart; contour < contourEnd; contour++ ) {
+					int start = contour == 0 ? 0 : contourEnds[ contour - 1 ];
+					int end = contourEnds[ contour ];
+					double px = points[ 2 * end - 2 ];
+					double py = points[ 2 * end - 1 ];
+					for( int index = start; index < end; index++ ) {
+						double cx = points[ 2 * index ];
+						double cy = points[ 2 * index + 1 ];
+						rasterizer.addEdge( px, py, cx, cy );
+						px = cx;
+						py = cy;
+					}
+				}
+				rasterizer.fill( job.polygonColors()[ polygon ], job.polygonNonZero()[ polygon ] );
+			}
+		}
+
+	}
+
+}
@@ -12,6 +12,8 @@ module com.avereon.marea {
 	requires javafx.graphics;
 	requires javafx.controls;
 	requires com.avereon.zerra;
+	requires java.desktop;
+	requires jdk.jfr;
 
 	//requires org.assertj.core;
 	//requires org.junit.jupiter.api;
@@ -25,4 +27,5 @@ module com.avereon.marea {
 	exports com.avereon.marea.geom;
 	opens com.avereon.marea.geom to javafx.graphics;
 	exports com.avereon.marea.fx;
+	exports com.avereon.marea.soft;
 }
@@ -0,0 +1,55 @@
+package com.avereon.marea;
+
+import javafx.geometry.Rectangle2D;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class DirtyRegionsTest {
+
+	@Test
+	void testAdd() {
+		DirtyRegions regions = new DirtyRegions();
+		regions.add( 0, 0, 10, 10 );
+		regions.add( 50, 50, 10, 10 );
+		regions.add( 20, 20, 0, 10 );
+
+		assertThat( regions.getRegions() ).containsExactly( new Rectangle2D( 0, 0, 10, 10 ), new Rectangle2D( 50, 50, 10, 10 ) );
+	}
+
+	@Test
+	void testMergeOverlapping() {
+		DirtyRegions regions = new DirtyRegions();
+		regions.add( 0, 0, 10, 10 );
+		regions.add( 20, 0, 10, 10 );
+
+		// Overlaps both regions so all three are merged
+		regions.add( 5, 5, 20, 2 );
+		assertThat( regions.getRegions() ).containsExactly( new Rectangle2D( 0, 0, 30, 10 ) );
+
+		// Touching regions are also merged
+		regions.add( 0, 10, 5, 5 );
+		assertThat( regions.getRegions() ).containsExactly( new Rectangle2D( 0, 0, 30, 15 ) );
+	}
+
+	@Test
+	void testMaxCount() {
+		DirtyRegions regions = new DirtyRegions( 2 );
+		regions.add( 0, 0, 10, 10 );
+		regions.add( 100, 0, 10, 10 );
+		regions.add( 0, 20, 10, 10 );
+
+		// The two closest regions are merged
+		assertThat( regions.getRegions() ).containsExactlyInAnyOrder( new Rectangle2D( 100, 0, 10, 10 ), new Rectangle2D( 0, 0, 10, 30 ) );
+
+		regions.clear();
+		assertThat( regions.isEmpty() ).isTrue();
+	}
+
+	@Test
+	void testInvalidMaxCount() {
+		assertThatThrownBy( () -> new DirtyRegions( 0 ) ).isInstanceOf( IllegalArgumentException.class );
+	}
+
+}
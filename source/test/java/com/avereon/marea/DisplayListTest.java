@@ -0,0 +1,139 @@
+package com.avereon.marea;
+
+import com.avereon.marea.geom.PackedPath;
+import javafx.scene.paint.Color;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DisplayListTest {
+
+	private DisplayList list;
+
+	@BeforeEach
+	void setup() {
+		list = new DisplayList();
+	}
+
+	@Test
+	void testCreate() {
+		assertThat( list.isEmpty() ).isTrue();
+		assertThat( list.size() ).isEqualTo( 0 );
+	}
+
+	@Test
+	void testRecord() {
+		list.setDrawPen( new Pen( Color.RED, 0.1 ) );
+		list.drawLine( 0, 0, 1, 1 );
+		list.drawEllipse( 0, 0, 1, 1, 0 );
+		list.startPath();
+		list.moveTo( 0, 0 );
+		list.lineTo( 1, 0 );
+		list.pathClose();
+		list.drawPath();
+
+		assertThat( list.size() ).isEqualTo( 8 );
+	}
+
+	@Test
+	void testEqualPenIsRecordedOnce() {
+		list.setDrawPen( new Pen( Color.RED, 0.1 ) );
+		list.drawLine( 0, 0, 1, 1 );
+		list.setDrawPen( new Pen( Color.RED, 0.1 ) );
+		list.drawLine( 1, 1, 2, 2 );
+
+		assertThat( list.size() ).isEqualTo( 3 );
+	}
+
+	@Test
+	void testPenChangesAreRecorded() {
+		list.setDrawPen( new Pen( Color.RED, 0.1 ) );
+		list.drawLine( 0, 0, 1, 1 );
+		list.setDrawPen( new Pen( Color.BLUE, 0.1 ) );
+		list.drawLine( 1, 1, 2, 2 );
+
+		assertThat( list.size() ).isEqualTo( 4 );
+	}
+
+	@Test
+	void testReplay() {
+		list.setDrawPen( new Pen( Color.RED, 0.1 ) );
+		list.drawLine( 0, 0, 1, 1 );
+		list.fillText( 0, 0, 1, 0, "Text", Font.DEFAULT );
+		list.setFillPen( Color.BLUE );
+		list.fillEllipse( 0, 0, 1, 1, 45 );
+
+		List<String> calls = new ArrayList<>();
+		list.replay( recorder( calls ) );
+
+		assertThat( calls ).containsExactly(
+			"setDrawPen" + List.of( new Pen( Color.RED, 0.1 ), false ),
+			"drawLine" + List.of( 0.0, 0.0, 1.0, 1.0 ),
+			"fillText" + List.of( 0.0, 0.0, 1.0, 0.0, "Text", Font.DEFAULT ),
+			"setFillPen" + List.of( Color.BLUE ),
+			"fillEllipse" + List.of( 0.0, 0.0, 1.0, 1.0, 45.0 )
+		);
+	}
+
+	@Test
+	void testPackedPathIsCopied() {
+		PackedPath path = new PackedPath().moveTo( 0, 0 ).lineTo( 1, 1 );
+		list.drawPath( path );
+		list.fillPath( path );
+		path.clear();
+
+		DisplayList copy = new DisplayList();
+		list.replay( copy );
+		assertThat( copy.size() ).isEqualTo( 2 );
+	}
+
+	@Test
+	void testBulkPrimitivesAreCopied() {
+		double[] points = new double[]{ 9, 9, 0, 0, 1, 0, 1, 1 };
+		list.drawPolyline( points, 2, 3 );
+		list.drawLines( points, 2, 2 );
+		list.drawPoints( points, 2, 3 );
+		list.fillPolygon( points, 2, 3 );
+		points[ 2 ] = 5;
+
+		List<Double> replayed = new ArrayList<>();
+		DisplayList copy = new DisplayList() {
+
+			@Override
+			public void drawPolyline( double[] xy, int offset, int count ) {
+				for( int index = offset; index < offset + 2 * count; index++ ) replayed.add( xy[ index ] );
+			}
+
+		};
+		list.replay( copy );
+
+		assertThat( list.size() ).isEqualTo( 4 );
+		assertThat( replayed ).containsExactly( 0.0, 0.0, 1.0, 0.0, 1.0, 1.0 );
+		assertThat( copy.size() ).isEqualTo( 3 );
+	}
+
+	@Test
+	void testReset() {
+		list.drawLine( 0, 0, 1, 1 );
+		list.reset();
+		assertThat( list.isEmpty() ).isTrue();
+	}
+
+	/**
+	 * Create a renderer that records each call as the method name and the
+	 * argument list.
+	 */
+	private static DirectRenderer2d recorder( List<String> calls ) {
+		return (DirectRenderer2d)Proxy.newProxyInstance( DirectRenderer2d.class.getClassLoader(), new Class<?>[]{ DirectRenderer2d.class }, ( proxy, method, args ) -> {
+			calls.add( method.getName() + (args == null ? List.of() : Arrays.asList( args )) );
+			return null;
+		} );
+	}
+
+}
@@ -0,0 +1,69 @@
+package com.avereon.marea;
+
+import javafx.scene.text.FontPosture;
+import javafx.scene.text.FontWeight;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class FontCacheTest {
+
+	@Test
+	void testResolveReusesFonts() {
+		ResolvedFont a = FontCache.resolve( new Font( "SansSerif", Font.Weight.BOLD, Font.Posture.REGULAR, 12 ), 72 );
+		ResolvedFont b = FontCache.resolve( new Font( "SansSerif", Font.Weight.BOLD, Font.Posture.REGULAR, 12 ), 72 );
+		ResolvedFont c = FontCache.resolve( new Font( "SansSerif", Font.Weight.BOLD, Font.Posture.REGULAR, 12 ), 36 );
+
+		assertThat( b ).isSameAs( a );
+		assertThat( c ).isNotSameAs( a );
+		assertThat( a.getSize() ).isEqualTo( 72 );
+		assertThat( c.getSize() ).isEqualTo( 36 );
+		assertThat( a.getAwtFont().isBold() ).isTrue();
+	}
+
+	@Test
+	void testFontsUseTheSameStyle() {
+		ResolvedFont resolved = FontCache.resolve( new Font( "Serif", Font.Weight.BOLD, Font.Posture.ITALIC, 12 ) );
+
+		assertThat( resolved.getWeight() ).isEqualTo( FontWeight.BOLD );
+		assertThat( resolved.getPosture() ).isEqualTo( FontPosture.ITALIC );
+		assertThat( resolved.getAwtFont().isBold() ).isTrue();
+		assertThat( resolved.getAwtFont().isItalic() ).isTrue();
+		assertThat( resolved.getAwtFont() ).isSameAs( resolved.getAwtFont() );
+	}
+
+	@Test
+	void testResolveDefaultFont() {
+		ResolvedFont resolved = FontCache.resolve( null );
+
+		assertThat( resolved ).isSameAs( FontCache.resolve( new Font() ) );
+		assertThat( resolved.getSize() ).isEqualTo( Font.DEFAULT.getSize() );
+		assertThat( resolved.getFxFont().getSize() ).isEqualTo( Font.DEFAULT.getSize() );
+		assertThat( resolved.getFxFont() ).isSameAs( resolved.getFxFont() );
+	}
+
+	@Test
+	void testMetrics() {
+		ResolvedFont small = FontCache.resolve( null, 10 );
+		ResolvedFont large = FontCache.resolve( null, 100 );
+
+		assertThat( small.getAscent() ).isPositive();
+		assertThat( small.getDescent() ).isPositive();
+		assertThat( small.getLineHeight() ).isGreaterThanOrEqualTo( small.getAscent() + small.getDescent() );
+		assertThat( large.getAscent() ).isCloseTo( 10 * small.getAscent(), within( 0.5 ) );
+	}
+
+	@Test
+	void testResolveOnManyThreads() {
+		Set<ResolvedFont> fonts = ConcurrentHashMap.newKeySet();
+		IntStream.range( 0, 1000 ).parallel().forEach( i -> fonts.add( FontCache.resolve( null, 20 + i % 4 ) ) );
+
+		assertThat( fonts ).hasSize( 4 );
+	}
+
+}
@@ -0,0 +1,59 @@
+package com.avereon.marea;
+
+import javafx.scene.paint.Color;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PenTest {
+
+	@Test
+	void testArgbColor() {
+		ArgbColor color = ArgbColor.of( 255, 128, 0, 64 );
+		assertThat( color.argb() ).isEqualTo( 0x40ff8000 );
+		assertThat( color.red() ).isEqualTo( 255 );
+		assertThat( color.green() ).isEqualTo( 128 );
+		assertThat( color.blue() ).isEqualTo( 0 );
+		assertThat( color.alpha() ).isEqualTo( 64 );
+		assertThat( color.withAlpha( 255 ).isOpaque() ).isTrue();
+		assertThat( ArgbColor.of( Color.RED ) ).isEqualTo( ArgbColor.of( 255, 0, 0 ) );
+		assertThat( ArgbColor.of( 255, 0, 0 ).toFxColor() ).isEqualTo( Color.RED );
+	}
+
+	@Test
+	void testIntern() {
+		Pen a = new Pen( ArgbColor.of( 255, 0, 0 ), 0.5 ).dashes( new double[]{ 1, 2 } ).intern();
+		Pen b = new Pen( Color.RED, 0.5 ).dashes( new double[]{ 1, 2 } ).intern();
+		Pen c = new Pen( Color.RED, 0.25 ).intern();
+
+		assertThat( b ).isSameAs( a );
+		assertThat( c ).isNotSameAs( a );
+		assertThat( a.isInterned() ).isTrue();
+		assertThat( a.id() ).isNotEqualTo( c.id() ).isPositive();
+		assertThat( a.intern() ).isSameAs( a );
+		assertThat( a ).isEqualTo( new Pen( Color.RED, 0.5 ).dashes( new double[]{ 1, 2 } ) );
+	}
+
+	@Test
+	void testInternedPenCannotChange() {
+		Pen pen = new Pen( Color.BLUE, 0.5 );
+		Pen interned = pen.intern();
+
+		assertThat( interned ).isNotSameAs( pen );
+		assertThat( pen.isInterned() ).isFalse();
+		pen.width( 2 );
+		assertThat( interned.width() ).isEqualTo( 0.5 );
+		assertThatThrownBy( () -> interned.width( 2 ) ).isInstanceOf( IllegalStateException.class );
+	}
+
+	@Test
+	void testInternedPenDashesCannotChange() {
+		Pen interned = new Pen( Color.BLUE, 0.5 ).dashes( new double[]{ 1, 2 } ).intern();
+
+		interned.dashes()[ 0 ] = 5;
+		assertThat( interned.dashes() ).containsExactly( 1, 2 );
+		assertThat( new Pen( Color.BLUE, 0.5 ).dashes( new double[]{ 1, 2 } ).intern() ).isSameAs( interned );
+	}
+
+}
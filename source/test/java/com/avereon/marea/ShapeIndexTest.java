@@ -0,0 +1,115 @@
+package com.avereon.marea;
+
+import com.avereon.marea.geom.Line;
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ShapeIndexTest {
+
+	@Test
+	void testCreate() {
+		ShapeIndex<Line> index = new ShapeIndex<>();
+		assertThat( index.isEmpty() ).isTrue();
+		assertThat( index.size() ).isEqualTo( 0 );
+		assertThat( index.getBounds() ).isNull();
+		assertThat( index.query( -10, -10, 10, 10 ) ).isEmpty();
+	}
+
+	@Test
+	void testInsert() {
+		ShapeIndex<Line> index = new ShapeIndex<>( 4 );
+		List<Line> lines = createLines( 500 );
+		lines.forEach( index::insert );
+
+		assertThat( index.size() ).isEqualTo( lines.size() );
+		assertQueries( index, lines );
+	}
+
+	@Test
+	void testLoad() {
+		ShapeIndex<Line> index = new ShapeIndex<>();
+		List<Line> lines = createLines( 2000 );
+		index.load( lines );
+
+		assertThat( index.size() ).isEqualTo( lines.size() );
+		assertQueries( index, lines );
+	}
+
+	@Test
+	void testRemove() {
+		ShapeIndex<Line> index = new ShapeIndex<>( 4 );
+		List<Line> lines = createLines( 500 );
+		index.load( lines );
+
+		List<Line> remaining = new ArrayList<>();
+		for( int count = 0; count < lines.size(); count++ ) {
+			Line line = lines.get( count );
+			if( count % 2 == 0 ) {
+				assertThat( index.remove( line ) ).isTrue();
+			} else {
+				remaining.add( line );
+			}
+		}
+
+		assertThat( index.size() ).isEqualTo( remaining.size() );
+		assertQueries( index, remaining );
+	}
+
+	@Test
+	void testRemoveAll() {
+		ShapeIndex<Line> index = new ShapeIndex<>( 4 );
+		List<Line> lines = createLines( 200 );
+		lines.forEach( index::insert );
+		lines.forEach( line -> assertThat( index.remove( line ) ).isTrue() );
+
+		assertThat( index.isEmpty() ).isTrue();
+		assertThat( index.query( -1000, -1000, 1000, 1000 ) ).isEmpty();
+	}
+
+	@Test
+	void testRemoveMissing() {
+		ShapeIndex<Line> index = new ShapeIndex<>();
+		index.insert( new Line( 0, 0, 1, 1 ) );
+		assertThat( index.remove( new Line( 0, 0, 1, 1 ) ) ).isFalse();
+		assertThat( index.size() ).isEqualTo( 1 );
+	}
+
+	@Test
+	void testGetBounds() {
+		ShapeIndex<Line> index = new ShapeIndex<>();
+		index.insert( new Line( -1, -2, 3, 4 ) );
+		index.insert( new Line( 5, 6, 7, 8 ) );
+		assertThat( index.getBounds() ).isEqualTo( new BoundingBox( -1, -2, 8, 10 ) );
+	}
+
+	private static void assertQueries( ShapeIndex<Line> index, List<Line> lines ) {
+		Random random = new Random( 1 );
+		for( int count = 0; count < 50; count++ ) {
+			double x = random.nextDouble() * 200 - 100;
+			double y = random.nextDouble() * 200 - 100;
+			Bounds window = new BoundingBox( x, y, random.nextDouble() * 50, random.nextDouble() * 50 );
+
+			List<Line> expected = lines.stream().filter( line -> line.getBounds().intersects( window ) ).toList();
+			assertThat( index.query( window ) ).containsExactlyInAnyOrderElementsOf( expected );
+		}
+	}
+
+	private static List<Line> createLines( int count ) {
+		Random random = new Random( 0 );
+		List<Line> lines = new ArrayList<>( count );
+		for( int index = 0; index < count; index++ ) {
+			double x = random.nextDouble() * 200 - 100;
+			double y = random.nextDouble() * 200 - 100;
+			lines.add( new Line( x, y, x + random.nextDouble() * 10 - 5, y + random.nextDouble() * 10 - 5 ) );
+		}
+		return lines;
+	}
+
+}
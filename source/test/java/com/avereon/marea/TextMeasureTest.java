@@ -0,0 +1,60 @@
+package com.avereon.marea;
+
+import com.avereon.marea.geom.Text;
+import javafx.geometry.Bounds;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class TextMeasureTest {
+
+	@Test
+	void testMeasure() {
+		TextMetrics metrics = TextMeasure.measure( "Hello", null );
+		ResolvedFont font = FontCache.resolve( null, 100 );
+
+		assertThat( metrics.lineCount() ).isEqualTo( 1 );
+		assertThat( metrics.advance() ).isCloseTo( font.getAdvance( "Hello" ) / 100, within( 1e-3 ) );
+		assertThat( metrics.ascent() ).isCloseTo( font.getAscent() / 100, within( 1e-3 ) );
+		assertThat( metrics.descent() ).isCloseTo( font.getDescent() / 100, within( 1e-3 ) );
+		assertThat( TextMeasure.measure( "Hello", new Font() ) ).isSameAs( metrics );
+	}
+
+	@Test
+	void testMeasureLines() {
+		TextMetrics one = TextMeasure.measure( "Hello", null, 2 );
+		TextMetrics two = TextMeasure.measure( "Hi\nHello", null, 2 );
+
+		assertThat( two.lineCount() ).isEqualTo( 2 );
+		assertThat( two.advance() ).isCloseTo( one.advance(), within( 1e-9 ) );
+		assertThat( two.ascent() ).isCloseTo( one.ascent(), within( 1e-9 ) );
+		assertThat( two.descent() ).isCloseTo( one.descent() + one.lineSpacing(), within( 1e-9 ) );
+	}
+
+	@Test
+	void testTextBounds() {
+		Text text = new Text( "Marea", 1, 2, 0.5 );
+		TextMetrics metrics = text.getMetrics();
+		Bounds bounds = text.getBounds();
+
+		assertThat( bounds.getMinX() ).isCloseTo( 1, within( 1e-9 ) );
+		assertThat( bounds.getWidth() ).isCloseTo( metrics.advance(), within( 1e-9 ) );
+		assertThat( bounds.getMinY() ).isCloseTo( 2 - metrics.descent(), within( 1e-9 ) );
+		assertThat( bounds.getMaxY() ).isCloseTo( 2 + metrics.ascent(), within( 1e-9 ) );
+
+		// Rotated text is rotated about the anchor
+		Bounds rotated = new Text( "Marea", 1, 2, 0.5, 90 ).getBounds();
+		assertThat( rotated.getMaxY() ).isCloseTo( 2 + metrics.advance(), within( 1e-9 ) );
+		assertThat( rotated.getMinX() ).isCloseTo( 1 - metrics.ascent(), within( 1e-9 ) );
+	}
+
+	@Test
+	void testMeasureOffFxThread() throws Exception {
+		TextMetrics metrics = CompletableFuture.supplyAsync( () -> TextMeasure.measure( "Off thread", null ) ).get();
+		assertThat( metrics.advance() ).isPositive();
+	}
+
+}
@@ -0,0 +1,73 @@
+package com.avereon.marea;
+
+import javafx.geometry.Point2D;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class ViewStateTest {
+
+	@Test
+	void testDefault() {
+		ViewState state = new ViewState( 100, 50 );
+		assertThat( state.lengthUnit() ).isEqualTo( ViewState.DEFAULT_LENGTH_UNIT );
+		assertThat( state.dpiX() ).isEqualTo( ViewState.DEFAULT_DPI );
+		assertThat( state.zoomY() ).isEqualTo( ViewState.DEFAULT_ZOOM );
+		assertThat( state.width() ).isEqualTo( 100 );
+		assertThat( state.height() ).isEqualTo( 50 );
+	}
+
+	@Test
+	void testWith() {
+		ViewState state = new ViewState( 100, 50 ).withViewpoint( 1, 2 ).withViewRotate( 30 ).withZoom( 3, 4 );
+		assertThat( state ).isEqualTo( new ViewState( RenderUnit.CM, 72, 72, 3, 4, 1, 2, 30, 100, 50 ) );
+		assertThat( state.withView( 1, 2, 30, 3, 4 ) ).isEqualTo( state );
+	}
+
+	@Test
+	void testWithZoomAt() {
+		// The fixed point stays at the same distance from the viewpoint in screen units
+		ViewState state = new ViewState( 100, 50 ).withViewpoint( 2, 0 ).withZoomAt( 0, 0, 2, 2 );
+		assertThat( state.viewpointX() ).isEqualTo( 1 );
+		assertThat( state.viewpointY() ).isEqualTo( 0 );
+		assertThat( state.zoomX() ).isEqualTo( 2 );
+	}
+
+	@Test
+	void testWithZoomStep() {
+		ViewState state = new ViewState( 100, 50 ).withZoomStep( 0, 0, 0.25, true );
+		assertThat( state.zoomX() ).isEqualTo( 1.25 );
+		assertThat( state.withZoomStep( 0, 0, 0.25, false ).zoomY() ).isEqualTo( 1.0 );
+	}
+
+	@Test
+	void testStepZoom() {
+		DisplayList renderer = new DisplayList();
+		renderer.setZoomStep( 0.5 );
+		renderer.stepZoom( 0, 0, true );
+		assertThat( renderer.getZoomX() ).isEqualTo( 1.5 );
+
+		renderer.zoomStepProperty().set( 1.0 );
+		renderer.stepZoom( 0, 0, false );
+		assertThat( renderer.getZoomX() ).isEqualTo( 0.75 );
+	}
+
+	@Test
+	void testWorldToScreenTransform() {
+		ViewState state = new ViewState( 100, 50 ).withViewpoint( 1, 2 ).withZoom( 2, 2 );
+		double scale = 2 * RenderUnit.CM.convert( 72 );
+		Point2D center = state.createWorldToScreenTransform().transform( 1, 2 );
+		assertThat( center.getX() ).isCloseTo( 50, within( 1e-9 ) );
+		assertThat( center.getY() ).isCloseTo( 25, within( 1e-9 ) );
+		Point2D point = state.createWorldToScreenTransform().transform( 2, 3 );
+		assertThat( point.getX() ).isCloseTo( 50 + scale, within( 1e-9 ) );
+		assertThat( point.getY() ).isCloseTo( 25 - scale, within( 1e-9 ) );
+
+		// Text coordinates are in points with the y axis down
+		Point2D text = state.createWorldToScreenTextTransform( 72 ).transform( 2 * 72, -3 * 72 );
+		assertThat( text.getX() ).isCloseTo( point.getX(), within( 1e-9 ) );
+		assertThat( text.getY() ).isCloseTo( point.getY(), within( 1e-9 ) );
+	}
+
+}
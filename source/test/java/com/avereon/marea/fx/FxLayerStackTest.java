@@ -0,0 +1,193 @@
+package com.avereon.marea.fx;
+
+import com.avereon.marea.Pen;
+import com.avereon.marea.geom.Ellipse;
+import com.avereon.marea.geom.Line;
+import com.avereon.marea.test.FxTestUtil;
+import javafx.geometry.Bounds;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static com.avereon.marea.test.FxTestUtil.onFxThread;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class FxLayerStackTest {
+
+	@Test
+	void testLayers() {
+		FxLayerStack stack = new FxLayerStack();
+		FxLayerStack.Layer grid = stack.addLayer( "grid", r -> {} );
+		FxLayerStack.Layer cursor = stack.addLayer( "cursor", r -> {} );
+
+		assertThat( stack.getLayers() ).containsExactly( grid, cursor );
+		assertThat( stack.getLayer( "cursor" ) ).isSameAs( cursor );
+		assertThat( stack.getLayer( "missing" ) ).isNull();
+		assertThatThrownBy( () -> stack.addLayer( "grid", r -> {} ) ).isInstanceOf( IllegalArgumentException.class );
+
+		assertThat( stack.removeLayer( "grid" ) ).isTrue();
+		assertThat( stack.getLayers() ).containsExactly( cursor );
+	}
+
+	@Test
+	void testUncachedLayersDrawInOrder() {
+		List<String> order = new ArrayList<>();
+		FxLayerStack stack = new FxLayerStack();
+		stack.addLayer( "a", r -> order.add( "a" ) ).setCached( false );
+		stack.addLayer( "b", r -> order.add( "b" ) ).setCached( false );
+		stack.addLayer( "c", r -> order.add( "c" ) ).setCached( false );
+		stack.getLayer( "b" ).setVisible( false );
+
+		FxRenderer2d renderer = new FxRenderer2d( 100, 100 );
+		renderer.setPainter( stack );
+		renderer.render();
+
+		assertThat( order ).containsExactly( "a", "c" );
+		assertThat( stack.getRenderCount() ).isEqualTo( 0 );
+	}
+
+	@Test
+	void testLayerWithoutImageIsNotValid() {
+		FxLayerStack stack = new FxLayerStack();
+		FxLayerStack.Layer layer = stack.addLayer( "a", r -> {} );
+		FxRenderer2d renderer = new FxRenderer2d( 100, 100 );
+		assertThat( layer.isValidFor( renderer.getViewState() ) ).isFalse();
+	}
+
+	@Test
+	void testCachedLayerIsReused() throws Exception {
+		FxTestUtil.assumeToolkit();
+		onFxThread( () -> {
+			List<Bounds> paints = new ArrayList<>();
+			FxLayerStack stack = new FxLayerStack();
+			stack.addLayer( "grid", r -> {
+				paints.add( r.getVisibleBounds() );
+				drawGrid( r );
+			} );
+			FxRenderer2d renderer = new FxRenderer2d( 200, 150 );
+			renderer.setPainter( stack );
+
+			renderer.render();
+			WritableImage first = snapshot( renderer );
+			assertThat( FxTestUtil.countPaintedPixels( first ) ).isGreaterThan( 100 );
+
+			// The same view copies the layer image
+			renderer.render();
+			assertThat( paints ).hasSize( 1 );
+			assertThat( stack.getRenderCount() ).isEqualTo( 1 );
+			assertThat( FxTestUtil.maxPixelDifference( snapshot( renderer ), first ) ).isEqualTo( 0 );
+			return null;
+		} );
+	}
+
+	@Test
+	void testCachedLayerIsShiftedWhenPanned() throws Exception {
+		FxTestUtil.assumeToolkit();
+		onFxThread( () -> {
+			List<Bounds> paints = new ArrayList<>();
+			FxLayerStack stack = new FxLayerStack();
+			stack.addLayer( "grid", r -> {
+				paints.add( r.getVisibleBounds() );
+				drawGrid( r );
+			} );
+			FxRenderer2d renderer = new FxRenderer2d( 200, 150 );
+			renderer.setPainter( stack );
+			renderer.render();
+
+			// Pan by 20 pixels to the right
+			renderer.pan( renderer.getViewpointX() + 20 / renderer.getWorldToScreenTransform().getMxx(), renderer.getViewpointY() );
+			assertThat( stack.getRenderCount() ).isEqualTo( 1 );
+			assertThat( stack.getUpdateCount() ).isEqualTo( 1 );
+
+			// Only the exposed strip of the layer is drawn
+			Bounds visible = renderer.getVisibleBounds();
+			Bounds strip = paints.get( paints.size() - 1 );
+			assertThat( strip.getWidth() ).isLessThan( 0.25 * visible.getWidth() );
+
+			assertThat( FxTestUtil.maxPixelDifference( snapshot( renderer ), renderFresh( renderer, FxLayerStackTest::drawGrid ) ) ).isLessThanOrEqualTo( 2 );
+			return null;
+		} );
+	}
+
+	@Test
+	void testCachedLayerIsRenderedWhenZoomed() throws Exception {
+		FxTestUtil.assumeToolkit();
+		onFxThread( () -> {
+			FxLayerStack stack = new FxLayerStack();
+			stack.addLayer( "grid", FxLayerStackTest::drawGrid );
+			FxRenderer2d renderer = new FxRenderer2d( 200, 150 );
+			renderer.setPainter( stack );
+			renderer.render();
+
+			renderer.setZoom( 2 * renderer.getZoomX(), 2 * renderer.getZoomY() );
+			renderer.refresh();
+			assertThat( stack.getRenderCount() ).isEqualTo( 2 );
+			assertThat( stack.getUpdateCount() ).isEqualTo( 0 );
+			assertThat( FxTestUtil.maxPixelDifference( snapshot( renderer ), renderFresh( renderer, FxLayerStackTest::drawGrid ) ) ).isEqualTo( 0 );
+			return null;
+		} );
+	}
+
+	@Test
+	void testChangedRegionOfLayerIsRendered() throws Exception {
+		FxTestUtil.assumeToolkit();
+		onFxThread( () -> {
+			Pen pen = new Pen( Color.BLUE, 0.05 );
+			Ellipse[] dot = new Ellipse[]{ new Ellipse( -1, 0, 0.2, 0.2 ) };
+			Consumer<FxRenderer2d> scene = r -> {
+				drawGrid( r );
+				r.fill( dot[ 0 ], pen );
+			};
+
+			FxLayerStack stack = new FxLayerStack();
+			FxLayerStack.Layer layer = stack.addLayer( "scene", scene );
+			FxRenderer2d renderer = new FxRenderer2d( 200, 150 );
+			renderer.setPainter( stack );
+			renderer.render();
+
+			// Move the dot and redraw only where it was and where it is
+			Bounds before = dot[ 0 ].getBounds();
+			dot[ 0 ] = new Ellipse( 1, 0.5, 0.2, 0.2 );
+			for( Bounds bounds : List.of( before, dot[ 0 ].getBounds() ) ) {
+				layer.invalidate( bounds );
+				renderer.invalidateRegion( bounds );
+			}
+			renderer.refresh();
+
+			assertThat( stack.getRenderCount() ).isEqualTo( 1 );
+			assertThat( stack.getUpdateCount() ).isEqualTo( 1 );
+			assertThat( FxTestUtil.maxPixelDifference( snapshot( renderer ), renderFresh( renderer, scene ) ) ).isLessThanOrEqualTo( 2 );
+			return null;
+		} );
+	}
+
+	private static void drawGrid( FxRenderer2d renderer ) {
+		Pen pen = new Pen( Color.GRAY, 0.02 );
+		for( int index = -10; index <= 10; index++ ) {
+			renderer.draw( new Line( index * 0.5, -5, index * 0.5, 5 ), pen );
+			renderer.draw( new Line( -5, index * 0.5, 5, index * 0.5 ), pen );
+		}
+		renderer.draw( new Ellipse( 0.3, 0.1, 1.5, 0.8, 20 ), new Pen( Color.RED, 0.05 ) );
+	}
+
+	private static WritableImage renderFresh( FxRenderer2d view, Consumer<FxRenderer2d> scene ) {
+		FxRenderer2d renderer = new FxRenderer2d( view.getWidth(), view.getHeight() );
+		renderer.setViewState( view.getViewState() );
+		renderer.setPainter( scene );
+		renderer.render();
+		return snapshot( renderer );
+	}
+
+	private static WritableImage snapshot( FxRenderer2d renderer ) {
+		SnapshotParameters parameters = new SnapshotParameters();
+		parameters.setFill( Color.TRANSPARENT );
+		return renderer.snapshot( parameters, null );
+	}
+
+}
@@ -0,0 +1,85 @@
+package com.avereon.marea.fx;
+
+import javafx.geometry.BoundingBox;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FxRenderSchedulerTest {
+
+	private FxRenderer2d renderer;
+
+	private FxRenderScheduler scheduler;
+
+	private AtomicInteger paintCount;
+
+	@BeforeEach
+	void setup() {
+		paintCount = new AtomicInteger();
+		renderer = new FxRenderer2d( 100, 100 );
+		renderer.setPainter( r -> paintCount.incrementAndGet() );
+		scheduler = new FxRenderScheduler( renderer );
+	}
+
+	@Test
+	void testPulseSkipsWhenNothingChanged() {
+		assertThat( scheduler.pulse() ).isTrue();
+		assertThat( paintCount.get() ).isEqualTo( 1 );
+
+		assertThat( scheduler.pulse() ).isFalse();
+		assertThat( scheduler.pulse() ).isFalse();
+		assertThat( paintCount.get() ).isEqualTo( 1 );
+		assertThat( scheduler.getFrameCount() ).isEqualTo( 1 );
+		assertThat( scheduler.getSkipCount() ).isEqualTo( 2 );
+	}
+
+	@Test
+	void testInvalidateCoalesces() {
+		scheduler.pulse();
+		scheduler.invalidate();
+		scheduler.invalidate();
+		scheduler.invalidate();
+
+		assertThat( scheduler.pulse() ).isTrue();
+		assertThat( scheduler.pulse() ).isFalse();
+		assertThat( paintCount.get() ).isEqualTo( 2 );
+	}
+
+	@Test
+	void testViewChangesCoalesce() {
+		scheduler.pulse();
+
+		// Several view changes before the pulse cause one frame
+		renderer.setZoomAt( 1, 1, 2, 2 );
+		renderer.setViewRotate( 10 );
+		renderer.setSize( 120, 80 );
+		assertThat( renderer.isViewChanged() ).isTrue();
+
+		assertThat( scheduler.pulse() ).isTrue();
+		assertThat( renderer.isViewChanged() ).isFalse();
+		assertThat( scheduler.pulse() ).isFalse();
+		assertThat( paintCount.get() ).isEqualTo( 2 );
+	}
+
+	@Test
+	void testDirtyRegions() {
+		scheduler.pulse();
+		renderer.invalidateRegion( new BoundingBox( 0, 0, 0.1, 0.1 ) );
+		renderer.invalidateRegion( new BoundingBox( 0.05, 0.05, 0.1, 0.1 ) );
+
+		assertThat( scheduler.pulse() ).isTrue();
+		assertThat( renderer.isDirty() ).isFalse();
+		assertThat( paintCount.get() ).isEqualTo( 2 );
+	}
+
+	@Test
+	void testSameViewIsNotChanged() {
+		scheduler.pulse();
+		renderer.setZoom( renderer.getZoomX(), renderer.getZoomY() );
+		assertThat( renderer.isViewChanged() ).isFalse();
+	}
+
+}
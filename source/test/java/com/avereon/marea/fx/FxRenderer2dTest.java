@@ -1,16 +1,43 @@
 package com.avereon.marea.fx;
 
+import com.avereon.marea.Pen;
 import com.avereon.marea.RenderUnit;
+import com.avereon.marea.Shape2d;
+import com.avereon.marea.ShapeIndex;
+import com.avereon.marea.ShapeType;
+import com.avereon.marea.ViewState;
+import com.avereon.marea.geom.Arc;
+import com.avereon.marea.geom.Curve;
+import com.avereon.marea.geom.Ellipse;
+import com.avereon.marea.geom.Line;
+import com.avereon.marea.geom.Marker;
+import com.avereon.marea.geom.Path;
+import com.avereon.marea.geom.Quad;
+import com.avereon.marea.geom.Text;
+import com.avereon.marea.test.FxTestUtil;
 import com.avereon.marea.test.Point2DAssert;
+import javafx.geometry.BoundingBox;
 import javafx.geometry.Point2D;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.FillRule;
+import javafx.scene.transform.Affine;
+import javafx.scene.transform.Transform;
+import org.assertj.core.data.Offset;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
+import static com.avereon.marea.test.FxTestUtil.onFxThread;
 import static org.assertj.core.api.Assertions.assertThat;
 
 public class FxRenderer2dTest {
@@ -87,6 +114,424 @@ public class FxRenderer2dTest {
 		assertThat( renderer.localToParent( 1, 1 ) ).isEqualTo( new Point2D( 0, 144 ) );
 	}
 
+	@Test
+	void testRedundantStateChangesAreSkipped() {
+		Pen pen = new Pen( Color.RED, 0.1 );
+		renderer.draw( new Line( 0, 0, 1, 1 ), pen );
+		long changes = renderer.getStateChangeCount();
+		assertThat( renderer.getSkippedStateChangeCount() ).isEqualTo( 0 );
+
+		renderer.draw( new Line( 1, 1, 2, 2 ), pen );
+		assertThat( renderer.getStateChangeCount() ).isEqualTo( changes );
+		assertThat( renderer.getSkippedStateChangeCount() ).isEqualTo( changes );
+	}
+
+	@Test
+	void testInternedPenValuesAreNotCompared() {
+		Pen pen = new Pen( Color.RED, 0.1 ).intern();
+		renderer.draw( new Line( 0, 0, 1, 1 ), pen );
+		long changes = renderer.getStateChangeCount();
+
+		// Only the pen and the transform are checked for the second line
+		renderer.draw( new Line( 1, 1, 2, 2 ), pen );
+		assertThat( renderer.getStateChangeCount() ).isEqualTo( changes );
+		assertThat( renderer.getSkippedStateChangeCount() ).isEqualTo( 2 );
+
+		// A pen with different values is still set after the interned pen
+		renderer.draw( new Line( 1, 1, 2, 2 ), new Pen( Color.BLUE, 0.1 ) );
+		assertThat( renderer.getStateChangeCount() ).isEqualTo( changes + 2 );
+	}
+
+	@Test
+	void testExternalStateChangesAfterInvalidate() {
+		Pen pen = new Pen( Color.RED, 0.1 );
+		renderer.draw( new Line( 0, 0, 1, 1 ), pen );
+
+		// The renderer does not know about changes made directly to the context
+		renderer.getGraphicsContext2D().setStroke( Color.BLUE );
+		renderer.invalidateGraphicsState();
+		renderer.draw( new Line( 1, 1, 2, 2 ), pen );
+		assertThat( renderer.getGraphicsContext2D().getStroke() ).isEqualTo( Color.RED );
+	}
+
+	@Test
+	void testStateChangesAreSent() {
+		renderer.draw( new Line( 0, 0, 1, 1 ), new Pen( Color.RED, 0.1 ) );
+		long changes = renderer.getStateChangeCount();
+
+		renderer.draw( new Line( 1, 1, 2, 2 ), new Pen( Color.BLUE, 0.1 ) );
+		assertThat( renderer.getStateChangeCount() ).isEqualTo( changes + 2 );
+	}
+
+	@Test
+	void testRotatedShapesInCollectionDoNotChangeState() {
+		Pen pen = new Pen( Color.RED, 0.01 );
+		List<Shape2d> shapes = new ArrayList<>();
+		for( int index = 0; index < 10; index++ ) {
+			shapes.add( new Ellipse( 0.1 * index, 0, 0.2, 0.1, 10 * index ) );
+			shapes.add( new Arc( 0, 0.1 * index, 0.2, 0.1, 10 * index, 30, 270 ) );
+			shapes.add( new Line( 0, 0, 0.1 * index, 1 ) );
+		}
+		renderer.draw( shapes, pen );
+		renderer.resetStateCounts();
+
+		// The rotated shapes are converted to curves in world coordinates
+		renderer.draw( shapes, pen );
+		assertThat( renderer.getStateChangeCount() ).isEqualTo( 0 );
+		renderer.fill( shapes, pen );
+		assertThat( renderer.getStateChangeCount() ).isEqualTo( 1 );
+	}
+
+	@Test
+	void testRotatedShapeTransform() {
+		renderer.setView( 1, 2, 15, 2, 2 );
+		renderer.drawEllipse( 3, 4, 1, 0.5, 30 );
+
+		Affine expected = new Affine( renderer.getWorldToScreenTransform() );
+		expected.appendRotation( 30, 3, 4 );
+		assertTransformIsCloseTo( renderer.getGraphicsContext2D().getTransform(), expected );
+	}
+
+	@Test
+	void testUnrotatedShapeTransform() {
+		renderer.setView( 1, 2, 15, 2, 2 );
+		renderer.drawEllipse( 3, 4, 1, 0.5, 0 );
+
+		assertTransformIsCloseTo( renderer.getGraphicsContext2D().getTransform(), renderer.getWorldToScreenTransform() );
+	}
+
+	@Test
+	void testLevelOfDetailIsDisabledByDefault() {
+		assertThat( renderer.isLevelOfDetail() ).isFalse();
+		assertThat( renderer.isSmallShape( 0.001 ) ).isFalse();
+		assertThat( renderer.isGreekText( 0.001 ) ).isFalse();
+	}
+
+	@Test
+	void testSmallShape() {
+		// With the default view there are 72 pixels per inch
+		renderer.setLevelOfDetail( true );
+		assertThat( renderer.isSmallShape( 0.01 ) ).isTrue();
+		assertThat( renderer.isSmallShape( 0.02 ) ).isFalse();
+
+		renderer.setZoom( 0.5, 0.5 );
+		assertThat( renderer.isSmallShape( 0.02 ) ).isTrue();
+
+		renderer.setMinimumShapeSize( 0.5 );
+		assertThat( renderer.isSmallShape( 0.02 ) ).isFalse();
+	}
+
+	@Test
+	void testGreekText() {
+		renderer.setLevelOfDetail( true );
+		assertThat( renderer.isGreekText( 0.05 ) ).isTrue();
+		assertThat( renderer.isGreekText( 0.06 ) ).isFalse();
+
+		renderer.setGreekTextHeight( 2 );
+		assertThat( renderer.isGreekText( 0.05 ) ).isFalse();
+	}
+
+	@Test
+	void testGreekTextDoesNotSetFont() {
+		renderer.setLevelOfDetail( true );
+		renderer.setFillPen( Color.RED );
+		renderer.fillText( 0, 0, 0.01, 0, "Text", null );
+		assertThat( renderer.getGraphicsContext2D().getFill() ).isEqualTo( Color.RED );
+		assertThat( renderer.getGraphicsContext2D().getFont() ).isEqualTo( javafx.scene.text.Font.getDefault() );
+	}
+
+	@Test
+	void testRenderStats() {
+		FxRenderer2d renderer = new FxRenderer2d( 200, 200 );
+		Pen pen = new Pen( Color.RED, 0.1 );
+		renderer.setPainter( r -> {
+			r.draw( new Line( 0, 0, 1, 1 ), pen );
+			r.draw( new Line( 1, 1, 2, 2 ), pen );
+			r.draw( new Path( 0, 0 ).line( 1, 1 ).line( 2, 0 ), pen );
+			r.fill( new Text( "Marea", 0, 0, 0.5 ), pen );
+		} );
+
+		renderer.render();
+		assertThat( renderer.getRenderStats() ).isNull();
+
+		renderer.setRenderStats( true );
+		renderer.setStatsHud( true );
+		renderer.render();
+		RenderStats stats = renderer.getRenderStats();
+		assertThat( stats.getShapeCount( ShapeType.LINE ) ).isEqualTo( 2 );
+		assertThat( stats.getShapeCount( ShapeType.PATH ) ).isEqualTo( 1 );
+		assertThat( stats.getShapeCount( ShapeType.TEXT ) ).isEqualTo( 1 );
+		assertThat( stats.getShapeCount() ).isEqualTo( 4 );
+		assertThat( stats.getPathSegments() ).isEqualTo( 3 );
+		assertThat( stats.getTextDraws() ).isEqualTo( 1 );
+		assertThat( stats.getStateChanges() ).isPositive();
+		assertThat( stats.getNanos() ).isPositive();
+
+		// A refresh with nothing to draw is a new frame with no shapes
+		renderer.refresh();
+		assertThat( renderer.getRenderStats().getShapeCount() ).isEqualTo( 0 );
+		assertThat( stats.getShapeCount() ).isEqualTo( 4 );
+	}
+
+	@Test
+	void testMarkers() {
+		Pen pen = new Pen( Color.RED, 0.01 );
+		Marker dot = new Marker( new Ellipse( 0, 0, 0.05, 0.05 ) );
+		Marker triangle = new Marker( new Path( 0.5, 0 ).line( -0.25, 0.4 ).line( -0.25, -0.4 ).close() );
+		double[] dots = new double[]{ 0, 0, 0.5, 0.5, 100, 100 };
+		double[] triangles = new double[]{ 0, 0, -0.5, 0.25 };
+		renderer.setRenderStats( true );
+		renderer.setPainter( r -> {
+			r.fillMarkers( dot, dots, null, null, 3, pen );
+			r.drawMarkers( triangle, triangles, new double[]{ 0, 45 }, new double[]{ 1, 0.5 }, 2, pen );
+		} );
+
+		// The small dots are stamped and the triangles are one path
+		int trianglePoints = triangle.getFlatPath( renderer.getFlatteningTolerance() ).getPointCount();
+		renderer.render();
+		RenderStats stats = renderer.getRenderStats();
+		assertThat( stats.getShapeCount( ShapeType.ELLIPSE ) ).isEqualTo( 2 );
+		assertThat( stats.getShapeCount( ShapeType.PATH ) ).isEqualTo( 2 );
+		assertThat( stats.getPathSegments() ).isEqualTo( 2 * trianglePoints );
+
+		// Without stamps the dots are also one path
+		renderer.setMarkerStampSize( 0 );
+		renderer.render();
+		stats = renderer.getRenderStats();
+		assertThat( stats.getShapeCount( ShapeType.ELLIPSE ) ).isEqualTo( 2 );
+		assertThat( stats.getPathSegments() ).isGreaterThan( 2 * trianglePoints );
+	}
+
+	@Test
+	void testMarkersAndPointsRestoreFillRule() {
+		Pen pen = new Pen( Color.RED, 0.1 );
+		Marker triangle = new Marker( new Path( 0.5, 0 ).line( -0.25, 0.4 ).line( -0.25, -0.4 ).close() );
+		double[] points = new double[]{ 0, 0, 0.5, 0.5 };
+		renderer.setMarkerStampSize( 0 );
+
+		renderer.setFillPen( Color.BLUE );
+		renderer.fillPolygon( new double[]{ 0, 0, 1, 0, 1, 1 }, 0, 3 );
+		assertThat( renderer.getGraphicsContext2D().getFillRule() ).isEqualTo( FillRule.EVEN_ODD );
+
+		renderer.fillMarkers( triangle, points, null, null, 2, pen );
+		assertThat( renderer.getGraphicsContext2D().getFillRule() ).isEqualTo( FillRule.EVEN_ODD );
+
+		renderer.setDrawPen( pen );
+		renderer.drawPoints( points, 0, 2 );
+		assertThat( renderer.getGraphicsContext2D().getFillRule() ).isEqualTo( FillRule.EVEN_ODD );
+	}
+
+	@Test
+	void testDrawCollectionMatchesDrawEachShape() throws Exception {
+		FxTestUtil.assumeToolkit();
+		onFxThread( () -> {
+			List<Shape2d> shapes = createCollectionShapes();
+			Pen pen = new Pen( Color.RED, 0.02 );
+			FxRenderer2d each = createSnapshotRenderer( r -> shapes.forEach( shape -> r.draw( shape, pen ) ) );
+			FxRenderer2d batch = createSnapshotRenderer( r -> r.draw( shapes, pen ) );
+
+			WritableImage expected = snapshot( each );
+			assertThat( FxTestUtil.countPaintedPixels( expected ) ).isGreaterThan( 1000 );
+			assertThat( FxTestUtil.maxPixelDifference( snapshot( batch ), expected ) ).isLessThanOrEqualTo( 2 );
+			return null;
+		} );
+	}
+
+	@Test
+	void testDrawCollectionOfOverlappingShapes() throws Exception {
+		FxTestUtil.assumeToolkit();
+		onFxThread( () -> {
+			List<Shape2d> shapes = createOverlappingShapes();
+			Pen pen = new Pen( Color.RED, 0.02 );
+			FxRenderer2d each = createSnapshotRenderer( r -> shapes.forEach( shape -> r.draw( shape, pen ) ) );
+			FxRenderer2d batch = createSnapshotRenderer( r -> r.draw( shapes, pen ) );
+
+			// The path blends antialiased edges where strokes cross once instead
+			// of once per shape, so only the covered pixels must be the same
+			WritableImage expected = snapshot( each );
+			WritableImage actual = snapshot( batch );
+			assertThat( FxTestUtil.getPaintedBounds( actual ) ).isEqualTo( FxTestUtil.getPaintedBounds( expected ) );
+			assertThat( FxTestUtil.countPaintedPixels( actual ) ).isEqualTo( FxTestUtil.countPaintedPixels( expected ) );
+			return null;
+		} );
+	}
+
+	@Test
+	void testFillCollectionMatchesFillEachShape() throws Exception {
+		FxTestUtil.assumeToolkit();
+		onFxThread( () -> {
+			Pen pen = new Pen( Color.RED, 0.02 );
+			for( List<Shape2d> shapes : List.of( createCollectionShapes(), createOverlappingShapes() ) ) {
+				FxRenderer2d each = createSnapshotRenderer( r -> shapes.forEach( shape -> r.fill( shape, pen ) ) );
+				FxRenderer2d batch = createSnapshotRenderer( r -> r.fill( shapes, pen ) );
+				assertThat( FxTestUtil.maxPixelDifference( snapshot( batch ), snapshot( each ) ) ).isLessThanOrEqualTo( 2 );
+
+				// The overlapping ellipses are filled where they overlap
+				if( shapes.size() == 4 ) assertThat( snapshot( batch ).getPixelReader().getArgb( 150, 150 ) ).isEqualTo( 0xffff0000 );
+			}
+			return null;
+		} );
+	}
+
+	/**
+	 * Rotated and unrotated shapes of every type that can be drawn in a
+	 * collection. The shapes do not overlap.
+	 */
+	private static List<Shape2d> createCollectionShapes() {
+		List<Shape2d> shapes = new ArrayList<>();
+		shapes.add( new Line( -1.8, -1.8, -1.2, -1.4 ) );
+		shapes.add( new Line( -0.6, -1.8, 0, -1.4, 30 ) );
+		shapes.add( new Curve( new double[]{ 0.4, -1.8 }, new double[]{ 0.6, -1.3 }, new double[]{ 0.9, -1.8 }, new double[]{ 1.2, -1.4 }, 20 ) );
+		shapes.add( new Quad( new double[]{ -1.8, -0.3 }, new double[]{ -1.4, 0.3 }, new double[]{ -1.0, -0.3 }, -25 ) );
+		shapes.add( new Arc( 1.2, 0, 0.5, 0.3, 35, 20, 250 ) );
+		shapes.add( new Ellipse( -0.2, 0, 0.5, 0.25, 40 ) );
+		shapes.add( new Path( new double[]{ -1.6, 1.2 }, 15, false ).line( -1.2, 1.6 ).curve( -1.0, 1.4, -1.0, 1.0, -1.2, 0.8 ).quad( -1.6, 0.6, -1.8, 1.0 ).close() );
+		shapes.add( new Path( new double[]{ 0.6, 1.2 }, -50, false ).line( 0.6, 1.6 ).quad( 1.1, 1.7, 1.0, 1.4 ).close() );
+		return shapes;
+	}
+
+	/**
+	 * Two rotated ellipses that overlap at the world origin and two lines that
+	 * cross each other.
+	 */
+	private static List<Shape2d> createOverlappingShapes() {
+		List<Shape2d> shapes = new ArrayList<>();
+		shapes.add( new Ellipse( 0, 0, 0.6, 0.3, 40 ) );
+		shapes.add( new Ellipse( 0.2, 0, 0.6, 0.3, -40 ) );
+		shapes.add( new Line( -1.8, -1.3, -0.8, -1.3 ) );
+		shapes.add( new Line( -1.3, -1.8, -1.3, -0.8, 30 ) );
+		return shapes;
+	}
+
+	private static FxRenderer2d createSnapshotRenderer( Consumer<FxRenderer2d> painter ) {
+		FxRenderer2d renderer = new FxRenderer2d( 300, 300 );
+		renderer.setLengthUnit( RenderUnit.IN );
+		renderer.setPainter( painter );
+		renderer.render();
+		return renderer;
+	}
+
+	private static WritableImage snapshot( FxRenderer2d renderer ) {
+		SnapshotParameters parameters = new SnapshotParameters();
+		parameters.setFill( Color.TRANSPARENT );
+		return renderer.snapshot( parameters, null );
+	}
+
+	@Test
+	void testIndexWithoutVisibleBounds() {
+		ShapeIndex<Line> index = new ShapeIndex<>();
+		index.load( List.of( new Line( 0, 0, 1, 1 ), new Line( 100, 100, 101, 101 ) ) );
+		Pen pen = new Pen( Color.RED, 0.01 );
+		renderer.setRenderStats( true );
+		renderer.setPainter( r -> r.draw( index, pen ) );
+
+		// A zero zoom cannot be inverted so the visible area is not known
+		renderer.setZoom( 0, 0 );
+		assertThat( renderer.getVisibleBounds() ).isNull();
+		renderer.render();
+		assertThat( renderer.getRenderStats().getShapeCount( ShapeType.LINE ) ).isEqualTo( 2 );
+	}
+
+	@Test
+	void testFillSameShapesWithFlattenCurves() {
+		Pen pen = new Pen( Color.RED, 0.01 );
+		List<Shape2d> shapes = List.of( new Arc( 0, 0, 0.5, 0.5, 0, 0, 90 ), new Line( 0, 0, 1, 1 ), new Ellipse( 0, 0, 0.5, 0.5 ) );
+		renderer.setRenderStats( true );
+		renderer.setPainter( r -> {
+			shapes.forEach( shape -> r.fill( shape, pen ) );
+			r.fill( shapes, pen );
+		} );
+
+		for( boolean flatten : new boolean[]{ false, true } ) {
+			renderer.setFlattenCurves( flatten );
+			renderer.render();
+			RenderStats stats = renderer.getRenderStats();
+			assertThat( stats.getShapeCount( ShapeType.ARC ) ).isEqualTo( 0 );
+			assertThat( stats.getShapeCount( ShapeType.LINE ) ).isEqualTo( 0 );
+			assertThat( stats.getShapeCount( ShapeType.ELLIPSE ) ).isEqualTo( 2 );
+		}
+	}
+
+	@Test
+	void testPanWithoutPainter() {
+		renderer.pan( 1.25, -0.5 );
+		assertThat( renderer.getViewpointX() ).isEqualTo( 1.25 );
+		assertThat( renderer.getViewpointY() ).isEqualTo( -0.5 );
+	}
+
+	@Test
+	void testExposedRegions() {
+		// Pixels moving right and down expose the left and top edges
+		assertThat( FxRenderer2d.getExposedRegions( 100, 80, 10, 5 ) ).containsExactly( new Rectangle2D( 0, 0, 10, 80 ), new Rectangle2D( 10, 0, 90, 5 ) );
+
+		// Pixels moving left and up expose the right and bottom edges
+		assertThat( FxRenderer2d.getExposedRegions( 100, 80, -10, -5 ) ).containsExactly( new Rectangle2D( 90, 0, 10, 80 ), new Rectangle2D( 0, 75, 90, 5 ) );
+
+		assertThat( FxRenderer2d.getExposedRegions( 100, 80, 0, -5 ) ).containsExactly( new Rectangle2D( 0, 75, 100, 5 ) );
+		assertThat( FxRenderer2d.getExposedRegions( 100, 80, 0, 0 ) ).isEmpty();
+
+		// Nothing remains visible
+		assertThat( FxRenderer2d.getExposedRegions( 100, 80, 100, 0 ) ).isNull();
+		assertThat( FxRenderer2d.getExposedRegions( 100, 80, 0, -80 ) ).isNull();
+	}
+
+	@Test
+	void testInvalidateRegion() {
+		// One inch is 72 pixels and the world origin is at the center
+		renderer.invalidateRegion( new BoundingBox( 0, 0, 0.5, 0.25 ) );
+		assertThat( renderer.getDirtyRegions() ).containsExactly( new Rectangle2D( 71, 53, 38, 20 ) );
+
+		// Regions are clipped to the renderer
+		renderer.invalidateRegion( new BoundingBox( -10, -10, 1, 1 ) );
+		renderer.invalidateRegion( new BoundingBox( 0.75, -1, 10, 0.5 ), 0.125 );
+		assertThat( renderer.getDirtyRegions() ).containsExactly( new Rectangle2D( 71, 53, 38, 20 ), new Rectangle2D( 116, 98, 28, 46 ) );
+		assertThat( renderer.isDirty() ).isTrue();
+	}
+
+	@Test
+	void testViewStateChangeNotifiesOnce() {
+		List<ViewState> before = new ArrayList<>();
+		List<ViewState> after = new ArrayList<>();
+		renderer.viewStateProperty().addListener( ( p, o, n ) -> {
+			before.add( o );
+			after.add( n );
+		} );
+
+		// Listeners on the individual properties see the complete new view
+		List<Double> viewpoints = new ArrayList<>();
+		renderer.zoomXProperty().addListener( ( p, o, n ) -> viewpoints.add( renderer.getViewpointX() ) );
+
+		ViewState prior = renderer.getViewState();
+		renderer.setZoomAt( 1, 0, 2, 2 );
+
+		assertThat( before ).containsExactly( prior );
+		assertThat( after ).containsExactly( renderer.getViewState() );
+		assertThat( renderer.getViewState() ).isEqualTo( prior.withZoom( 2, 2 ).withViewpoint( 0.5, 0 ) );
+		assertThat( viewpoints ).containsExactly( 0.5 );
+		assertThat( renderer.localToParent( 1, 0 ) ).isEqualTo( new Point2D( 144, 72 ) );
+
+		// Setting the same view does not notify
+		renderer.setView( 0.5, 0, 0, 2, 2 );
+		assertThat( after ).hasSize( 1 );
+	}
+
+	@Test
+	void testViewPropertyUpdatesView() {
+		renderer.viewpointXProperty().set( 1 );
+		assertThat( renderer.getViewState().viewpointX() ).isEqualTo( 1 );
+		assertThat( renderer.localToParent( 1, 0 ) ).isEqualTo( new Point2D( 72, 72 ) );
+	}
+
+	private static void assertTransformIsCloseTo( Transform actual, Transform expected ) {
+		Offset<Double> tolerance = Offset.offset( 1e-10 );
+		assertThat( actual.getMxx() ).isCloseTo( expected.getMxx(), tolerance );
+		assertThat( actual.getMxy() ).isCloseTo( expected.getMxy(), tolerance );
+		assertThat( actual.getMyx() ).isCloseTo( expected.getMyx(), tolerance );
+		assertThat( actual.getMyy() ).isCloseTo( expected.getMyy(), tolerance );
+		assertThat( actual.getTx() ).isCloseTo( expected.getTx(), tolerance );
+		assertThat( actual.getTy() ).isCloseTo( expected.getTy(), tolerance );
+	}
+
 	private static Stream<Arguments> localToParent() {
 		double a = 21.08831175456858;
 		double b = 122.91168824543142;
@@ -0,0 +1,131 @@
+package com.avereon.marea.fx;
+
+import com.avereon.marea.Font;
+import com.avereon.marea.RenderUnit;
+import com.avereon.marea.test.FxTestUtil;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import org.junit.jupiter.api.Test;
+
+import static com.avereon.marea.test.FxTestUtil.onFxThread;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FxTextAtlasTest {
+
+	@Test
+	void testGetReusesEntries() throws Exception {
+		FxTestUtil.assumeText();
+		onFxThread( () -> {
+			FxTextAtlas atlas = new FxTextAtlas();
+			FxTextAtlas.Entry a = atlas.get( "PT-101", null, 12, Color.BLACK );
+			FxTextAtlas.Entry b = atlas.get( "PT-101", new Font(), 12, Color.BLACK );
+			FxTextAtlas.Entry c = atlas.get( "PT-101", null, 12, Color.RED );
+			FxTextAtlas.Entry d = atlas.get( "PT-101", null, 16, Color.BLACK );
+
+			assertThat( b ).isSameAs( a );
+			assertThat( c ).isNotSameAs( a );
+			assertThat( d ).isNotSameAs( a );
+			assertThat( d.height() ).isGreaterThan( a.height() );
+			assertThat( atlas.getEntryCount() ).isEqualTo( 3 );
+
+			// The entries do not overlap
+			assertThat( c.x() ).isGreaterThanOrEqualTo( a.x() + a.width() );
+			assertThat( a.originY() ).isGreaterThan( 0 ).isLessThan( a.height() );
+			return null;
+		} );
+	}
+
+	@Test
+	void testTextNotInAtlas() {
+		FxTextAtlas atlas = new FxTextAtlas( 256, 32 );
+		assertThat( atlas.get( "", null, 12, Color.BLACK ) ).isNull();
+		assertThat( atlas.get( "two\nlines", null, 12, Color.BLACK ) ).isNull();
+		assertThat( atlas.get( "large", null, 33, Color.BLACK ) ).isNull();
+		assertThat( atlas.get( "small", null, 0, Color.BLACK ) ).isNull();
+		assertThat( atlas.getEntryCount() ).isEqualTo( 0 );
+	}
+
+	@Test
+	void testTextTooWideForAtlas() throws Exception {
+		FxTestUtil.assumeText();
+		onFxThread( () -> {
+			FxTextAtlas atlas = new FxTextAtlas( 256, 32 );
+			assertThat( atlas.get( "This label is much too wide to fit in the atlas", null, 32, Color.BLACK ) ).isNull();
+			assertThat( atlas.getEntryCount() ).isEqualTo( 0 );
+			return null;
+		} );
+	}
+
+	@Test
+	void testResetWhenFull() throws Exception {
+		FxTestUtil.assumeText();
+		onFxThread( () -> {
+			FxTextAtlas atlas = new FxTextAtlas( 64, 16 );
+			for( int index = 0; index < 100; index++ ) {
+				assertThat( atlas.get( String.valueOf( index ), null, 16, Color.BLACK ) ).isNotNull();
+			}
+			assertThat( atlas.getResetCount() ).isGreaterThan( 0 );
+			assertThat( atlas.getEntryCount() ).isLessThan( 100 );
+			return null;
+		} );
+	}
+
+	@Test
+	void testFillTextFromAtlas() throws Exception {
+		FxTestUtil.assumeText();
+		onFxThread( () -> {
+			FxRenderer2d renderer = new FxRenderer2d( 200, 200 );
+			renderer.setTextAtlas( true );
+			renderer.setFillPen( Color.BLACK );
+			int count = FxTextAtlas.getShared().getEntryCount();
+
+			renderer.fillText( 0, 0, 0.5, 30, "Atlas text", null );
+			assertThat( FxTextAtlas.getShared().getEntryCount() ).isEqualTo( count + 1 );
+
+			renderer.fillText( 1, 1, 0.5, 45, "Atlas text", null );
+			assertThat( FxTextAtlas.getShared().getEntryCount() ).isEqualTo( count + 1 );
+			return null;
+		} );
+	}
+
+	@Test
+	void testAtlasTextMatchesDirectText() throws Exception {
+		FxTestUtil.assumeText();
+		onFxThread( () -> {
+			WritableImage direct = renderText( false );
+			WritableImage atlas = renderText( true );
+
+			// The same typeface and metrics cover the same pixels, give or take
+			// the rounding of the glyph positions
+			Rectangle2D directBounds = FxTestUtil.getPaintedBounds( direct );
+			Rectangle2D atlasBounds = FxTestUtil.getPaintedBounds( atlas );
+			assertThat( directBounds ).isNotNull();
+			assertThat( atlasBounds ).isNotNull();
+			assertThat( Math.abs( atlasBounds.getMinX() - directBounds.getMinX() ) ).isLessThanOrEqualTo( 1 );
+			assertThat( Math.abs( atlasBounds.getMinY() - directBounds.getMinY() ) ).isLessThanOrEqualTo( 1 );
+			assertThat( Math.abs( atlasBounds.getMaxX() - directBounds.getMaxX() ) ).isLessThanOrEqualTo( 1 );
+			assertThat( Math.abs( atlasBounds.getMaxY() - directBounds.getMaxY() ) ).isLessThanOrEqualTo( 1 );
+
+			int directCount = FxTestUtil.countPaintedPixels( direct );
+			assertThat( FxTestUtil.countPaintedPixels( atlas ) ).isBetween( (int)(0.9 * directCount), (int)(1.1 * directCount) );
+			return null;
+		} );
+	}
+
+	private static WritableImage renderText( boolean atlas ) {
+		// One world unit is 100 pixels, so the text is 20 pixels high
+		FxRenderer2d renderer = new FxRenderer2d( 300, 100 );
+		renderer.setLengthUnit( RenderUnit.IN );
+		renderer.setDpi( 100, 100 );
+		renderer.setTextAtlas( atlas );
+		renderer.setFillPen( Color.BLACK );
+		renderer.fillText( -1.2, -0.1, 0.2, 0, "Atlas PT-101", null );
+
+		SnapshotParameters parameters = new SnapshotParameters();
+		parameters.setFill( Color.TRANSPARENT );
+		return renderer.snapshot( parameters, null );
+	}
+
+}
@@ -0,0 +1,131 @@
+package com.avereon.marea.fx;
+
+import com.avereon.marea.Pen;
+import com.avereon.marea.geom.Ellipse;
+import com.avereon.marea.geom.Line;
+import com.avereon.marea.test.FxTestUtil;
+import javafx.geometry.BoundingBox;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import org.junit.jupiter.api.Test;
+
+import java.util.function.Consumer;
+
+import static com.avereon.marea.test.FxTestUtil.onFxThread;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class FxTileCacheTest {
+
+	@Test
+	void testCreate() {
+		FxTileCache cache = new FxTileCache( renderer -> {} );
+		assertThat( cache.getTileSize() ).isEqualTo( FxTileCache.DEFAULT_TILE_SIZE );
+		assertThat( cache.getMemoryBudget() ).isEqualTo( FxTileCache.DEFAULT_MEMORY_BUDGET );
+		assertThat( cache.getTileCount() ).isEqualTo( 0 );
+		assertThat( cache.getMemoryUsage() ).isEqualTo( 0 );
+		assertThat( cache.getRenderCount() ).isEqualTo( 0 );
+	}
+
+	@Test
+	void testInvalidTileSize() {
+		assertThatThrownBy( () -> new FxTileCache( renderer -> {}, 0, 1024 ) ).isInstanceOf( IllegalArgumentException.class );
+	}
+
+	@Test
+	void testTiledRenderMatchesDirectRender() throws Exception {
+		FxTestUtil.assumeToolkit();
+		onFxThread( () -> {
+			FxRenderer2d renderer = createRenderer();
+			renderer.render();
+			WritableImage direct = snapshot( renderer );
+			assertThat( FxTestUtil.countPaintedPixels( direct ) ).isGreaterThan( 100 );
+
+			renderer.setTiled( true );
+			renderer.render();
+			assertThat( renderer.getTileCache().getTileCount() ).isEqualTo( 4 );
+			assertThat( FxTestUtil.maxPixelDifference( snapshot( renderer ), direct ) ).isLessThanOrEqualTo( 2 );
+			return null;
+		} );
+	}
+
+	@Test
+	void testTilesAreReused() throws Exception {
+		FxTestUtil.assumeToolkit();
+		onFxThread( () -> {
+			FxRenderer2d renderer = createRenderer();
+			renderer.setTiled( true );
+			FxTileCache cache = renderer.getTileCache();
+
+			// The 300 by 200 view, centered on the world origin, covers 2 by 2 tiles
+			renderer.render();
+			assertThat( cache.getRenderCount() ).isEqualTo( 4 );
+
+			// The same view only copies the tiles
+			renderer.render();
+			assertThat( cache.getRenderCount() ).isEqualTo( 4 );
+
+			// Panning one tile to the right exposes one new column of tiles
+			renderer.pan( renderer.getViewpointX() + FxTileCache.DEFAULT_TILE_SIZE / renderer.getWorldToScreenTransform().getMxx(), renderer.getViewpointY() );
+			assertThat( cache.getRenderCount() ).isEqualTo( 6 );
+
+			// Returning to the first zoom level reuses the first tiles
+			renderer.setViewpoint( 0, 0 );
+			double zoom = renderer.getZoomX();
+			renderer.setZoom( 2 * zoom, 2 * zoom );
+			renderer.render();
+			long count = cache.getRenderCount();
+			renderer.setZoom( zoom, zoom );
+			renderer.render();
+			assertThat( cache.getRenderCount() ).isEqualTo( count );
+			return null;
+		} );
+	}
+
+	@Test
+	void testTilesAreInvalidated() throws Exception {
+		FxTestUtil.assumeToolkit();
+		onFxThread( () -> {
+			FxRenderer2d renderer = createRenderer();
+			renderer.setTiled( true );
+			FxTileCache cache = renderer.getTileCache();
+			renderer.render();
+			assertThat( cache.getTileCount() ).isEqualTo( 4 );
+
+			// A dirty region removes only the tiles that cover it
+			renderer.invalidateRegion( new BoundingBox( 0.1, 0.1, 0.1, 0.1 ) );
+			renderer.renderDirtyRegions();
+			assertThat( cache.getTileCount() ).isEqualTo( 3 );
+			renderer.render();
+			assertThat( cache.getRenderCount() ).isEqualTo( 5 );
+
+			// A new painter removes all the tiles
+			renderer.setPainter( r -> {} );
+			assertThat( cache.getTileCount() ).isEqualTo( 0 );
+
+			cache.invalidate();
+			assertThat( cache.getTileCount() ).isEqualTo( 0 );
+			return null;
+		} );
+	}
+
+	private static FxRenderer2d createRenderer() {
+		Pen pen = new Pen( Color.RED, 0.05 );
+		Consumer<FxRenderer2d> scene = r -> {
+			r.fill( new Ellipse( 0.2, 0.3, 0.6, 0.4 ), pen );
+			r.draw( new Line( -1, -0.8, 1.2, 0.9 ), pen );
+			r.draw( new Ellipse( -0.5, 0.2, 0.7, 0.5, 30 ), pen );
+		};
+		FxRenderer2d renderer = new FxRenderer2d( 300, 200 );
+		renderer.setPainter( scene );
+		return renderer;
+	}
+
+	private static WritableImage snapshot( FxRenderer2d renderer ) {
+		SnapshotParameters parameters = new SnapshotParameters();
+		parameters.setFill( Color.TRANSPARENT );
+		return renderer.snapshot( parameters, null );
+	}
+
+}
@@ -0,0 +1,121 @@
+package com.avereon.marea.geom;
+
+import com.avereon.marea.test.FxBoundsAssert;
+import javafx.geometry.BoundingBox;
+import org.assertj.core.data.Offset;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class FlatPathTest {
+
+	@Test
+	void testBucketTolerance() {
+		assertThat( FlatPath.getBucketTolerance( 1.0 ) ).isEqualTo( 1.0 );
+		assertThat( FlatPath.getBucketTolerance( 0.3 ) ).isEqualTo( 0.25 );
+		assertThat( FlatPath.getBucketTolerance( 0.25 ) ).isEqualTo( 0.25 );
+		assertThat( FlatPath.getBucketTolerance( 3 ) ).isEqualTo( 2.0 );
+		assertThatThrownBy( () -> FlatPath.getBucketTolerance( 0 ) ).isInstanceOf( IllegalArgumentException.class );
+	}
+
+	@Test
+	void testLine() {
+		FlatPath path = new Line( 1, 2, 3, 4 ).getFlatPath( 0.1 );
+		assertThat( path.getContourCount() ).isEqualTo( 1 );
+		assertThat( path.getPointCount() ).isEqualTo( 2 );
+		assertThat( path.isClosed( 0 ) ).isFalse();
+	}
+
+	@Test
+	void testEllipseIsWithinTolerance() {
+		double tolerance = 0.01;
+		FlatPath path = new Ellipse( 1, 2, 3, 2, 30 ).getFlatPath( tolerance );
+		assertThat( path.getContourCount() ).isEqualTo( 1 );
+		assertThat( path.isClosed( 0 ) ).isTrue();
+
+		// The segment midpoints are the furthest from the ellipse
+		double cos = Math.cos( Math.toRadians( -30 ) );
+		double sin = Math.sin( Math.toRadians( -30 ) );
+		for( int index = 1; index < path.getPointCount(); index++ ) {
+			double x = 0.5 * (path.getX( index - 1 ) + path.getX( index )) - 1;
+			double y = 0.5 * (path.getY( index - 1 ) + path.getY( index )) - 2;
+			double lx = (x * cos - y * sin) / 3;
+			double ly = (x * sin + y * cos) / 2;
+			double distance = (1 - Math.hypot( lx, ly )) * 2;
+			assertThat( distance ).isBetween( 0.0, tolerance );
+		}
+	}
+
+	@Test
+	void testCurveEndPoints() {
+		FlatPath path = new Curve( 0, 0, 1, 2, 2, 2, 3, 0 ).getFlatPath( 0.01 );
+		int last = path.getPointCount() - 1;
+		assertThat( path.getPointCount() ).isGreaterThan( 2 );
+		assertThat( path.getX( 0 ) ).isEqualTo( 0 );
+		assertThat( path.getY( 0 ) ).isEqualTo( 0 );
+		assertThat( path.getX( last ) ).isEqualTo( 3 );
+		assertThat( path.getY( last ) ).isEqualTo( 0 );
+	}
+
+	@Test
+	void testSmallerToleranceHasMorePoints() {
+		Quad quad = new Quad( 0, 0, 1, 2, 2, 0 );
+		assertThat( quad.getFlatPath( 0.001 ).getPointCount() ).isGreaterThan( quad.getFlatPath( 0.1 ).getPointCount() );
+	}
+
+	@Test
+	void testFlatPathIsCachedByBucket() {
+		Arc arc = new Arc( 0, 0, 1, 1, 0, 0, 90 );
+		FlatPath path = arc.getFlatPath( 0.3 );
+		assertThat( arc.getFlatPath( 0.26 ) ).isSameAs( path );
+		assertThat( arc.getFlatPath( 0.2 ) ).isNotSameAs( path );
+	}
+
+	@Test
+	void testPathChangeClearsFlatPath() {
+		Path path = new Path( 0, 0 ).line( 1, 0 );
+		FlatPath flat = path.getFlatPath( 0.1 );
+		path.line( 1, 1 );
+		assertThat( path.getFlatPath( 0.1 ) ).isNotSameAs( flat );
+		assertThat( path.getFlatPath( 0.1 ).getPointCount() ).isEqualTo( 3 );
+	}
+
+	@Test
+	void testPathContours() {
+		Path path = new Path( 0, 0 ).line( 4, 0 ).line( 4, 4 ).line( 0, 4 ).close();
+		path.move( 1, 1 ).line( 3, 1 ).line( 3, 3 ).line( 1, 3 ).close();
+		FlatPath flat = path.getFlatPath( 0.1 );
+
+		assertThat( flat.getContourCount() ).isEqualTo( 2 );
+		assertThat( flat.isClosed( 0 ) ).isTrue();
+		assertThat( flat.isClosed( 1 ) ).isTrue();
+		FxBoundsAssert.assertThat( flat.getBounds() ).isEqualTo( new BoundingBox( 0, 0, 4, 4 ) );
+
+		// Even-odd fill leaves a hole in the middle
+		assertThat( flat.contains( 0.5, 0.5 ) ).isTrue();
+		assertThat( flat.contains( 2, 2 ) ).isFalse();
+		assertThat( flat.contains( 5, 2 ) ).isFalse();
+	}
+
+	@Test
+	void testPathArc() {
+		// A half circle from (1,0) to (-1,0) through the top
+		Path path = new Path( 1, 0 ).arc( -1, 0, 1, 1, 0, 0, 1 );
+		FlatPath flat = path.getFlatPath( 0.001 );
+		FxBoundsAssert.assertThat( flat.getBounds() ).isEqualTo( new BoundingBox( -1, 0, 2, 1 ), Offset.offset( 0.001 ) );
+	}
+
+	@Test
+	void testIsNear() {
+		FlatPath flat = new Ellipse( 0, 0, 1, 1 ).getFlatPath( 0.001 );
+		assertThat( flat.isNear( 1.05, 0, 0.1 ) ).isTrue();
+		assertThat( flat.isNear( 0, 0, 0.1 ) ).isFalse();
+	}
+
+	@Test
+	void testTextIsEmpty() {
+		assertThat( new Text( "Text", 0, 0, 1 ).getFlatPath( 0.1 ).getPointCount() ).isEqualTo( 0 );
+	}
+
+}
@@ -0,0 +1,83 @@
+package com.avereon.marea.geom;
+
+import com.avereon.marea.ShapeType;
+import org.assertj.core.data.Offset;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class MarkerTest {
+
+	private static final Offset<Double> TOLERANCE = Offset.offset( 1e-9 );
+
+	@Test
+	void testRadius() {
+		assertThat( new Marker( new Ellipse( 0, 0, 3, 4 ) ).getRadius() ).isEqualTo( 5.0, TOLERANCE );
+		assertThat( new Marker( new Path( -1, -1 ).line( 1, 1 ) ).getRadius() ).isEqualTo( Math.sqrt( 2 ), TOLERANCE );
+	}
+
+	@Test
+	void testOnlyEllipsesAndPaths() {
+		assertThatThrownBy( () -> new Marker( new Line( 0, 0, 1, 1 ) ) ).isInstanceOf( IllegalArgumentException.class );
+	}
+
+	@Test
+	void testMarkerKeepsItsOwnGeometry() {
+		Path path = new Path( 0, 0 ).line( 1, 0 ).line( 0, 1 ).close();
+		Marker marker = new Marker( path );
+		int steps = path.getSteps().size();
+
+		// Changing the path does not change the marker
+		path.line( 5, 5 );
+		assertThat( marker.getShape() ).isNotSameAs( path );
+		assertThat( ((Path)marker.getShape()).getSteps() ).hasSize( steps );
+		assertThat( marker.getRadius() ).isEqualTo( Math.sqrt( 2 ), TOLERANCE );
+
+		// Changing the returned geometry does not change the marker
+		((Path)marker.getShape()).getSteps().clear();
+		assertThat( ((Path)marker.getShape()).getSteps() ).hasSize( steps );
+		assertThat( marker.getType() ).isEqualTo( ShapeType.PATH );
+	}
+
+	@Test
+	void testPlaceEllipse() {
+		Marker marker = new Marker( new Ellipse( 1, 0, 2, 1, 10 ) );
+		Ellipse ellipse = (Ellipse)marker.place( 3, 4, 30, 2 );
+
+		assertThat( ellipse.getAnchor()[ 0 ] ).isEqualTo( 3 + 2 * Math.cos( Math.toRadians( 30 ) ), TOLERANCE );
+		assertThat( ellipse.getAnchor()[ 1 ] ).isEqualTo( 4 + 2 * Math.sin( Math.toRadians( 30 ) ), TOLERANCE );
+		assertThat( ellipse.getRadius()[ 0 ] ).isEqualTo( 4.0, TOLERANCE );
+		assertThat( ellipse.getRadius()[ 1 ] ).isEqualTo( 2.0, TOLERANCE );
+		assertThat( ellipse.getRotate() ).isEqualTo( 40.0, TOLERANCE );
+	}
+
+	@Test
+	void testPlacePath() {
+		// A rotated triangle that does not have its anchor at the origin
+		Path triangle = new Path( new double[]{ 1, 0 }, 15 ).line( -0.5, 0.8 ).line( -0.5, -0.8 ).close();
+		Marker marker = new Marker( triangle );
+		double x = 10;
+		double y = 20;
+		double rotate = 60;
+		double scale = -1.5;
+
+		FlatPath expected = triangle.getFlatPath( 0.01 );
+		FlatPath placed = marker.place( x, y, rotate, scale ).getFlatPath( 0.01 );
+		assertThat( placed.getPointCount() ).isEqualTo( expected.getPointCount() );
+		assertThat( placed.isClosed( 0 ) ).isTrue();
+
+		double cos = scale * Math.cos( Math.toRadians( rotate ) );
+		double sin = scale * Math.sin( Math.toRadians( rotate ) );
+		for( int index = 0; index < expected.getPointCount(); index++ ) {
+			double px = expected.getX( index );
+			double py = expected.getY( index );
+			assertThat( placed.getX( index ) ).isEqualTo( x + cos * px - sin * py, TOLERANCE );
+			assertThat( placed.getY( index ) ).isEqualTo( y + sin * px + cos * py, TOLERANCE );
+		}
+
+		// The marker geometry is not changed
+		assertThat( triangle.getAnchor() ).containsExactly( 1, 0 );
+	}
+
+}
@@ -0,0 +1,99 @@
+package com.avereon.marea.geom;
+
+import com.avereon.marea.test.FxBoundsAssert;
+import javafx.geometry.BoundingBox;
+import org.assertj.core.data.Offset;
+import org.junit.jupiter.api.Test;
+
+import java.nio.DoubleBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PackedPathTest {
+
+	@Test
+	void testCreate() {
+		PackedPath path = new PackedPath();
+		assertThat( path.isEmpty() ).isTrue();
+		assertThat( path.size() ).isEqualTo( 0 );
+		assertThat( path.cursor().next() ).isFalse();
+	}
+
+	@Test
+	void testCommands() {
+		PackedPath path = new PackedPath( 1, 2 );
+		path.moveTo( 0, 0 ).lineTo( 1, 0 ).quadTo( 2, 0, 2, 1 ).curveTo( 2, 2, 1, 2, 0, 2 ).arcTo( 0, 1, 1, 1, 0, false, true ).close();
+
+		assertThat( path.size() ).isEqualTo( 6 );
+		assertThat( path.getCoordCount() ).isEqualTo( 2 + 2 + 4 + 6 + 7 );
+
+		PackedPath.Cursor cursor = path.cursor();
+		assertThat( cursor.next() ).isTrue();
+		assertThat( cursor.command() ).isEqualTo( Path.Command.MOVE );
+		assertThat( cursor.next() ).isTrue();
+		assertThat( cursor.command() ).isEqualTo( Path.Command.LINE );
+		assertThat( cursor.endX() ).isEqualTo( 1 );
+		assertThat( cursor.next() ).isTrue();
+		assertThat( cursor.command() ).isEqualTo( Path.Command.QUAD );
+		assertThat( cursor.endY() ).isEqualTo( 1 );
+		assertThat( cursor.next() ).isTrue();
+		assertThat( cursor.command() ).isEqualTo( Path.Command.CURVE );
+		assertThat( cursor.endX() ).isEqualTo( 0 );
+		assertThat( cursor.endY() ).isEqualTo( 2 );
+		assertThat( cursor.next() ).isTrue();
+		assertThat( cursor.command() ).isEqualTo( Path.Command.ARC );
+		assertThat( cursor.get( 6 ) ).isEqualTo( 1.0 );
+		assertThat( cursor.next() ).isTrue();
+		assertThat( cursor.command() ).isEqualTo( Path.Command.CLOSE );
+		assertThat( cursor.next() ).isFalse();
+
+		cursor.reset();
+		assertThat( cursor.next() ).isTrue();
+		assertThat( cursor.command() ).isEqualTo( Path.Command.MOVE );
+	}
+
+	@Test
+	void testBulkAppendFromArray() {
+		double[] points = new double[]{ -1, -1, 0, 0, 1, 0, 1, 1, 0, 1 };
+		PackedPath path = new PackedPath().polyline( points, 2, 4 );
+
+		assertThat( path.size() ).isEqualTo( 4 );
+		assertThat( path.getCommand( 0 ) ).isEqualTo( Path.Command.MOVE );
+		assertThat( path.getCommand( 3 ) ).isEqualTo( Path.Command.LINE );
+		FxBoundsAssert.assertThat( path.getBounds() ).isEqualTo( new BoundingBox( 0, 0, 1, 1 ) );
+	}
+
+	@Test
+	void testBulkAppendFromBuffer() {
+		DoubleBuffer buffer = DoubleBuffer.allocate( 2000 );
+		for( int index = 0; index < 1000; index++ ) buffer.put( index ).put( index % 2 );
+		buffer.flip();
+
+		PackedPath path = new PackedPath().polyline( buffer );
+		assertThat( buffer.hasRemaining() ).isFalse();
+		assertThat( path.size() ).isEqualTo( 1000 );
+		assertThat( path.getCoordCount() ).isEqualTo( 2000 );
+		FxBoundsAssert.assertThat( path.getBounds() ).isEqualTo( new BoundingBox( 0, 0, 999, 1 ) );
+	}
+
+	@Test
+	void testOfSteps() {
+		Path source = new Path( 0, 0 ).line( 1, 0 ).curve( 2, 0, 2, 1, 1, 1 ).arc( 0, 1, 0.5, 0.5, 0, 0, 1 ).close();
+		PackedPath path = PackedPath.of( source.getSteps() );
+
+		assertThat( path.size() ).isEqualTo( source.getSteps().size() );
+		FxBoundsAssert.assertThat( path.getBounds() ).isEqualTo( source.getBounds(), Offset.offset( 1e-12 ) );
+	}
+
+	@Test
+	void testCopy() {
+		PackedPath path = new PackedPath().moveTo( 0, 0 ).lineTo( 1, 1 );
+		PackedPath copy = new PackedPath( path );
+		path.clear();
+
+		assertThat( path.isEmpty() ).isTrue();
+		assertThat( copy.size() ).isEqualTo( 2 );
+		assertThat( copy.getCoords()[ 3 ] ).isEqualTo( 1 );
+	}
+
+}
@@ -0,0 +1,91 @@
+package com.avereon.marea.geom;
+
+import com.avereon.marea.test.FxBoundsAssert;
+import javafx.geometry.BoundingBox;
+import org.assertj.core.data.Offset;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ShapeBoundsTest {
+
+	private static final Offset<Double> TOLERANCE = Offset.offset( 1e-12 );
+
+	@Test
+	void testLineBounds() {
+		FxBoundsAssert.assertThat( new Line( 1, 2, 3, -1 ).getBounds() ).isEqualTo( new BoundingBox( 1, -1, 2, 3 ) );
+	}
+
+	@Test
+	void testRotatedLineBounds() {
+		FxBoundsAssert.assertThat( new Line( 1, 1, 3, 1, 90 ).getBounds() ).isEqualTo( new BoundingBox( 1, 1, 0, 2 ), TOLERANCE );
+	}
+
+	@Test
+	void testEllipseBounds() {
+		FxBoundsAssert.assertThat( new Ellipse( 1, 1, 2, 1 ).getBounds() ).isEqualTo( new BoundingBox( -1, 0, 4, 2 ), TOLERANCE );
+	}
+
+	@Test
+	void testRotatedEllipseBounds() {
+		FxBoundsAssert.assertThat( new Ellipse( 1, 1, 2, 1, 90 ).getBounds() ).isEqualTo( new BoundingBox( 0, -1, 2, 4 ), TOLERANCE );
+	}
+
+	@Test
+	void testArcBounds() {
+		// A quarter circle in the first quadrant
+		FxBoundsAssert.assertThat( new Arc( 0, 0, 1, 1, 0, 0, 90 ).getBounds() ).isEqualTo( new BoundingBox( 0, 0, 1, 1 ), TOLERANCE );
+
+		// A half circle through the top
+		FxBoundsAssert.assertThat( new Arc( 0, 0, 1, 1, 0, 45, 90 ).getBounds() ).isEqualTo( new BoundingBox( -Math.sqrt( 0.5 ), Math.sqrt( 0.5 ), Math.sqrt( 2 ), 1 - Math.sqrt( 0.5 ) ), TOLERANCE );
+
+		// A negative extent
+		FxBoundsAssert.assertThat( new Arc( 0, 0, 1, 1, 0, 0, -90 ).getBounds() ).isEqualTo( new BoundingBox( 0, -1, 1, 1 ), TOLERANCE );
+	}
+
+	@Test
+	void testCurveBounds() {
+		FxBoundsAssert.assertThat( new Curve( 0, 0, 0, 1, 1, 1, 1, 0 ).getBounds() ).isEqualTo( new BoundingBox( 0, 0, 1, 0.75 ), TOLERANCE );
+	}
+
+	@Test
+	void testQuadBounds() {
+		FxBoundsAssert.assertThat( new Quad( 0, 0, 1, 2, 2, 0 ).getBounds() ).isEqualTo( new BoundingBox( 0, 0, 2, 1 ), TOLERANCE );
+	}
+
+	@Test
+	void testPathBounds() {
+		Path path = new Path( 0, 0 ).line( 2, 0 ).quad( 3, 2, 2, 0 ).close();
+		FxBoundsAssert.assertThat( path.getBounds() ).isEqualTo( new BoundingBox( 0, 0, 2.5, 1 ), TOLERANCE );
+	}
+
+	@Test
+	void testPathBoundsAreUpdatedWhenStepsAreAdded() {
+		Path path = new Path( 0, 0 ).line( 1, 1 );
+		FxBoundsAssert.assertThat( path.getBounds() ).isEqualTo( new BoundingBox( 0, 0, 1, 1 ) );
+		path.line( 2, -1 );
+		FxBoundsAssert.assertThat( path.getBounds() ).isEqualTo( new BoundingBox( 0, -1, 2, 2 ) );
+	}
+
+	@Test
+	void testPathArcBounds() {
+		// A half circle from (1,0) to (-1,0) through the top
+		Path path = new Path( 1, 0 ).arc( -1, 0, 1, 1, 0, 0, 1 );
+		FxBoundsAssert.assertThat( path.getBounds() ).isEqualTo( new BoundingBox( -1, 0, 2, 1 ), TOLERANCE );
+	}
+
+	@Test
+	void testTextBoundsContainAnchor() {
+		Text text = new Text( "Marea", 1, 2, 0.5 );
+		assertThat( text.getBounds().contains( 1, 2 ) ).isTrue();
+		assertThat( text.getBounds().getWidth() ).isGreaterThan( 0 );
+		assertThat( text.getBounds().getHeight() ).isGreaterThan( 0.5 );
+	}
+
+	@Test
+	void testBoundsAreCached() {
+		Line line = new Line( 1, 2, 3, -1 );
+		assertThat( line.getBounds() ).isSameAs( line.getBounds() );
+	}
+
+}
@@ -0,0 +1,245 @@
+package com.avereon.marea.soft;
+
+import com.avereon.marea.LineCap;
+import com.avereon.marea.LineJoin;
+import com.avereon.marea.Pen;
+import com.avereon.marea.RenderUnit;
+import com.avereon.marea.geom.Ellipse;
+import com.avereon.marea.geom.Line;
+import com.avereon.marea.geom.PackedPath;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.FillRule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SoftRenderer2dTest {
+
+	private static final int RED = 0xffff0000;
+
+	private SoftRenderer2d renderer;
+
+	@BeforeEach
+	void setup() {
+		// One world unit is ten pixels and the world origin is at the center
+		renderer = new SoftRenderer2d( 100, 100 );
+		renderer.setLengthUnit( RenderUnit.IN );
+		renderer.setDpi( 10, 10 );
+	}
+
+	@Test
+	void testBuffer() {
+		assertThat( renderer.getPixelWidth() ).isEqualTo( 100 );
+		assertThat( renderer.getPixelHeight() ).isEqualTo( 100 );
+		assertThat( renderer.getPixels() ).hasSize( 100 * 100 ).containsOnly( 0 );
+
+		renderer.setSize( 20, 10 );
+		assertThat( renderer.getPixels() ).hasSize( 20 * 10 );
+	}
+
+	@Test
+	void testFillScreenBox() {
+		renderer.setFillPen( Color.RED );
+		renderer.fillScreenBox( 10, 20, 30, 40 );
+
+		assertThat( renderer.getPixel( 10, 20 ) ).isEqualTo( RED );
+		assertThat( renderer.getPixel( 39, 59 ) ).isEqualTo( RED );
+		assertThat( renderer.getPixel( 9, 20 ) ).isEqualTo( 0 );
+		assertThat( renderer.getPixel( 40, 20 ) ).isEqualTo( 0 );
+		assertThat( renderer.getPixel( 10, 60 ) ).isEqualTo( 0 );
+	}
+
+	@Test
+	void testRulesKeepDrawPen() {
+		renderer.setDrawPen( Color.RED, 1.0, LineCap.BUTT, LineJoin.MITER, null, 0 );
+		renderer.drawHRule( 20.5, new Pen( Color.BLUE, 5.0 ) );
+		renderer.drawVRule( 20.5, new Pen( Color.BLUE, 5.0 ) );
+		assertThat( renderer.getPixel( 50, 18 ) ).isEqualTo( 0xff0000ff );
+
+		// The draw pen is the same as before the rules
+		renderer.drawScreenHRule( 60.5 );
+		assertThat( renderer.getPixel( 50, 60 ) ).isEqualTo( RED );
+		assertThat( renderer.getPixel( 50, 58 ) ).isEqualTo( 0 );
+	}
+
+	@Test
+	void testZeroZoomHasNoVisibleBounds() {
+		renderer.setZoom( 0, 0 );
+		assertThat( renderer.getVisibleBounds() ).isNull();
+		assertThat( renderer.isVisible( new Line( 0, 0, 1, 1 ), 0 ) ).isTrue();
+	}
+
+	@Test
+	void testFillPartialCoverage() {
+		renderer.setFillPen( Color.RED );
+		renderer.fillScreenBox( 10.5, 10, 10, 10 );
+
+		// Half covered pixels are half transparent
+		assertThat( renderer.getPixel( 10, 15 ) >>> 24 ).isBetween( 126, 129 );
+		assertThat( renderer.getPixel( 15, 15 ) ).isEqualTo( RED );
+		assertThat( renderer.getPixel( 20, 15 ) >>> 24 ).isBetween( 126, 129 );
+	}
+
+	@Test
+	void testFillBoxUsesWorldCoordinates() {
+		renderer.setFillPen( Color.RED );
+		renderer.fillBox( 0, 0, 2, 1, 0 );
+
+		// World y is up so the box is above and to the right of the center
+		assertThat( renderer.getPixel( 55, 45 ) ).isEqualTo( RED );
+		assertThat( renderer.getPixel( 55, 55 ) ).isEqualTo( 0 );
+		assertThat( renderer.getPixel( 45, 45 ) ).isEqualTo( 0 );
+		assertThat( renderer.getPixel( 69, 41 ) ).isEqualTo( RED );
+		assertThat( renderer.getPixel( 70, 41 ) ).isEqualTo( 0 );
+	}
+
+	@Test
+	void testFillRules() {
+		// Two nested squares in the same direction
+		PackedPath path = new PackedPath();
+		path.moveTo( -4, -4 ).lineTo( 4, -4 ).lineTo( 4, 4 ).lineTo( -4, 4 ).close();
+		path.moveTo( -2, -2 ).lineTo( 2, -2 ).lineTo( 2, 2 ).lineTo( -2, 2 ).close();
+		renderer.setFillPen( Color.RED );
+
+		renderer.setFillRule( FillRule.EVEN_ODD );
+		renderer.fillPath( path );
+		assertThat( renderer.getPixel( 50, 50 ) ).isEqualTo( 0 );
+		assertThat( renderer.getPixel( 50, 13 ) ).isEqualTo( RED );
+
+		renderer.clear();
+		renderer.setFillRule( FillRule.NON_ZERO );
+		renderer.fillPath( path );
+		assertThat( renderer.getPixel( 50, 50 ) ).isEqualTo( RED );
+		assertThat( renderer.getPixel( 50, 13 ) ).isEqualTo( RED );
+	}
+
+	@Test
+	void testStrokeCaps() {
+		renderer.setDrawPen( Color.RED, 1, LineCap.BUTT, LineJoin.MITER, null, 0 );
+		renderer.drawLine( -2, 0, 2, 0 );
+		assertThat( renderer.getPixel( 50, 50 ) ).isEqualTo( RED );
+		assertThat( renderer.getPixel( 50, 44 ) ).isEqualTo( 0 );
+		assertThat( renderer.getPixel( 71, 50 ) ).isEqualTo( 0 );
+
+		renderer.clear();
+		renderer.setDrawPen( Color.RED, 1, LineCap.SQUARE, LineJoin.MITER, null, 0 );
+		renderer.drawLine( -2, 0, 2, 0 );
+		assertThat( renderer.getPixel( 73, 50 ) ).isEqualTo( RED );
+		assertThat( renderer.getPixel( 73, 46 ) ).isEqualTo( RED );
+
+		renderer.clear();
+		renderer.setDrawPen( Color.RED, 1, LineCap.ROUND, LineJoin.MITER, null, 0 );
+		renderer.drawLine( -2, 0, 2, 0 );
+		assertThat( renderer.getPixel( 73, 50 ) ).isEqualTo( RED );
+		assertThat( renderer.getPixel( 74, 46 ) ).isEqualTo( 0 );
+	}
+
+	@Test
+	void testBulkPrimitives() {
+		// The points start at offset two to check the offset is used
+		double[] square = new double[]{ 9, 9, -2, -2, 2, -2, 2, 2, -2, 2 };
+		renderer.setFillPen( Color.RED );
+		renderer.fillPolygon( square, 2, 4 );
+		assertThat( renderer.getPixel( 50, 50 ) ).isEqualTo( RED );
+		assertThat( renderer.getPixel( 50, 25 ) ).isEqualTo( 0 );
+
+		renderer.clear();
+		renderer.setDrawPen( Color.RED, 1, LineCap.BUTT, LineJoin.MITER, null, 0 );
+		renderer.drawPolyline( square, 2, 3 );
+		assertThat( renderer.getPixel( 50, 70 ) ).isEqualTo( RED );
+		assertThat( renderer.getPixel( 70, 50 ) ).isEqualTo( RED );
+		assertThat( renderer.getPixel( 50, 30 ) ).isEqualTo( 0 );
+
+		renderer.clear();
+		renderer.drawLines( square, 2, 4 );
+		assertThat( renderer.getPixel( 50, 70 ) ).isEqualTo( RED );
+		assertThat( renderer.getPixel( 70, 50 ) ).isEqualTo( 0 );
+		assertThat( renderer.getPixel( 50, 30 ) ).isEqualTo( RED );
+
+		renderer.clear();
+		renderer.setDrawPen( Color.RED, 1, LineCap.ROUND, LineJoin.ROUND, null, 0 );
+		renderer.drawPoints( square, 2, 4 );
+		assertThat( renderer.getPixel( 30, 70 ) ).isEqualTo( RED );
+		assertThat( renderer.getPixel( 70, 30 ) ).isEqualTo( RED );
+		assertThat( renderer.getPixel( 50, 50 ) ).isEqualTo( 0 );
+	}
+
+	@Test
+	void testPointsAreFilledCircles() {
+		double[] points = new double[]{ -2, 0, 2, 0 };
+		renderer.setFillPen( Color.BLUE );
+		renderer.setDrawPen( Color.RED, 2, LineCap.BUTT, LineJoin.MITER, null, 0 );
+		renderer.drawPoints( points, 0, 2 );
+
+		// The dots have the pen width as diameter, even with butt caps
+		assertThat( renderer.getPixel( 30, 50 ) ).isEqualTo( RED );
+		assertThat( renderer.getPixel( 30, 43 ) ).isEqualTo( RED );
+		assertThat( renderer.getPixel( 77, 50 ) ).isEqualTo( RED );
+		assertThat( renderer.getPixel( 30, 38 ) ).isEqualTo( 0 );
+		assertThat( renderer.getPixel( 50, 50 ) ).isEqualTo( 0 );
+
+		// The fill paint is restored
+		assertThat( renderer.getFillPaint() ).isEqualTo( Color.BLUE );
+		renderer.fillEllipse( 0, 0, 0.5, 0.5, 0 );
+		assertThat( renderer.getPixel( 50, 50 ) ).isEqualTo( 0xff0000ff );
+	}
+
+	@Test
+	void testStrokeJoins() {
+		PackedPath path = new PackedPath();
+		path.moveTo( -3, 0 ).lineTo( 0, 0 ).lineTo( 0, -3 );
+
+		// The outer corner is only covered by a miter join
+		renderer.setDrawPen( Color.RED, 1, LineCap.BUTT, LineJoin.MITER, null, 0 );
+		renderer.drawPath( path );
+		assertThat( renderer.getPixel( 54, 46 ) ).isEqualTo( RED );
+
+		renderer.clear();
+		renderer.setDrawPen( Color.RED, 1, LineCap.BUTT, LineJoin.BEVEL, null, 0 );
+		renderer.drawPath( path );
+		assertThat( renderer.getPixel( 54, 46 ) ).isEqualTo( 0 );
+		assertThat( renderer.getPixel( 50, 50 ) ).isEqualTo( RED );
+	}
+
+	@Test
+	void testDashes() {
+		renderer.setDrawPen( Color.RED, 0.5, LineCap.BUTT, LineJoin.MITER, new double[]{ 1, 1 }, 0 );
+		renderer.drawLine( 0, 0, 4, 0 );
+
+		// Dashes are ten pixels long with ten pixel gaps
+		assertThat( renderer.getPixel( 55, 50 ) ).isEqualTo( RED );
+		assertThat( renderer.getPixel( 65, 50 ) ).isEqualTo( 0 );
+		assertThat( renderer.getPixel( 75, 50 ) ).isEqualTo( RED );
+		assertThat( renderer.getPixel( 85, 50 ) ).isEqualTo( 0 );
+	}
+
+	@Test
+	void testStrokeDoesNotDarkenOverlaps() {
+		// Overlapping pieces of a stroke are filled once
+		renderer.setDrawPen( Color.RED.deriveColor( 0, 1, 1, 0.5 ), 1, LineCap.ROUND, LineJoin.ROUND, null, 0 );
+		renderer.drawLine( -2, 0, 2, 0 );
+		assertThat( renderer.getPixel( 50, 50 ) ).isEqualTo( renderer.getPixel( 60, 50 ) );
+		assertThat( renderer.getPixel( 70, 50 ) ).isEqualTo( renderer.getPixel( 60, 50 ) );
+	}
+
+	@Test
+	void testShapes() {
+		Pen pen = new Pen( Color.RED, 0.5 );
+		renderer.draw( new Line( -4, 2, 4, 2 ), pen );
+		renderer.fill( new Ellipse( 0, -2, 1, 1 ), pen );
+
+		assertThat( renderer.getPixel( 50, 30 ) ).isEqualTo( RED );
+		assertThat( renderer.getPixel( 50, 70 ) ).isEqualTo( RED );
+		assertThat( renderer.getPixel( 50, 50 ) ).isEqualTo( 0 );
+	}
+
+	@Test
+	void testBlend() {
+		int half = 0x80 << 24 | 0x0000ff;
+		assertThat( Rasterizer.blend( 0, 0x00ff00, 0x80 ) ).isEqualTo( 0x8000ff00 );
+		assertThat( Rasterizer.blend( 0xffffffff, 0x000000, 255 ) ).isEqualTo( 0xff000000 );
+		assertThat( Rasterizer.blend( half, 0xff0000, 0 ) ).isEqualTo( half );
+	}
+
+}
@@ -0,0 +1,86 @@
+package com.avereon.marea.soft;
+
+import com.avereon.marea.LineCap;
+import com.avereon.marea.LineJoin;
+import com.avereon.marea.RenderUnit;
+import javafx.scene.paint.Color;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TiledSoftRenderer2dTest {
+
+	@Test
+	void testMatchesSoftRenderer() {
+		SoftRenderer2d expected = new SoftRenderer2d( 200, 150 );
+		draw( expected );
+		assertThat( Arrays.stream( expected.getPixels() ).filter( p -> p != 0 ).count() ).isGreaterThan( 1000 );
+
+		ForkJoinPool single = new ForkJoinPool( 1 );
+		ForkJoinPool multiple = new ForkJoinPool( 4 );
+		try {
+			TiledSoftRenderer2d a = new TiledSoftRenderer2d( 200, 150, 16, single );
+			TiledSoftRenderer2d b = new TiledSoftRenderer2d( 200, 150, 37, multiple );
+			draw( a );
+			draw( b );
+
+			assertThat( a.getPixels() ).isEqualTo( expected.getPixels() );
+			assertThat( b.getPixels() ).isEqualTo( expected.getPixels() );
+		} finally {
+			single.shutdown();
+			multiple.shutdown();
+		}
+	}
+
+	@Test
+	void testFlush() {
+		TiledSoftRenderer2d renderer = new TiledSoftRenderer2d( 100, 100 );
+		renderer.setFillPen( Color.RED );
+		renderer.fillScreenBox( 10, 10, 20, 20 );
+		renderer.fillScreenBox( 200, 200, 20, 20 );
+
+		// Polygons outside the target are not recorded
+		assertThat( renderer.getPendingCount() ).isEqualTo( 1 );
+		assertThat( renderer.getPixel( 15, 15 ) ).isEqualTo( 0xffff0000 );
+		assertThat( renderer.getPendingCount() ).isEqualTo( 0 );
+
+		renderer.fillScreenBox( 40, 40, 20, 20 );
+		renderer.clear();
+		assertThat( renderer.getPendingCount() ).isEqualTo( 0 );
+		assertThat( renderer.getPixels() ).containsOnly( 0 );
+	}
+
+	@Test
+	void testResizeWithPendingPolygons() {
+		TiledSoftRenderer2d renderer = new TiledSoftRenderer2d( 100, 100, 16, ForkJoinPool.commonPool() );
+		renderer.setFillPen( Color.RED );
+		renderer.fillScreenBox( 80, 80, 20, 20 );
+
+		// The pending polygons are drawn before the pixel buffer changes size
+		renderer.setSize( 50, 50 );
+		assertThat( renderer.getPendingCount() ).isEqualTo( 0 );
+		assertThat( renderer.getPixels() ).hasSize( 50 * 50 ).containsOnly( 0 );
+
+		renderer.fillScreenBox( 40, 40, 20, 20 );
+		assertThat( renderer.getPixel( 45, 45 ) ).isEqualTo( 0xffff0000 );
+	}
+
+	private void draw( SoftRenderer2d renderer ) {
+		renderer.setLengthUnit( RenderUnit.IN );
+		renderer.setDpi( 10, 10 );
+		renderer.setView( 1, 1, 15, 1.5, 1.5 );
+
+		// Overlapping translucent shapes make the result depend on the draw order
+		renderer.setFillPen( Color.BLUE.deriveColor( 0, 1, 1, 0.5 ) );
+		renderer.fillEllipse( 0, 0, 5, 3, 30 );
+		renderer.setDrawPen( Color.RED.deriveColor( 0, 1, 1, 0.7 ), 0.4, LineCap.ROUND, LineJoin.MITER, new double[]{ 1, 0.5 }, 0.2 );
+		renderer.drawCubic( -6, -4, -2, 6, 2, -6, 6, 4 );
+		renderer.drawArc( 1, 1, 4, 2, 10, 20, 250 );
+		renderer.setFillPen( Color.GREEN.deriveColor( 0, 1, 1, 0.6 ) );
+		renderer.fillBox( -3, -2, 4, 3, 45 );
+	}
+
+}
@@ -0,0 +1,169 @@
+package com.avereon.marea.test;
+
+import javafx.application.Platform;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelReader;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Utilities for tests that need the JavaFX toolkit, like tests that take
+ * snapshots of a renderer. The toolkit is started once for all the tests. If
+ * the toolkit cannot be started, for example on a build machine without a
+ * display or the Monocle headless platform, the tests are skipped.
+ */
+public class FxTestUtil {
+
+	private static final long TIMEOUT = 10;
+
+	private static Boolean started;
+
+	private static Boolean text;
+
+	/**
+	 * Start the JavaFX toolkit if it is not already started. The calling test
+	 * is skipped if the toolkit is not available.
+	 */
+	public static synchronized void assumeToolkit() {
+		if( started == null ) {
+			try {
+				CountDownLatch latch = new CountDownLatch( 1 );
+				Platform.startup( latch::countDown );
+				started = latch.await( TIMEOUT, TimeUnit.SECONDS );
+			} catch( IllegalStateException exception ) {
+				// The toolkit is already started
+				started = true;
+			} catch( Throwable throwable ) {
+				started = false;
+			}
+		}
+		assumeTrue( started, "The JavaFX toolkit is not available" );
+	}
+
+	/**
+	 * Start the JavaFX toolkit and check that text can be laid out, which also
+	 * needs the platform font libraries. The calling test is skipped if text is
+	 * not available.
+	 */
+	public static synchronized void assumeText() throws Exception {
+		assumeToolkit();
+		if( text == null ) {
+			text = onFxThread( () -> {
+				try {
+					return new javafx.scene.text.Text( "Text" ).getLayoutBounds().getWidth() > 0;
+				} catch( Throwable throwable ) {
+					return false;
+				}
+			} );
+		}
+		assumeTrue( text, "JavaFX text is not available" );
+	}
+
+	/**
+	 * Run the task on the FX application thread and wait for the result.
+	 *
+	 * @param task The task to run
+	 * @param <T> The result type
+	 * @return The task result
+	 */
+	public static <T> T onFxThread( Callable<T> task ) throws Exception {
+		if( Platform.isFxApplicationThread() ) return task.call();
+
+		AtomicReference<T> result = new AtomicReference<>();
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		CountDownLatch latch = new CountDownLatch( 1 );
+		Platform.runLater( () -> {
+			try {
+				result.set( task.call() );
+			} catch( Throwable throwable ) {
+				// Assertion errors must also fail the calling test
+				failure.set( throwable );
+			} finally {
+				latch.countDown();
+			}
+		} );
+		if( !latch.await( TIMEOUT, TimeUnit.SECONDS ) ) throw new IllegalStateException( "Timeout waiting for the FX application thread" );
+
+		Throwable throwable = failure.get();
+		if( throwable instanceof Exception exception ) throw exception;
+		if( throwable instanceof Error error ) throw error;
+		if( throwable != null ) throw new RuntimeException( throwable );
+		return result.get();
+	}
+
+	/**
+	 * Get the largest difference of any color channel, from 0 to 255, between
+	 * the pixels of two images of the same size.
+	 *
+	 * @param a The first image
+	 * @param b The second image
+	 * @return The largest channel difference
+	 */
+	public static int maxPixelDifference( Image a, Image b ) {
+		int width = (int)a.getWidth();
+		int height = (int)a.getHeight();
+		if( width != (int)b.getWidth() || height != (int)b.getHeight() ) return 255;
+
+		PixelReader readerA = a.getPixelReader();
+		PixelReader readerB = b.getPixelReader();
+		int max = 0;
+		for( int y = 0; y < height; y++ ) {
+			for( int x = 0; x < width; x++ ) {
+				int argbA = readerA.getArgb( x, y );
+				int argbB = readerB.getArgb( x, y );
+				for( int shift = 0; shift < 32; shift += 8 ) {
+					max = Math.max( max, Math.abs( ((argbA >> shift) & 0xff) - ((argbB >> shift) & 0xff) ) );
+				}
+			}
+		}
+		return max;
+	}
+
+	/**
+	 * Get the bounds of the pixels that are not fully transparent.
+	 *
+	 * @param image The image
+	 * @return The pixel bounds, or null if no pixels are painted
+	 */
+	public static Rectangle2D getPaintedBounds( Image image ) {
+		PixelReader reader = image.getPixelReader();
+		int minX = Integer.MAX_VALUE;
+		int minY = Integer.MAX_VALUE;
+		int maxX = -1;
+		int maxY = -1;
+		for( int y = 0; y < (int)image.getHeight(); y++ ) {
+			for( int x = 0; x < (int)image.getWidth(); x++ ) {
+				if( (reader.getArgb( x, y ) >>> 24) == 0 ) continue;
+				minX = Math.min( minX, x );
+				minY = Math.min( minY, y );
+				maxX = Math.max( maxX, x );
+				maxY = Math.max( maxY, y );
+			}
+		}
+		return maxX < 0 ? null : new Rectangle2D( minX, minY, maxX - minX + 1, maxY - minY + 1 );
+	}
+
+	/**
+	 * Count the pixels that are not fully transparent.
+	 *
+	 * @param image The image
+	 * @return The number of pixels with some coverage
+	 */
+	public static int countPaintedPixels( Image image ) {
+		PixelReader reader = image.getPixelReader();
+		int count = 0;
+		for( int y = 0; y < (int)image.getHeight(); y++ ) {
+			for( int x = 0; x < (int)image.getWidth(); x++ ) {
+				if( (reader.getArgb( x, y ) >>> 24) != 0 ) count++;
+			}
+		}
+		return count;
+	}
+
+}